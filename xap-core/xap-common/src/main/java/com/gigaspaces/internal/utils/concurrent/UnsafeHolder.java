@@ -21,6 +21,8 @@ import org.slf4j.LoggerFactory;
 import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 /**
  * @author kimchy
@@ -34,6 +36,11 @@ public class UnsafeHolder {
 
     public static final long BYTE_ARR_OFF = _unsafe != null ? _unsafe.arrayBaseOffset(byte[].class) : 0;
 
+    // Unsafe.invokeCleaner(ByteBuffer) on Java 9+, looked up reflectively to compile with Java 8
+    private static final Method _invokeCleaner = initMethod(Unsafe.class, "invokeCleaner", ByteBuffer.class);
+    // DirectBuffer.cleaner() on Java 8, where the cleaner is a public sun.misc.Cleaner
+    private static final Method _directBufferCleaner = _invokeCleaner != null ? null : initMethod("sun.nio.ch.DirectBuffer", "cleaner");
+
     private static Unsafe initUnsafe() {
         try {
             Field field = Unsafe.class.getDeclaredField("theUnsafe");
@@ -45,6 +52,22 @@ public class UnsafeHolder {
         }
     }
 
+    private static Method initMethod(String className, String name, Class<?>... parameterTypes) {
+        try {
+            return initMethod(Class.forName(className), name, parameterTypes);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static Method initMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
     public static boolean isAvailable() {
         return _unsafe != null;
     }
@@ -80,4 +103,46 @@ public class UnsafeHolder {
     public static int getByte(long address) {
         return _unsafe.getByte(address);
     }
+
+    public static void putLong(long address, long value) {
+        _unsafe.putLong(address, value);
+    }
+
+    public static long getLong(long address) {
+        return _unsafe.getLong(address);
+    }
+
+    public static void setMemory(long address, long bytes, byte value) {
+        _unsafe.setMemory(address, bytes, value);
+    }
+
+    /**
+     * Releases the memory of a direct or mapped buffer now instead of once the buffer is garbage
+     * collected. The buffer, and any view of it, must not be accessed afterwards.
+     *
+     * @param buffer a direct buffer which is not a slice or duplicate of another buffer
+     * @return true if the memory was released, false if this JVM does not support it, in which case
+     * it is released once the buffer is garbage collected
+     * @since 16.4.0
+     */
+    public static boolean invokeCleaner(ByteBuffer buffer) {
+        if (!buffer.isDirect())
+            return false;
+        try {
+            if (_invokeCleaner != null) {
+                _invokeCleaner.invoke(_unsafe, buffer);
+                return true;
+            }
+            if (_directBufferCleaner != null) {
+                Object cleaner = _directBufferCleaner.invoke(buffer);
+                if (cleaner == null)
+                    return false;
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+                return true;
+            }
+        } catch (Throwable e) {
+            logger.debug("Fail to release direct buffer memory.", e);
+        }
+        return false;
+    }
 }
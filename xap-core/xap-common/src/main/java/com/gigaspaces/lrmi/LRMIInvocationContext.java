@@ -88,11 +88,13 @@ public class LRMIInvocationContext {
     private boolean _livenessPriorityEnabled;
     private boolean _customPriorityEnabled;
     private boolean _directPriorityEnabled;
+    private OperationClass _operationClass;
 
     private boolean _callbackMethodInNextInvocation;
     private boolean _livenessPriorityEnabledInNextInvocation;
     private boolean _customPriorityEnabledInNextInvocation;
     private boolean _directPriorityEnabledInNextInvocation;
+    private OperationClass _operationClassInNextInvocation;
     private InetSocketAddress _clientEndPointAddress;
 
     public void setTrace(LRMIInvocationTrace trace) {
@@ -203,6 +205,7 @@ public class LRMIInvocationContext {
         _livenessPriorityEnabledInNextInvocation = false;
         _customPriorityEnabledInNextInvocation = false;
         _directPriorityEnabledInNextInvocation = false;
+        _operationClassInNextInvocation = null;
         _callbackMethodInNextInvocation = false;
     }
 
@@ -217,6 +220,7 @@ public class LRMIInvocationContext {
         _livenessPriorityEnabled = false;
         _customPriorityEnabled = false;
         _directPriorityEnabled = false;
+        _operationClass = null;
         _clientEndPointAddress = null;
         resetNextInvocationState();
     }
@@ -293,6 +297,8 @@ public class LRMIInvocationContext {
                 actualContext.setCustomPriorityEnabled(true);
             if (invocationContext._directPriorityEnabledInNextInvocation)
                 actualContext.setDirectPriorityEnabled(true);
+            if (invocationContext._operationClassInNextInvocation != null)
+                actualContext.setOperationClass(invocationContext._operationClassInNextInvocation);
             if (invocationContext._callbackMethodInNextInvocation)
                 actualContext.setCallbackMethod(true);
         }
@@ -327,6 +333,13 @@ public class LRMIInvocationContext {
         getCurrentContext()._directPriorityEnabledInNextInvocation = true;
     }
 
+    /**
+     * @since 16.4.0
+     */
+    public static void setOperationClassForNextInvocation(OperationClass operationClass) {
+        getCurrentContext()._operationClassInNextInvocation = operationClass;
+    }
+
     public static void enableCallbackModeForNextInvocation() {
         getCurrentContext()._callbackMethodInNextInvocation = true;
     }
@@ -372,6 +385,17 @@ public class LRMIInvocationContext {
         return _directPriorityEnabled;
     }
 
+    public void setOperationClass(OperationClass operationClass) {
+        _operationClass = operationClass;
+    }
+
+    /**
+     * @since 16.4.0
+     */
+    public OperationClass getOperationClass() {
+        return _operationClass != null ? _operationClass : OperationClass.DEFAULT;
+    }
+
     public static InetSocketAddress getEndpointAddress() {
         LRMIInvocationContext currentContext = getCurrentContext();
         if (currentContext == null || currentContext.isEmpty())
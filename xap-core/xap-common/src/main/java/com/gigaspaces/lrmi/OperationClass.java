@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.lrmi;
+
+/**
+ * Classifies regular priority invocations, so that a server which schedules incoming requests can
+ * keep a flood of one class (e.g. large scans) from starving the others.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public enum OperationClass {
+    /**
+     * Short operations, such as reading or writing a single entry by its id.
+     */
+    DEFAULT,
+    /**
+     * Operations on many entries, such as scans, batch operations and aggregations.
+     */
+    BULK,
+    /**
+     * Replication between space instances.
+     */
+    REPLICATION;
+
+    private static final OperationClass[] VALUES = values();
+
+    public static OperationClass fromCode(byte code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : DEFAULT;
+    }
+
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+}
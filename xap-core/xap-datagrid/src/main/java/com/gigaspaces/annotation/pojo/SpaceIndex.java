@@ -17,6 +17,7 @@
 
 package com.gigaspaces.annotation.pojo;
 
+import com.gigaspaces.metadata.index.OrderedIndexStore;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 
 import java.lang.annotation.Repeatable;
@@ -79,5 +80,31 @@ public @interface SpaceIndex {
      */
     boolean unique() default false;
 
+    /**
+     * Indicates if the index should be stored outside of the Java heap. Applies to equality indexes
+     * of integral properties (long, int, short, byte, char and their wrappers), other indexes are
+     * kept on heap. default is false
+     *
+     * @since 16.4.0
+     */
+    boolean offHeap() default false;
+
+    /**
+     * The data structure backing an ordered index - default is a skip list. {@link
+     * OrderedIndexStore#BTREE} applies to integral properties, other properties keep the default.
+     *
+     * @since 16.4.0
+     */
+    OrderedIndexStore orderedStore() default OrderedIndexStore.SKIP_LIST;
+
+    /**
+     * Indicates if a compressed bitmap of the entries of each value should be kept for the index, so
+     * AND/OR conditions on several bitmap indexes are resolved by bitmap operations before any entry
+     * is visited. Suited to equality indexes of low-cardinality properties, unique and collection
+     * indexes ignore it. default is false
+     *
+     * @since 16.4.0
+     */
+    boolean bitmap() default false;
 
 }
@@ -111,5 +111,11 @@ public interface ITransportConfig {
      */
     int getThreadsQueueSize();
 
+    /**
+     * @return true if connections between processes of the same host use unix domain sockets
+     * @since 16.4.0
+     */
+    boolean isUnixDomainSockets();
+
     ITransportConfig clone();
 }
\ No newline at end of file
@@ -125,6 +125,9 @@ public class NIOConfiguration implements ITransportConfig, Cloneable, SmartExter
     private transient int _customMinThreads = SystemProperties.LRMI_CUSTOM_MIN_THREADS_DEFAULT;
     private transient int _customMaxThreads = SystemProperties.LRMI_CUSTOM_MAX_THREADS_DEFAULT;
 
+    private transient boolean _unixDomainSockets = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_UNIX_DOMAIN_SOCKETS,
+            SystemProperties.LRMI_UNIX_DOMAIN_SOCKETS_DEFAULT));
+
     private boolean _protocolValidationEnabled;
 
     private interface BitMap {
@@ -730,6 +733,17 @@ public class NIOConfiguration implements ITransportConfig, Cloneable, SmartExter
         return _protocolValidationEnabled;
     }
 
+    public boolean isUnixDomainSockets() {
+        return _unixDomainSockets;
+    }
+
+    /**
+     * @since 16.4.0
+     */
+    public void setUnixDomainSockets(boolean unixDomainSockets) {
+        _unixDomainSockets = unixDomainSockets;
+    }
+
 
     @Override
     public String toString() {
@@ -764,6 +778,7 @@ public class NIOConfiguration implements ITransportConfig, Cloneable, SmartExter
         sb.append(", _customMinThreads=").append(_customMinThreads);
         sb.append(", _customMaxThreads=").append(_customMaxThreads);
         sb.append(", _protocolValidationEnabled=").append(_protocolValidationEnabled);
+        sb.append(", _unixDomainSockets=").append(_unixDomainSockets);
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.exception.lrmi;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown when an overloaded server rejects a request which waited too long to be processed,
+ * without processing it. The request can be retried.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class RequestRejectedException extends RemoteException {
+
+    private static final long serialVersionUID = 1;
+
+    public RequestRejectedException(String s) {
+        super(s);
+    }
+}
@@ -104,7 +104,7 @@ public class TypeDescFactory {
                 typeInfo.isReplicate(), supportsOptimisticLocking, defaultStorageType,
                 EntryType.OBJECT_JAVA, type, ExternalEntry.class, SpaceDocument.class, null, DotNetStorageType.NULL,
                 blobstoreEnabled, sequenceNumberPropertyName, queryExtensionsInfo, typeInfo.getSpaceClassStorageAdapter(),
-                broadcast, typeInfo.getTieredStorageTableConfig(), typeInfo.hasRoutingAnnotation());
+                broadcast, typeInfo.getTieredStorageTableConfig(), typeInfo.hasRoutingAnnotation(), false);
 
         if (typeDesc.isExternalizable() && shouldWarnExternalizable(typeInfo) && _deprecationLogger.isWarnEnabled())
             _deprecationLogger.warn("Current class [" + type.getName() + "] implements " + Externalizable.class + ", usage of Externalizable in order to serialize it to a space is deprecated, Use SpaceExclude, StorageType and nested object serialization where relevant instead."
@@ -213,7 +213,7 @@ public class TypeDescFactory {
                 properties, supportsDynamicProperties, indexes, idPropertiesNames, idAutoGenerate, defaultPropertyName,
                 externalEntry.getRoutingFieldName(), null, null, isSystemType, fifoMode, externalEntry.isReplicatable(),
                 true, _storageType, EntryType.EXTERNAL_ENTRY, null, externalEntry.getClass(), SpaceDocument.class, null,
-                DotNetStorageType.NULL, PojoDefaults.BLOBSTORE_ENABLED, null, null, null, PojoDefaults.BROADCAST, null, false);
+                DotNetStorageType.NULL, PojoDefaults.BLOBSTORE_ENABLED, null, null, null, PojoDefaults.BROADCAST, null, false, false);
     }
 
     public static ITypeDesc createPbsTypeDesc(EntryType entryType, String className, String codeBase, String[] superClassesNames,
@@ -249,7 +249,7 @@ public class TypeDescFactory {
                 properties, supportsDynamicProperties, indexes, idPropertiesNames, idAutoGenerate, defaultPropertyName, routingPropertyName,
                 null, null, isSystemType, fifoMode, isReplicable, supportsOptimisticLocking, StorageType.OBJECT,
                 entryType, null, ExternalEntry.class, SpaceDocument.class, null, DotNetStorageType.NULL,
-                blobstoreEnabled, null, null, null, PojoDefaults.BROADCAST, null, false);
+                blobstoreEnabled, null, null, null, PojoDefaults.BROADCAST, null, false, false);
     }
 
     public static ITypeDesc createPbsExplicitTypeDesc(EntryType entryType, String className, String[] superClassesNames,
@@ -267,7 +267,7 @@ public class TypeDescFactory {
                 properties, supportsDynamicProperties, indexes, idPropertiesNames, idAutoGenerate, defaultPropertyName, routingPropertyName,
                 fifoGroupingPropertyPath, fifoGroupingIndexPaths, isSystemType, fifoMode, isReplicable, supportsOptimisticLocking, StorageType.OBJECT,
                 entryType, null, ExternalEntry.class, SpaceDocument.class, documentWrapperType,
-                dynamicPropertiesStorageType, blobstoreEnabled, null, null, null, PojoDefaults.BROADCAST, null, false);
+                dynamicPropertiesStorageType, blobstoreEnabled, null, null, null, PojoDefaults.BROADCAST, null, false, false);
     }
 
     private String getEntryIndices(Class<?> realClass, String[] fieldsNames, String[] fieldTypes, SpaceIndexType[] indexTypes) {
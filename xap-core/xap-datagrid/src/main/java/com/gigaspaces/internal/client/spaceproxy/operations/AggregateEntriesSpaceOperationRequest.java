@@ -108,6 +108,11 @@ public class AggregateEntriesSpaceOperationRequest extends SpaceOperationRequest
         return queryPacket.getTemplateRoutingValue();
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return true;
+    }
+
     @Override
     public boolean processPartitionResult(AggregateEntriesSpaceOperationResult remoteOperationResult,
                                           List<AggregateEntriesSpaceOperationResult> previousResults,
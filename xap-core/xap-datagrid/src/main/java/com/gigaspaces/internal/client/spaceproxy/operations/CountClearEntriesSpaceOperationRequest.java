@@ -115,6 +115,11 @@ public class CountClearEntriesSpaceOperationRequest extends SpaceOperationReques
         return Modifiers.contains(_modifiers, Modifiers.RUN_ON_IO_THREAD);
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return true;
+    }
+
     @Override
     public Transaction getTransaction() {
         return _txn;
@@ -304,6 +304,11 @@ public class ReadTakeEntriesByIdsSpaceOperationRequest extends SpaceScatterGathe
         return Modifiers.contains(_modifiers, Modifiers.RUN_ON_IO_THREAD);
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return true;
+    }
+
     public AbstractIdsQueryPacket getTemplate() {
         return _template;
     }
@@ -264,6 +264,11 @@ public class ReadTakeEntriesSpaceOperationRequest extends SpaceOperationRequest<
         return Modifiers.contains(_modifiers, Modifiers.RUN_ON_IO_THREAD);
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return true;
+    }
+
     public int getMinResultsToWaitFor() {
         return _minResultsToWaitFor;
     }
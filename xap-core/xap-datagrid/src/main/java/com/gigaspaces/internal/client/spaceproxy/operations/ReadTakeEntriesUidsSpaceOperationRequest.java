@@ -187,6 +187,11 @@ public class ReadTakeEntriesUidsSpaceOperationRequest extends SpaceOperationRequ
         return Modifiers.contains(_modifiers, Modifiers.RUN_ON_IO_THREAD);
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return true;
+    }
+
     @Override
     public boolean processUnknownTypeException(List<Integer> positions) {
         if (_template.isSerializeTypeDesc())
@@ -95,6 +95,11 @@ public abstract class SpaceOperationRequest<TResult extends SpaceOperationResult
         return false;
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return false;
+    }
+
     @Override
     public boolean processUnknownTypeException(List<Integer> positions) {
         return false;
@@ -270,6 +270,11 @@ public class WriteEntriesSpaceOperationRequest extends SpaceScatterGatherOperati
         return Modifiers.contains(_modifiers, Modifiers.RUN_ON_IO_THREAD);
     }
 
+    @Override
+    public boolean isBulkOperation() {
+        return true;
+    }
+
     public long getTimeOut() {
         return _timeout;
     }
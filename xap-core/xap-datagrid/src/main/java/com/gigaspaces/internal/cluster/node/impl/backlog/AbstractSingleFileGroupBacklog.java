@@ -54,6 +54,7 @@ import com.gigaspaces.internal.server.space.redolog.storage.BufferedRedoLogFileS
 import com.gigaspaces.internal.server.space.redolog.storage.CacheLastRedoLogFileStorageDecorator;
 import com.gigaspaces.internal.server.space.redolog.storage.IRedoLogFileStorage;
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.*;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap.MappedByteBufferStorageFactory;
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorageFactory;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.collections.CopyOnUpdateMap;
@@ -388,9 +389,11 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
             config.setPacketStreamSerializer(packetStreamSerializer);
             return new DBSwapRedoLogFile<>(config, this);
         }
-        else { // RedoLogSwapStorageType.BYTE_BUFFER
-            IByteBufferStorageFactory byteBufferStorageProvider = new RAFByteBufferStorageFactory("redolog_"
-                    + _name.replace(":", "_"));
+        else { // RedoLogSwapStorageType.BYTE_BUFFER or MEMORY_MAPPED
+            final String fileName = "redolog_" + _name.replace(":", "_");
+            IByteBufferStorageFactory byteBufferStorageProvider = RedoLogSwapStorageType.MEMORY_MAPPED.equals(swapBacklogConfig.getSwapStorageType())
+                    ? new MappedByteBufferStorageFactory(fileName, swapBacklogConfig.getSegmentSize())
+                    : new RAFByteBufferStorageFactory(fileName);
 
             // Configure ByteBufferRedoLogFile
             ByteBufferRedoLogFileConfig<T> storageConfig = new ByteBufferRedoLogFileConfig<T>();
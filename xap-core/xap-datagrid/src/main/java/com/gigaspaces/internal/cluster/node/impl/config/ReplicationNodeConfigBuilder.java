@@ -55,6 +55,7 @@ import com.j_spaces.core.cluster.ReplicationPolicy;
 import com.j_spaces.core.cluster.ReplicationProcessingType;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationMode;
 import com.j_spaces.core.sadapter.IStorageAdapter;
+import com.j_spaces.kernel.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -1300,6 +1301,10 @@ public class ReplicationNodeConfigBuilder {
         }
         GlobalOrderProcessLogConfig config = new GlobalOrderProcessLogConfig();
         config.setConsumeTimeout(replicationPolicy.getConsumeTimeout());
+        config.setParallelApplyThreads(Integer.getInteger(SystemProperties.REPLICATION_PARALLEL_APPLY_THREADS,
+                SystemProperties.REPLICATION_PARALLEL_APPLY_THREADS_DEFAULT));
+        config.setParallelApplyThreshold(Integer.getInteger(SystemProperties.REPLICATION_PARALLEL_APPLY_THRESHOLD,
+                SystemProperties.REPLICATION_PARALLEL_APPLY_THRESHOLD_DEFAULT));
         return config;
     }
 
@@ -40,6 +40,7 @@ import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPack
 import com.gigaspaces.internal.cluster.node.impl.packets.IterativeHandshakePacket;
 import com.gigaspaces.internal.cluster.node.impl.packets.PingPacket;
 import com.gigaspaces.internal.cluster.node.impl.packets.ReplicatedDataPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.ReplicationBatchEncoder;
 import com.gigaspaces.internal.cluster.node.impl.packets.UnreliableOperationPacket;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
@@ -71,6 +72,7 @@ import com.gigaspaces.time.SystemTime;
 import com.j_spaces.core.cluster.IReplicationFilterEntry;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationMode;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationOperatingMode;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.rmi.RemoteException;
 import java.text.DecimalFormat;
@@ -120,6 +122,8 @@ public abstract class AbstractReplicationSourceChannel
     private final ReplicationMode _channelType;
     private final Object _customBacklogMetadata;
     private final boolean _isNetworkCompressionEnabled;
+    private final ReplicationBatchEncoder _batchEncoder;
+    private final boolean _isDeltaUpdatesEnabled;
 
     protected final SegmentedAtomicInteger _statisticsCounter = new SegmentedAtomicInteger();
     protected final ThreadLocalPool<ReplicatedDataPacketResource> _packetsPool;
@@ -196,6 +200,9 @@ public abstract class AbstractReplicationSourceChannel
         _generatedTrafficStatistics.addSample(SystemTime.timeMillis(), 0L);
         _receivedTrafficStatistics.addSample(SystemTime.timeMillis(), 0L);
         _isNetworkCompressionEnabled = groupConfig.getConfig().isNetworkCompressionEnabled();
+        _batchEncoder = Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_BATCH_ENCODING, SystemProperties.REPLICATION_BATCH_ENCODING_DEFAULT))
+                ? new ReplicationBatchEncoder() : null;
+        _isDeltaUpdatesEnabled = Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_BATCH_ENCODING_DELTA_UPDATES, SystemProperties.REPLICATION_BATCH_ENCODING_DELTA_UPDATES_DEFAULT));
         _tag = tag;
         this.resetTarget = resetTarget;
         _packetsPool = new ThreadLocalPool<ReplicatedDataPacketResource>(new PoolFactory<ReplicatedDataPacketResource>() {
@@ -677,6 +684,7 @@ public abstract class AbstractReplicationSourceChannel
         try {
             BatchReplicatedDataPacket batchPacket = replicatedDataPacketResource.getBatchPacket();
             batchPacket.setBatch(packets);
+            setBatchEncoderIfNeeded(batchPacket);
             Object wiredProcessResult = getConnection().dispatch(batchPacket);
             IProcessResult processResult = _groupBacklog.fromWireForm(wiredProcessResult);
 
@@ -693,6 +701,23 @@ public abstract class AbstractReplicationSourceChannel
         return 0;
     }
 
+    private void setBatchEncoderIfNeeded(BatchReplicatedDataPacket batchPacket) {
+        if (_batchEncoder == null)
+            return;
+        PlatformLogicalVersion targetLogicalVersion = getTargetLogicalVersion();
+        if (targetLogicalVersion == null || targetLogicalVersion.lessThan(PlatformLogicalVersion.v16_4_0))
+            return;
+        batchPacket.setEncoder(_batchEncoder, _isDeltaUpdatesEnabled && isTargetInSync());
+    }
+
+    /**
+     * A backup which is neither synchronizing nor inconsistent holds the previous version of every
+     * entry updated by the replicated packets, since it applies them in order.
+     */
+    private boolean isTargetInSync() {
+        return _channelType == ReplicationMode.BACKUP_SPACE && !isSynchronizing() && !isInconsistent();
+    }
+
     private int replicateAfterChannelFilter(IReplicationOrderedPacket packet)
             throws RemoteException, ReplicationException {
         int res = 0;
@@ -887,6 +912,8 @@ public abstract class AbstractReplicationSourceChannel
                 }
             }
 
+            setBatchEncoderIfNeeded(batchPacket);
+
             AsyncFuture<Object> processResultFuture = getConnection().dispatchAsync(batchPacket);
             final ReplicateFuture resultFuture = new ReplicateFuture();
             processResultFuture.setListener(new AsyncFutureListener<Object>() {
@@ -1377,7 +1404,11 @@ public abstract class AbstractReplicationSourceChannel
                 getChannelOpertingMode(),
                 endpointDetails,
                 delegatorDetails,
-                _tag);
+                _tag,
+                _batchEncoder != null ? _batchEncoder.getEncodedBatches() : 0,
+                _batchEncoder != null ? _batchEncoder.getRawBytes() : 0,
+                _batchEncoder != null ? _batchEncoder.getEncodedBytes() : 0,
+                _batchEncoder != null ? _batchEncoder.getDeltaUpdates() : 0);
     }
 
     public void registerWith(MetricRegistrator metricRegister) {
@@ -1405,6 +1436,20 @@ public abstract class AbstractReplicationSourceChannel
                 return getGroupBacklog().size(getMemberName());
             }
         });
+        if (_batchEncoder != null) {
+            metricRegister.register("encoded-batches-raw-bytes", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return _batchEncoder.getRawBytes();
+                }
+            });
+            metricRegister.register("encoded-batches-bytes", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return _batchEncoder.getEncodedBytes();
+                }
+            });
+        }
     }
 
     public abstract ReplicationOperatingMode getChannelOpertingMode();
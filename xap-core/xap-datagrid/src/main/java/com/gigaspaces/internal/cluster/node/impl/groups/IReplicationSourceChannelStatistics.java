@@ -65,4 +65,28 @@ public interface IReplicationSourceChannelStatistics {
      * @since 14.5
      */
     String getTag();
+
+    /**
+     * @return the number of batches which were sent encoded
+     * @since 16.4.0
+     */
+    long getEncodedBatches();
+
+    /**
+     * @return the total size in bytes of the encoded batches before they were deflated
+     * @since 16.4.0
+     */
+    long getEncodedBatchesRawTraffic();
+
+    /**
+     * @return the total size in bytes of the encoded batches as sent
+     * @since 16.4.0
+     */
+    long getEncodedBatchesTraffic();
+
+    /**
+     * @return the number of updates which were sent as the properties which were changed
+     * @since 16.4.0
+     */
+    long getDeltaEncodedUpdates();
 }
@@ -45,6 +45,10 @@ public class ReplicationSourceChannelStatistics
     private final ReplicationEndpointDetails _targetDetails;
     private final ConnectionEndpointDetails _delegatorDetails;
     private final String _tag;
+    private final long _encodedBatches;
+    private final long _encodedBatchesRawTraffic;
+    private final long _encodedBatchesTraffic;
+    private final long _deltaEncodedUpdates;
 
     public ReplicationSourceChannelStatistics(String name,
                                               ReplicationMode mode, ConnectionState state, boolean active,
@@ -56,7 +60,9 @@ public class ReplicationSourceChannelStatistics
                                               ReplicationOperatingMode operatingMode,
                                               ReplicationEndpointDetails targetDetails,
                                               ConnectionEndpointDetails delegatorDetails,
-                                              String tag) {
+                                              String tag,
+                                              long encodedBatches, long encodedBatchesRawTraffic,
+                                              long encodedBatchesTraffic, long deltaEncodedUpdates) {
         _name = name;
         _channelType = mode;
         _connectionState = state;
@@ -75,6 +81,10 @@ public class ReplicationSourceChannelStatistics
         _targetDetails = targetDetails;
         _delegatorDetails = delegatorDetails;
         _tag = tag;
+        _encodedBatches = encodedBatches;
+        _encodedBatchesRawTraffic = encodedBatchesRawTraffic;
+        _encodedBatchesTraffic = encodedBatchesTraffic;
+        _deltaEncodedUpdates = deltaEncodedUpdates;
     }
 
     public String getName() {
@@ -154,4 +164,24 @@ public class ReplicationSourceChannelStatistics
 
     @Override
     public String getTag() { return _tag; }
+
+    @Override
+    public long getEncodedBatches() {
+        return _encodedBatches;
+    }
+
+    @Override
+    public long getEncodedBatchesRawTraffic() {
+        return _encodedBatchesRawTraffic;
+    }
+
+    @Override
+    public long getEncodedBatchesTraffic() {
+        return _encodedBatchesTraffic;
+    }
+
+    @Override
+    public long getDeltaEncodedUpdates() {
+        return _deltaEncodedUpdates;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.cluster.node.impl.groups.async;
+
+import com.j_spaces.kernel.SystemProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the batch size and idle delay of an async channel from the round trip time of its batches,
+ * the rate in which the target consumes them and the size of the backlog which is pending for it.
+ *
+ * <p>While the backlog holds more than a batch the target falls behind, so the batch size is
+ * doubled as long as it raises the throughput and the channel does not wait between batches. A
+ * round trip time above the target halves the batch size. Under light load the batch size decays
+ * back to its minimum and the idle delay follows the round trip time, since waiting much longer
+ * than a round trip only delays the packets. Idle cycles back off the idle delay to its maximum.
+ *
+ * <p>Updated by the single async dispatcher of the channel, read by its metrics.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class AdaptiveBatchController {
+    // Weight of the latest sample in the smoothed round trip time and throughput
+    private static final double SMOOTHING_FACTOR = 0.2;
+
+    private final int _minBatchSize;
+    private final int _maxBatchSize;
+    private final long _minIdleDelay;
+    private final long _maxIdleDelay;
+    private final long _targetRttNanos;
+
+    private volatile int _batchSize;
+    private volatile long _idleDelay;
+    private volatile double _smoothedRttNanos = -1;
+    private volatile double _smoothedThroughput = -1;
+    private double _throughputBeforeGrowth;
+
+    public AdaptiveBatchController(int minBatchSize, int maxBatchSize, long minIdleDelay, long maxIdleDelay, long targetRtt) {
+        _minBatchSize = Math.max(minBatchSize, 1);
+        _maxBatchSize = Math.max(maxBatchSize, _minBatchSize);
+        _minIdleDelay = Math.max(minIdleDelay, 1);
+        _maxIdleDelay = Math.max(maxIdleDelay, _minIdleDelay);
+        _targetRttNanos = TimeUnit.MILLISECONDS.toNanos(targetRtt);
+        _batchSize = _minBatchSize;
+        _idleDelay = _maxIdleDelay;
+    }
+
+    /**
+     * @return a controller bounded by the given configuration, or null if adaptive batching is
+     * disabled.
+     */
+    public static AdaptiveBatchController createIfEnabled(int batchSize, long intervalMilis) {
+        if (!Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_ADAPTIVE_BATCHING, SystemProperties.REPLICATION_ADAPTIVE_BATCHING_DEFAULT)))
+            return null;
+        int maxBatchFactor = Integer.getInteger(SystemProperties.REPLICATION_ADAPTIVE_BATCHING_MAX_BATCH_FACTOR, SystemProperties.REPLICATION_ADAPTIVE_BATCHING_MAX_BATCH_FACTOR_DEFAULT);
+        return new AdaptiveBatchController(batchSize,
+                (int) Math.min((long) batchSize * maxBatchFactor, Integer.MAX_VALUE),
+                Long.getLong(SystemProperties.REPLICATION_ADAPTIVE_BATCHING_MIN_IDLE_DELAY, SystemProperties.REPLICATION_ADAPTIVE_BATCHING_MIN_IDLE_DELAY_DEFAULT),
+                intervalMilis,
+                Long.getLong(SystemProperties.REPLICATION_ADAPTIVE_BATCHING_TARGET_RTT, SystemProperties.REPLICATION_ADAPTIVE_BATCHING_TARGET_RTT_DEFAULT));
+    }
+
+    /**
+     * @param sentPackets   the number of packets in the batch.
+     * @param rttNanos      the time from dispatching the batch until its result arrived.
+     * @param backlogWeight the weight of the packets which are still pending for the target.
+     */
+    public void onBatchReplicated(int sentPackets, long rttNanos, long backlogWeight) {
+        rttNanos = Math.max(rttNanos, 1);
+        double throughput = sentPackets * (double) TimeUnit.SECONDS.toNanos(1) / rttNanos;
+        double smoothedRttNanos = _smoothedRttNanos < 0 ? rttNanos : smooth(_smoothedRttNanos, rttNanos);
+        double smoothedThroughput = _smoothedThroughput < 0 ? throughput : smooth(_smoothedThroughput, throughput);
+        _smoothedRttNanos = smoothedRttNanos;
+        _smoothedThroughput = smoothedThroughput;
+
+        int batchSize = _batchSize;
+        if (smoothedRttNanos > _targetRttNanos) {
+            batchSize = Math.max(_minBatchSize, batchSize / 2);
+            _throughputBeforeGrowth = 0;
+        } else if (backlogWeight >= batchSize) {
+            if (smoothedThroughput >= _throughputBeforeGrowth) {
+                _throughputBeforeGrowth = smoothedThroughput;
+                batchSize = (int) Math.min((long) batchSize * 2, _maxBatchSize);
+            }
+        } else if (sentPackets < batchSize / 4) {
+            batchSize = Math.max(_minBatchSize, batchSize - batchSize / 8);
+            _throughputBeforeGrowth = 0;
+        }
+        _batchSize = batchSize;
+
+        _idleDelay = backlogWeight >= batchSize ? _minIdleDelay
+                : clampIdleDelay(TimeUnit.NANOSECONDS.toMillis((long) smoothedRttNanos));
+    }
+
+    /**
+     * Called when a cycle found no packets to replicate.
+     */
+    public void onIdleCycle() {
+        _idleDelay = clampIdleDelay(_idleDelay * 2);
+    }
+
+    private long clampIdleDelay(long idleDelay) {
+        return Math.min(_maxIdleDelay, Math.max(_minIdleDelay, idleDelay));
+    }
+
+    private static double smooth(double smoothed, double sample) {
+        return smoothed + SMOOTHING_FACTOR * (sample - smoothed);
+    }
+
+    public int getBatchSize() {
+        return _batchSize;
+    }
+
+    public long getIdleDelay() {
+        return _idleDelay;
+    }
+
+    /**
+     * @return the smoothed round trip time of batches in microseconds, or 0 before the first batch.
+     */
+    public long getRoundTripTime() {
+        double smoothedRttNanos = _smoothedRttNanos;
+        return smoothedRttNanos < 0 ? 0 : (long) (smoothedRttNanos / 1000);
+    }
+
+    /**
+     * @return the smoothed number of packets the target consumes per second, or 0 before the first
+     * batch.
+     */
+    public long getThroughput() {
+        double smoothedThroughput = _smoothedThroughput;
+        return smoothedThroughput < 0 ? 0 : (long) smoothedThroughput;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveBatchController{" +
+                "batchSize=" + _batchSize +
+                ", idleDelay=" + _idleDelay +
+                ", roundTripTime=" + getRoundTripTime() +
+                ", throughput=" + getThroughput() +
+                '}';
+    }
+}
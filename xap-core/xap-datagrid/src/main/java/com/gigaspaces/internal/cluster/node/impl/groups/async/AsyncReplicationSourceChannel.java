@@ -44,6 +44,8 @@ import com.gigaspaces.internal.utils.concurrent.AsyncCallable;
 import com.gigaspaces.internal.utils.concurrent.IAsyncHandler;
 import com.gigaspaces.internal.utils.concurrent.IAsyncHandlerProvider;
 import com.gigaspaces.internal.utils.concurrent.IAsyncHandlerProvider.CycleResult;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationMode;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationOperatingMode;
 import com.j_spaces.kernel.JSpaceUtilities;
@@ -67,6 +69,7 @@ public class AsyncReplicationSourceChannel
     private final int _intervalOperations;
     private final Object _asyncDispatcherLifeCycle = new Object();
     private volatile IAsyncHandler _asyncHandler;
+    private final AdaptiveBatchController _batchController;
 
     public AsyncReplicationSourceChannel(
             DynamicSourceGroupConfigHolder groupConfig, String groupName,
@@ -162,6 +165,7 @@ public class AsyncReplicationSourceChannel
         _intervalMilis = intervalMilis;
         _intervalOperations = intervalOperations;
         _asyncProvider = asyncHandlerProvider;
+        _batchController = AdaptiveBatchController.createIfEnabled(batchSize, intervalMilis);
         // After all is initialized we can let the super class to start since it
         // will perform operations that can delegate onConnected/onDisconnected
         // events
@@ -183,7 +187,43 @@ public class AsyncReplicationSourceChannel
     }
 
     public int getBatchSize() {
-        return _batchSize;
+        return _batchController != null ? _batchController.getBatchSize() : _batchSize;
+    }
+
+    @Override
+    public void registerWith(MetricRegistrator metricRegister) {
+        super.registerWith(metricRegister);
+        if (_batchController == null)
+            return;
+        metricRegister.register("adaptive-batch-size", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() throws Exception {
+                return _batchController.getBatchSize();
+            }
+        });
+        metricRegister.register("adaptive-idle-delay-millis", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return _batchController.getIdleDelay();
+            }
+        });
+        metricRegister.register("adaptive-round-trip-time-micros", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return _batchController.getRoundTripTime();
+            }
+        });
+        metricRegister.register("adaptive-throughput-packets", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return _batchController.getThroughput();
+            }
+        });
+    }
+
+    @Override
+    protected String onDumpState() {
+        return _batchController != null ? StringUtils.NEW_LINE + "adaptive batching [" + _batchController + "]" : "";
     }
 
     @Override
@@ -245,6 +285,7 @@ public class AsyncReplicationSourceChannel
 
         private List<IReplicationOrderedPacket> _currentCyclePackets;
         private IIdleStateData _currentCycleIdleStateData;
+        private long _currentCycleDispatchTime;
 
         public CycleResult call() throws Exception {
             if (!isActive()) {
@@ -290,6 +331,11 @@ public class AsyncReplicationSourceChannel
                 if (isSynchronizing())
                     signalSynchronizingDone();
 
+                if (_batchController != null) {
+                    _batchController.onIdleCycle();
+                    getHandler().setIdleDelay(_batchController.getIdleDelay());
+                }
+
                 _currentCycleIdleStateData = getGroupBacklog().getIdleStateData(getMemberName(), getTargetLogicalVersion());
                 if (_currentCycleIdleStateData != null && !_currentCycleIdleStateData.isEmpty()) {
                     return replicateIdleStateData(_currentCycleIdleStateData);
@@ -305,6 +351,7 @@ public class AsyncReplicationSourceChannel
             //Make sure resume is not called before suspend in case async invocation ends before the suspend is returned.
             synchronized (_asyncDispatcherLifeCycle) {
                 try {
+                    _currentCycleDispatchTime = System.nanoTime();
                     replicateBatchDelayedAsync(_currentCyclePackets, this);
 
                     return CycleResult.SUSPEND;
@@ -470,6 +517,10 @@ public class AsyncReplicationSourceChannel
                 _currentCycleIdleStateData = null;
 
                 final long remainingWeight = getGroupBacklog().getWeight(getMemberName());
+                if (_batchController != null && packets != null) {
+                    _batchController.onBatchReplicated(packets.size(), System.nanoTime() - _currentCycleDispatchTime, remainingWeight);
+                    getHandler().setIdleDelay(_batchController.getIdleDelay());
+                }
                 // If there are remaining unreplicated packets more than batch
                 // size, do another cycle
                 // otherwise considered as idle
@@ -31,6 +31,7 @@ import java.io.ObjectOutput;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.zip.Deflater;
 
 @com.gigaspaces.api.InternalApi
 public class BatchReplicatedDataPacket
@@ -46,6 +47,12 @@ public class BatchReplicatedDataPacket
 
     private transient boolean _clean = true;
 
+    private transient ReplicationBatchEncoder _encoder;
+
+    private transient boolean _deltaUpdates;
+
+    private transient Deflater _deflater;
+
     public BatchReplicatedDataPacket() {
     }
 
@@ -66,7 +73,10 @@ public class BatchReplicatedDataPacket
 
     public void readExternalImpl(ObjectInput in, PlatformLogicalVersion endpointLogicalVersion) throws IOException,
             ClassNotFoundException {
-        _batch = IOUtils.readObject(in);
+        if (endpointLogicalVersion.greaterOrEquals(PlatformLogicalVersion.v16_4_0) && in.readBoolean())
+            _batch = ReplicationBatchEncoder.decode(IOUtils.readByteArray(in));
+        else
+            _batch = IOUtils.readObject(in);
         if(endpointLogicalVersion.greaterOrEquals(PlatformLogicalVersion.v14_0_0)) {
             _compressed = in.readBoolean();
             if (_compressed) {
@@ -83,7 +93,16 @@ public class BatchReplicatedDataPacket
         }
 
         else{
-            IOUtils.writeObject(out, _batch);
+            if (endpointLogicalVersion.greaterOrEquals(PlatformLogicalVersion.v16_4_0)) {
+                byte[] encodedBatch = _encoder != null ? _encoder.encode(_batch, _deltaUpdates, getDeflater()) : null;
+                out.writeBoolean(encodedBatch != null);
+                if (encodedBatch != null)
+                    IOUtils.writeByteArray(out, encodedBatch);
+                else
+                    IOUtils.writeObject(out, _batch);
+            } else {
+                IOUtils.writeObject(out, _batch);
+            }
             out.writeBoolean(_compressed);
             if (_compressed) {
                 out.writeLong(_startKey);
@@ -105,12 +124,33 @@ public class BatchReplicatedDataPacket
         return _batch;
     }
 
+    /**
+     * Sends the batch encoded by the given encoder to targets which support it.
+     *
+     * @param deltaUpdates whether the target is known to hold the previous version of every entry
+     *                     updated by the batch.
+     * @since 16.4.0
+     */
+    public void setEncoder(ReplicationBatchEncoder encoder, boolean deltaUpdates) {
+        _encoder = encoder;
+        _deltaUpdates = deltaUpdates;
+    }
+
+    private Deflater getDeflater() {
+        // The packet is pooled per thread, so is its deflater
+        if (_deflater == null)
+            _deflater = new Deflater(Deflater.BEST_SPEED);
+        return _deflater;
+    }
+
     public void clean() {
         _clean = true;
         _batch = null;
         _compressed = false;
         _startKey = 0;
         _totalBatchKeySize = 0;
+        _encoder = null;
+        _deltaUpdates = false;
     }
 
     @Override
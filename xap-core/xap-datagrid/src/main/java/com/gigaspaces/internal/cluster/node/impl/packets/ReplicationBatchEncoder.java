@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.cluster.node.impl.packets;
+
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.PartialUpdateReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.UpdateReplicationPacketData;
+import com.gigaspaces.internal.io.GSByteArrayInputStream;
+import com.gigaspaces.internal.io.GSByteArrayOutputStream;
+import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the packets of a {@link BatchReplicatedDataPacket} as a single deflated payload. When the
+ * target is known to hold the previous version of every updated entry, updates are first turned into
+ * {@link PartialUpdateReplicationPacketData partial updates} carrying only the changed properties.
+ *
+ * <p>Keeps the encoding statistics of a single replication channel, raw bytes are the size of the
+ * serialized batch before it is deflated.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ReplicationBatchEncoder {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final LongAdder _encodedBatches = new LongAdder();
+    private final LongAdder _rawBytes = new LongAdder();
+    private final LongAdder _encodedBytes = new LongAdder();
+    private final LongAdder _deltaUpdates = new LongAdder();
+
+    /**
+     * @param batch        the packets to encode, which are not modified.
+     * @param deltaUpdates whether updates may be encoded as the properties which were changed.
+     * @param deflater     a deflater owned by the caller.
+     */
+    public byte[] encode(List<IReplicationOrderedPacket> batch, boolean deltaUpdates, Deflater deflater) throws IOException {
+        List<IReplicationOrderedPacket> packets = deltaUpdates ? toDeltaUpdates(batch) : batch;
+        GSByteArrayOutputStream bytes = new GSByteArrayOutputStream(BUFFER_SIZE);
+        deflater.reset();
+        MarshalOutputStream out = new MarshalOutputStream(new DeflaterOutputStream(bytes, deflater, BUFFER_SIZE));
+        IOUtils.writeObject(out, packets);
+        // Finishes the deflater, which is not ended since it was not created by the stream
+        out.close();
+
+        byte[] result = bytes.toByteArray();
+        _encodedBatches.increment();
+        _rawBytes.add(deflater.getBytesRead());
+        _encodedBytes.add(result.length);
+        return result;
+    }
+
+    public static List<IReplicationOrderedPacket> decode(byte[] encodedBatch) throws IOException, ClassNotFoundException {
+        Inflater inflater = new Inflater();
+        try {
+            MarshalInputStream in = new MarshalInputStream(new InflaterInputStream(new GSByteArrayInputStream(encodedBatch), inflater, BUFFER_SIZE));
+            return IOUtils.readObject(in);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private List<IReplicationOrderedPacket> toDeltaUpdates(List<IReplicationOrderedPacket> batch) {
+        List<IReplicationOrderedPacket> result = new ArrayList<IReplicationOrderedPacket>(batch.size());
+        for (IReplicationOrderedPacket packet : batch) {
+            IReplicationPacketData<?> data = packet.isDataPacket() ? packet.getData() : null;
+            PartialUpdateReplicationPacketData delta = data instanceof UpdateReplicationPacketData
+                    ? PartialUpdateReplicationPacketData.createDelta((UpdateReplicationPacketData) data) : null;
+            if (delta != null) {
+                result.add(packet.cloneWithNewData(delta));
+                _deltaUpdates.increment();
+            } else {
+                result.add(packet);
+            }
+        }
+        return result;
+    }
+
+    public long getEncodedBatches() {
+        return _encodedBatches.sum();
+    }
+
+    public long getRawBytes() {
+        return _rawBytes.sum();
+    }
+
+    public long getEncodedBytes() {
+        return _encodedBytes.sum();
+    }
+
+    public long getDeltaUpdates() {
+        return _deltaUpdates.sum();
+    }
+}
@@ -121,4 +121,10 @@ public class BlobstoreReplicationPacketDataConsumer extends ReplicationPacketDat
             }
         }
     }
+
+    @Override
+    public boolean supportsParallelConsumption() {
+        // the bulk is collected in the consuming context and flushed in packets order
+        return false;
+    }
 }
@@ -75,4 +75,13 @@ public interface IReplicationPacketDataConsumer<T extends IReplicationPacketData
 
     SpaceTypeManager getTypeManager();
 
+    /**
+     * @return true if packets of different entries can be consumed concurrently, each thread with
+     * its own context
+     * @since 16.4.0
+     */
+    default boolean supportsParallelConsumption() {
+        return true;
+    }
+
 }
@@ -31,15 +31,79 @@ import net.jini.core.transaction.Transaction;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
 
 @com.gigaspaces.api.InternalApi
 public class PartialUpdateReplicationPacketData
         extends UpdateReplicationPacketData {
     private static final long serialVersionUID = 1L;
 
+    // Values of these types cannot be modified in place, so an equal value is an unchanged one
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class));
+
     public PartialUpdateReplicationPacketData() {
     }
 
+    /**
+     * Creates a partial update which carries only the fixed properties that differ from the previous
+     * version of the updated entry. Applying it is equivalent to applying the given update only on a
+     * target which holds that previous version.
+     *
+     * @return the partial update, or null if the update cannot be expressed as one, e.g. when a
+     * property was changed to null or the entry has dynamic properties.
+     * @since 16.4.0
+     */
+    public static PartialUpdateReplicationPacketData createDelta(UpdateReplicationPacketData update) {
+        if (update.getClass() != UpdateReplicationPacketData.class || update.isSerializeFullContent()
+                || update.isPartOfBlobstoreBulk())
+            return null;
+        IEntryPacket entryPacket = update.getEntryPacket();
+        IEntryData previousEntryData = update.getPreviousEntryData();
+        if (entryPacket.isHybrid() || entryPacket.isExternalizableEntryPacket() || entryPacket.getDynamicProperties() != null
+                || previousEntryData == null || previousEntryData.getDynamicProperties() != null)
+            return null;
+        Object[] values = entryPacket.getFieldValues();
+        Object[] previousValues = previousEntryData.getFixedPropertiesValues();
+        if (values == null || previousValues == null || values.length != previousValues.length)
+            return null;
+
+        Object[] deltaValues = new Object[values.length];
+        int unchangedValues = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (isUnchanged(values[i], previousValues[i]))
+                unchangedValues++;
+            else if (values[i] == null)
+                return null;
+            else
+                deltaValues[i] = values[i];
+        }
+        if (unchangedValues == 0)
+            return null;
+
+        IEntryPacket deltaEntryPacket = entryPacket.clone();
+        deltaEntryPacket.setFieldsValues(deltaValues);
+        PartialUpdateReplicationPacketData delta = new PartialUpdateReplicationPacketData(deltaEntryPacket,
+                update.isFromGateway(),
+                update.isOverrideVersion(),
+                previousEntryData,
+                update.getExpirationTime(),
+                update._currentEntryData);
+        delta._flags = update.getFlags();
+        return delta;
+    }
+
+    private static boolean isUnchanged(Object value, Object previousValue) {
+        return value != null && (IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum)
+                && value.equals(previousValue);
+    }
+
     @Override
     public PartialUpdateReplicationPacketData clone() {
         return (PartialUpdateReplicationPacketData) super.clone();
@@ -22,10 +22,31 @@ import com.gigaspaces.internal.cluster.node.impl.processlog.ProcessLogConfig;
 public class GlobalOrderProcessLogConfig
         extends ProcessLogConfig {
 
+    private int _parallelApplyThreads = 0;
+    private int _parallelApplyThreshold = 50;
+
+    public int getParallelApplyThreads() {
+        return _parallelApplyThreads;
+    }
+
+    public void setParallelApplyThreads(int parallelApplyThreads) {
+        _parallelApplyThreads = parallelApplyThreads;
+    }
+
+    public int getParallelApplyThreshold() {
+        return _parallelApplyThreshold;
+    }
+
+    public void setParallelApplyThreshold(int parallelApplyThreshold) {
+        _parallelApplyThreshold = parallelApplyThreshold;
+    }
+
     @Override
     public String toString() {
         return "GlobalOrderProcessLogConfig [_consumeTimeout="
-                + getConsumeTimeout() + "]";
+                + getConsumeTimeout() + ", _parallelApplyThreads="
+                + _parallelApplyThreads + ", _parallelApplyThreshold="
+                + _parallelApplyThreshold + "]";
     }
 
 
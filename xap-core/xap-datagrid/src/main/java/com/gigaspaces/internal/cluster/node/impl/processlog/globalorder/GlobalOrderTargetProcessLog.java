@@ -19,6 +19,7 @@ package com.gigaspaces.internal.cluster.node.impl.processlog.globalorder;
 import com.gigaspaces.internal.cluster.node.ReplicationBlobstoreBulkContext;
 import com.gigaspaces.internal.cluster.node.handlers.IReplicationInFacade;
 import com.gigaspaces.internal.cluster.node.impl.ReplicationInContext;
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDeletedBacklogPacket;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDiscardedReplicationPacket;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderReliableAsyncKeptDiscardedOrderedPacket;
@@ -29,6 +30,7 @@ import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeFix;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeResult;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketDataConsumer;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
 import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogExceptionHandler;
 import com.gigaspaces.internal.cluster.node.impl.processlog.ReplicationConsumeTimeoutException;
 import com.gigaspaces.internal.cluster.node.impl.processlog.async.IReplicationAsyncTargetProcessLog;
@@ -38,13 +40,18 @@ import com.gigaspaces.internal.collections.LongObjectIterator;
 import com.gigaspaces.internal.collections.LongObjectMap;
 import com.gigaspaces.internal.utils.concurrent.ExchangeCountDownLatch;
 import com.j_spaces.core.exception.ClosedResourceException;
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 
@@ -59,6 +66,12 @@ public class GlobalOrderTargetProcessLog
 
     private final long _consumeTimeout;
 
+    // Parallel apply of consecutive single entry packets, partitioned by entry uid
+    private final int _parallelApplyThreads;
+    private final int _parallelApplyThreshold;
+    private final ExecutorService _parallelApplyExecutor;
+    private ReplicationInContext[] _parallelApplyContexts;
+
     public GlobalOrderTargetProcessLog(
             GlobalOrderProcessLogConfig processLogConfig,
             IReplicationPacketDataConsumer<?> dataConsumer,
@@ -97,6 +110,12 @@ public class GlobalOrderTargetProcessLog
                 groupHistory);
         _consumeTimeout = processLogConfig.getConsumeTimeout();
         _packetsQueue = new TreeSet<IReplicationOrderedPacket>(new SharedOrderedPacketComparator());
+        _parallelApplyThreads = dataConsumer.supportsParallelConsumption() ? processLogConfig.getParallelApplyThreads() : 0;
+        _parallelApplyThreshold = Math.max(2, processLogConfig.getParallelApplyThreshold());
+        // The processing thread applies one of the partitions itself
+        _parallelApplyExecutor = _parallelApplyThreads > 1 ? DynamicExecutors.newScalingThreadPool(1,
+                _parallelApplyThreads - 1,
+                10000) : null;
     }
 
     @Override
@@ -289,6 +308,9 @@ public class GlobalOrderTargetProcessLog
 
     protected boolean processPackets(String sourceLookupName, long myLastKey,
                                      IReplicationInFilterCallback filterInCallback) throws Exception {
+        if (_parallelApplyExecutor != null)
+            processPacketsInParallel(sourceLookupName, filterInCallback);
+
         for (Iterator<IReplicationOrderedPacket> iterator = _packetsQueue.iterator(); iterator.hasNext(); ) {
             IReplicationOrderedPacket packet = iterator.next();
             // We have a missing packet, break loop
@@ -326,54 +348,198 @@ public class GlobalOrderTargetProcessLog
                                boolean throwOnClosed) throws Exception {
         // We can process this packet, process and remove it.
         if (preprocess(packet)) {
-            context.setContextPacket(packet);
-            context.setLastProcessedKey(_lastProcessedKey);
-            try {
-                IReplicationPacketData<?> data = packet.getData();
-                // If there's a replication filter and should clone, clone the
-                // data
-                // packet before
-                // consumption
-                if (filterInCallback != null && shouldCloneOnFilter())
-                    data = data.clone();
-
-                IDataConsumeResult prevResult = null;
-
-                do {
-                    // If closed, reject immediately
-                    if (throwOnClosed && isClosed())
-                        throw new ClosedResourceException("Process log is closed");
-
-                    IDataConsumeResult consumeResult = getDataConsumer().consume(context,
-                            data,
-                            getReplicationInFacade(),
-                            filterInCallback);
-                    if (!consumeResult.isFailed())
-                        break;
-
-                    throwIfRepetitiveError(prevResult, consumeResult);
-                    if (_specificLogger.isDebugEnabled())
-                        _specificLogger.debug(
-                                "Encountered error while consuming packet ["
-                                        + packet
-                                        + "], trying to resolve issue",
-                                consumeResult.toException());
-                    IDataConsumeFix fix = getExceptionHandler().handleException(consumeResult, packet);
-                    data = getDataConsumer().applyFix(context, data, fix);
-                    if (_specificLogger.isDebugEnabled())
-                        _specificLogger.debug("Fix applied - retrying the operation [" + fix + "]");
-                    prevResult = consumeResult;
-                } while (true);
-                _lastProcessedKey++;
-            } finally {
-                //Clear packet from context
-                context.setContextPacket(null);
-            }
+            consumePacket(filterInCallback, context, packet, _lastProcessedKey, throwOnClosed);
+            _lastProcessedKey++;
         }
         // Trigger after successful consumption
         afterSuccessfulConsumption(sourceLookupName, packet);
     }
 
+    private void consumePacket(IReplicationInFilterCallback filterInCallback,
+                               ReplicationInContext context, IReplicationOrderedPacket packet,
+                               long lastProcessedKey, boolean throwOnClosed) throws Exception {
+        context.setContextPacket(packet);
+        context.setLastProcessedKey(lastProcessedKey);
+        try {
+            IReplicationPacketData<?> data = packet.getData();
+            // If there's a replication filter and should clone, clone the
+            // data
+            // packet before
+            // consumption
+            if (filterInCallback != null && shouldCloneOnFilter())
+                data = data.clone();
+
+            IDataConsumeResult prevResult = null;
+
+            do {
+                // If closed, reject immediately
+                if (throwOnClosed && isClosed())
+                    throw new ClosedResourceException("Process log is closed");
+
+                IDataConsumeResult consumeResult = getDataConsumer().consume(context,
+                        data,
+                        getReplicationInFacade(),
+                        filterInCallback);
+                if (!consumeResult.isFailed())
+                    break;
+
+                throwIfRepetitiveError(prevResult, consumeResult);
+                if (_specificLogger.isDebugEnabled())
+                    _specificLogger.debug(
+                            "Encountered error while consuming packet ["
+                                    + packet
+                                    + "], trying to resolve issue",
+                            consumeResult.toException());
+                IDataConsumeFix fix = getExceptionHandler().handleException(consumeResult, packet);
+                data = getDataConsumer().applyFix(context, data, fix);
+                if (_specificLogger.isDebugEnabled())
+                    _specificLogger.debug("Fix applied - retrying the operation [" + fix + "]");
+                prevResult = consumeResult;
+            } while (true);
+        } finally {
+            //Clear packet from context
+            context.setContextPacket(null);
+        }
+    }
+
+    /**
+     * Applies the consecutive single entry packets at the head of the pending queue in parallel,
+     * packets of the same entry are applied by the same thread in order. Transactions, non data
+     * packets and packets which do not operate on an entry, such as type introduction or notify
+     * template registration, end the run and are left to the sequential processing, so that they are
+     * applied only after all the packets before them and before any packet after them. The last
+     * processed key is only
+     * advanced to a key which all the packets up to it were applied.
+     */
+    private void processPacketsInParallel(String sourceLookupName,
+                                          IReplicationInFilterCallback filterInCallback) throws Exception {
+        List<IReplicationOrderedPacket> run;
+        while ((run = locateParallelRun()).size() >= _parallelApplyThreshold)
+            applyInParallel(sourceLookupName, filterInCallback, run);
+    }
+
+    private List<IReplicationOrderedPacket> locateParallelRun() {
+        List<IReplicationOrderedPacket> run = new ArrayList<IReplicationOrderedPacket>();
+        long nextKey = _lastProcessedKey + 1;
+        for (IReplicationOrderedPacket packet : _packetsQueue) {
+            // Already processed packets are removed by the sequential processing
+            if (packet.getKey() < nextKey)
+                continue;
+            if (packet.getKey() > nextKey || getParallelApplyEntry(packet) == null)
+                break;
+            run.add(packet);
+            nextKey++;
+        }
+        return run;
+    }
+
+    private static IReplicationPacketEntryData getParallelApplyEntry(IReplicationOrderedPacket packet) {
+        if (!packet.isDataPacket())
+            return null;
+        IReplicationPacketData<?> data = packet.getData();
+        if (!data.isSingleEntryData())
+            return null;
+        IReplicationPacketEntryData entryData = data.getSingleEntryData();
+        return isEntryOperation(entryData.getOperationType()) ? entryData : null;
+    }
+
+    // Only operations on a single entry may be reordered against packets of other entries
+    private static boolean isEntryOperation(ReplicationSingleOperationType operationType) {
+        if (operationType == null)
+            return false;
+        switch (operationType) {
+            case WRITE:
+            case UPDATE:
+            case CHANGE:
+            case REMOVE_ENTRY:
+            case CANCEL_LEASE:
+            case EVICT:
+            case EXTEND_ENTRY_LEASE:
+            case ENTRY_LEASE_EXPIRED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void applyInParallel(String sourceLookupName,
+                                 IReplicationInFilterCallback filterInCallback,
+                                 List<IReplicationOrderedPacket> run) throws Exception {
+        final long lastProcessedKey = _lastProcessedKey;
+        final int partitionsCount = Math.min(_parallelApplyThreads, run.size());
+        List<IReplicationOrderedPacket>[] partitions = new List[partitionsCount];
+        for (int i = 0; i < partitionsCount; i++)
+            partitions[i] = new ArrayList<IReplicationOrderedPacket>(run.size() / partitionsCount + 1);
+        for (IReplicationOrderedPacket packet : run) {
+            String uid = getParallelApplyEntry(packet).getUid();
+            int hash = uid == null ? 0 : uid.hashCode();
+            partitions[(hash & Integer.MAX_VALUE) % partitionsCount].add(packet);
+        }
+
+        if (_parallelApplyContexts == null) {
+            _parallelApplyContexts = new ReplicationInContext[_parallelApplyThreads];
+            for (int i = 0; i < _parallelApplyContexts.length; i++)
+                _parallelApplyContexts[i] = createReplicationInContext();
+        }
+
+        final CountDownLatch completion = new CountDownLatch(partitionsCount);
+        final ParallelApplyPartition[] applied = new ParallelApplyPartition[partitionsCount];
+        for (int i = partitionsCount - 1; i >= 0; i--) {
+            applied[i] = new ParallelApplyPartition(partitions[i], _parallelApplyContexts[i],
+                    filterInCallback, lastProcessedKey, completion);
+            // Apply the first partition in this thread
+            if (i == 0) {
+                applied[i].run();
+                continue;
+            }
+            try {
+                _parallelApplyExecutor.execute(applied[i]);
+            } catch (RejectedExecutionException e) {
+                applied[i].run();
+            }
+        }
+
+        // Packets of a partition must not be applied again before it is done, even on error
+        boolean interrupted = false;
+        while (true) {
+            try {
+                completion.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        // The run is applied up to the first packet which was not applied in any of the partitions
+        long appliedUpToKey = run.get(run.size() - 1).getKey();
+        Throwable error = null;
+        for (ParallelApplyPartition partition : applied) {
+            if (partition.getError() != null && partition.getFirstNotAppliedKey() - 1 < appliedUpToKey) {
+                appliedUpToKey = partition.getFirstNotAppliedKey() - 1;
+                error = partition.getError();
+            }
+        }
+
+        for (IReplicationOrderedPacket packet : run) {
+            if (packet.getKey() > appliedUpToKey)
+                break;
+            _lastProcessedKey = packet.getKey();
+            _packetsQueue.remove(packet);
+            afterSuccessfulConsumption(sourceLookupName, packet);
+            ExchangeCountDownLatch<Throwable> latch = _pendingPackets.remove(packet.getKey());
+            // Notify pending thread
+            if (latch != null)
+                latch.countDown(null);
+        }
+
+        if (error instanceof Exception)
+            throw (Exception) error;
+        if (error instanceof Error)
+            throw (Error) error;
+    }
+
     protected void afterSuccessfulConsumption(String sourceLookupName,
                                               IReplicationOrderedPacket packet) {
         // Default do nothing
@@ -430,6 +596,8 @@ public class GlobalOrderTargetProcessLog
     @Override
     protected void onClose() {
         releasePendingWithError(new ClosedResourceException("Process log is closed"));
+        if (_parallelApplyExecutor != null)
+            _parallelApplyExecutor.shutdown();
     }
 
     private GlobalOrderProcessResult onErrorReleasePendingAndReturnResult(
@@ -457,6 +625,49 @@ public class GlobalOrderTargetProcessLog
         _pendingPackets.clear();
     }
 
+    private class ParallelApplyPartition implements Runnable {
+        private final List<IReplicationOrderedPacket> _packets;
+        private final ReplicationInContext _context;
+        private final IReplicationInFilterCallback _filterInCallback;
+        private final long _lastProcessedKeyBeforeRun;
+        private final CountDownLatch _completion;
+        // Published to the waiting thread by the completion latch
+        private int _appliedCount;
+        private Throwable _error;
+
+        private ParallelApplyPartition(List<IReplicationOrderedPacket> packets,
+                                       ReplicationInContext context,
+                                       IReplicationInFilterCallback filterInCallback,
+                                       long lastProcessedKey, CountDownLatch completion) {
+            _packets = packets;
+            _context = context;
+            _filterInCallback = filterInCallback;
+            _lastProcessedKeyBeforeRun = lastProcessedKey;
+            _completion = completion;
+        }
+
+        public void run() {
+            try {
+                for (IReplicationOrderedPacket packet : _packets) {
+                    consumePacket(_filterInCallback, _context, packet, _lastProcessedKeyBeforeRun, true);
+                    _appliedCount++;
+                }
+            } catch (Throwable t) {
+                _error = t;
+            } finally {
+                _completion.countDown();
+            }
+        }
+
+        public Throwable getError() {
+            return _error;
+        }
+
+        public long getFirstNotAppliedKey() {
+            return _packets.get(_appliedCount).getKey();
+        }
+    }
+
     public static class SharedOrderedPacketComparator
             implements Comparator<IReplicationOrderedPacket> {
 
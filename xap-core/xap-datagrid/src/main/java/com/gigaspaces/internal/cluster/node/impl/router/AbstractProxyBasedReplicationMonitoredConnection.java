@@ -26,7 +26,9 @@ import com.gigaspaces.internal.utils.collections.CopyOnUpdateSet;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.ILRMIProxy;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.lrmi.LRMIUtilities;
+import com.gigaspaces.lrmi.OperationClass;
 import com.gigaspaces.lrmi.nio.async.IExceptionHandler;
 import com.gigaspaces.lrmi.nio.async.IFuture;
 import com.gigaspaces.management.transport.ConnectionEndpointDetails;
@@ -133,6 +135,7 @@ public abstract class AbstractProxyBasedReplicationMonitoredConnection<T, L> imp
             final boolean logCommunication = _specificLogger.isTraceEnabled();
             if (logCommunication)
                 _specificLogger.trace("dispatching packet to " + ReplicationLogUtils.toShortLookupName(_endPointLookupName) + " - " + packet);
+            LRMIInvocationContext.setOperationClassForNextInvocation(OperationClass.REPLICATION);
             TR result = _connectionProxy.dispatch(packet);
             if (logCommunication)
                 _specificLogger.trace("dispatch result from " + ReplicationLogUtils.toShortLookupName(_endPointLookupName) + " for packet " + packet.toIdString() + " is - " + result);
@@ -153,6 +156,7 @@ public abstract class AbstractProxyBasedReplicationMonitoredConnection<T, L> imp
             _asyncContextProvider.setExceptionHandler(this);
             if (_specificLogger.isTraceEnabled())
                 _specificLogger.trace("async dispatching packet to " + ReplicationLogUtils.toShortLookupName(_endPointLookupName) + " - " + packet);
+            LRMIInvocationContext.setOperationClassForNextInvocation(OperationClass.REPLICATION);
             TR result = connectionProxy.dispatchAsync(packet);
             return _asyncContextProvider.getFutureContext(result, connectionProxy);
         } catch (RemoteException e) {
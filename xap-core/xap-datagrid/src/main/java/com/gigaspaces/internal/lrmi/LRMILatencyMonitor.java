@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.lrmi;
+
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.gigaspaces.metrics.internal.LatencyHistogram;
+import com.j_spaces.kernel.SystemProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records latency histograms per remote method. Methods are identified by their monitoring id, and
+ * the histograms of a method are registered as metrics when it is first invoked, under
+ * <tt>client|server.&lt;method&gt;.&lt;phase&gt;</tt>.
+ *
+ * <p>On the client side the phases are the round trip of a synchronous invocation and the time
+ * spent writing the request. On the server side they are the time a request waited for a thread
+ * after it was read, the execution of the method, and the time spent unmarshalling the request and
+ * writing its reply.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class LRMILatencyMonitor {
+    private static final LRMILatencyMonitor defaultMonitor = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_LATENCY_HISTOGRAMS, SystemProperties.LRMI_LATENCY_HISTOGRAMS_DEFAULT))
+            ? new LRMILatencyMonitor() : null;
+
+    private static final String[] CLIENT_PHASES = {"round-trip", "serialization"};
+    private static final String[] SERVER_PHASES = {"queue-wait", "execution", "serialization"};
+
+    private final ConcurrentMap<String, LatencyHistogram[]> _client = new ConcurrentHashMap<String, LatencyHistogram[]>();
+    private final ConcurrentMap<String, LatencyHistogram[]> _server = new ConcurrentHashMap<String, LatencyHistogram[]>();
+    private MetricRegistrator _registrator;
+
+    /**
+     * @return the monitor of this process, or null if latency histograms are disabled.
+     */
+    public static LRMILatencyMonitor getDefault() {
+        return defaultMonitor;
+    }
+
+    /**
+     * Registers the histograms of the methods invoked so far and of the ones invoked from now on.
+     */
+    public synchronized void setRegistrator(MetricRegistrator registrator) {
+        _registrator = registrator;
+        register("client", CLIENT_PHASES, _client);
+        register("server", SERVER_PHASES, _server);
+    }
+
+    /**
+     * @param serializationNanos the time spent writing the request, negative if unknown.
+     */
+    public void recordClient(String monitoringId, long roundTripNanos, long serializationNanos) {
+        if (monitoringId == null)
+            return;
+        LatencyHistogram[] histograms = getHistograms(monitoringId, "client", CLIENT_PHASES, _client);
+        histograms[0].recordNanos(roundTripNanos);
+        if (serializationNanos >= 0)
+            histograms[1].recordNanos(serializationNanos);
+    }
+
+    public void recordServer(String monitoringId, long queueWaitNanos, long executionNanos, long serializationNanos) {
+        if (monitoringId == null)
+            return;
+        LatencyHistogram[] histograms = getHistograms(monitoringId, "server", SERVER_PHASES, _server);
+        histograms[0].recordNanos(queueWaitNanos);
+        histograms[1].recordNanos(executionNanos);
+        histograms[2].recordNanos(serializationNanos);
+    }
+
+    private LatencyHistogram[] getHistograms(String monitoringId, String side, String[] phases, ConcurrentMap<String, LatencyHistogram[]> methods) {
+        LatencyHistogram[] histograms = methods.get(monitoringId);
+        if (histograms != null)
+            return histograms;
+        synchronized (this) {
+            histograms = methods.get(monitoringId);
+            if (histograms == null) {
+                histograms = new LatencyHistogram[phases.length];
+                for (int i = 0; i < histograms.length; i++)
+                    histograms[i] = new LatencyHistogram();
+                methods.put(monitoringId, histograms);
+                if (_registrator != null)
+                    register(side, phases, monitoringId, histograms);
+            }
+            return histograms;
+        }
+    }
+
+    private void register(String side, String[] phases, ConcurrentMap<String, LatencyHistogram[]> methods) {
+        if (_registrator == null)
+            return;
+        for (Map.Entry<String, LatencyHistogram[]> entry : methods.entrySet())
+            register(side, phases, entry.getKey(), entry.getValue());
+    }
+
+    private void register(String side, String[] phases, String monitoringId, LatencyHistogram[] histograms) {
+        MetricRegistrator methodRegistrator = _registrator.extend(_registrator.toPath(side, toMetricName(monitoringId)));
+        for (int i = 0; i < phases.length; i++)
+            histograms[i].register(methodRegistrator.extend(phases[i]));
+    }
+
+    /**
+     * @return the method name of a monitoring id which is a full method name, or the custom
+     * tracking id as is.
+     */
+    static String toMetricName(String monitoringId) {
+        return monitoringId.substring(monitoringId.lastIndexOf('.') + 1).replace(' ', '-');
+    }
+}
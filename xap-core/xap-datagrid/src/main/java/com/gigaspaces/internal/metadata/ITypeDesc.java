@@ -70,6 +70,14 @@ public interface ITypeDesc extends SpaceTypeDescriptor, IDotnetTypeDescDetails,
 
     boolean hasRoutingAnnotation();
 
+    /**
+     * @return true if the entries of this type are also kept in a columnar layout for scans.
+     * @since 16.4.0
+     */
+    default boolean isColumnarStorage() {
+        return false;
+    }
+
     int[] getIdentifierPropertiesId();
 
     boolean isAutoGenerateId();
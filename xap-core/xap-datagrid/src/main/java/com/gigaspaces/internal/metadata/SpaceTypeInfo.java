@@ -679,7 +679,7 @@ public class SpaceTypeInfo implements SmartExternalizable {
         if (annotation == null)
             return;
 
-        addPropertyIndex(name, annotation.path(), annotation.type(), "@" + annotation.annotationType().getSimpleName(), annotation.unique(), initContext);
+        addPropertyIndex(name, annotation.path(), annotation.type(), "@" + annotation.annotationType().getSimpleName(), annotation.unique(), annotation.offHeap(), annotation.orderedStore(), annotation.bitmap(), initContext);
     }
 
     private void addPropertyIndex(String name, Node xmlNode, InitContext initContext) {
@@ -690,13 +690,13 @@ public class SpaceTypeInfo implements SmartExternalizable {
         SpaceIndexType indexType = XmlUtils.getAttributeEnum(xmlNode, "type", SpaceIndexType.class, SpaceIndexType.EQUAL);
         //unique?
         boolean unique = XmlUtils.getAttributeBoolean(xmlNode, "unique", false);
-        addPropertyIndex(name, path, indexType, "<index>", unique, initContext);
+        addPropertyIndex(name, path, indexType, "<index>", unique, false, OrderedIndexStore.SKIP_LIST, false, initContext);
     }
 
-    private void addPropertyIndex(String name, String path, SpaceIndexType indexType, String configName, boolean unique, InitContext initContext) {
+    private void addPropertyIndex(String name, String path, SpaceIndexType indexType, String configName, boolean unique, boolean offHeap, OrderedIndexStore orderedIndexStore, boolean bitmap, InitContext initContext) {
 
         if (path == null || path.length() == 0)
-            initContext.addIndex(name, indexType, unique);
+            initContext.addIndex(name, indexType, unique, offHeap, orderedIndexStore, bitmap);
         else {
             // Add property name to index path
             if (path.startsWith(SpaceCollectionIndex.COLLECTION_INDICATOR)) {
@@ -1368,6 +1368,9 @@ public class SpaceTypeInfo implements SmartExternalizable {
             if (!isUnique && entry.getValue().getIndexType().isIndexed())
                 isUnique = ((ISpaceIndex) (entry.getValue())).isUnique();
             SpaceIndex index = new SpacePropertyIndex(property.getName(), indexType, isUnique, propertyPosition);
+            ((ISpaceIndex) index).setOffHeap(((ISpaceIndex) (entry.getValue())).isOffHeap());
+            ((ISpaceIndex) index).setOrderedIndexStore(((ISpaceIndex) (entry.getValue())).getOrderedIndexStore());
+            ((ISpaceIndex) index).setBitmap(((ISpaceIndex) (entry.getValue())).isBitmap());
             _indexes.put(index.getName(), index);
         }
 
@@ -1953,6 +1956,13 @@ public class SpaceTypeInfo implements SmartExternalizable {
                         + name + "] is already defined.");
             indexedProperties.put(name, SpaceIndexFactory.createPropertyIndex(name, indexType, unique));
         }
+
+        public void addIndex(String name, SpaceIndexType indexType, boolean unique, boolean offHeap, OrderedIndexStore orderedIndexStore, boolean bitmap) {
+            addIndex(name, indexType, unique);
+            ((ISpaceIndex) indexedProperties.get(name)).setOffHeap(offHeap);
+            ((ISpaceIndex) indexedProperties.get(name)).setOrderedIndexStore(orderedIndexStore);
+            ((ISpaceIndex) indexedProperties.get(name)).setBitmap(bitmap);
+        }
     }
 
     private static <T> List<T> toSingleOrEmptyList(T item) {
@@ -104,6 +104,7 @@ public class TypeDesc implements ITypeDesc {
     private transient Class<? extends SpaceDocument> _documentWrapperClass;
 
     private boolean _hasRoutingAnnotation;
+    private boolean _columnarStorage;
 
     private transient ITypeIntrospector<? extends SpaceDocument> _documentIntrospector;
     private transient String[] _restrictedSuperClasses;
@@ -138,7 +139,8 @@ public class TypeDesc implements ITypeDesc {
                     Class<? extends ExternalEntry> externalEntryClass, Class<? extends SpaceDocument> documentWrapperClass,
                     String dotnetDocumentWrapperType, byte dotnetStorageType, boolean blobstoreEnabled, String sequenceNumberPropertyName,
                     TypeQueryExtensions queryExtensionsInfo, Class<? extends ClassBinaryStorageAdapter> binaryStorageAdapter, boolean broadcast,
-                    TieredStorageTableConfig tieredStorageTableConfig, boolean hasRoutingAnnotation) {
+                    TieredStorageTableConfig tieredStorageTableConfig, boolean hasRoutingAnnotation,
+                    boolean columnarStorage) {
 
         _typeName = typeName;
         _codeBase = codeBase;
@@ -187,6 +189,7 @@ public class TypeDesc implements ITypeDesc {
         _broadcast = broadcast;
         _tieredStorageTableConfig = tieredStorageTableConfig;
         _hasRoutingAnnotation = hasRoutingAnnotation;
+        _columnarStorage = columnarStorage;
     }
 
     private void initHybridProperties() {
@@ -448,6 +451,11 @@ public class TypeDesc implements ITypeDesc {
         return _hasRoutingAnnotation;
     }
 
+    @Override
+    public boolean isColumnarStorage() {
+        return _columnarStorage;
+    }
+
     public boolean supportsDynamicProperties() {
         return _supportsDynamicProperties;
     }
@@ -764,6 +772,7 @@ public class TypeDesc implements ITypeDesc {
         sb.append("replicatable=").append(_replicable).append(", ");
         sb.append("blobstoreEnabled=").append(_blobstoreEnabled).append(", ");
         sb.append("broadcast=").append(_broadcast).append(", ");
+        sb.append("columnarStorage=").append(_columnarStorage).append(", ");
         sb.append("storageType=").append(_storageType).append(", ");
         sb.append("fifoSupport=").append(_fifoSupport).append(", ");
         sb.append("idPropertiesNames=").append(String.join(";", _idPropertiesNames)).append(", ");
@@ -954,6 +963,10 @@ public class TypeDesc implements ITypeDesc {
             _hasRoutingAnnotation = in.readBoolean();
         }
 
+        if (version.greaterOrEquals(PlatformLogicalVersion.v16_4_0)) {
+            _columnarStorage = in.readBoolean();
+        }
+
         initializeV9_0_0();
         initHybridProperties();
     }
@@ -1314,6 +1327,10 @@ public class TypeDesc implements ITypeDesc {
         if (version.greaterOrEquals(PlatformLogicalVersion.v16_3_0)) {
             out.writeBoolean(_hasRoutingAnnotation);
         }
+
+        if (version.greaterOrEquals(PlatformLogicalVersion.v16_4_0)) {
+            out.writeBoolean(_columnarStorage);
+        }
     }
 
     private void writeExternalV10_1(ObjectOutput out, PlatformLogicalVersion version, boolean swap) throws IOException {
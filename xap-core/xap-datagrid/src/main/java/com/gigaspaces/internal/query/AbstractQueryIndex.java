@@ -31,6 +31,7 @@ import com.j_spaces.kernel.list.IScanListIterator;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 
 /**
  * @author anna
@@ -145,6 +146,8 @@ public abstract class AbstractQueryIndex implements IQueryIndexScanner {
                 size = -1;
             }
             IndexInfo info = ExplainPlanUtil.createIndexInfo(this, index, typeData, size, true);
+            if (size < 0)
+                info.setEstimatedSize((int) Math.min(Integer.MAX_VALUE, estimateIndexedEntries(index)));
             choiceNode.addOption(info);
             choiceNode.setChosen(info);
         }
@@ -167,6 +170,24 @@ public abstract class AbstractQueryIndex implements IQueryIndexScanner {
 
     protected abstract boolean hasIndexValue();
 
+    /**
+     * @return the estimated number of entries returned by the last {@link
+     * #getEntriesByIndex(Context, TypeData, TypeDataIndex, boolean)} call on the index when its size
+     * is not known in advance, or -1 if it can not be estimated
+     */
+    public long estimateIndexedEntries(TypeDataIndex index) {
+        return -1;
+    }
+
+    /**
+     * @return the values an entry may have in the index to match the scanner, converted to the
+     * value type of the index, or null if the scanner can not be evaluated by bitmaps
+     * @see BitmapIndexScanner
+     */
+    public Collection<Object> getBitmapIndexValues(TypeDataIndex index) {
+        return null;
+    }
+
 
     protected abstract IObjectsList getEntriesByIndex(Context context, TypeData typeData, TypeDataIndex<Object> index, boolean fifoGroupsScan);
 
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.query;
+
+import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.query.explainplan.IndexChoiceNode;
+import com.gigaspaces.internal.query.explainplan.IndexInfo;
+import com.gigaspaces.internal.query.explainplan.QueryOperator;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.TypeData;
+import com.j_spaces.core.cache.TypeDataIndex;
+import com.j_spaces.core.cache.bitmap.BitmapEntriesIterator;
+import com.j_spaces.core.cache.bitmap.BitmapIndexStore;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.kernel.list.IObjectsList;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evaluates the equality conditions of several bitmap indexes of a type at once, by intersecting
+ * (or uniting) the bitmaps of their values. Created on the server side by {@link #combine} in place
+ * of the index scanners of the conditions. The indexes are kept by name and resolved against the
+ * type data being scanned, so a serialized scanner can be evaluated by another space.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class BitmapIndexScanner implements IQueryIndexScanner {
+    private static final long serialVersionUID = 1L;
+
+    private String[] _indexNames;
+    private Collection<Object>[] _values;
+    private boolean _union;
+    private String _name;
+
+    public BitmapIndexScanner() {
+    }
+
+    private BitmapIndexScanner(List<TypeDataIndex<?>> indexes, List<Collection<Object>> values, boolean union) {
+        _indexNames = new String[indexes.size()];
+        for (int i = 0; i < _indexNames.length; i++)
+            _indexNames[i] = indexes.get(i).getIndexDefinition().getName();
+        _values = values.toArray(new Collection[values.size()]);
+        _union = union;
+        _name = createName(_indexNames, union);
+    }
+
+    private static String createName(String[] indexNames, boolean union) {
+        StringBuilder name = new StringBuilder("[");
+        for (int i = 0; i < indexNames.length; i++) {
+            if (i > 0)
+                name.append(union ? " OR " : " AND ");
+            name.append(indexNames[i]);
+        }
+        return name.append(']').toString();
+    }
+
+    /**
+     * Replaces the scanners which can be evaluated by the bitmaps of the type with a single bitmap
+     * scanner, placed first.
+     *
+     * @param union true if the scanners are of an OR condition, false if of an AND condition
+     * @return the specified scanners if less than two of them can be evaluated by bitmaps
+     */
+    public static List<IQueryIndexScanner> combine(List<IQueryIndexScanner> scanners, TypeData typeData, ITemplateHolder template,
+                                                   int latestIndexToConsider, boolean union) {
+        if (scanners == null || scanners.size() < 2 || typeData.getBitmapIndexStore() == null
+                || template.isFifoTemplate() || template.isFifoGroupPoll())
+            return scanners;
+        List<TypeDataIndex<?>> indexes = null;
+        List<Collection<Object>> values = null;
+        List<IQueryIndexScanner> others = null;
+        for (IQueryIndexScanner scanner : scanners) {
+            Collection<Object> scannerValues = null;
+            TypeDataIndex<?> index = null;
+            if (scanner instanceof AbstractQueryIndex) {
+                index = typeData.getIndex(scanner.getIndexName());
+                if (index != null && index.getBitmapStore() != null && latestIndexToConsider >= index.getIndexCreationNumber()
+                        && !typeData.disableIdIndexForEntries(index))
+                    scannerValues = ((AbstractQueryIndex) scanner).getBitmapIndexValues(index);
+            }
+            if (scannerValues == null) {
+                if (others == null)
+                    others = new ArrayList<IQueryIndexScanner>(scanners.size());
+                others.add(scanner);
+                continue;
+            }
+            if (indexes == null) {
+                indexes = new ArrayList<TypeDataIndex<?>>();
+                values = new ArrayList<Collection<Object>>();
+            }
+            indexes.add(index);
+            values.add(scannerValues);
+        }
+        if (indexes == null || indexes.size() < 2)
+            return scanners;
+        List<IQueryIndexScanner> result = new ArrayList<IQueryIndexScanner>(scanners.size() - indexes.size() + 1);
+        result.add(new BitmapIndexScanner(indexes, values, union));
+        if (others != null)
+            result.addAll(others);
+        return result;
+    }
+
+    @Override
+    public IObjectsList getIndexedEntriesByType(Context context, TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        BitmapIndexStore store = typeData.getBitmapIndexStore();
+        if (store == null)
+            return IQueryIndexScanner.RESULT_IGNORE_INDEX;
+        TypeDataIndex<?>[] indexes = new TypeDataIndex[_indexNames.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = typeData.getIndex(_indexNames[i]);
+            if (indexes[i] == null || indexes[i].getBitmapStore() == null || latestIndexToConsider < indexes[i].getIndexCreationNumber())
+                return IQueryIndexScanner.RESULT_IGNORE_INDEX;
+        }
+        IEntryCacheInfo[] entries = store.evaluate(indexes, _values, _union);
+
+        if (context.getExplainPlanContext() != null) {
+            IndexChoiceNode choiceNode = context.getExplainPlanContext().getFatherNode();
+            if (choiceNode == null) {
+                choiceNode = new IndexChoiceNode("BITMAP");
+                context.getExplainPlanContext().getSingleExplainPlan().addScanIndexChoiceNode(typeData.getClassName(), choiceNode);
+                context.getExplainPlanContext().setFatherNode(choiceNode);
+            }
+            IndexInfo info = new IndexInfo(_name, entries.length, SpaceIndexType.EQUAL, null, _union ? QueryOperator.IN : QueryOperator.EQ, true);
+            choiceNode.addOption(info);
+            choiceNode.setChosen(info);
+        }
+
+        if (entries.length == 0)
+            return _union ? null : IQueryIndexScanner.RESULT_NO_MATCH;
+        return new BitmapEntriesIterator(entries);
+    }
+
+    @Override
+    public String getIndexName() {
+        return _name;
+    }
+
+    @Override
+    public Object getIndexValue() {
+        return null;
+    }
+
+    @Override
+    public boolean requiresOrderedIndex() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsFifoOrder() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsTemplateIndex() {
+        return false;
+    }
+
+    @Override
+    public boolean isUidsScanner() {
+        return false;
+    }
+
+    @Override
+    public boolean isExtendsAbstractQueryIndex() {
+        return false;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        IOUtils.writeStringArray(out, _indexNames);
+        out.writeBoolean(_union);
+        for (Collection<Object> values : _values)
+            IOUtils.writeObject(out, values);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        _indexNames = IOUtils.readStringArray(in);
+        _union = in.readBoolean();
+        _values = new Collection[_indexNames.length];
+        for (int i = 0; i < _values.length; i++)
+            _values[i] = IOUtils.readObject(in);
+        _name = createName(_indexNames, _union);
+    }
+}
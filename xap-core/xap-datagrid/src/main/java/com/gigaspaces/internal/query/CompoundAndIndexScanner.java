@@ -41,6 +41,9 @@ import java.util.List;
 @com.gigaspaces.api.InternalApi
 public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
     private static final long serialVersionUID = 1L;
+    //scanning an extended index costs more per entry than a stored list, prefer it only when the
+    //estimated number of entries is smaller by this factor
+    private static final int EXTENDED_INDEX_PREFERENCE_FACTOR = 2;
 
     public CompoundAndIndexScanner() {
         super();
@@ -77,6 +80,7 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
 
         IStoredList<IEntryCacheInfo> shortestPotentialMatchList = null;
         IScanListIterator<IEntryCacheInfo> shortestExtendedIndexMatch = null;
+        long shortestExtendedIndexEstimate = -1;
         MultiIntersectedStoredList<IEntryCacheInfo> intersectedList = null;   //if index intersection desired
         ScanUidsIterator uidsIter = null;
         int uidsSize = Integer.MAX_VALUE;
@@ -85,6 +89,7 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
         IndexChoiceNode fatherNode = null;
         IndexChoiceNode choiceNode = null;
         IQueryIndexScanner shortestIndex = null;
+        IQueryIndexScanner shortestExtendedIndex = null;
         final boolean isExplainPlan = context.getExplainPlanContext() != null;
         final boolean trackIndexHits = context.getIndexMetricsContext() != null;
         if(isExplainPlan){
@@ -94,7 +99,7 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
         }
 
         // Iterate over custom indexes to find shortest potential match list:
-        for (IQueryIndexScanner queryIndex : indexScanners) {
+        for (IQueryIndexScanner queryIndex : BitmapIndexScanner.combine(indexScanners, typeData, template, latestIndexToConsider, false /*union*/)) {
             // Get entries in space that match the indexed value in the query (a.k.a potential match list):
             IObjectsList result;
 
@@ -137,9 +142,14 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
                     intersectedList = addToIntersectedList(context, intersectedList, result, template.isFifoTemplate(), false/*shortest*/, typeData);
 
                 if (!wasUids) {
-                    shortestExtendedIndexMatch = (IScanListIterator<IEntryCacheInfo>) result;
-                    if (isExplainPlan || trackIndexHits) {
-                        shortestIndex = queryIndex;
+                    //keep the iterator with the least estimated entries, uids iter wins over iters
+                    long estimate = queryIndex.isUidsScanner() ? uidsSize : estimateIndexedEntries(typeData, queryIndex, (IScanListIterator<IEntryCacheInfo>) result);
+                    if (queryIndex.isUidsScanner() || shortestExtendedIndexEstimate < 0 || (estimate >= 0 && estimate < shortestExtendedIndexEstimate)) {
+                        shortestExtendedIndexMatch = (IScanListIterator<IEntryCacheInfo>) result;
+                        shortestExtendedIndexEstimate = estimate;
+                        if (isExplainPlan || trackIndexHits) {
+                            shortestExtendedIndex = queryIndex;
+                        }
                     }
                 }
                 continue;
@@ -169,7 +179,8 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
 
         }
 
-        if (shortestPotentialMatchList != null && (uidsSize == Integer.MAX_VALUE || shortestPotentialMatchList.size() <= uidsSize)) {
+        if (shortestPotentialMatchList != null && (uidsSize == Integer.MAX_VALUE || shortestPotentialMatchList.size() <= uidsSize)
+                && !preferExtendedIndexMatch(shortestPotentialMatchList, uidsIter, shortestExtendedIndexEstimate)) {
             if (context.isIndicesIntersectionEnabled()) {
                 intersectedList = addToIntersectedList(context, intersectedList, shortestPotentialMatchList, template.isFifoTemplate(), true/*shortest*/, typeData);
                 if (shortestExtendedIndexMatch != null)
@@ -195,11 +206,11 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
             }
 
             if (isExplainPlan){
-                addChosenIndex(context, typeData, fatherNode, choiceNode, shortestIndex != null ? shortestIndex.getIndexName() : null);
+                addChosenIndex(context, typeData, fatherNode, choiceNode, shortestExtendedIndex != null ? shortestExtendedIndex.getIndexName() : null);
             }
 
-            if (trackIndexHits && shortestIndex != null) {
-                context.getIndexMetricsContext().addChosenIndex(shortestIndex);
+            if (trackIndexHits && shortestExtendedIndex != null) {
+                context.getIndexMetricsContext().addChosenIndex(shortestExtendedIndex);
             }
 
             return shortestExtendedIndexMatch;
@@ -216,6 +227,23 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
         return IQueryIndexScanner.RESULT_IGNORE_INDEX;
     }
 
+    /**
+     * an extended index scan is preferred over the shortest stored list when the index statistics
+     * estimate it returns considerably less entries
+     */
+    private static boolean preferExtendedIndexMatch(IStoredList<IEntryCacheInfo> shortestPotentialMatchList, ScanUidsIterator uidsIter, long shortestExtendedIndexEstimate) {
+        return uidsIter == null && shortestExtendedIndexEstimate >= 0
+                && shortestExtendedIndexEstimate * EXTENDED_INDEX_PREFERENCE_FACTOR < shortestPotentialMatchList.size();
+    }
+
+    private static long estimateIndexedEntries(TypeData typeData, IQueryIndexScanner queryIndex, IScanListIterator<IEntryCacheInfo> result) {
+        if (result.hasSize())
+            return result.size();
+        if (!(queryIndex instanceof AbstractQueryIndex))
+            return -1;
+        return ((AbstractQueryIndex) queryIndex).estimateIndexedEntries(typeData.getIndex(queryIndex.getIndexName()));
+    }
+
     private void addChosenIndex(Context context, TypeData typeData, IndexChoiceNode fatherNode, IndexChoiceNode choiceNode, String shortestIndexName) {
         IndexInfo chosen = context.getExplainPlanContext().getSingleExplainPlan().getLatestIndexChoiceNode(typeData.getClassName()).getOptionByName(shortestIndexName);
         choiceNode.setChosen(chosen);
@@ -89,7 +89,8 @@ public class CompoundOrIndexScanner extends AbstractCompoundIndexScanner
             explainPlanContext.setFatherNode(choiceNode);
         }
 
-        for (IQueryIndexScanner indexScanner : indexScanners) {
+        //bitmap conditions are united once, so their entries are not duplicated in the union list
+        for (IQueryIndexScanner indexScanner : BitmapIndexScanner.combine(indexScanners, typeData, template, latestIndexToConsider, true /*union*/)) {
             IObjectsList indexResult = indexScanner.getIndexedEntriesByType(context, typeData, template, latestIndexToConsider);
 
             if (indexResult == IQueryIndexScanner.RESULT_IGNORE_INDEX) {
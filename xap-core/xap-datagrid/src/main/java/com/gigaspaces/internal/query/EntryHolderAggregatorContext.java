@@ -20,11 +20,17 @@ import com.gigaspaces.internal.server.storage.IEntryData;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
 import com.gigaspaces.internal.transport.EntryPacketFactory;
 import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.query.aggregators.AggregationInternalUtils;
 import com.gigaspaces.query.aggregators.SpaceEntriesAggregator;
 import com.gigaspaces.query.aggregators.SpaceEntriesAggregatorContext;
 import com.gigaspaces.server.ServerEntry;
 import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.kernel.SystemProperties;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -34,24 +40,117 @@ import java.util.List;
 @com.gigaspaces.api.InternalApi
 public class EntryHolderAggregatorContext extends SpaceEntriesAggregatorContext {
 
+    private static final int BATCH_SIZE = Integer.getInteger(SystemProperties.ENGINE_AGGREGATION_BATCH_SIZE, SystemProperties.ENGINE_AGGREGATION_BATCH_SIZE_DEFAULT);
+
     private final ITemplateHolder template;
     private final int partitionId;
     private IEntryData entryData;
     private String uid;
     private boolean isTransient;
+    // matched entries which were not aggregated yet, null if entries are aggregated one by one
+    private final IEntryData[] batchEntries;
+    private final String[] batchUids;
+    private final boolean[] batchTransient;
+    private int batchSize;
+    // unused copies of the aggregators for partial contexts, null if the aggregators cannot be split
+    private final List<SpaceEntriesAggregator> prototypes;
 
     public EntryHolderAggregatorContext(List<SpaceEntriesAggregator> aggregators, ITemplateHolder template,
                                         int partitionId) {
+        this(aggregators, template, partitionId, AggregationInternalUtils.containsOnlyBatchAggregators(aggregators) ? copyOf(aggregators) : null);
+    }
+
+    private EntryHolderAggregatorContext(List<SpaceEntriesAggregator> aggregators, ITemplateHolder template,
+                                         int partitionId, List<SpaceEntriesAggregator> prototypes) {
         super(aggregators);
+        this.prototypes = prototypes;
         this.template = template;
         this.partitionId = partitionId;
+        boolean batch = BATCH_SIZE > 1 && AggregationInternalUtils.containsBatchAggregators(aggregators);
+        this.batchEntries = batch ? new IEntryData[BATCH_SIZE] : null;
+        this.batchUids = batch ? new String[BATCH_SIZE] : null;
+        this.batchTransient = batch ? new boolean[BATCH_SIZE] : null;
     }
 
     public void scan(Context context, IEntryData entryData, String uid, boolean isTransient) {
-        this.entryData = context.getViewEntryData(entryData);
-        this.uid = uid;
-        this.isTransient = isTransient;
-        aggregate();
+        // the view of a hybrid entry is reused by the context, so it cannot be kept for later
+        if (batchEntries == null || entryData.isHybrid()) {
+            flush();
+            this.entryData = context.getViewEntryData(entryData);
+            this.uid = uid;
+            this.isTransient = isTransient;
+            aggregate();
+            return;
+        }
+        batchEntries[batchSize] = entryData;
+        batchUids[batchSize] = uid;
+        batchTransient[batchSize] = isTransient;
+        if (++batchSize == batchEntries.length)
+            flush();
+    }
+
+    /**
+     * Aggregates the entries which were scanned and not aggregated yet. Must be called when the scan
+     * is done, before the results of the aggregators are used.
+     */
+    public void flush() {
+        if (batchSize == 0)
+            return;
+        int size = batchSize;
+        batchSize = 0;
+        try {
+            aggregateBatch(size);
+        } finally {
+            Arrays.fill(batchEntries, 0, size, null);
+            Arrays.fill(batchUids, 0, size, null);
+            entryData = null;
+            uid = null;
+        }
+    }
+
+    /**
+     * @return true if parts of the scan can be aggregated by partial contexts and merged back
+     */
+    public boolean isSplittable() {
+        return prototypes != null;
+    }
+
+    /**
+     * Creates a context with new copies of the aggregators, which can aggregate a part of the scan
+     * concurrently with this context.
+     */
+    public EntryHolderAggregatorContext createPartialContext() {
+        if (prototypes == null)
+            throw new IllegalStateException("Aggregators cannot be split");
+        return new EntryHolderAggregatorContext(copyOf(prototypes), template, partitionId, null);
+    }
+
+    /**
+     * Merges the aggregations of a partial context into this context, the same way results of
+     * partitions are merged.
+     */
+    public void merge(EntryHolderAggregatorContext partialContext) {
+        partialContext.flush();
+        Iterator<SpaceEntriesAggregator> partialAggregators = partialContext.getAggregators().iterator();
+        for (SpaceEntriesAggregator aggregator : getAggregators()) {
+            Serializable result = partialAggregators.next().getIntermediateResult();
+            if (result != null)
+                aggregator.aggregateIntermediateResult(result);
+        }
+    }
+
+    private static List<SpaceEntriesAggregator> copyOf(List<SpaceEntriesAggregator> aggregators) {
+        List<SpaceEntriesAggregator> result = new ArrayList<SpaceEntriesAggregator>(aggregators.size());
+        for (SpaceEntriesAggregator aggregator : aggregators)
+            result.add(aggregator.clone());
+        return result;
+    }
+
+    @Override
+    protected void moveToBatchRow(int row) {
+        this.entryData = batchEntries[row];
+        this.uid = batchUids[row];
+        this.isTransient = batchTransient[row];
     }
 
     @Override
@@ -25,6 +25,8 @@ import com.j_spaces.kernel.list.IObjectsList;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Scans the index with the defined index name only for entries that match the exact index value
@@ -77,6 +79,14 @@ public class ExactValueIndexScanner extends AbstractQueryIndex {
         return res;
     }
 
+    @Override
+    public Collection<Object> getBitmapIndexValues(TypeDataIndex index) {
+        if (_indexValue == null)
+            return null;
+        ConvertedObjectWrapper convertedValueWrapper = ConvertedObjectWrapper.create(_indexValue, index.getValueType());
+        return convertedValueWrapper != null ? Collections.singleton(convertedValueWrapper.getValue()) : null;
+    }
+
     public boolean requiresOrderedIndex() {
         return false;
     }
@@ -30,6 +30,9 @@ import com.j_spaces.kernel.list.MultiStoredList;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -113,6 +116,21 @@ public class InValueIndexScanner extends AbstractQueryIndex {
         return inMatchResult;
     }
 
+    @Override
+    public Collection<Object> getBitmapIndexValues(TypeDataIndex index) {
+        List<Object> values = new ArrayList<Object>(_indexInValueSet.size());
+        for (Object indexValue : _indexInValueSet) {
+            //null values are not kept in bitmaps
+            if (indexValue == null)
+                return null;
+            ConvertedObjectWrapper convertedValueWrapper = ConvertedObjectWrapper.create(indexValue, index.getValueType());
+            if (convertedValueWrapper == null)
+                return null;
+            values.add(convertedValueWrapper.getValue());
+        }
+        return values;
+    }
+
     public boolean requiresOrderedIndex() {
         return false;
     }
@@ -19,6 +19,7 @@ package com.gigaspaces.internal.query;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
 import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.cache.statistics.IndexStatistics;
 import com.j_spaces.core.client.TemplateMatchCodes;
 import com.j_spaces.kernel.list.IObjectsList;
 
@@ -84,6 +85,15 @@ public class RangeIndexScanner extends AbstractQueryIndex {
 
     }
 
+    @Override
+    public long estimateIndexedEntries(TypeDataIndex index) {
+        final IndexStatistics statistics = index != null ? index.getStatistics() : null;
+        if (statistics == null || _convertedMinWrapper == null || _convertedMaxWrapper == null)
+            return -1;
+        return statistics.estimateRange((Comparable) _convertedMinWrapper.getValue(), _includeMin,
+                (Comparable) _convertedMaxWrapper.getValue(), _includeMax);
+    }
+
     @Override
     protected boolean hasIndexValue() {
         return _min != null || _max != null;
@@ -17,6 +17,8 @@ package com.gigaspaces.internal.query.explainplan;
 
 import com.gigaspaces.api.ExperimentalApi;
 import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 
 import java.io.Externalizable;
@@ -38,6 +40,8 @@ public class IndexInfo implements Externalizable {
     private Object value;
     private QueryOperator operator;
     private boolean usable;
+    //estimated size from the index statistics when the size is unknown, -1 if not estimated
+    private int estimatedSize = -1;
 
     public IndexInfo() {
     }
@@ -87,13 +91,29 @@ public class IndexInfo implements Externalizable {
     }
 
     protected String getSizeDesc() {
-        return  size == null || size == -1 ? "unknown" : String.valueOf(size);
+        if (size == null || size == -1)
+            return estimatedSize < 0 ? "unknown" : "~" + estimatedSize;
+        return String.valueOf(size);
     }
 
     public void setSize(Integer size) {
         this.size = size;
     }
 
+    /**
+     * @since 16.4.0
+     */
+    public int getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * @since 16.4.0
+     */
+    public void setEstimatedSize(int estimatedSize) {
+        this.estimatedSize = estimatedSize;
+    }
+
     public void setType(SpaceIndexType type) {
         this.type = type;
     }
@@ -126,6 +146,17 @@ public class IndexInfo implements Externalizable {
         objectOutput.writeObject(this.value);
         objectOutput.writeObject(this.operator);
         objectOutput.writeBoolean(this.usable);
+        writeEstimatedSize(objectOutput);
+    }
+
+    protected void writeEstimatedSize(ObjectOutput objectOutput) throws IOException {
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_4_0))
+            objectOutput.writeInt(this.estimatedSize);
+    }
+
+    protected void readEstimatedSize(ObjectInput objectInput) throws IOException {
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_4_0))
+            this.estimatedSize = objectInput.readInt();
     }
 
     @Override
@@ -136,6 +167,7 @@ public class IndexInfo implements Externalizable {
         this.value = objectInput.readObject();
         this.operator = (QueryOperator) objectInput.readObject();
         this.usable = objectInput.readBoolean();
+        readEstimatedSize(objectInput);
     }
 
     @Override
@@ -19,6 +19,7 @@ import static com.gigaspaces.internal.query.explainplan.ExplainPlanUtil.getValue
 public class IndexInfoDetail {
     private Integer id;
     private Integer size;
+    private int estimatedSize;
     private String name;
     private Object value;
     private QueryOperator operator;
@@ -31,6 +32,7 @@ public class IndexInfoDetail {
         value = option.getValue();
         operator = option.getOperator();
         size = option.getSize();
+        estimatedSize = option.getEstimatedSize();
         type = option.getType();
     }
 
@@ -74,6 +76,14 @@ public class IndexInfoDetail {
         this.size = size;
     }
 
+    public int getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    public void setEstimatedSize(int estimatedSize) {
+        this.estimatedSize = estimatedSize;
+    }
+
     public SpaceIndexType getType() {
         return type;
     }
@@ -138,6 +148,8 @@ public class IndexInfoDetail {
     }
 
     protected String getSizeDesc() {
-        return size == null || size == -1 ? "unknown" : String.valueOf(size);
+        if (size == null || size == -1)
+            return estimatedSize < 0 ? "unknown" : "~" + estimatedSize;
+        return String.valueOf(size);
     }
 }
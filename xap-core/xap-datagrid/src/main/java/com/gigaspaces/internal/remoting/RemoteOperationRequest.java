@@ -62,4 +62,11 @@ public interface RemoteOperationRequest<TResult extends RemoteOperationResult> e
     boolean isDedicatedPoolRequired();
 
     boolean isDirectExecutionEnabled();
+
+    /**
+     * @return true if the operation may process many entries, so that a server which is overloaded
+     * by such operations can favor short ones
+     * @since 16.4.0
+     */
+    boolean isBulkOperation();
 }
@@ -23,6 +23,7 @@ import com.gigaspaces.internal.remoting.RemoteOperationResult;
 import com.gigaspaces.internal.remoting.RemoteOperationsExecutor;
 import com.gigaspaces.lrmi.ILRMIProxy;
 import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.OperationClass;
 import com.gigaspaces.lrmi.nio.async.FutureContext;
 
 import java.rmi.RemoteException;
@@ -59,6 +60,8 @@ public class RemoteOperationsExecutorProxy {
             LRMIInvocationContext.enableCustomPriorityForNextInvocation();
         if (request.isDirectExecutionEnabled())
             LRMIInvocationContext.enableDirectPriorityForNextInvocation();
+        if (request.isBulkOperation())
+            LRMIInvocationContext.setOperationClassForNextInvocation(OperationClass.BULK);
         return _executor.executeOperation(request);
     }
 
@@ -71,6 +74,8 @@ public class RemoteOperationsExecutorProxy {
                 LRMIInvocationContext.enableCustomPriorityForNextInvocation();
             if (request.isDirectExecutionEnabled())
                 LRMIInvocationContext.enableDirectPriorityForNextInvocation();
+            if (request.isBulkOperation())
+                LRMIInvocationContext.setOperationClassForNextInvocation(OperationClass.BULK);
             FutureContext.setFutureListener(listener);
             _executor.executeOperationAsync(request);
         } finally {
@@ -79,6 +84,8 @@ public class RemoteOperationsExecutorProxy {
     }
 
     public void executeOneway(RemoteOperationRequest<?> request) throws RemoteException {
+        if (request.isBulkOperation())
+            LRMIInvocationContext.setOperationClassForNextInvocation(OperationClass.BULK);
         _executor.executeOperationOneway(request);
     }
 
@@ -68,6 +68,16 @@ public abstract class BatchQueryOperationContext {
         _numResults++;
     }
 
+    /**
+     * Accounts for results which were consumed by the operation without being materialized, e.g.
+     * entries aggregated directly from a columnar store.
+     */
+    public void addConsumedResults(int numResults) {
+        if (keepResultsInBatchContext())
+            throw new IllegalStateException("Results of " + getClass().getSimpleName() + " must be added one by one");
+        _numResults += numResults;
+    }
+
     protected boolean keepResultsInBatchContext() {
         return true;
     }
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space;
+
+import com.gigaspaces.internal.query.EntryHolderAggregatorContext;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.transport.EntryPacketFactory;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.j_spaces.core.LimitExceededException;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.SAException;
+import com.j_spaces.kernel.list.IScanListIterator;
+import com.j_spaces.kernel.locks.ILockObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans the candidates of a single read multiple or aggregate operation in parallel. The candidates
+ * are split to chunks which are matched by the threads of a fork/join pool, each with its own
+ * context, results of the chunks are merged back to the template by the operation thread.
+ *
+ * <p>Only entries which are not locked by a transaction are handled in parallel - entries which may
+ * be under a transaction, expired or unstable are handed back to the regular scan. Candidates are
+ * matched without locking, and each match is verified under the entry lock before it is used.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ParallelScanHandler {
+    // number of chunks per thread, so that threads which finish early can steal work
+    private static final int CHUNKS_PER_THREAD = 4;
+    // max number of candidates drained at once, bounds the memory held by a scan
+    private static final int MAX_WINDOW_SIZE = 1 << 20;
+
+    private final CacheManager _cacheManager;
+    private final TemplateScanner _templateScanner;
+    private final ForkJoinPool _pool;
+    private final int _minEntries;
+    private final int _resultsSizeLimit;
+
+    public ParallelScanHandler(SpaceEngine spaceEngine, int threads, int minEntries, int resultsSizeLimit) {
+        _cacheManager = spaceEngine.getCacheManager();
+        _templateScanner = spaceEngine.getTemplateScanner();
+        _minEntries = Math.max(minEntries, 1);
+        _resultsSizeLimit = resultsSizeLimit;
+        final String threadNamePrefix = spaceEngine.getSpaceName() + "-parallel-scan-";
+        final AtomicInteger threadCounter = new AtomicInteger();
+        _pool = new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(threadNamePrefix + threadCounter.incrementAndGet());
+                return thread;
+            }
+        }, null, false);
+    }
+
+    /**
+     * @return true if the scan of the template can be split between threads. Scans of multiple
+     * lists are excluded since they may return an entry more than once, and so are operations
+     * limited to less entries than a parallel scan.
+     */
+    boolean canScanInParallel(Context context, ITemplateHolder template, IScanListIterator<IEntryCacheInfo> toScan) {
+        if (!toScan.isIterator() || toScan.isMultiListsIterator() || context.isTransactionalMultipleOperation())
+            return false;
+        if (!template.isReadOperation() || !template.isBatchOperation() || template.getBatchOperationContext().getMaxEntries() < _minEntries
+                || !template.isNonBlockingRead()
+                || template.isIfExist() || template.isInCache() || template.getXidOriginated() != null
+                || template.isFifoSearch() || template.isFifoGroupPoll() || template.isServerIterator()
+                || template.getExplainPlan() != null || template.getUidToOperateBy() != null)
+            return false;
+        EntryHolderAggregatorContext aggregatorContext = template.getAggregatorContext();
+        return aggregatorContext == null || aggregatorContext.isSplittable();
+    }
+
+    /**
+     * Drains the candidates of the scan in windows and, if there are enough of them, matches each
+     * window in parallel and merges the results to the template. A window holds no more candidates
+     * than the operation may still return, so an operation limited to few entries stops draining the
+     * list once it has them, like a regular scan.
+     *
+     * @return an iterator of the candidates which were not handled and should be scanned regularly
+     */
+    IScanListIterator<IEntryCacheInfo> scan(Context context, ITemplateHolder template, IScanListIterator<IEntryCacheInfo> toScan,
+                                            int skipAlreadyMatchedFixedPropertyIndex, String skipAlreadyMatchedIndexPath, long leaseFilter)
+            throws SAException {
+        //lists which know their size are left to the regular scan without draining them
+        if (toScan.hasSize() && toScan.size() < _minEntries)
+            return toScan;
+
+        final BatchQueryOperationContext batchOperationContext = template.getBatchOperationContext();
+        final List<IEntryCacheInfo> deferred = new ArrayList<IEntryCacheInfo>();
+        final List<IEntryCacheInfo> candidates = new ArrayList<IEntryCacheInfo>();
+        while (true) {
+            final int window = Math.max(_minEntries, Math.min(MAX_WINDOW_SIZE, batchOperationContext.getMaxEntries() - batchOperationContext.getNumResults()));
+            candidates.clear();
+            while (candidates.size() < window && toScan.hasNext()) {
+                IEntryCacheInfo pEntry = toScan.next();
+                if (pEntry != null)
+                    candidates.add(pEntry);
+            }
+            if (candidates.size() < _minEntries) {
+                //the rest of the list is too short to be split, scan it regularly
+                deferred.addAll(candidates);
+                return new CandidatesIterator(toScan, deferred);
+            }
+
+            scanWindow(context, template, candidates, deferred, skipAlreadyMatchedFixedPropertyIndex, skipAlreadyMatchedIndexPath, leaseFilter);
+            if (0 < _resultsSizeLimit && !template.isReturnOnlyUid() && template.isReadMultiple()
+                    && _resultsSizeLimit < batchOperationContext.getNumResults())
+                throw new LimitExceededException("Query max result", _resultsSizeLimit);
+            if (template.canFinishBatchOperation()) {
+                context.setOperationAnswer(template, null, null);
+                return new CandidatesIterator(toScan, Collections.<IEntryCacheInfo>emptyList());
+            }
+            if (candidates.size() < window || batchOperationContext.reachedMaxEntries())
+                return new CandidatesIterator(toScan, deferred);
+        }
+    }
+
+    private void scanWindow(Context context, ITemplateHolder template, List<IEntryCacheInfo> candidates, List<IEntryCacheInfo> deferred,
+                            int skipAlreadyMatchedFixedPropertyIndex, String skipAlreadyMatchedIndexPath, long leaseFilter) {
+        final BatchQueryOperationContext batchOperationContext = template.getBatchOperationContext();
+        final int parallelism = _pool.getParallelism();
+        final int chunkSize = Math.max(_minEntries / parallelism, (candidates.size() + parallelism * CHUNKS_PER_THREAD - 1) / (parallelism * CHUNKS_PER_THREAD));
+        final IEntryCacheInfo[] candidatesArray = candidates.toArray(new IEntryCacheInfo[candidates.size()]);
+        final AtomicInteger remaining = new AtomicInteger(batchOperationContext.getMaxEntries() - batchOperationContext.getNumResults());
+        final ScanChunk[] chunks = new ScanChunk[(candidatesArray.length + chunkSize - 1) / chunkSize];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = new ScanChunk(template, candidatesArray, i * chunkSize, Math.min(candidatesArray.length, (i + 1) * chunkSize),
+                    skipAlreadyMatchedFixedPropertyIndex, skipAlreadyMatchedIndexPath, leaseFilter, remaining);
+        _pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        });
+
+        for (ScanChunk chunk : chunks) {
+            context.incrementNumOfEntriesMatched(chunk._numOfEntriesMatched);
+            deferred.addAll(chunk._deferred);
+            if (batchOperationContext.reachedMaxEntries())
+                continue;
+            if (chunk._aggregatorContext != null) {
+                template.getAggregatorContext().merge(chunk._aggregatorContext);
+                batchOperationContext.addConsumedResults(chunk._numOfResults);
+            } else {
+                for (int i = 0; i < chunk._numOfResults && !batchOperationContext.reachedMaxEntries(); i++) {
+                    batchOperationContext.addResult(chunk._results.get(i));
+                    batchOperationContext.addToProcessedUidsIfNeeded(chunk._uids.get(i));
+                }
+            }
+        }
+    }
+
+    public void close() {
+        _pool.shutdownNow();
+    }
+
+    /**
+     * Matches a range of the candidates, aggregating the matching entries to a partial aggregator
+     * context or collecting their packets.
+     */
+    private class ScanChunk extends RecursiveAction {
+        private final ITemplateHolder _template;
+        private final IEntryCacheInfo[] _candidates;
+        private final int _from;
+        private final int _to;
+        private final int _skipAlreadyMatchedFixedPropertyIndex;
+        private final String _skipAlreadyMatchedIndexPath;
+        private final long _leaseFilter;
+        private final AtomicInteger _remaining;
+        private final EntryHolderAggregatorContext _aggregatorContext;
+        private final List<IEntryPacket> _results;
+        private final List<String> _uids;
+        private final List<IEntryCacheInfo> _deferred = new ArrayList<IEntryCacheInfo>();
+        private int _numOfResults;
+        private int _numOfEntriesMatched;
+
+        private ScanChunk(ITemplateHolder template, IEntryCacheInfo[] candidates, int from, int to,
+                          int skipAlreadyMatchedFixedPropertyIndex, String skipAlreadyMatchedIndexPath, long leaseFilter,
+                          AtomicInteger remaining) {
+            _template = template;
+            _candidates = candidates;
+            _from = from;
+            _to = to;
+            _skipAlreadyMatchedFixedPropertyIndex = skipAlreadyMatchedFixedPropertyIndex;
+            _skipAlreadyMatchedIndexPath = skipAlreadyMatchedIndexPath;
+            _leaseFilter = leaseFilter;
+            _remaining = remaining;
+            _aggregatorContext = template.getAggregatorContext() != null ? template.getAggregatorContext().createPartialContext() : null;
+            _results = _aggregatorContext == null ? new ArrayList<IEntryPacket>() : null;
+            _uids = _aggregatorContext == null ? new ArrayList<String>() : null;
+        }
+
+        @Override
+        protected void compute() {
+            final BatchQueryOperationContext batchOperationContext = _template.getBatchOperationContext();
+            final Context context = _cacheManager.getCacheContext();
+            try {
+                for (int i = _from; i < _to && _remaining.get() > 0; i++) {
+                    IEntryCacheInfo pEntry = _candidates[i];
+                    IEntryHolder entry = pEntry.getEntryHolder(_cacheManager, context);
+                    if (batchOperationContext.isInProcessedUids(entry.getUID()))
+                        continue;
+                    if (entry.isMaybeUnderXtn() || entry.isExpired(_leaseFilter)) {
+                        _deferred.add(pEntry);
+                        continue;
+                    }
+                    if (!_templateScanner.match(context, entry, _template, _skipAlreadyMatchedFixedPropertyIndex, _skipAlreadyMatchedIndexPath, false))
+                        continue;
+                    if (context.getLastMatchResult() != MatchResult.MASTER || context.isUnstableEntry()) {
+                        _deferred.add(pEntry);
+                        continue;
+                    }
+                    IEntryData entryData = verifyMatch(context, pEntry, entry);
+                    if (entryData == null)
+                        continue;
+                    if (_aggregatorContext != null) {
+                        _aggregatorContext.scan(context, entryData, entry.getUID(), entry.isTransient());
+                    } else {
+                        _results.add(EntryPacketFactory.createFullPacket(context, entry, _template, entryData));
+                        _uids.add(entry.getUID());
+                    }
+                    _numOfResults++;
+                    _remaining.decrementAndGet();
+                }
+                if (_aggregatorContext != null)
+                    _aggregatorContext.flush();
+            } finally {
+                _numOfEntriesMatched = context.getNumberOfEntriesMatched();
+                _cacheManager.freeCacheContext(context);
+            }
+        }
+
+        /**
+         * Re-verifies a match found without locking under the entry lock, which writers of the
+         * entry hold while changing it, and re-matches the entry if it was changed meanwhile.
+         *
+         * @return the matched entry data, or null if the entry no longer matches or was deferred
+         */
+        private IEntryData verifyMatch(Context context, IEntryCacheInfo pEntry, IEntryHolder entry) {
+            ILockObject entryLock = _cacheManager.getLockManager().getLockObject(entry);
+            try {
+                synchronized (entryLock) {
+                    if (entry.isDeleted())
+                        return null;
+                    if (entry.isMaybeUnderXtn() || entry.isUnstable()) {
+                        _deferred.add(pEntry);
+                        return null;
+                    }
+                    if (entry.getTxnEntryData() == context.getLastRawMatchSnapshot())
+                        return context.getLastRawMatchSnapshot();
+                    if (!_templateScanner.match(context, entry, _template, _skipAlreadyMatchedFixedPropertyIndex, _skipAlreadyMatchedIndexPath, false))
+                        return null;
+                    if (context.getLastMatchResult() != MatchResult.MASTER || context.isUnstableEntry()) {
+                        _deferred.add(pEntry);
+                        return null;
+                    }
+                    return context.getLastRawMatchSnapshot();
+                }
+            } finally {
+                _cacheManager.getLockManager().freeLockObject(entryLock);
+            }
+        }
+    }
+
+    /**
+     * Iterates the candidates which were drained from a scan and were not handled in parallel.
+     */
+    private static class CandidatesIterator implements IScanListIterator<IEntryCacheInfo> {
+        private final IScanListIterator<IEntryCacheInfo> _scan;
+        private final List<IEntryCacheInfo> _candidates;
+        private int _pos;
+
+        private CandidatesIterator(IScanListIterator<IEntryCacheInfo> scan, List<IEntryCacheInfo> candidates) {
+            _scan = scan;
+            _candidates = candidates;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _pos < _candidates.size();
+        }
+
+        @Override
+        public IEntryCacheInfo next() {
+            return _candidates.get(_pos++);
+        }
+
+        @Override
+        public void releaseScan() throws SAException {
+            _scan.releaseScan();
+        }
+
+        @Override
+        public int getAlreadyMatchedFixedPropertyIndexPos() {
+            return _scan.getAlreadyMatchedFixedPropertyIndexPos();
+        }
+
+        @Override
+        public String getAlreadyMatchedIndexPath() {
+            return _scan.getAlreadyMatchedIndexPath();
+        }
+
+        @Override
+        public boolean isAlreadyMatched() {
+            return _scan.isAlreadyMatched();
+        }
+
+        @Override
+        public boolean isIterator() {
+            return true;
+        }
+    }
+}
@@ -124,6 +124,8 @@ import com.j_spaces.core.cache.blobStore.IBlobStoreEntryHolder;
 import com.j_spaces.core.cache.blobStore.optimizations.BlobStoreOperationOptimizations;
 import com.j_spaces.core.cache.blobStore.storage.bulks.BlobStoreBulkInfo;
 import com.j_spaces.core.cache.blobStore.storage.preFetch.BlobStorePreFetchIteratorBasedHandler;
+import com.j_spaces.core.cache.columnar.ColumnarAggregation;
+import com.j_spaces.core.cache.columnar.ColumnarTypeStore;
 import com.j_spaces.core.cache.context.Context;
 import com.j_spaces.core.cache.context.TemplateMatchTier;
 import com.j_spaces.core.cache.context.TieredState;
@@ -220,6 +222,7 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
     private final SpaceDataEventManager _dataEventManager;
     private final TemplateScanner _templateScanner;
     private final FifoGroupsHandler _fifoGroupsHandler;
+    private final ParallelScanHandler _parallelScanHandler;
     private LeaseManager _leaseManager;
     private MemoryManager _memoryManager;
     private final ServerIteratorsManager _serverIteratorsManager;
@@ -388,6 +391,10 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         _duplicateOperationIDFilter = createDuplicateOperationIDFilter();
         _resultsSizeLimit = _configReader.getIntSpaceProperty(ENGINE_QUERY_RESULT_SIZE_LIMIT, ENGINE_QUERY_RESULT_SIZE_LIMIT_DEFAULT);
         _resultsSizeLimitMemoryCheckBatchSize = _configReader.getIntSpaceProperty(ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE, ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE_DEFAULT);
+        final int parallelScanThreads = _configReader.getIntSpaceProperty(ENGINE_QUERY_PARALLEL_SCAN_THREADS, ENGINE_QUERY_PARALLEL_SCAN_THREADS_DEFAULT);
+        _parallelScanHandler = parallelScanThreads > 0 && !_isLocalCache && _cacheManager.isAllInCachePolicy() && !_spaceImpl.isMvccEnabled()
+                ? new ParallelScanHandler(this, parallelScanThreads, _configReader.getIntSpaceProperty(ENGINE_QUERY_PARALLEL_SCAN_MIN_ENTRIES, ENGINE_QUERY_PARALLEL_SCAN_MIN_ENTRIES_DEFAULT), _resultsSizeLimit)
+                : null;
         if (!_isLocalCache) {
             registerSpaceMetrics(_metricRegistrator);
         }
@@ -1595,9 +1602,16 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
                         throw new TransactionException("The transaction is not active: " + txnEntry.m_Transaction);
 
                     context.setTransactionalMultipleOperation(true);
+                    //new entries are locked by the xtn, their refs are inserted per type before the xtn is unlocked
+                    if (entryPackets.length > 1 && _cacheManager.isWriteMultipleBatchIndexingSupported())
+                        context.setPendingEntriesReferences(new LinkedHashMap<TypeData, List<IEntryCacheInfo>>());
 
-                    result = writeEntryPackets(entryPackets, result, context, txnEntry.m_Transaction,
-                            lease, leases, modifiers, sc, false/* reInsertedEntry*/, true /*fromWriteMultiple */);
+                    try {
+                        result = writeEntryPackets(entryPackets, result, context, txnEntry.m_Transaction,
+                                lease, leases, modifiers, sc, false/* reInsertedEntry*/, true /*fromWriteMultiple */);
+                    } finally {
+                        _cacheManager.insertPendingEntriesReferences(context);
+                    }
                 } finally {
                     txnEntry.unlock();
                 }
@@ -3676,6 +3690,9 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         if (_processorWG != null)
             _processorWG.shutdown();
 
+        if (_parallelScanHandler != null)
+            _parallelScanHandler.close();
+
         if (_leaseManager != null)
             _leaseManager.close();
 
@@ -4251,6 +4268,9 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         try {
             //can we use blob-store prefetch ?
             toScan = BlobStorePreFetchIteratorBasedHandler.createPreFetchIterIfRelevant(context, _cacheManager, toScan, template, _logger);
+            //split large scans between the parallel scan threads, entries which were not handled are scanned here
+            if (_parallelScanHandler != null && _parallelScanHandler.canScanInParallel(context, template, toScan))
+                toScan = _parallelScanHandler.scan(context, template, toScan, alreadyMatchedFixedPropertyIndexPos, alreadyMatchedIndexPath, leaseFilter);
             while (hasNext = toScan.hasNext()) {
                 IEntryCacheInfo pEntry = toScan.next();
                 if (pEntry == null) {
@@ -4356,6 +4376,8 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
             return;  //in-place-update by id no inheritance
         if(entryTypeDesc.getTypeDesc().isBroadcast() && skipBroadcastTable(context, template))
             return;
+        if (template.getAggregatorContext() != null && aggregateColumnar(context, template, entryTypeDesc))
+            return;
         IScanListIterator<IEntryCacheInfo> toScan = template.isServerIterator()? getOrCreateScanListIteratorFromServerIterator(context, entryTypeDesc, template, serverTypeDesc) : _cacheManager.getMatchingMemoryEntriesForScanning(context, entryTypeDesc, template, serverTypeDesc);
         if (toScan == null)
             return;
@@ -4380,6 +4402,35 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         }
     }
 
+    /**
+     * Aggregates all the entries of the type directly from its columnar store, if the type has one
+     * and both the template and the aggregators allow it.
+     *
+     * @return false if the type should be scanned regularly, in which case nothing was aggregated
+     */
+    private boolean aggregateColumnar(Context context, ITemplateHolder template, IServerTypeDesc entryTypeDesc) {
+        final ColumnarTypeStore store = _cacheManager.getTypeData(entryTypeDesc).getColumnarStore();
+        if (store == null || !template.isReadOperation() || template.isIfExist() || template.getXidOriginated() != null
+                || template.getID() != null || template.isServerIterator() || template.isFifoGroupPoll()
+                || template.getExplainPlan() != null || !template.getTemplateEntryData().isNullTemplate())
+            return false;
+        final ColumnarAggregation aggregation = ColumnarAggregation.create(store, template.getAggregatorContext().getAggregators());
+        if (aggregation == null)
+            return false;
+        final int matched = aggregation.execute(SystemTime.timeMillis());
+        if (matched < 0)
+            return false;
+
+        final BatchQueryOperationContext batchOperationContext = template.getBatchOperationContext();
+        if (0 < _resultsSizeLimit && !template.isReturnOnlyUid() && template.isReadMultiple()
+                && _resultsSizeLimit < batchOperationContext.getNumResults() + matched)
+            throw new LimitExceededException("Query max result", _resultsSizeLimit);
+        batchOperationContext.addConsumedResults(matched);
+        context.incrementNumOfEntriesMatched(matched);
+        aggregation.apply();
+        return true;
+    }
+
     public boolean skipBroadcastTable(Context context,
                                       ITemplateHolder template){
         boolean emptyTakeNotClearTemplate = template.isEmptyTemplate() && !template.isClear() && template.isTakeOperation();
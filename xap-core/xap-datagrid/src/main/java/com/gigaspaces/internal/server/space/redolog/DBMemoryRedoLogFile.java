@@ -2,6 +2,7 @@ package com.gigaspaces.internal.server.space.redolog;
 
 import com.gigaspaces.internal.cluster.node.impl.backlog.AbstractSingleFileGroupBacklog;
 import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.utils.collections.ChunkedRingBuffer;
 import com.gigaspaces.internal.utils.collections.ReadOnlyIterator;
 import com.gigaspaces.internal.utils.collections.ReadOnlyIteratorAdapter;
 import com.j_spaces.core.cluster.startup.CompactionResult;
@@ -10,7 +11,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Iterator;
-import java.util.LinkedList;
 
 import static com.gigaspaces.logger.Constants.LOGGER_REPLICATION_BACKLOG;
 
@@ -18,7 +18,7 @@ public class DBMemoryRedoLogFile<T extends IReplicationOrderedPacket> implements
 
     private final Logger _logger;
     private final AbstractSingleFileGroupBacklog<?, ?> _groupBacklog;
-    final private LinkedList<T> _redoFile = new LinkedList<>();
+    final private ChunkedRingBuffer<T> _redoFile = new ChunkedRingBuffer<>();
     private long _weight;
 
     public DBMemoryRedoLogFile(DBSwapRedoLogFileConfig<T> config, AbstractSingleFileGroupBacklog<?, ?> groupBacklog) {
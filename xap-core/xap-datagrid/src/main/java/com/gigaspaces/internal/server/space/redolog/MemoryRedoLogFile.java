@@ -19,6 +19,7 @@ package com.gigaspaces.internal.server.space.redolog;
 import com.gigaspaces.internal.cluster.node.impl.DataTypeIntroducePacketData;
 import com.gigaspaces.internal.cluster.node.impl.backlog.AbstractSingleFileGroupBacklog;
 import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.utils.collections.ChunkedRingBuffer;
 import com.gigaspaces.internal.utils.collections.ReadOnlyIterator;
 import com.gigaspaces.internal.utils.collections.ReadOnlyIteratorAdapter;
 import com.j_spaces.core.cluster.startup.CompactionResult;
@@ -26,21 +27,21 @@ import com.j_spaces.core.cluster.startup.RedoLogCompactionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
 import java.util.ListIterator;
 
 import static com.gigaspaces.logger.Constants.LOGGER_REPLICATION_BACKLOG;
 
 /**
  * A memory only based implementation of the {@link IRedoLogFile} interface. Packets are stored only
- * in the jvm memory
+ * in the jvm memory, in a {@link ChunkedRingBuffer} so that iterating from a key does not walk
+ * the backlog.
  *
  * @author eitany
  * @since 7.1
  */
 @com.gigaspaces.api.InternalApi
 public class MemoryRedoLogFile<T extends IReplicationOrderedPacket> implements IRedoLogFile<T> {
-    final private LinkedList<T> _redoFile = new LinkedList<T>();
+    final private ChunkedRingBuffer<T> _redoFile = new ChunkedRingBuffer<T>();
     private final String _name;
     private final AbstractSingleFileGroupBacklog _groupBacklog;
     private long _weight;
@@ -112,7 +113,7 @@ public class MemoryRedoLogFile<T extends IReplicationOrderedPacket> implements I
     }
 
     public long getApproximateSize() {
-        //LinkedList size method cannot cause concurrency issues but may return an inaccurate result.
+        //ChunkedRingBuffer size method cannot cause concurrency issues but may return an inaccurate result.
         return _redoFile.size();
     }
 
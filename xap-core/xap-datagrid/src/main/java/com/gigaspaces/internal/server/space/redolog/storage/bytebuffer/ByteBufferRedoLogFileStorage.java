@@ -504,6 +504,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
         for (StorageSegment segment : _segments)
             segment.delete();
         _segments.clear();
+        _byteBufferStorageProvider.close();
         _initialized = false;
         _dataStartPos = 0;
         _size = 0;
@@ -27,4 +27,12 @@ public interface IByteBufferStorageFactory {
      * @return a new storage
      */
     IByteBufferStorage createStorage() throws ByteBufferStorageException;
+
+    /**
+     * Releases resources kept for future storages, the factory can still create storages afterwards
+     *
+     * @since 16.4.0
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageException;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * {@link IByteBufferStorage} implementation over a memory mapped file. Writing and reading are
+ * memory copies instead of a system call per access as in the {@link
+ * com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorage}, the
+ * file grows a region at a time as the data is appended.
+ *
+ * <p>The storage is a swap space, it is not forced to disk.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorage
+        implements IByteBufferStorage {
+
+    private final MappedByteBufferStorageFactory _factory;
+    private final MappedFile _file;
+    private final int _regionSize;
+    private volatile Cursor _cursor;
+    private volatile boolean _closed;
+
+    MappedByteBufferStorage(MappedByteBufferStorageFactory factory, MappedFile file) {
+        this._factory = factory;
+        this._file = file;
+        this._regionSize = file.getRegionSize();
+    }
+
+    public void clear() throws ByteBufferStorageException {
+        // the stale data is overwritten, the positions of the written data are kept by the user
+        if (_cursor != null)
+            _cursor.setPosition(0);
+    }
+
+    public synchronized void close() {
+        if (_closed)
+            return;
+        _cursor = null;
+        _closed = true;
+        if (!_factory.recycle(_file))
+            _file.delete();
+    }
+
+    public synchronized IByteBufferStorageCursor getCursor()
+            throws ByteBufferStorageException {
+        if (_closed)
+            throw new MappedByteBufferStorageException("storage is closed");
+        if (_cursor == null)
+            _cursor = new Cursor();
+        return _cursor;
+    }
+
+    public String getName() {
+        try {
+            return _file.getFile().getAbsolutePath();
+        } catch (Throwable t) {
+            //We dont want to throw exception from here
+            return null;
+        }
+    }
+
+    private class Cursor implements IByteBufferStorageCursor {
+
+        private long _position;
+
+        public void close() {
+            _cursor = null;
+        }
+
+        public long getPosition() {
+            return _position;
+        }
+
+        public void setPosition(long position) {
+            _position = position;
+        }
+
+        public void movePosition(long offset) {
+            _position += offset;
+        }
+
+        private MappedByteBuffer region() {
+            return _file.getRegion((int) (_position / _regionSize));
+        }
+
+        private int offset() {
+            return (int) (_position % _regionSize);
+        }
+
+        public byte readByte() {
+            byte value = region().get(offset());
+            _position++;
+            return value;
+        }
+
+        public void writeByte(byte value) {
+            region().put(offset(), value);
+            _position++;
+        }
+
+        public int readInt() {
+            int offset = offset();
+            if (offset > _regionSize - 4)
+                return ((readByte() & 0xFF) << 24) | ((readByte() & 0xFF) << 16) | ((readByte() & 0xFF) << 8) | (readByte() & 0xFF);
+            int value = region().getInt(offset);
+            _position += 4;
+            return value;
+        }
+
+        public void writeInt(int value) {
+            int offset = offset();
+            if (offset > _regionSize - 4) {
+                for (int shift = 24; shift >= 0; shift -= 8)
+                    writeByte((byte) (value >>> shift));
+                return;
+            }
+            region().putInt(offset, value);
+            _position += 4;
+        }
+
+        public long readLong() {
+            int offset = offset();
+            if (offset > _regionSize - 8)
+                return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+            long value = region().getLong(offset);
+            _position += 8;
+            return value;
+        }
+
+        public void writeLong(long value) {
+            int offset = offset();
+            if (offset > _regionSize - 8) {
+                writeInt((int) (value >>> 32));
+                writeInt((int) value);
+                return;
+            }
+            region().putLong(offset, value);
+            _position += 8;
+        }
+
+        public void readBytes(byte[] result, int offset, int length) {
+            while (length > 0) {
+                MappedByteBuffer region = region();
+                int regionOffset = offset();
+                int chunk = Math.min(length, _regionSize - regionOffset);
+                // a single cursor uses the region at a time
+                region.position(regionOffset);
+                region.get(result, offset, chunk);
+                _position += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        public void writeBytes(byte[] array, int offset, int length) {
+            while (length > 0) {
+                MappedByteBuffer region = region();
+                int regionOffset = offset();
+                int chunk = Math.min(length, _regionSize - regionOffset);
+                region.position(regionOffset);
+                region.put(array, offset, chunk);
+                _position += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageException;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageFactory;
+import com.gigaspaces.start.SystemLocations;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link IByteBufferStorageFactory} implementation that provides {@link MappedByteBufferStorage}
+ * instances. The files of closed storages, which belong to confirmed segments of the redo log, are
+ * kept with their mappings and reused by the next storages, up to a limit.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorageFactory
+        implements IByteBufferStorageFactory {
+
+    public static final int DEFAULT_MAX_RECYCLED_FILES = 2;
+    private static final long MAX_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final String _fileName;
+    private final int _regionSize;
+    private final int _maxRecycledFiles;
+    private final AtomicInteger _counter = new AtomicInteger(0);
+    private final ConcurrentLinkedQueue<MappedFile> _recycledFiles = new ConcurrentLinkedQueue<MappedFile>();
+    private final AtomicInteger _recycledFilesCount = new AtomicInteger();
+
+    /**
+     * @param segmentSize the redo log segment size, a storage maps its file in regions of this
+     *                    size (up to 64mb) so a segment usually takes a single mapping
+     */
+    public MappedByteBufferStorageFactory(String fileName, long segmentSize) {
+        this(fileName, (int) Math.min(segmentSize, MAX_REGION_SIZE), DEFAULT_MAX_RECYCLED_FILES);
+    }
+
+    public MappedByteBufferStorageFactory(String fileName, int regionSize, int maxRecycledFiles) {
+        if (regionSize < 8)
+            throw new IllegalArgumentException("region size must be at least 8 bytes - " + regionSize);
+        this._fileName = fileName;
+        this._regionSize = regionSize;
+        this._maxRecycledFiles = maxRecycledFiles;
+    }
+
+    public IByteBufferStorage createStorage() throws ByteBufferStorageException {
+        MappedFile file = _recycledFiles.poll();
+        if (file != null) {
+            _recycledFilesCount.decrementAndGet();
+            return new MappedByteBufferStorage(this, file);
+        }
+        int index = _counter.getAndIncrement();
+        return new MappedByteBufferStorage(this, new MappedFile(createFile(_fileName + "_" + index), _regionSize));
+    }
+
+    /**
+     * Unmaps and deletes the recycled files, storages created afterwards use new files.
+     */
+    @Override
+    public void close() {
+        MappedFile file;
+        while ((file = _recycledFiles.poll()) != null) {
+            _recycledFilesCount.decrementAndGet();
+            file.delete();
+        }
+    }
+
+    public int getRecycledFilesCount() {
+        return _recycledFilesCount.get();
+    }
+
+    /**
+     * @return true if the file was kept for reuse, false if it should be deleted.
+     */
+    boolean recycle(MappedFile file) {
+        if (_recycledFilesCount.incrementAndGet() > _maxRecycledFiles) {
+            _recycledFilesCount.decrementAndGet();
+            return false;
+        }
+        _recycledFiles.offer(file);
+        return true;
+    }
+
+    private static File createFile(String fileName) throws ByteBufferStorageException {
+        File file;
+        try {
+            File workLocation = SystemLocations.singleton().work().toFile();
+            workLocation.mkdirs();
+            File replicationDirPath = new File(workLocation, "replication");
+            replicationDirPath.mkdirs();
+            file = File.createTempFile(fileName, "tmp", replicationDirPath);
+        } catch (IOException e) {
+            throw new ByteBufferStorageException("error creating temp file", e);
+        }
+        try {
+            file.deleteOnExit();
+        } catch (Throwable t) {
+            //Do nothing, this can occurr if deleteOnExit is called when the jvm is during shutdown.
+        }
+        return file;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A file mapped in fixed size regions, which are mapped on first access and kept until the file is
+ * deleted, which unmaps them. No file handle is held between mappings.
+ *
+ * @since 16.4.0
+ */
+class MappedFile {
+    private final File _file;
+    private final int _regionSize;
+    private final List<MappedByteBuffer> _regions = new ArrayList<MappedByteBuffer>();
+    private boolean _deleted;
+
+    MappedFile(File file, int regionSize) {
+        _file = file;
+        _regionSize = regionSize;
+    }
+
+    File getFile() {
+        return _file;
+    }
+
+    int getRegionSize() {
+        return _regionSize;
+    }
+
+    int getMappedRegionsCount() {
+        return _regions.size();
+    }
+
+    MappedByteBuffer getRegion(int index) {
+        if (_deleted)
+            throw new MappedByteBufferStorageException("mapped file " + _file + " was deleted");
+        while (_regions.size() <= index)
+            _regions.add(map(_regions.size()));
+        return _regions.get(index);
+    }
+
+    private MappedByteBuffer map(int index) {
+        try {
+            RandomAccessFile raf = new RandomAccessFile(_file, "rw");
+            try {
+                // the mapping stays valid after the channel is closed
+                return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) index * _regionSize, _regionSize);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new MappedByteBufferStorageException(e);
+        }
+    }
+
+    /**
+     * Unmaps the regions and deletes the file. The regions must not be accessed afterwards, if the
+     * JVM cannot unmap them explicitly they are released once they are garbage collected.
+     */
+    void delete() {
+        _deleted = true;
+        for (MappedByteBuffer region : _regions)
+            UnsafeHolder.invokeCleaner(region);
+        _regions.clear();
+        _file.delete();
+    }
+}
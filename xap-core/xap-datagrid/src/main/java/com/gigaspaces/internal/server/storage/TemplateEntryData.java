@@ -232,7 +232,7 @@ public class TemplateEntryData implements IEntryData {
         return result;
     }
 
-    private boolean isNullTemplate() {
+    public boolean isNullTemplate() {
         if(!this.checkedAllNullFields){
             //initializing isAllNullFields
             this.isAllNullFields = true;
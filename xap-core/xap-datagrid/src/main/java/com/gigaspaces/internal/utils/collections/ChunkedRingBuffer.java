@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import java.util.AbstractList;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A list which is appended at its tail and trimmed from its head, backed by a ring of fixed size
+ * array chunks. Appending and removing the first element are O(1) without allocating a node per
+ * element as {@link java.util.LinkedList} does, and elements are accessed by index in O(1), so
+ * iterating from an offset does not walk the list.
+ *
+ * <p>A chunk emptied at the head is kept for reuse by the tail. The list is not thread safe.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ChunkedRingBuffer<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int DEFAULT_CHUNK_SHIFT = 8;
+    private static final int INITIAL_CHUNKS = 4;
+
+    private final int _chunkShift;
+    private final int _chunkSize;
+    private final int _chunkMask;
+    private Object[][] _chunks = new Object[INITIAL_CHUNKS][];
+    private int _firstChunk;
+    private int _chunksCount;
+    private int _head;
+    private int _size;
+    private Object[] _spareChunk;
+
+    public ChunkedRingBuffer() {
+        this(DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * @param chunkShift log2 of the number of elements in a chunk
+     */
+    public ChunkedRingBuffer(int chunkShift) {
+        if (chunkShift < 0 || chunkShift > 20)
+            throw new IllegalArgumentException("chunk shift must be between 0 and 20 - " + chunkShift);
+        this._chunkShift = chunkShift;
+        this._chunkSize = 1 << chunkShift;
+        this._chunkMask = _chunkSize - 1;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index);
+        int position = _head + index;
+        return elementAt(chunkAt(position), position & _chunkMask);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index);
+        int position = _head + index;
+        Object[] chunk = chunkAt(position);
+        E previous = elementAt(chunk, position & _chunkMask);
+        chunk[position & _chunkMask] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(E element) {
+        addLast(element);
+        return true;
+    }
+
+    public void addLast(E element) {
+        int position = _head + _size;
+        if ((position >>> _chunkShift) == _chunksCount)
+            addChunk();
+        chunkAt(position)[position & _chunkMask] = element;
+        _size++;
+        modCount++;
+    }
+
+    public E getFirst() {
+        if (_size == 0)
+            throw new NoSuchElementException();
+        return elementAt(_chunks[_firstChunk], _head);
+    }
+
+    public E getLast() {
+        if (_size == 0)
+            throw new NoSuchElementException();
+        int position = _head + _size - 1;
+        return elementAt(chunkAt(position), position & _chunkMask);
+    }
+
+    public E removeFirst() {
+        if (_size == 0)
+            throw new NoSuchElementException();
+        Object[] chunk = _chunks[_firstChunk];
+        E element = elementAt(chunk, _head);
+        chunk[_head] = null;
+        _size--;
+        modCount++;
+        if (++_head == _chunkSize) {
+            _chunks[_firstChunk] = null;
+            _firstChunk = (_firstChunk + 1) & (_chunks.length - 1);
+            _chunksCount--;
+            _head = 0;
+            _spareChunk = chunk;
+        } else if (_size == 0) {
+            // restart the only chunk from its beginning
+            _head = 0;
+        }
+        return element;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < _chunksCount; i++)
+            _chunks[(_firstChunk + i) & (_chunks.length - 1)] = null;
+        _firstChunk = 0;
+        _chunksCount = 0;
+        _head = 0;
+        _size = 0;
+        modCount++;
+    }
+
+    private void addChunk() {
+        if (_chunksCount == _chunks.length) {
+            Object[][] chunks = new Object[_chunks.length << 1][];
+            for (int i = 0; i < _chunksCount; i++)
+                chunks[i] = _chunks[(_firstChunk + i) & (_chunks.length - 1)];
+            _chunks = chunks;
+            _firstChunk = 0;
+        }
+        Object[] chunk = _spareChunk;
+        _spareChunk = null;
+        if (chunk == null)
+            chunk = new Object[_chunkSize];
+        _chunks[(_firstChunk + _chunksCount) & (_chunks.length - 1)] = chunk;
+        _chunksCount++;
+    }
+
+    private Object[] chunkAt(int position) {
+        return _chunks[(_firstChunk + (position >>> _chunkShift)) & (_chunks.length - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E elementAt(Object[] chunk, int offset) {
+        return (E) chunk[offset];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+    }
+}
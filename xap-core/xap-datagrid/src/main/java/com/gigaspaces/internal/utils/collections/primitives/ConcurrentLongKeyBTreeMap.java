@@ -0,0 +1,1341 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A sorted map of integral keys (long, int, short, byte, char wrappers) backed by a B+-tree whose
+ * nodes keep the keys unboxed in <tt>long[]</tt> arrays.
+ *
+ * <p>Compared with a skip list, the mappings of a leaf are laid out contiguously, so range scans
+ * walk a few arrays instead of chasing a node (and a boxed key) per mapping. Retrievals and scans
+ * are lock-free in the common case: they run under optimistic stamps of the tree and of the leaf
+ * and are only repeated under read locks if a concurrent update invalidated a stamp. Updates lock
+ * the leaf they change, so updates of different leaves run in parallel. Only updates which split or
+ * merge leaves, about one in {@value #LEAF_CAPACITY} for a growing or shrinking map, take the write
+ * lock of the tree.
+ *
+ * <p>Iterators are weakly consistent: they copy one leaf at a time and resume from the last
+ * returned key, so they never throw {@link java.util.ConcurrentModificationException} and never
+ * return the same key twice. Integral keys of another class than the key class are ordered by
+ * value, and lookups and removals of keys which cannot be mapped by this map miss. Mapping such a
+ * key or navigating by a non integral key fails with {@link ClassCastException}, as it would when
+ * compared in a skip list. Like {@link java.util.concurrent.ConcurrentSkipListMap}, <tt>null</tt>
+ * keys and values are not allowed.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ConcurrentLongKeyBTreeMap<V> extends AbstractMap<Object, V> implements ConcurrentNavigableMap<Object, V> {
+
+    static final int LEAF_CAPACITY = 64;
+    static final int INNER_CAPACITY = 64;
+
+    private final Tree _tree;
+    private final ConcurrentLongKeyHashMap.KeyType _keyType;
+    // view bounds, a map created by the public constructor is not bounded
+    private final boolean _hasLo;
+    private final long _lo;
+    private final boolean _loInclusive;
+    private final boolean _hasHi;
+    private final long _hi;
+    private final boolean _hiInclusive;
+    private final boolean _descending;
+
+    public ConcurrentLongKeyBTreeMap(ConcurrentLongKeyHashMap.KeyType keyType) {
+        this(new Tree(), keyType, false, 0, false, false, 0, false, false);
+        if (keyType == null)
+            throw new IllegalArgumentException("keyType cannot be null");
+    }
+
+    private ConcurrentLongKeyBTreeMap(Tree tree, ConcurrentLongKeyHashMap.KeyType keyType,
+                                      boolean hasLo, long lo, boolean loInclusive,
+                                      boolean hasHi, long hi, boolean hiInclusive, boolean descending) {
+        _tree = tree;
+        _keyType = keyType;
+        _hasLo = hasLo;
+        _lo = lo;
+        _loInclusive = loInclusive;
+        _hasHi = hasHi;
+        _hi = hi;
+        _hiInclusive = hiInclusive;
+        _descending = descending;
+    }
+
+    public ConcurrentLongKeyHashMap.KeyType getKeyType() {
+        return _keyType;
+    }
+
+    private boolean isView() {
+        return _hasLo || _hasHi;
+    }
+
+    /**
+     * Returns the numeric value of the given key. Integral keys of another class than the key class
+     * (e.g. an <tt>Integer</tt> used to navigate a <tt>Long</tt> keyed map) are ordered by value.
+     */
+    private long toLong(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        if (key.getClass() == _keyType.wrapperClass())
+            return _keyType.toLong(key);
+        if (_keyType != ConcurrentLongKeyHashMap.KeyType.CHARACTER && isIntegral(key))
+            return ((Number) key).longValue();
+        throw new ClassCastException(key.getClass().getName() + " cannot be compared with " + _keyType.wrapperClass().getName());
+    }
+
+    private static boolean isIntegral(Object key) {
+        return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the given key is of the key class. Lookups of keys of other classes
+     * miss, same as they would in a hash map where a boxed key only equals keys of its own class.
+     */
+    private boolean isMappable(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return key.getClass() == _keyType.wrapperClass();
+    }
+
+    private long toMappedLong(Object key) {
+        if (!isMappable(key))
+            throw new ClassCastException(key.getClass().getName() + " cannot be cast to " + _keyType.wrapperClass().getName());
+        return _keyType.toLong(key);
+    }
+
+    private boolean tooLow(long key) {
+        return _hasLo && (key < _lo || (key == _lo && !_loInclusive));
+    }
+
+    private boolean tooHigh(long key) {
+        return _hasHi && (key > _hi || (key == _hi && !_hiInclusive));
+    }
+
+    private boolean inRange(long key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    private long checkInRange(Object key) {
+        long k = toMappedLong(key);
+        if (!inRange(k))
+            throw new IllegalArgumentException("key out of range");
+        return k;
+    }
+
+    /**
+     * Returns the value mapped to the given primitive key, without boxing it.
+     */
+    public V get(long key) {
+        return inRange(key) ? (V) _tree.get(key) : null;
+    }
+
+    @Override
+    public V get(Object key) {
+        return isMappable(key) ? get(toLong(key)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        return (V) _tree.put(checkInRange(key), value, false);
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        return (V) _tree.put(checkInRange(key), value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!isMappable(key))
+            return null;
+        long k = toLong(key);
+        return inRange(k) ? (V) _tree.remove(k, null) : null;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!isMappable(key) || value == null)
+            return false;
+        long k = toLong(key);
+        return inRange(k) && _tree.remove(k, value) != null;
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        if (!isMappable(key))
+            return false;
+        long k = toLong(key);
+        return inRange(k) && _tree.replace(k, oldValue, newValue) != null;
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isMappable(key))
+            return null;
+        long k = toLong(key);
+        return inRange(k) ? (V) _tree.replace(k, null, value) : null;
+    }
+
+    @Override
+    public int size() {
+        if (!isView())
+            return _tree.size();
+        int size = 0;
+        for (Iterator<V> iter = values().iterator(); iter.hasNext(); iter.next())
+            size++;
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !isView() ? _tree.size() == 0 : absLowest() == null;
+    }
+
+    @Override
+    public void clear() {
+        if (!isView()) {
+            _tree.clear();
+            return;
+        }
+        for (Iterator<V> iter = values().iterator(); iter.hasNext(); ) {
+            iter.next();
+            iter.remove();
+        }
+    }
+
+    /*
+     * Navigation in ascending key order regardless of the view direction
+     */
+
+    private Entry<Object, V> absCeiling(boolean fromStart, long key, boolean inclusive) {
+        if (_hasLo && (fromStart || key < _lo || (key == _lo && inclusive && !_loInclusive))) {
+            fromStart = false;
+            key = _lo;
+            inclusive = _loInclusive;
+        }
+        Entry<Object, V> entry = _tree.ceilingEntry(fromStart, key, inclusive, _keyType);
+        return entry != null && !tooHigh(toLong(entry.getKey())) ? entry : null;
+    }
+
+    private Entry<Object, V> absFloor(boolean fromEnd, long key, boolean inclusive) {
+        if (_hasHi && (fromEnd || key > _hi || (key == _hi && inclusive && !_hiInclusive))) {
+            fromEnd = false;
+            key = _hi;
+            inclusive = _hiInclusive;
+        }
+        Entry<Object, V> entry = _tree.floorEntry(fromEnd, key, inclusive, _keyType);
+        return entry != null && !tooLow(toLong(entry.getKey())) ? entry : null;
+    }
+
+    private Entry<Object, V> absLowest() {
+        return absCeiling(true, 0, true);
+    }
+
+    private Entry<Object, V> absHighest() {
+        return absFloor(true, 0, true);
+    }
+
+    @Override
+    public Entry<Object, V> lowerEntry(Object key) {
+        long k = toLong(key);
+        return _descending ? absCeiling(false, k, false) : absFloor(false, k, false);
+    }
+
+    @Override
+    public Object lowerKey(Object key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Entry<Object, V> floorEntry(Object key) {
+        long k = toLong(key);
+        return _descending ? absCeiling(false, k, true) : absFloor(false, k, true);
+    }
+
+    @Override
+    public Object floorKey(Object key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Entry<Object, V> ceilingEntry(Object key) {
+        long k = toLong(key);
+        return _descending ? absFloor(false, k, true) : absCeiling(false, k, true);
+    }
+
+    @Override
+    public Object ceilingKey(Object key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Entry<Object, V> higherEntry(Object key) {
+        long k = toLong(key);
+        return _descending ? absFloor(false, k, false) : absCeiling(false, k, false);
+    }
+
+    @Override
+    public Object higherKey(Object key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public Entry<Object, V> firstEntry() {
+        return _descending ? absHighest() : absLowest();
+    }
+
+    @Override
+    public Entry<Object, V> lastEntry() {
+        return _descending ? absLowest() : absHighest();
+    }
+
+    @Override
+    public Entry<Object, V> pollFirstEntry() {
+        while (true) {
+            Entry<Object, V> entry = firstEntry();
+            if (entry == null || remove(entry.getKey(), entry.getValue()))
+                return entry;
+        }
+    }
+
+    @Override
+    public Entry<Object, V> pollLastEntry() {
+        while (true) {
+            Entry<Object, V> entry = lastEntry();
+            if (entry == null || remove(entry.getKey(), entry.getValue()))
+                return entry;
+        }
+    }
+
+    @Override
+    public Object firstKey() {
+        Entry<Object, V> entry = firstEntry();
+        if (entry == null)
+            throw new NoSuchElementException();
+        return entry.getKey();
+    }
+
+    @Override
+    public Object lastKey() {
+        Entry<Object, V> entry = lastEntry();
+        if (entry == null)
+            throw new NoSuchElementException();
+        return entry.getKey();
+    }
+
+    private static Object keyOrNull(Entry<Object, ?> entry) {
+        return entry != null ? entry.getKey() : null;
+    }
+
+    @Override
+    public Comparator<? super Object> comparator() {
+        return _descending ? Collections.reverseOrder() : null;
+    }
+
+    /*
+     * Views
+     */
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> descendingMap() {
+        return new ConcurrentLongKeyBTreeMap<V>(_tree, _keyType, _hasLo, _lo, _loInclusive, _hasHi, _hi, _hiInclusive, !_descending);
+    }
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> subMap(Object fromKey, boolean fromInclusive, Object toKey, boolean toInclusive) {
+        long from = toLong(fromKey);
+        long to = toLong(toKey);
+        if (_descending ? from < to : from > to)
+            throw new IllegalArgumentException("fromKey > toKey");
+        return _descending ? newView(true, to, toInclusive, true, from, fromInclusive)
+                : newView(true, from, fromInclusive, true, to, toInclusive);
+    }
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> headMap(Object toKey, boolean inclusive) {
+        long to = toLong(toKey);
+        return _descending ? newView(true, to, inclusive, false, 0, false)
+                : newView(false, 0, false, true, to, inclusive);
+    }
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> tailMap(Object fromKey, boolean inclusive) {
+        long from = toLong(fromKey);
+        return _descending ? newView(false, 0, false, true, from, inclusive)
+                : newView(true, from, inclusive, false, 0, false);
+    }
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> subMap(Object fromKey, Object toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> headMap(Object toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public ConcurrentLongKeyBTreeMap<V> tailMap(Object fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Creates a view narrowed by the given absolute (ascending) bounds, unspecified bounds are
+     * inherited from this map.
+     */
+    private ConcurrentLongKeyBTreeMap<V> newView(boolean hasLo, long lo, boolean loInclusive, boolean hasHi, long hi, boolean hiInclusive) {
+        if (hasLo) {
+            if (_hasLo && (lo < _lo || (lo == _lo && loInclusive && !_loInclusive)))
+                throw new IllegalArgumentException("key out of range");
+        } else {
+            lo = _lo;
+            loInclusive = _loInclusive;
+        }
+        if (hasHi) {
+            if (_hasHi && (hi > _hi || (hi == _hi && hiInclusive && !_hiInclusive)))
+                throw new IllegalArgumentException("key out of range");
+        } else {
+            hi = _hi;
+            hiInclusive = _hiInclusive;
+        }
+        return new ConcurrentLongKeyBTreeMap<V>(_tree, _keyType, hasLo || _hasLo, lo, loInclusive,
+                hasHi || _hasHi, hi, hiInclusive, _descending);
+    }
+
+    @Override
+    public NavigableSet<Object> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<Object> navigableKeySet() {
+        return new KeySet(this);
+    }
+
+    @Override
+    public NavigableSet<Object> descendingKeySet() {
+        return new KeySet(descendingMap());
+    }
+
+    @Override
+    public Set<Entry<Object, V>> entrySet() {
+        return new AbstractSet<Entry<Object, V>>() {
+            @Override
+            public Iterator<Entry<Object, V>> iterator() {
+                return new Iter<Entry<Object, V>>() {
+                    @Override
+                    Entry<Object, V> current() {
+                        return new SimpleImmutableEntry<Object, V>(_keyType.box(_lastKey), (V) _lastValue);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                V value = ConcurrentLongKeyBTreeMap.this.get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                return ConcurrentLongKeyBTreeMap.this.remove(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongKeyBTreeMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return ConcurrentLongKeyBTreeMap.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                ConcurrentLongKeyBTreeMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iter<V>() {
+                    @Override
+                    V current() {
+                        return (V) _lastValue;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongKeyBTreeMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return ConcurrentLongKeyBTreeMap.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                ConcurrentLongKeyBTreeMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Base iterator of the map views, fetches the mappings in chunks of (at most) one leaf and
+     * resumes after the last fetched key.
+     */
+    private abstract class Iter<T> implements Iterator<T> {
+        private final long[] _keys = new long[LEAF_CAPACITY];
+        private final Object[] _values = new Object[LEAF_CAPACITY];
+        private int _count;
+        private int _pos;
+        private boolean _started;
+        private boolean _exhausted;
+        long _lastKey;
+        Object _lastValue;
+        private boolean _canRemove;
+
+        abstract T current();
+
+        @Override
+        public boolean hasNext() {
+            if (_pos < _count)
+                return true;
+            if (_exhausted)
+                return false;
+            fetch();
+            return _pos < _count;
+        }
+
+        private void fetch() {
+            boolean fromStart = !_started;
+            long key = fromStart ? (_descending ? _hi : _lo) : _keys[_count - 1];
+            boolean inclusive = fromStart && (_descending ? _hiInclusive : _loInclusive);
+            boolean unbounded = fromStart && (_descending ? !_hasHi : !_hasLo);
+            _started = true;
+            int count = _descending ? _tree.copyDescending(unbounded, key, inclusive, _keys, _values)
+                    : _tree.copyAscending(unbounded, key, inclusive, _keys, _values);
+            // trim the chunk to the far bound of the view
+            int inRange = 0;
+            while (inRange < count && !(_descending ? tooLow(_keys[inRange]) : tooHigh(_keys[inRange])))
+                inRange++;
+            if (inRange < count || count == 0)
+                _exhausted = true;
+            for (int i = inRange; i < count; i++)
+                _values[i] = null;
+            _count = inRange;
+            _pos = 0;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            _lastKey = _keys[_pos];
+            _lastValue = _values[_pos];
+            _values[_pos++] = null;
+            _canRemove = true;
+            return current();
+        }
+
+        @Override
+        public void remove() {
+            if (!_canRemove)
+                throw new IllegalStateException();
+            _canRemove = false;
+            _tree.remove(_lastKey, null);
+        }
+    }
+
+    private static final class KeySet extends AbstractSet<Object> implements NavigableSet<Object> {
+        private final ConcurrentLongKeyBTreeMap<?> _map;
+
+        private KeySet(ConcurrentLongKeyBTreeMap<?> map) {
+            _map = map;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            final Iterator<? extends Entry<Object, ?>> iter = _map.entrySet().iterator();
+            return new Iterator<Object>() {
+                @Override
+                public boolean hasNext() {
+                    return iter.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return iter.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    iter.remove();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<Object> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return _map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return _map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return _map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return _map.remove(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            _map.clear();
+        }
+
+        @Override
+        public Object lower(Object e) {
+            return _map.lowerKey(e);
+        }
+
+        @Override
+        public Object floor(Object e) {
+            return _map.floorKey(e);
+        }
+
+        @Override
+        public Object ceiling(Object e) {
+            return _map.ceilingKey(e);
+        }
+
+        @Override
+        public Object higher(Object e) {
+            return _map.higherKey(e);
+        }
+
+        @Override
+        public Object pollFirst() {
+            return keyOrNull(_map.pollFirstEntry());
+        }
+
+        @Override
+        public Object pollLast() {
+            return keyOrNull(_map.pollLastEntry());
+        }
+
+        @Override
+        public Object first() {
+            return _map.firstKey();
+        }
+
+        @Override
+        public Object last() {
+            return _map.lastKey();
+        }
+
+        @Override
+        public Comparator<? super Object> comparator() {
+            return _map.comparator();
+        }
+
+        @Override
+        public NavigableSet<Object> descendingSet() {
+            return new KeySet(_map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<Object> subSet(Object fromElement, boolean fromInclusive, Object toElement, boolean toInclusive) {
+            return new KeySet(_map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<Object> headSet(Object toElement, boolean inclusive) {
+            return new KeySet(_map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<Object> tailSet(Object fromElement, boolean inclusive) {
+            return new KeySet(_map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<Object> subSet(Object fromElement, Object toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<Object> headSet(Object toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<Object> tailSet(Object fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+
+    /*
+     * The tree. Inner nodes hold _size separator keys and _size+1 children, keys smaller than
+     * _keys[i] are routed to _children[i], the others to the right of it. Leaves are never left
+     * empty (except for a root leaf) so a scan never has to skip more than one sibling.
+     */
+
+    private static class Node {
+        final long[] _keys;
+        int _size;
+
+        Node(int capacity) {
+            _keys = new long[capacity];
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] _values = new Object[LEAF_CAPACITY];
+        // guards the keys, values and size of the leaf
+        final StampedLock _lock = new StampedLock();
+
+        Leaf() {
+            super(LEAF_CAPACITY);
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] _children = new Node[INNER_CAPACITY + 1];
+
+        Inner() {
+            super(INNER_CAPACITY);
+        }
+    }
+
+    private static int search(long[] keys, int size, long key) {
+        int low = 0;
+        int high = Math.min(size, keys.length) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keys[mid];
+            if (midKey < key)
+                low = mid + 1;
+            else if (midKey > key)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    private static int childIndex(Inner inner, long key) {
+        int i = search(inner._keys, inner._size, key);
+        return i >= 0 ? i + 1 : -(i + 1);
+    }
+
+    /*
+     * Locking: the lock of the tree guards its structure (the root and the inner nodes), the lock of
+     * a leaf guards the mappings of the leaf. An update which stays within a leaf finds the leaf under
+     * an optimistic tree stamp, write-locks the leaf and then validates the stamp, so updates of
+     * different leaves run in parallel and do not invalidate readers of other leaves. Updates which
+     * split or merge leaves take the tree write lock and then write-lock the leaves they change. Only
+     * these hold more than one leaf lock, and no thread waits for the tree lock while it holds a leaf
+     * lock, so the locks cannot deadlock. Readers validate both the leaf and the tree stamps.
+     */
+    private static final class Tree extends StampedLock {
+        private static final int MAX_DEPTH = 32;
+        private static final int PUT = 0;
+        private static final int PUT_IF_ABSENT = 1;
+        private static final int REPLACE = 2;
+        private static final int REMOVE = 3;
+        // returned by a leaf update which requires a structural change of the tree
+        private static final Object RESTRUCTURE = new Object();
+        // returned by an optimistic copy which was invalidated by a concurrent update
+        private static final int INVALIDATED = -1;
+
+        private Node _root = new Leaf();
+        private final LongAdder _size = new LongAdder();
+        // scratch state of the structural update in progress, guarded by the write lock
+        private final Inner[] _path = new Inner[MAX_DEPTH];
+        private final int[] _pathIndex = new int[MAX_DEPTH];
+        private final long[] _splitKeys = new long[INNER_CAPACITY + 1];
+        private final Node[] _splitChildren = new Node[INNER_CAPACITY + 2];
+
+        int size() {
+            long size = _size.sum();
+            return size < 0 ? 0 : (size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size);
+        }
+
+        private static Leaf findLeaf(Node root, long key) {
+            Node node = root;
+            while (node instanceof Inner) {
+                Inner inner = (Inner) node;
+                node = inner._children[childIndex(inner, key)];
+            }
+            return (Leaf) node;
+        }
+
+        private static Object find(Leaf leaf, long key) {
+            int i = search(leaf._keys, leaf._size, key);
+            return i >= 0 ? leaf._values[i] : null;
+        }
+
+        Object get(long key) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    Leaf leaf = findLeaf(_root, key);
+                    long leafStamp = leaf._lock.tryOptimisticRead();
+                    if (leafStamp != 0) {
+                        Object value = find(leaf, key);
+                        if (leaf._lock.validate(leafStamp) && validate(stamp))
+                            return value;
+                    }
+                } catch (RuntimeException e) {
+                    // inconsistent snapshot of a concurrent update, retry under the read lock
+                }
+            }
+            stamp = readLock();
+            try {
+                Leaf leaf = findLeaf(_root, key);
+                long leafStamp = leaf._lock.readLock();
+                try {
+                    return find(leaf, key);
+                } finally {
+                    leaf._lock.unlockRead(leafStamp);
+                }
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Copies the mappings following the given key (or the first mappings if <tt>fromStart</tt>)
+         * from a single leaf, in ascending order.
+         *
+         * @return number of copied mappings, 0 if there are no such mappings
+         */
+        int copyAscending(boolean fromStart, long key, boolean inclusive, long[] keys, Object[] values) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    int count = copyAscending(_root, false, fromStart, key, inclusive, keys, values);
+                    if (count != INVALIDATED && validate(stamp))
+                        return count;
+                } catch (RuntimeException e) {
+                    // inconsistent snapshot of a concurrent update, retry under the read lock
+                }
+            }
+            stamp = readLock();
+            try {
+                return copyAscending(_root, true, fromStart, key, inclusive, keys, values);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        private static int copyAscending(Node node, boolean locked, boolean fromStart, long key, boolean inclusive, long[] keys, Object[] values) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                if (locked) {
+                    long leafStamp = leaf._lock.readLock();
+                    try {
+                        return copyAscending(leaf, fromStart, key, inclusive, keys, values);
+                    } finally {
+                        leaf._lock.unlockRead(leafStamp);
+                    }
+                }
+                long leafStamp = leaf._lock.tryOptimisticRead();
+                if (leafStamp == 0)
+                    return INVALIDATED;
+                int count = copyAscending(leaf, fromStart, key, inclusive, keys, values);
+                return leaf._lock.validate(leafStamp) ? count : INVALIDATED;
+            }
+            Inner inner = (Inner) node;
+            int size = Math.min(inner._size, INNER_CAPACITY);
+            for (int c = fromStart ? 0 : childIndex(inner, key); c <= size; c++) {
+                int count = copyAscending(inner._children[c], locked, fromStart, key, inclusive, keys, values);
+                if (count != 0)
+                    return count;
+            }
+            return 0;
+        }
+
+        private static int copyAscending(Leaf leaf, boolean fromStart, long key, boolean inclusive, long[] keys, Object[] values) {
+            int size = Math.min(leaf._size, LEAF_CAPACITY);
+            int start = 0;
+            if (!fromStart) {
+                int i = search(leaf._keys, size, key);
+                start = i >= 0 ? (inclusive ? i : i + 1) : -(i + 1);
+            }
+            int count = Math.min(size - start, keys.length);
+            if (count <= 0)
+                return 0;
+            System.arraycopy(leaf._keys, start, keys, 0, count);
+            System.arraycopy(leaf._values, start, values, 0, count);
+            return count;
+        }
+
+        /**
+         * Copies the mappings preceding the given key (or the last mappings if <tt>fromEnd</tt>)
+         * from a single leaf, in descending order.
+         *
+         * @return number of copied mappings, 0 if there are no such mappings
+         */
+        int copyDescending(boolean fromEnd, long key, boolean inclusive, long[] keys, Object[] values) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    int count = copyDescending(_root, false, fromEnd, key, inclusive, keys, values);
+                    if (count != INVALIDATED && validate(stamp))
+                        return count;
+                } catch (RuntimeException e) {
+                    // inconsistent snapshot of a concurrent update, retry under the read lock
+                }
+            }
+            stamp = readLock();
+            try {
+                return copyDescending(_root, true, fromEnd, key, inclusive, keys, values);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        private static int copyDescending(Node node, boolean locked, boolean fromEnd, long key, boolean inclusive, long[] keys, Object[] values) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                if (locked) {
+                    long leafStamp = leaf._lock.readLock();
+                    try {
+                        return copyDescending(leaf, fromEnd, key, inclusive, keys, values);
+                    } finally {
+                        leaf._lock.unlockRead(leafStamp);
+                    }
+                }
+                long leafStamp = leaf._lock.tryOptimisticRead();
+                if (leafStamp == 0)
+                    return INVALIDATED;
+                int count = copyDescending(leaf, fromEnd, key, inclusive, keys, values);
+                return leaf._lock.validate(leafStamp) ? count : INVALIDATED;
+            }
+            Inner inner = (Inner) node;
+            int size = Math.min(inner._size, INNER_CAPACITY);
+            for (int c = fromEnd ? size : Math.min(childIndex(inner, key), size); c >= 0; c--) {
+                int count = copyDescending(inner._children[c], locked, fromEnd, key, inclusive, keys, values);
+                if (count != 0)
+                    return count;
+            }
+            return 0;
+        }
+
+        private static int copyDescending(Leaf leaf, boolean fromEnd, long key, boolean inclusive, long[] keys, Object[] values) {
+            int size = Math.min(leaf._size, LEAF_CAPACITY);
+            int end = size;
+            if (!fromEnd) {
+                int i = search(leaf._keys, size, key);
+                end = i >= 0 ? (inclusive ? i + 1 : i) : -(i + 1);
+            }
+            int count = Math.min(end, keys.length);
+            for (int i = 0; i < count; i++) {
+                keys[i] = leaf._keys[end - 1 - i];
+                values[i] = leaf._values[end - 1 - i];
+            }
+            return count;
+        }
+
+        <V> Entry<Object, V> ceilingEntry(boolean fromStart, long key, boolean inclusive, ConcurrentLongKeyHashMap.KeyType keyType) {
+            long[] keys = new long[1];
+            Object[] values = new Object[1];
+            return copyAscending(fromStart, key, inclusive, keys, values) != 0
+                    ? new SimpleImmutableEntry<Object, V>(keyType.box(keys[0]), (V) values[0]) : null;
+        }
+
+        <V> Entry<Object, V> floorEntry(boolean fromEnd, long key, boolean inclusive, ConcurrentLongKeyHashMap.KeyType keyType) {
+            long[] keys = new long[1];
+            Object[] values = new Object[1];
+            return copyDescending(fromEnd, key, inclusive, keys, values) != 0
+                    ? new SimpleImmutableEntry<Object, V>(keyType.box(keys[0]), (V) values[0]) : null;
+        }
+
+        Object put(long key, Object value, boolean onlyIfAbsent) {
+            return update(onlyIfAbsent ? PUT_IF_ABSENT : PUT, key, null, value);
+        }
+
+        /**
+         * Replaces the value of the given key if it is mapped (to <tt>expected</tt>, unless it is
+         * <tt>null</tt>).
+         *
+         * @return the replaced value, <tt>null</tt> if the value was not replaced
+         */
+        Object replace(long key, Object expected, Object value) {
+            return update(REPLACE, key, expected, value);
+        }
+
+        /**
+         * Removes the given key if it is mapped (to <tt>expected</tt>, unless it is <tt>null</tt>).
+         *
+         * @return the removed value, <tt>null</tt> if nothing was removed
+         */
+        Object remove(long key, Object expected) {
+            return update(REMOVE, key, expected, null);
+        }
+
+        private Object update(int op, long key, Object expected, Object value) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                Node root = null;
+                Leaf leaf = null;
+                try {
+                    root = _root;
+                    leaf = findLeaf(root, key);
+                } catch (RuntimeException e) {
+                    // inconsistent snapshot of a structural update, retry under the write lock
+                }
+                if (leaf != null) {
+                    long leafStamp = leaf._lock.writeLock();
+                    try {
+                        // a structural update since the leaf was found would have invalidated the stamp
+                        if (validate(stamp)) {
+                            Object result = updateLeaf(op, leaf, leaf == root, key, expected, value);
+                            if (result != RESTRUCTURE)
+                                return result;
+                        }
+                    } finally {
+                        leaf._lock.unlockWrite(leafStamp);
+                    }
+                }
+            }
+            stamp = writeLock();
+            try {
+                return restructure(op, key, expected, value);
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Applies an update to a write-locked leaf of a stable tree.
+         *
+         * @return the update result, or {@link #RESTRUCTURE} if the update would split or merge the
+         * leaf, in which case the leaf is not changed
+         */
+        private Object updateLeaf(int op, Leaf leaf, boolean isRoot, long key, Object expected, Object value) {
+            int i = search(leaf._keys, leaf._size, key);
+            if (op == PUT || op == PUT_IF_ABSENT) {
+                if (i >= 0) {
+                    Object prev = leaf._values[i];
+                    if (op == PUT)
+                        leaf._values[i] = value;
+                    return prev;
+                }
+                if (leaf._size == LEAF_CAPACITY)
+                    return RESTRUCTURE;
+                insertAt(leaf, -(i + 1), key, value);
+                _size.increment();
+                return null;
+            }
+            if (i < 0)
+                return null;
+            Object prev = leaf._values[i];
+            if (expected != null && !expected.equals(prev))
+                return null;
+            if (op == REPLACE) {
+                leaf._values[i] = value;
+                return prev;
+            }
+            if (!isRoot && leaf._size - 1 < LEAF_CAPACITY / 4)
+                return RESTRUCTURE;
+            removeAt(leaf, i);
+            _size.decrement();
+            return prev;
+        }
+
+        /**
+         * Applies an update which may split or merge leaves. Must be called under the write lock.
+         */
+        private Object restructure(int op, long key, Object expected, Object value) {
+            int depth = descend(key);
+            Leaf leaf = leafAt(depth);
+            long leafStamp = leaf._lock.writeLock();
+            try {
+                Object result = updateLeaf(op, leaf, depth == 0, key, expected, value);
+                if (result != RESTRUCTURE)
+                    return result;
+                int i = search(leaf._keys, leaf._size, key);
+                if (op == REMOVE) {
+                    Object prev = leaf._values[i];
+                    removeAt(leaf, i);
+                    _size.decrement();
+                    if (leaf._size == 0)
+                        removeChild(depth - 1);
+                    else
+                        mergeWithSibling(depth, leaf);
+                    return prev;
+                }
+                insert(depth, leaf, -(i + 1), key, value);
+                _size.increment();
+                return null;
+            } finally {
+                leaf._lock.unlockWrite(leafStamp);
+            }
+        }
+
+        void clear() {
+            long stamp = writeLock();
+            try {
+                // wait for leaf updates which validated their stamp before the write lock was taken
+                drain(_root);
+                _root = new Leaf();
+                _size.reset();
+                for (int i = 0; i < MAX_DEPTH; i++)
+                    _path[i] = null;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private static void drain(Node node) {
+            if (node instanceof Leaf) {
+                StampedLock lock = ((Leaf) node)._lock;
+                lock.unlockWrite(lock.writeLock());
+                return;
+            }
+            Inner inner = (Inner) node;
+            for (int c = 0; c <= inner._size; c++)
+                drain(inner._children[c]);
+        }
+
+        /**
+         * Descends to the leaf of the given key, recording the path. Must be called under the write
+         * lock.
+         *
+         * @return depth of the leaf
+         */
+        private int descend(long key) {
+            int depth = 0;
+            Node node = _root;
+            while (node instanceof Inner) {
+                Inner inner = (Inner) node;
+                int c = childIndex(inner, key);
+                _path[depth] = inner;
+                _pathIndex[depth++] = c;
+                node = inner._children[c];
+            }
+            return depth;
+        }
+
+        private Leaf leafAt(int depth) {
+            return (Leaf) (depth == 0 ? _root : _path[depth - 1]._children[_pathIndex[depth - 1]]);
+        }
+
+        private void insert(int depth, Leaf leaf, int pos, long key, Object value) {
+            Leaf right = new Leaf();
+            // appending to a full leaf (e.g. increasing timestamps) keeps the left leaf full
+            int splitAt = pos == LEAF_CAPACITY ? LEAF_CAPACITY : LEAF_CAPACITY / 2;
+            int moved = LEAF_CAPACITY - splitAt;
+            System.arraycopy(leaf._keys, splitAt, right._keys, 0, moved);
+            System.arraycopy(leaf._values, splitAt, right._values, 0, moved);
+            for (int i = splitAt; i < LEAF_CAPACITY; i++)
+                leaf._values[i] = null;
+            right._size = moved;
+            leaf._size = splitAt;
+            if (pos <= splitAt && pos < LEAF_CAPACITY)
+                insertAt(leaf, pos, key, value);
+            else
+                insertAt(right, pos - splitAt, key, value);
+            insertIntoParent(depth, right._keys[0], right);
+        }
+
+        private static void insertAt(Leaf leaf, int pos, long key, Object value) {
+            int moved = leaf._size - pos;
+            System.arraycopy(leaf._keys, pos, leaf._keys, pos + 1, moved);
+            System.arraycopy(leaf._values, pos, leaf._values, pos + 1, moved);
+            leaf._keys[pos] = key;
+            leaf._values[pos] = value;
+            leaf._size++;
+        }
+
+        private static void removeAt(Leaf leaf, int pos) {
+            int moved = leaf._size - pos - 1;
+            System.arraycopy(leaf._keys, pos + 1, leaf._keys, pos, moved);
+            System.arraycopy(leaf._values, pos + 1, leaf._values, pos, moved);
+            leaf._values[--leaf._size] = null;
+        }
+
+        /**
+         * Adds the new right sibling of the node at the given depth to its parent, splitting
+         * ancestors as required.
+         */
+        private void insertIntoParent(int depth, long separator, Node right) {
+            while (depth > 0) {
+                Inner parent = _path[depth - 1];
+                int c = _pathIndex[depth - 1];
+                int size = parent._size;
+                if (size < INNER_CAPACITY) {
+                    System.arraycopy(parent._keys, c, parent._keys, c + 1, size - c);
+                    System.arraycopy(parent._children, c + 1, parent._children, c + 2, size - c);
+                    parent._keys[c] = separator;
+                    parent._children[c + 1] = right;
+                    parent._size++;
+                    return;
+                }
+                // merge the new child into scratch arrays and split them in half
+                System.arraycopy(parent._keys, 0, _splitKeys, 0, c);
+                _splitKeys[c] = separator;
+                System.arraycopy(parent._keys, c, _splitKeys, c + 1, size - c);
+                System.arraycopy(parent._children, 0, _splitChildren, 0, c + 1);
+                _splitChildren[c + 1] = right;
+                System.arraycopy(parent._children, c + 1, _splitChildren, c + 2, size - c);
+
+                int mid = (INNER_CAPACITY + 1) / 2;
+                Inner sibling = new Inner();
+                sibling._size = INNER_CAPACITY - mid;
+                System.arraycopy(_splitKeys, mid + 1, sibling._keys, 0, sibling._size);
+                System.arraycopy(_splitChildren, mid + 1, sibling._children, 0, sibling._size + 1);
+                System.arraycopy(_splitKeys, 0, parent._keys, 0, mid);
+                System.arraycopy(_splitChildren, 0, parent._children, 0, mid + 1);
+                for (int i = mid + 1; i <= INNER_CAPACITY; i++)
+                    parent._children[i] = null;
+                parent._size = mid;
+                for (int i = 0; i < _splitChildren.length; i++)
+                    _splitChildren[i] = null;
+
+                separator = _splitKeys[mid];
+                right = sibling;
+                depth--;
+            }
+            Inner root = new Inner();
+            root._keys[0] = separator;
+            root._children[0] = _root;
+            root._children[1] = right;
+            root._size = 1;
+            _root = root;
+        }
+
+        /**
+         * Removes the child recorded in the path at the given depth from its parent, removing
+         * ancestors which are left without children.
+         */
+        private void removeChild(int depth) {
+            while (depth >= 0) {
+                Inner parent = _path[depth];
+                int c = _pathIndex[depth];
+                int size = parent._size;
+                if (size == 0) {
+                    // the parent is left without children
+                    parent._children[0] = null;
+                    depth--;
+                    continue;
+                }
+                int keyPos = c == 0 ? 0 : c - 1;
+                System.arraycopy(parent._keys, keyPos + 1, parent._keys, keyPos, size - keyPos - 1);
+                System.arraycopy(parent._children, c + 1, parent._children, c, size - c);
+                parent._children[size] = null;
+                parent._size--;
+                break;
+            }
+            if (depth < 0)
+                _root = new Leaf();
+            while (_root instanceof Inner && _root._size == 0)
+                _root = ((Inner) _root)._children[0];
+        }
+
+        /**
+         * Merges a sparse leaf into a sibling of the same parent if the result is at most half
+         * full.
+         */
+        private void mergeWithSibling(int depth, Leaf leaf) {
+            Inner parent = _path[depth - 1];
+            int c = _pathIndex[depth - 1];
+            Leaf left;
+            Leaf right;
+            if (c > 0) {
+                left = (Leaf) parent._children[c - 1];
+                right = leaf;
+            } else if (c < parent._size) {
+                left = leaf;
+                right = (Leaf) parent._children[c + 1];
+                _pathIndex[depth - 1] = c + 1;
+            } else
+                return;
+            // the leaf is already locked by the caller, the sibling may be updated concurrently
+            Leaf sibling = left == leaf ? right : left;
+            long siblingStamp = sibling._lock.writeLock();
+            try {
+                if (left._size + right._size > LEAF_CAPACITY / 2)
+                    return;
+                System.arraycopy(right._keys, 0, left._keys, left._size, right._size);
+                System.arraycopy(right._values, 0, left._values, left._size, right._size);
+                left._size += right._size;
+                removeChild(depth - 1);
+            } finally {
+                sibling._lock.unlockWrite(siblingStamp);
+            }
+        }
+    }
+}
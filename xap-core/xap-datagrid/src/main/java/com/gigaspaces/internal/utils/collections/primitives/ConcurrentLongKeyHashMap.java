@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent hash map for integral keys (long, int, short, byte, char) which keeps the keys
+ * unboxed in open-addressing tables. The map is partitioned into lock-striped segments: updates
+ * lock a single segment, retrievals never lock.
+ *
+ * <p>Each segment keeps a <tt>long[]</tt> of keys and a parallel array of values, so no hash entry
+ * object and no boxed key is retained per mapping. Removed slots are marked with a tombstone which
+ * is only ever revived by the same key, this keeps probe chains stable for lock-free readers; the
+ * tombstones are purged when the segment is rehashed.
+ *
+ * <p>The map exposes the regular {@link ConcurrentMap} API so it can replace a {@link
+ * ConcurrentHashMap} transparently. Keys whose class is not the key class the map was created for
+ * (e.g. an <tt>Integer</tt> used to query a <tt>Long</tt> keyed map) are kept in a fallback {@link
+ * ConcurrentHashMap}, preserving the equality semantics of the boxed keys. Like {@link
+ * ConcurrentHashMap}, <tt>null</tt> keys and values are not allowed.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ConcurrentLongKeyHashMap<V> extends AbstractMap<Object, V> implements ConcurrentMap<Object, V> {
+
+    private static final Object REMOVED = new Object();
+    private static final int DEFAULT_SEGMENT_CAPACITY = 16;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final KeyType _keyType;
+    private final Segment[] _segments;
+    private final int _segmentShift;
+    private final int _segmentMask;
+    private volatile ConcurrentHashMap<Object, V> _foreignKeys;
+
+    public ConcurrentLongKeyHashMap(KeyType keyType, int concurrencyLevel) {
+        if (keyType == null)
+            throw new IllegalArgumentException("keyType cannot be null");
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("concurrencyLevel should be positive, got " + concurrencyLevel);
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+
+        int shift = 0;
+        int numOfSegments = 1;
+        while (numOfSegments < concurrencyLevel) {
+            ++shift;
+            numOfSegments <<= 1;
+        }
+        _keyType = keyType;
+        _segmentShift = 32 - shift;
+        _segmentMask = numOfSegments - 1;
+        _segments = new Segment[numOfSegments];
+        for (int i = 0; i < numOfSegments; i++)
+            _segments[i] = new Segment(DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * @return the key type matching the given class (primitive or wrapper), or <tt>null</tt> if the
+     * class cannot be used as a key of this map.
+     */
+    public static KeyType getKeyType(Class<?> clazz) {
+        if (clazz == null)
+            return null;
+        for (KeyType keyType : KeyType.values())
+            if (keyType._primitiveClass == clazz || keyType._wrapperClass == clazz)
+                return keyType;
+        return null;
+    }
+
+    public KeyType getKeyType() {
+        return _keyType;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        h ^= (h >>> 16);
+        return (int) h;
+    }
+
+    private Segment segmentFor(int hash) {
+        return _segments[(hash >>> _segmentShift) & _segmentMask];
+    }
+
+    private boolean isNativeKey(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return key.getClass() == _keyType._wrapperClass;
+    }
+
+    private ConcurrentHashMap<Object, V> getOrCreateForeignKeys() {
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys == null) {
+            synchronized (this) {
+                foreignKeys = _foreignKeys;
+                if (foreignKeys == null) {
+                    foreignKeys = new ConcurrentHashMap<Object, V>();
+                    _foreignKeys = foreignKeys;
+                }
+            }
+        }
+        return foreignKeys;
+    }
+
+    /**
+     * Returns the value mapped to the given primitive key, without boxing it.
+     */
+    public V get(long key) {
+        int hash = hash(key);
+        return (V) segmentFor(hash).get(key, hash);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (isNativeKey(key))
+            return get(_keyType.toLong(key));
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        return foreignKeys != null ? foreignKeys.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key))
+            return getOrCreateForeignKeys().put(key, value);
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).put(k, hash, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key))
+            return getOrCreateForeignKeys().putIfAbsent(key, value);
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).put(k, hash, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null ? foreignKeys.remove(key) : null;
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).remove(k, hash, null);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null)
+            return false;
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null && foreignKeys.remove(key, value);
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return segmentFor(hash).remove(k, hash, value) != null;
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null && foreignKeys.replace(key, oldValue, newValue);
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return segmentFor(hash).replace(k, hash, oldValue, newValue) != null;
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null ? foreignKeys.replace(key, value) : null;
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).replace(k, hash, null, value);
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment segment : _segments)
+            size += segment._count;
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys != null)
+            size += foreignKeys.size();
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : _segments)
+            if (segment._count != 0)
+                return false;
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        return foreignKeys == null || foreignKeys.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : _segments)
+            segment.clear();
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys != null)
+            foreignKeys.clear();
+    }
+
+    /**
+     * Returns a weakly consistent view of the mappings. Keys are boxed on the fly while iterating,
+     * this view is not meant for hot paths.
+     */
+    @Override
+    public Set<Map.Entry<Object, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, V>>() {
+            @Override
+            public Iterator<Map.Entry<Object, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongKeyHashMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ConcurrentLongKeyHashMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * The integral key classes supported by {@link ConcurrentLongKeyHashMap}.
+     */
+    public enum KeyType {
+        LONG(long.class, Long.class) {
+            @Override
+            long toLong(Object key) {
+                return (Long) key;
+            }
+
+            @Override
+            Object box(long key) {
+                return key;
+            }
+        },
+        INTEGER(int.class, Integer.class) {
+            @Override
+            long toLong(Object key) {
+                return (Integer) key;
+            }
+
+            @Override
+            Object box(long key) {
+                return (int) key;
+            }
+        },
+        SHORT(short.class, Short.class) {
+            @Override
+            long toLong(Object key) {
+                return (Short) key;
+            }
+
+            @Override
+            Object box(long key) {
+                return (short) key;
+            }
+        },
+        BYTE(byte.class, Byte.class) {
+            @Override
+            long toLong(Object key) {
+                return (Byte) key;
+            }
+
+            @Override
+            Object box(long key) {
+                return (byte) key;
+            }
+        },
+        CHARACTER(char.class, Character.class) {
+            @Override
+            long toLong(Object key) {
+                return (Character) key;
+            }
+
+            @Override
+            Object box(long key) {
+                return (char) key;
+            }
+        };
+
+        private final Class<?> _primitiveClass;
+        private final Class<?> _wrapperClass;
+
+        KeyType(Class<?> primitiveClass, Class<?> wrapperClass) {
+            _primitiveClass = primitiveClass;
+            _wrapperClass = wrapperClass;
+        }
+
+        Class<?> wrapperClass() {
+            return _wrapperClass;
+        }
+
+        abstract long toLong(Object key);
+
+        abstract Object box(long key);
+    }
+
+    private static final class Table {
+        private final long[] _keys;
+        //null = free slot, REMOVED = tombstone
+        private final AtomicReferenceArray<Object> _values;
+        private final int _threshold;
+
+        private Table(int capacity) {
+            _keys = new long[capacity];
+            _values = new AtomicReferenceArray<Object>(capacity);
+            _threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private int capacity() {
+            return _keys.length;
+        }
+    }
+
+    private static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        private volatile Table _table;
+        //number of live mappings
+        private volatile int _count;
+        //number of occupied slots (live + tombstones), guarded by the lock
+        private int _used;
+
+        private Segment(int capacity) {
+            _table = new Table(capacity);
+        }
+
+        private Object get(long key, int hash) {
+            Table table = _table;
+            int mask = table.capacity() - 1;
+            int idx = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = table._values.get(idx);
+                if (value == null)
+                    return null;
+                //the key of an occupied slot never changes, and is published by the value write
+                if (table._keys[idx] == key)
+                    return value != REMOVED ? value : null;
+                idx = (idx + 1) & mask;
+            }
+            return null;
+        }
+
+        //returns the slot index of the key or -(free slot index)-1 if not found, lock must be held
+        private static int findSlot(Table table, long key, int hash) {
+            int mask = table.capacity() - 1;
+            int idx = hash & mask;
+            while (true) {
+                Object value = table._values.get(idx);
+                if (value == null)
+                    return -idx - 1;
+                if (table._keys[idx] == key)
+                    return idx;
+                idx = (idx + 1) & mask;
+            }
+        }
+
+        private Object put(long key, int hash, Object value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                Table table = _table;
+                if (_used >= table._threshold)
+                    table = rehash(table);
+                int idx = findSlot(table, key, hash);
+                if (idx >= 0) {
+                    Object current = table._values.get(idx);
+                    if (current != REMOVED) {
+                        if (!onlyIfAbsent)
+                            table._values.set(idx, value);
+                        return current;
+                    }
+                    //revive the tombstone of the same key
+                    table._values.set(idx, value);
+                    _count++;
+                    return null;
+                }
+                idx = -idx - 1;
+                table._keys[idx] = key;
+                table._values.set(idx, value);
+                _used++;
+                _count++;
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        private Object remove(long key, int hash, Object expectedValue) {
+            lock();
+            try {
+                Table table = _table;
+                int idx = findSlot(table, key, hash);
+                if (idx < 0)
+                    return null;
+                Object current = table._values.get(idx);
+                if (current == REMOVED)
+                    return null;
+                if (expectedValue != null && !expectedValue.equals(current))
+                    return null;
+                table._values.set(idx, REMOVED);
+                _count--;
+                return current;
+            } finally {
+                unlock();
+            }
+        }
+
+        private Object replace(long key, int hash, Object expectedValue, Object newValue) {
+            lock();
+            try {
+                Table table = _table;
+                int idx = findSlot(table, key, hash);
+                if (idx < 0)
+                    return null;
+                Object current = table._values.get(idx);
+                if (current == REMOVED)
+                    return null;
+                if (expectedValue != null && !expectedValue.equals(current))
+                    return null;
+                table._values.set(idx, newValue);
+                return current;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void clear() {
+            lock();
+            try {
+                _table = new Table(DEFAULT_SEGMENT_CAPACITY);
+                _used = 0;
+                _count = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        //lock must be held. Old table is never modified after the new one is published
+        private Table rehash(Table oldTable) {
+            int capacity = oldTable.capacity();
+            //mostly tombstones- purge them in a table of the same size
+            if (_count >= oldTable._threshold / 2)
+                capacity <<= 1;
+            Table newTable = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldTable.capacity(); i++) {
+                Object value = oldTable._values.get(i);
+                if (value == null || value == REMOVED)
+                    continue;
+                long key = oldTable._keys[i];
+                int idx = hash(key) & mask;
+                while (newTable._values.get(idx) != null)
+                    idx = (idx + 1) & mask;
+                newTable._keys[idx] = key;
+                newTable._values.lazySet(idx, value);
+            }
+            _table = newTable;
+            _used = _count;
+            return newTable;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Object, V>> {
+        private int _segmentIndex;
+        private Table _table;
+        private int _slot;
+        private Iterator<Map.Entry<Object, V>> _foreignIterator;
+        private Map.Entry<Object, V> _next;
+        private Map.Entry<Object, V> _last;
+
+        private EntryIterator() {
+            _table = _segments[0]._table;
+            advance();
+        }
+
+        private void advance() {
+            _next = null;
+            while (_table != null) {
+                while (_slot < _table.capacity()) {
+                    int idx = _slot++;
+                    Object value = _table._values.get(idx);
+                    if (value != null && value != REMOVED) {
+                        _next = new SimpleImmutableEntry<Object, V>(_keyType.box(_table._keys[idx]), (V) value);
+                        return;
+                    }
+                }
+                _slot = 0;
+                _table = ++_segmentIndex < _segments.length ? _segments[_segmentIndex]._table : null;
+            }
+            if (_foreignIterator == null) {
+                ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+                if (foreignKeys == null)
+                    return;
+                _foreignIterator = foreignKeys.entrySet().iterator();
+            }
+            if (_foreignIterator.hasNext())
+                _next = _foreignIterator.next();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next != null;
+        }
+
+        @Override
+        public Map.Entry<Object, V> next() {
+            if (_next == null)
+                throw new NoSuchElementException();
+            _last = _next;
+            advance();
+            return _last;
+        }
+
+        @Override
+        public void remove() {
+            if (_last == null)
+                throw new IllegalStateException();
+            ConcurrentLongKeyHashMap.this.remove(_last.getKey());
+            _last = null;
+        }
+    }
+}
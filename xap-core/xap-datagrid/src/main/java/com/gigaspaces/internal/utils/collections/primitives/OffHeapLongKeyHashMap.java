@@ -0,0 +1,689 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A concurrent hash map for integral keys whose hash table is kept outside of the Java heap.
+ *
+ * <p>Each segment owns an off-heap open-addressing table of 16 bytes slots (key + handle). A
+ * handle is an index into a compact on-heap array holding the mapped value, so the heap keeps a
+ * single reference per mapping and no key, hash entry or table object. Retrievals probe the table
+ * under an optimistic stamp of the segment lock and only take the read lock when a concurrent
+ * update invalidates the stamp. Since such a reader holds no lock, it may still probe a table
+ * replaced by a rehash or dropped by {@link #close()}, so the off-heap memory of a segment is only
+ * freed once the segment is no longer reachable, by a daemon thread polling a reference queue. An
+ * in-flight reader validates its stamp against the segment after probing and thereby keeps it
+ * reachable. With the doubling growth the replaced tables add at most the size of the current table.
+ *
+ * <p>Only the keys and handles are off-heap. The mapped values, which for an index are the {@code
+ * IEntryCacheInfo} and {@code IStoredList} objects of the entries, stay on the heap together with
+ * the handle array referencing them, so the GC still traces one reference per mapping plus the
+ * values themselves. The saving over an on-heap map is the hash entry, boxed key and table objects.
+ *
+ * <p>Keys whose class differs from the map key class are kept in a fallback on-heap {@link
+ * ConcurrentHashMap}, same as in {@link ConcurrentLongKeyHashMap}. A map closed by {@link #close()}
+ * behaves as an empty map which rejects updates, its off-heap memory is released once it is no
+ * longer referenced.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OffHeapLongKeyHashMap<V> extends AbstractMap<Object, V> implements ConcurrentMap<Object, V> {
+
+    private static final int SLOT_SIZE = 16;
+    private static final int HANDLE_OFFSET = 8;
+    private static final int DEFAULT_SEGMENT_CAPACITY = 16;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final ConcurrentLongKeyHashMap.KeyType _keyType;
+    private final Segment[] _segments;
+    private final int _segmentShift;
+    private final int _segmentMask;
+    private volatile ConcurrentHashMap<Object, V> _foreignKeys;
+
+    public OffHeapLongKeyHashMap(ConcurrentLongKeyHashMap.KeyType keyType, int concurrencyLevel) {
+        if (keyType == null)
+            throw new IllegalArgumentException("keyType cannot be null");
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("concurrencyLevel should be positive, got " + concurrencyLevel);
+        if (!UnsafeHolder.isAvailable())
+            throw new IllegalStateException("unsafe instance could not be obtained");
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+
+        int shift = 0;
+        int numOfSegments = 1;
+        while (numOfSegments < concurrencyLevel) {
+            ++shift;
+            numOfSegments <<= 1;
+        }
+        _keyType = keyType;
+        _segmentShift = 32 - shift;
+        _segmentMask = numOfSegments - 1;
+        _segments = new Segment[numOfSegments];
+        try {
+            for (int i = 0; i < numOfSegments; i++)
+                _segments[i] = new Segment();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        h ^= (h >>> 16);
+        return (int) h;
+    }
+
+    private Segment segmentFor(int hash) {
+        return _segments[(hash >>> _segmentShift) & _segmentMask];
+    }
+
+    private boolean isNativeKey(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return key.getClass() == _keyType.wrapperClass();
+    }
+
+    private ConcurrentHashMap<Object, V> getOrCreateForeignKeys() {
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys == null) {
+            synchronized (this) {
+                foreignKeys = _foreignKeys;
+                if (foreignKeys == null) {
+                    foreignKeys = new ConcurrentHashMap<Object, V>();
+                    _foreignKeys = foreignKeys;
+                }
+            }
+        }
+        return foreignKeys;
+    }
+
+    /**
+     * @return number of off-heap bytes currently allocated by this map, including the memory of a
+     * closed map which was not released yet.
+     */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : _segments)
+            if (segment != null)
+                bytes += segment.getOffHeapBytes();
+        return bytes;
+    }
+
+    /**
+     * Drops the mappings of this map and rejects further updates. Must be called once the map is no
+     * longer in use, the off-heap memory is released after the map is no longer referenced since a
+     * concurrent lock-free {@link #get(Object)} may still probe it.
+     */
+    public void close() {
+        for (Segment segment : _segments)
+            if (segment != null)
+                segment.close();
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys != null)
+            foreignKeys.clear();
+    }
+
+    public V get(long key) {
+        int hash = hash(key);
+        return (V) segmentFor(hash).get(key, hash);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (isNativeKey(key))
+            return get(_keyType.toLong(key));
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        return foreignKeys != null ? foreignKeys.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key))
+            return getOrCreateForeignKeys().put(key, value);
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).put(k, hash, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key))
+            return getOrCreateForeignKeys().putIfAbsent(key, value);
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).put(k, hash, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null ? foreignKeys.remove(key) : null;
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).remove(k, hash, null);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null)
+            return false;
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null && foreignKeys.remove(key, value);
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return segmentFor(hash).remove(k, hash, value) != null;
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null && foreignKeys.replace(key, oldValue, newValue);
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return segmentFor(hash).replace(k, hash, oldValue, newValue) != null;
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!isNativeKey(key)) {
+            ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+            return foreignKeys != null ? foreignKeys.replace(key, value) : null;
+        }
+        long k = _keyType.toLong(key);
+        int hash = hash(k);
+        return (V) segmentFor(hash).replace(k, hash, null, value);
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment segment : _segments)
+            size += segment._size;
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys != null)
+            size += foreignKeys.size();
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : _segments)
+            segment.clear();
+        ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+        if (foreignKeys != null)
+            foreignKeys.clear();
+    }
+
+    /**
+     * Returns a weakly consistent view of the mappings, each segment is copied on-heap when the
+     * iteration reaches it. This view is not meant for hot paths.
+     */
+    @Override
+    public Set<Map.Entry<Object, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, V>>() {
+            @Override
+            public Iterator<Map.Entry<Object, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return OffHeapLongKeyHashMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                OffHeapLongKeyHashMap.this.clear();
+            }
+        };
+    }
+
+    //an off-heap table and its capacity, published together so optimistic readers see a consistent pair
+    private static final class Table {
+        private final long _address;
+        private final int _capacity;
+
+        private Table(long address, int capacity) {
+            this._address = address;
+            this._capacity = capacity;
+        }
+
+        private long keyAt(int idx) {
+            return UnsafeHolder.getLong(_address + (long) idx * SLOT_SIZE);
+        }
+
+        private long handleAt(int idx) {
+            return UnsafeHolder.getLong(_address + (long) idx * SLOT_SIZE + HANDLE_OFFSET);
+        }
+
+        private void setSlot(int idx, long key, long handle) {
+            long slot = _address + (long) idx * SLOT_SIZE;
+            UnsafeHolder.putLong(slot, key);
+            UnsafeHolder.putLong(slot + HANDLE_OFFSET, handle);
+        }
+    }
+
+    private static final Table CLOSED_TABLE = new Table(0, 0);
+    private static final Object NOT_FOUND = new Object();
+
+    private static final ReferenceQueue<Segment> RELEASE_QUEUE = new ReferenceQueue<Segment>();
+    //keeps the phantom references reachable until their segment is collected
+    private static final Set<SegmentMemory> PENDING_RELEASE = Collections.newSetFromMap(new ConcurrentHashMap<SegmentMemory, Boolean>());
+
+    static {
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        SegmentMemory memory = (SegmentMemory) RELEASE_QUEUE.remove();
+                        PENDING_RELEASE.remove(memory);
+                        memory.release();
+                    } catch (InterruptedException e) {
+                        //daemon thread, keep releasing
+                    }
+                }
+            }
+        }, "GS-OffHeapIndexReleaser");
+        releaser.setDaemon(true);
+        releaser.start();
+    }
+
+    //the off-heap tables ever allocated by a segment, released once the segment is unreachable
+    private static final class SegmentMemory extends PhantomReference<Segment> {
+        //written by the segment under its lock, read by the releaser once the segment is unreachable
+        private long[] _addresses = new long[4];
+        private int _numOfAddresses;
+        private volatile long _bytes;
+
+        private SegmentMemory(Segment segment) {
+            super(segment, RELEASE_QUEUE);
+            PENDING_RELEASE.add(this);
+        }
+
+        private synchronized void add(long address, long bytes) {
+            if (_numOfAddresses == _addresses.length)
+                _addresses = Arrays.copyOf(_addresses, _addresses.length << 1);
+            _addresses[_numOfAddresses++] = address;
+            _bytes += bytes;
+        }
+
+        private synchronized void release() {
+            for (int i = 0; i < _numOfAddresses; i++)
+                UnsafeHolder.freeFromMemory(_addresses[i]);
+            _numOfAddresses = 0;
+            _bytes = 0;
+        }
+    }
+
+    private static final class Segment extends StampedLock {
+        private static final long serialVersionUID = 1L;
+
+        //all fields are guarded by the lock, get() reads _table and _values optimistically
+        private final SegmentMemory _memory;
+        private Table _table;
+        private int _threshold;
+        private volatile int _size;
+        //values are referenced from the off-heap slots by handle (index + 1)
+        private Object[] _values;
+        private int _nextHandle;
+        private int[] _freeHandles;
+        private int _numOfFreeHandles;
+
+        private Segment() {
+            _memory = new SegmentMemory(this);
+            _table = allocate(DEFAULT_SEGMENT_CAPACITY);
+            _values = new Object[DEFAULT_SEGMENT_CAPACITY];
+            _freeHandles = new int[DEFAULT_SEGMENT_CAPACITY];
+        }
+
+        private Table allocate(int capacity) {
+            long bytes = (long) capacity * SLOT_SIZE;
+            long address = UnsafeHolder.allocateMemory(bytes);
+            if (address == 0)
+                throw new RuntimeException("failed to allocate " + bytes + " bytes of off-heap index memory");
+            _memory.add(address, bytes);
+            UnsafeHolder.setMemory(address, bytes, (byte) 0);
+            _threshold = (int) (capacity * LOAD_FACTOR);
+            return new Table(address, capacity);
+        }
+
+        private long getOffHeapBytes() {
+            return _memory._bytes;
+        }
+
+        //returns the slot index of the key or -(free slot index)-1 if not found, lock must be held
+        private static int findSlot(Table table, long key, int hash) {
+            int mask = table._capacity - 1;
+            int idx = hash & mask;
+            while (true) {
+                if (table.handleAt(idx) == 0)
+                    return -idx - 1;
+                if (table.keyAt(idx) == key)
+                    return idx;
+                idx = (idx + 1) & mask;
+            }
+        }
+
+        private Object get(long key, int hash) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                //validating after the probe keeps this segment, and so the probed memory, reachable
+                Object result = probe(_table, _values, key, hash);
+                if (validate(stamp))
+                    return result != NOT_FOUND ? result : null;
+            }
+            stamp = readLock();
+            try {
+                Object result = probe(_table, _values, key, hash);
+                return result != NOT_FOUND ? result : null;
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        //may run concurrently with a writer, so every read is bounded and the caller validates the result
+        private static Object probe(Table table, Object[] values, long key, int hash) {
+            int capacity = table._capacity;
+            if (capacity == 0 || values == null)
+                return NOT_FOUND;
+            int mask = capacity - 1;
+            int idx = hash & mask;
+            for (int i = 0; i < capacity; i++) {
+                long handle = table.handleAt(idx);
+                if (handle == 0)
+                    return NOT_FOUND;
+                if (table.keyAt(idx) == key)
+                    return handle > 0 && handle <= values.length ? values[(int) handle - 1] : NOT_FOUND;
+                idx = (idx + 1) & mask;
+            }
+            return NOT_FOUND;
+        }
+
+        private Object put(long key, int hash, Object value, boolean onlyIfAbsent) {
+            long stamp = writeLock();
+            try {
+                assertNotClosed();
+                Table table = _table;
+                int idx = findSlot(table, key, hash);
+                if (idx >= 0) {
+                    int valueIdx = (int) table.handleAt(idx) - 1;
+                    Object current = _values[valueIdx];
+                    if (!onlyIfAbsent)
+                        _values[valueIdx] = value;
+                    return current;
+                }
+                if (_size >= _threshold) {
+                    table = rehash(table._capacity << 1);
+                    idx = findSlot(table, key, hash);
+                }
+                table.setSlot(-idx - 1, key, allocateHandle(value));
+                _size++;
+                return null;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private Object remove(long key, int hash, Object expectedValue) {
+            long stamp = writeLock();
+            try {
+                Table table = _table;
+                if (table._capacity == 0)
+                    return null;
+                int idx = findSlot(table, key, hash);
+                if (idx < 0)
+                    return null;
+                int valueIdx = (int) table.handleAt(idx) - 1;
+                Object current = _values[valueIdx];
+                if (expectedValue != null && !expectedValue.equals(current))
+                    return null;
+                releaseHandle(valueIdx);
+                deleteSlot(table, idx);
+                _size--;
+                return current;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private Object replace(long key, int hash, Object expectedValue, Object newValue) {
+            long stamp = writeLock();
+            try {
+                Table table = _table;
+                if (table._capacity == 0)
+                    return null;
+                int idx = findSlot(table, key, hash);
+                if (idx < 0)
+                    return null;
+                int valueIdx = (int) table.handleAt(idx) - 1;
+                Object current = _values[valueIdx];
+                if (expectedValue != null && !expectedValue.equals(current))
+                    return null;
+                _values[valueIdx] = newValue;
+                return current;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void clear() {
+            long stamp = writeLock();
+            try {
+                Table table = _table;
+                if (table._capacity == 0)
+                    return;
+                UnsafeHolder.setMemory(table._address, (long) table._capacity * SLOT_SIZE, (byte) 0);
+                Arrays.fill(_values, null);
+                _nextHandle = 0;
+                _numOfFreeHandles = 0;
+                _size = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void close() {
+            long stamp = writeLock();
+            try {
+                Table table = _table;
+                if (table._capacity == 0)
+                    return;
+                //the memory is left to the releaser, an optimistic reader may still probe it
+                _table = CLOSED_TABLE;
+                _threshold = 0;
+                _values = null;
+                _freeHandles = null;
+                _size = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void assertNotClosed() {
+            if (_table._capacity == 0)
+                throw new IllegalStateException("off-heap index store is closed");
+        }
+
+        private long allocateHandle(Object value) {
+            int valueIdx;
+            if (_numOfFreeHandles > 0) {
+                valueIdx = _freeHandles[--_numOfFreeHandles];
+            } else {
+                valueIdx = _nextHandle++;
+                if (valueIdx == _values.length)
+                    _values = Arrays.copyOf(_values, _values.length << 1);
+            }
+            _values[valueIdx] = value;
+            return valueIdx + 1;
+        }
+
+        private void releaseHandle(int valueIdx) {
+            _values[valueIdx] = null;
+            if (_numOfFreeHandles == _freeHandles.length)
+                _freeHandles = Arrays.copyOf(_freeHandles, _freeHandles.length << 1);
+            _freeHandles[_numOfFreeHandles++] = valueIdx;
+        }
+
+        //backward-shift deletion keeps probe chains without tombstones, optimistic readers revalidate
+        private static void deleteSlot(Table table, int idx) {
+            int mask = table._capacity - 1;
+            int hole = idx;
+            int i = idx;
+            while (true) {
+                i = (i + 1) & mask;
+                long handle = table.handleAt(i);
+                if (handle == 0)
+                    break;
+                long key = table.keyAt(i);
+                int ideal = hash(key) & mask;
+                boolean canMove = hole <= i ? (ideal <= hole || ideal > i) : (ideal <= hole && ideal > i);
+                if (canMove) {
+                    table.setSlot(hole, key, handle);
+                    hole = i;
+                }
+            }
+            table.setSlot(hole, 0, 0);
+        }
+
+        private Table rehash(int newCapacity) {
+            Table oldTable = _table;
+            Table newTable = allocate(newCapacity);
+            int mask = newCapacity - 1;
+            for (int i = 0; i < oldTable._capacity; i++) {
+                long handle = oldTable.handleAt(i);
+                if (handle == 0)
+                    continue;
+                long key = oldTable.keyAt(i);
+                int idx = hash(key) & mask;
+                while (newTable.handleAt(idx) != 0)
+                    idx = (idx + 1) & mask;
+                newTable.setSlot(idx, key, handle);
+            }
+            _table = newTable;
+            return newTable;
+        }
+
+        private <V> void copyTo(ConcurrentLongKeyHashMap.KeyType keyType, List<Map.Entry<Object, V>> target) {
+            long stamp = readLock();
+            try {
+                Table table = _table;
+                for (int i = 0; i < table._capacity; i++) {
+                    long handle = table.handleAt(i);
+                    if (handle != 0)
+                        target.add(new SimpleImmutableEntry<Object, V>(keyType.box(table.keyAt(i)), (V) _values[(int) handle - 1]));
+                }
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Object, V>> {
+        private int _segmentIndex;
+        private Iterator<Map.Entry<Object, V>> _current;
+        private boolean _foreignVisited;
+        private Map.Entry<Object, V> _last;
+
+        private EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (_current == null || !_current.hasNext()) {
+                if (_segmentIndex < _segments.length) {
+                    List<Map.Entry<Object, V>> entries = new ArrayList<Map.Entry<Object, V>>();
+                    _segments[_segmentIndex++].copyTo(_keyType, entries);
+                    _current = entries.iterator();
+                } else if (!_foreignVisited) {
+                    _foreignVisited = true;
+                    ConcurrentHashMap<Object, V> foreignKeys = _foreignKeys;
+                    if (foreignKeys != null)
+                        _current = foreignKeys.entrySet().iterator();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _current != null && _current.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Object, V> next() {
+            _last = _current.next();
+            advance();
+            return _last;
+        }
+
+        @Override
+        public void remove() {
+            if (_last == null)
+                throw new IllegalStateException();
+            OffHeapLongKeyHashMap.this.remove(_last.getKey());
+            _last = null;
+        }
+    }
+}
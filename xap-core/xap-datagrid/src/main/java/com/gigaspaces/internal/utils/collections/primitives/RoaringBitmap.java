@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative int values, split by the high 16 bits of the values into
+ * containers of up to 65536 values. Sparse containers keep the low 16 bits of their values in a
+ * sorted <tt>char[]</tt>, dense containers (more than {@value #ARRAY_CONTAINER_MAX_SIZE} values)
+ * keep a 65536 bit bitmap, so both the memory footprint and the cost of {@link #and} / {@link #or}
+ * are proportional to the number of values rather than to the largest value.
+ *
+ * <p>Not thread safe - callers synchronize updates with reads.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class RoaringBitmap {
+    static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+    private static final int BITMAP_WORDS = (1 << 16) >>> 6;
+
+    private char[] _keys;
+    private Container[] _containers;
+    private int _size;
+
+    public RoaringBitmap() {
+        this(4);
+    }
+
+    private RoaringBitmap(int capacity) {
+        _keys = new char[capacity];
+        _containers = new Container[capacity];
+    }
+
+    /**
+     * @return true if the value was not in the bitmap
+     */
+    public boolean add(int value) {
+        final char key = (char) (value >>> 16);
+        int pos = indexOf(key);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertContainer(pos, key, new ArrayContainer());
+        }
+        final Container container = _containers[pos];
+        final int cardinality = container.cardinality();
+        final Container result = container.add((char) value);
+        _containers[pos] = result;
+        return result.cardinality() != cardinality;
+    }
+
+    /**
+     * @return true if the value was in the bitmap
+     */
+    public boolean remove(int value) {
+        final int pos = indexOf((char) (value >>> 16));
+        if (pos < 0)
+            return false;
+        final Container container = _containers[pos];
+        final int cardinality = container.cardinality();
+        final Container result = container.remove((char) value);
+        if (result.cardinality() == 0)
+            removeContainer(pos);
+        else
+            _containers[pos] = result;
+        return result.cardinality() != cardinality;
+    }
+
+    public boolean contains(int value) {
+        final int pos = indexOf((char) (value >>> 16));
+        return pos >= 0 && _containers[pos].contains((char) value);
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < _size; i++)
+            cardinality += _containers[i].cardinality();
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * @return the values of the bitmap in ascending order
+     */
+    public int[] toArray() {
+        final int[] result = new int[getCardinality()];
+        int pos = 0;
+        for (int i = 0; i < _size; i++)
+            pos = _containers[i].toArray(_keys[i] << 16, result, pos);
+        return result;
+    }
+
+    /**
+     * @return a new bitmap of the values in both bitmaps
+     */
+    public static RoaringBitmap and(RoaringBitmap x, RoaringBitmap y) {
+        final RoaringBitmap result = new RoaringBitmap(Math.max(1, Math.min(x._size, y._size)));
+        int i = 0, j = 0;
+        while (i < x._size && j < y._size) {
+            if (x._keys[i] < y._keys[j]) {
+                i++;
+            } else if (x._keys[i] > y._keys[j]) {
+                j++;
+            } else {
+                final Container container = x._containers[i].and(y._containers[j]);
+                if (container.cardinality() != 0)
+                    result.appendContainer(x._keys[i], container);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap of the values in either bitmap
+     */
+    public static RoaringBitmap or(RoaringBitmap x, RoaringBitmap y) {
+        final RoaringBitmap result = new RoaringBitmap(Math.max(1, x._size + y._size));
+        int i = 0, j = 0;
+        while (i < x._size || j < y._size) {
+            if (j == y._size || (i < x._size && x._keys[i] < y._keys[j])) {
+                result.appendContainer(x._keys[i], x._containers[i].copy());
+                i++;
+            } else if (i == x._size || x._keys[i] > y._keys[j]) {
+                result.appendContainer(y._keys[j], y._containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(x._keys[i], x._containers[i].or(y._containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(char key) {
+        //most updates hit the last container
+        if (_size > 0 && _keys[_size - 1] == key)
+            return _size - 1;
+        return Arrays.binarySearch(_keys, 0, _size, key);
+    }
+
+    private void insertContainer(int pos, char key, Container container) {
+        if (_size == _keys.length) {
+            _keys = Arrays.copyOf(_keys, _size * 2);
+            _containers = Arrays.copyOf(_containers, _size * 2);
+        }
+        System.arraycopy(_keys, pos, _keys, pos + 1, _size - pos);
+        System.arraycopy(_containers, pos, _containers, pos + 1, _size - pos);
+        _keys[pos] = key;
+        _containers[pos] = container;
+        _size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        insertContainer(_size, key, container);
+    }
+
+    private void removeContainer(int pos) {
+        System.arraycopy(_keys, pos + 1, _keys, pos, _size - pos - 1);
+        System.arraycopy(_containers, pos + 1, _containers, pos, _size - pos - 1);
+        _containers[--_size] = null;
+    }
+
+    /**
+     * The values of a bitmap which share the same high 16 bits. Updates may return a container of
+     * the other kind.
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        abstract int toArray(int high, int[] result, int pos);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] _values;
+        private int _cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            _values = values;
+            _cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return _cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(_values, 0, _cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int pos = _cardinality > 0 && _values[_cardinality - 1] < value ? -_cardinality - 1 : Arrays.binarySearch(_values, 0, _cardinality, value);
+            if (pos >= 0)
+                return this;
+            if (_cardinality == ARRAY_CONTAINER_MAX_SIZE)
+                return toBitmapContainer().add(value);
+            pos = -pos - 1;
+            if (_cardinality == _values.length)
+                _values = Arrays.copyOf(_values, Math.min(ARRAY_CONTAINER_MAX_SIZE, _cardinality * 2));
+            System.arraycopy(_values, pos, _values, pos + 1, _cardinality - pos);
+            _values[pos] = value;
+            _cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            final int pos = Arrays.binarySearch(_values, 0, _cardinality, value);
+            if (pos >= 0) {
+                System.arraycopy(_values, pos + 1, _values, pos, _cardinality - pos - 1);
+                _cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            final char[] result = new char[Math.min(_cardinality, other.cardinality())];
+            int size = 0;
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < _cardinality && j < o._cardinality) {
+                    if (_values[i] < o._values[j]) {
+                        i++;
+                    } else if (_values[i] > o._values[j]) {
+                        j++;
+                    } else {
+                        result[size++] = _values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < _cardinality; i++)
+                    if (other.contains(_values[i]))
+                        result[size++] = _values[i];
+            }
+            return new ArrayContainer(result, size);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer)
+                return other.or(this);
+            final ArrayContainer o = (ArrayContainer) other;
+            if (_cardinality + o._cardinality > ARRAY_CONTAINER_MAX_SIZE)
+                return toBitmapContainer().or(o);
+            final char[] result = new char[_cardinality + o._cardinality];
+            int i = 0, j = 0, size = 0;
+            while (i < _cardinality || j < o._cardinality) {
+                if (j == o._cardinality || (i < _cardinality && _values[i] < o._values[j])) {
+                    result[size++] = _values[i++];
+                } else if (i == _cardinality || _values[i] > o._values[j]) {
+                    result[size++] = o._values[j++];
+                } else {
+                    result[size++] = _values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, size);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(_values, _cardinality), _cardinality);
+        }
+
+        @Override
+        int toArray(int high, int[] result, int pos) {
+            for (int i = 0; i < _cardinality; i++)
+                result[pos++] = high | _values[i];
+            return pos;
+        }
+
+        private BitmapContainer toBitmapContainer() {
+            final BitmapContainer result = new BitmapContainer(new long[BITMAP_WORDS], 0);
+            for (int i = 0; i < _cardinality; i++)
+                result.add(_values[i]);
+            return result;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] _words;
+        private int _cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            _words = words;
+            _cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return _cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (_words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            final long word = _words[value >>> 6];
+            final long updated = word | (1L << value);
+            if (updated != word) {
+                _words[value >>> 6] = updated;
+                _cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            final long word = _words[value >>> 6];
+            final long updated = word & ~(1L << value);
+            if (updated != word) {
+                _words[value >>> 6] = updated;
+                _cardinality--;
+                if (_cardinality <= ARRAY_CONTAINER_MAX_SIZE / 2)
+                    return toArrayContainer(_words, _cardinality);
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer)
+                return other.and(this);
+            final long[] otherWords = ((BitmapContainer) other)._words;
+            final long[] result = new long[BITMAP_WORDS];
+            int cardinality = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = _words[i] & otherWords[i];
+                cardinality += Long.bitCount(result[i]);
+            }
+            return cardinality <= ARRAY_CONTAINER_MAX_SIZE ? toArrayContainer(result, cardinality) : new BitmapContainer(result, cardinality);
+        }
+
+        @Override
+        Container or(Container other) {
+            final BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o._cardinality; i++)
+                    result.add(o._values[i]);
+                return result;
+            }
+            final long[] otherWords = ((BitmapContainer) other)._words;
+            int cardinality = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result._words[i] |= otherWords[i];
+                cardinality += Long.bitCount(result._words[i]);
+            }
+            result._cardinality = cardinality;
+            return result;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(_words.clone(), _cardinality);
+        }
+
+        @Override
+        int toArray(int high, int[] result, int pos) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = _words[i];
+                while (word != 0) {
+                    result[pos++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return pos;
+        }
+
+        private static ArrayContainer toArrayContainer(long[] words, int cardinality) {
+            final char[] values = new char[cardinality];
+            int pos = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[pos++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -64,6 +64,14 @@ public interface IAsyncHandler {
      */
     void resumeNow();
 
+    /**
+     * Changes the idle delay of the following cycles, a cycle which is already scheduled keeps the
+     * delay it was scheduled with.
+     *
+     * @since 16.4.0
+     */
+    void setIdleDelay(long idleDelayMilis);
+
     /**
      * Specifies whether this async handler is terminated and will not run again
      */
@@ -86,7 +86,7 @@ public class ThreadAsyncHandlerProvider extends AbstractAsyncHandlerProvider {
 
         private final Callable<CycleResult> _runnable;
         private final ThreadAsyncHandlerProvider _provider;
-        private final long _idleDelayMilis;
+        private volatile long _idleDelayMilis;
         private final Lock _lock = new ReentrantLock(false);
         private final Condition _condition;
         private final boolean _waitIdleDelayBeforeStart;
@@ -240,6 +240,11 @@ public class ThreadAsyncHandlerProvider extends AbstractAsyncHandlerProvider {
             }
         }
 
+        @Override
+        public void setIdleDelay(long idleDelayMilis) {
+            _idleDelayMilis = idleDelayMilis;
+        }
+
         @Override
         public boolean isTerminated() {
             return _terminated || _stopped;
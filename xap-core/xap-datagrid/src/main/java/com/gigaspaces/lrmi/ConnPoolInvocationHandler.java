@@ -47,6 +47,24 @@ public class ConnPoolInvocationHandler
      **/
     public Object invoke(Object proxy, LRMIMethod lrmiMethod, Object[] args)
             throws Throwable {
+        if (_connPool.isMultiplexed(lrmiMethod)) {
+            ConnectionResource multiplexedPeer;
+            try {
+                multiplexedPeer = _connPool.getMultiplexedConnection(lrmiMethod);
+            } catch (Exception e) {
+                if (lrmiMethod.isAsync)
+                    return setAsyncFailure(e);
+                throw e;
+            }
+            try {
+                return multiplexedPeer.invokeMultiplexed(proxy, lrmiMethod, args);
+            } catch (ProtocolException ex) {
+                throw ex.getCause();
+            } catch (ApplicationException ex) {
+                throw ex.getCause();
+            }
+        }
+
         ConnectionResource clientPeer = null;
 
         //States whether the connection should be freed when this invocation is complete
@@ -58,16 +76,7 @@ public class ConnPoolInvocationHandler
             clientPeer = _connPool.getConnection(lrmiMethod);
         } catch (Exception e) {
             if (lrmiMethod.isAsync) {
-                ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
-                LRMIFuture result = (LRMIFuture) FutureContext.getFutureResult();
-                if (result == null) {
-                    result = new LRMIFuture(contextClassLoader);
-                } else {
-                    result.reset(contextClassLoader);
-                }
-                FutureContext.setFutureResult(result);
-                result.setResult(e);
-                return null;
+                return setAsyncFailure(e);
             } else {
                 throw e;
             }
@@ -88,6 +97,19 @@ public class ConnPoolInvocationHandler
 
     }
 
+    private static Object setAsyncFailure(Exception e) {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        LRMIFuture result = (LRMIFuture) FutureContext.getFutureResult();
+        if (result == null) {
+            result = new LRMIFuture(contextClassLoader);
+        } else {
+            result.reset(contextClassLoader);
+        }
+        FutureContext.setFutureResult(result);
+        result.setResult(e);
+        return null;
+    }
+
     public long getGeneratedTraffic() {
         return _connPool.getGeneratedTraffic();
     }
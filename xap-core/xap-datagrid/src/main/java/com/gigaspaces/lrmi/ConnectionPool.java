@@ -20,6 +20,7 @@ import com.gigaspaces.config.lrmi.ITransportConfig;
 import com.gigaspaces.internal.lrmi.ConnectionUrlDescriptor;
 import com.gigaspaces.internal.lrmi.LRMIProxyMonitoringDetailsImpl;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.nio.filters.IOBlockFilterManager;
 import com.j_spaces.kernel.SystemProperties;
 import com.j_spaces.kernel.pool.BlockingResourcePool;
 import com.j_spaces.kernel.pool.IResourcePool;
@@ -27,6 +28,8 @@ import com.j_spaces.kernel.pool.IResourceProcedure;
 
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 
 
@@ -44,6 +47,10 @@ public class ConnectionPool {
     private static final LongAdder activeConnections = new LongAdder();
     private final static boolean WAIT_INDEFINITELY_FOR_CONNECTION = !Boolean.valueOf(System.getProperty(SystemProperties.LRMI_ASYNC_THROW_RESOURCE_NOT_AVAILABLE, String.valueOf(SystemProperties.LRMI_ASYNC_THROW_RESOURCE_NOT_AVAILABLE_DEFAULT)));
     private final IResourcePool<ConnectionResource> _peersPool;
+    private final ConnectionFactory _connectionFactory;
+    // connections shared by concurrent invocations, null if multiplexing is not used
+    private final AtomicReferenceArray<ConnectionResource> _multiplexedPeers;
+    private final AtomicInteger _multiplexedIndex = new AtomicInteger();
     private final String _connectionURL;
     private final String _serviceDetails;
     private final PlatformLogicalVersion _serviceVersion;
@@ -67,7 +74,15 @@ public class ConnectionPool {
         this._connectionURL = connectionURL;
         this._serviceVersion = serviceVersion;
         //this._peersPool = new ResourcePool<ClientPeer>(new ConnectionFactory(protocolAdapter, config), 0, maxConns);
-        this._peersPool = new BlockingResourcePool<ConnectionResource>(new ConnectionFactory(protocolAdapter, config, serviceVersion), 0, maxConns);
+        this._connectionFactory = new ConnectionFactory(protocolAdapter, config, serviceVersion);
+        this._peersPool = new BlockingResourcePool<ConnectionResource>(_connectionFactory, 0, maxConns);
+        // the service must understand correlated requests, network filters are not supported by the shared connections
+        // read per pool, so the settings apply to the stubs connected after they are changed
+        final boolean multiplexed = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_MULTIPLEXED, SystemProperties.LRMI_MULTIPLEXED_DEFAULT));
+        final int multiplexedChannels = Integer.getInteger(SystemProperties.LRMI_MULTIPLEXED_CHANNELS, SystemProperties.LRMI_MULTIPLEXED_CHANNELS_DEFAULT);
+        this._multiplexedPeers = multiplexed && multiplexedChannels > 0 && IOBlockFilterManager.getFilterFactory() == null
+                && serviceVersion != null && serviceVersion.greaterOrEquals(PlatformLogicalVersion.v16_4_0)
+                ? new AtomicReferenceArray<ConnectionResource>(multiplexedChannels) : null;
         this._serviceDetails = extractServiceDetailsFromConnectionUrl(_connectionURL);
     }
 
@@ -123,6 +138,50 @@ public class ConnectionPool {
         return conn;
     }
 
+    /**
+     * @return true if the method should be invoked over a {@linkplain #getMultiplexedConnection(LRMIMethod)
+     * multiplexed connection}.
+     * @since 16.4.0
+     */
+    public boolean isMultiplexed(LRMIMethod lrmiMethod) {
+        return _multiplexedPeers != null;
+    }
+
+    /**
+     * Returns a connected Client Peer which is shared by concurrent invocations, it is never
+     * returned to the pool and should not be freed.
+     *
+     * @since 16.4.0
+     */
+    public ConnectionResource getMultiplexedConnection(LRMIMethod lrmiMethod) throws RemoteException, MalformedURLException {
+        final int index = (_multiplexedIndex.getAndIncrement() & Integer.MAX_VALUE) % _multiplexedPeers.length();
+        ConnectionResource conn = _multiplexedPeers.get(index);
+        if (conn == null) {
+            synchronized (_multiplexedPeers) {
+                conn = _multiplexedPeers.get(index);
+                if (conn == null) {
+                    conn = _connectionFactory.allocate();
+                    conn.setMultiplexed();
+                    // kept acquired so it is neither considered idle nor released
+                    conn.acquire();
+                    _multiplexedPeers.set(index, conn);
+                }
+            }
+        }
+        if (_closed)
+            DynamicSmartStub.throwProxyClosedExeption(_connectionURL);
+
+        if (!conn.isConnected()) {
+            if (_disabled)
+                throw new RemoteException("LRMI force disconnection enabled for this stub");
+            synchronized (conn) {
+                if (!conn.isConnected())
+                    conn.connect(_connectionURL, lrmiMethod);
+            }
+        }
+        return conn;
+    }
+
     /**
      * Free a connection (return it to pool).
      */
@@ -134,12 +193,14 @@ public class ConnectionPool {
     public long getGeneratedTraffic() {
         GeneratedTrafficProcedure procedure = new GeneratedTrafficProcedure();
         _peersPool.forAllResources(procedure);
+        forAllMultiplexedResources(procedure);
         return procedure.getGeneratedTraffic();
     }
 
     public long getReceivedTraffic() {
         ReceivedTrafficProcedure procedure = new ReceivedTrafficProcedure();
         _peersPool.forAllResources(procedure);
+        forAllMultiplexedResources(procedure);
         return procedure.getReceivedTraffic();
     }
 
@@ -147,6 +208,17 @@ public class ConnectionPool {
         _disabled = true;
         DisableStubProcedure procedure = new DisableStubProcedure();
         _peersPool.forAllResources(procedure);
+        forAllMultiplexedResources(procedure);
+    }
+
+    private void forAllMultiplexedResources(IResourceProcedure<ConnectionResource> procedure) {
+        if (_multiplexedPeers == null)
+            return;
+        for (int i = 0; i < _multiplexedPeers.length(); i++) {
+            ConnectionResource resource = _multiplexedPeers.get(i);
+            if (resource != null)
+                procedure.invoke(resource);
+        }
     }
 
     public void enable() {
@@ -161,6 +233,12 @@ public class ConnectionPool {
                 monitoringDetails.addConnectionResource(resource);
             }
         });
+        forAllMultiplexedResources(new IResourceProcedure<ConnectionResource>() {
+            @Override
+            public void invoke(ConnectionResource resource) {
+                monitoringDetails.addConnectionResource(resource);
+            }
+        });
         return monitoringDetails;
     }
 
@@ -185,6 +263,17 @@ public class ConnectionPool {
 
             }
         });
+        // multiplexed connections are always acquired by the pool
+        forAllMultiplexedResources(new IResourceProcedure<ConnectionResource>() {
+            @Override
+            public void invoke(ConnectionResource resource) {
+                try {
+                    resource.disconnect();
+                } finally {
+                    resource.close();
+                }
+            }
+        });
     }
 
 }
\ No newline at end of file
@@ -16,6 +16,8 @@
 
 package com.gigaspaces.lrmi;
 
+import com.gigaspaces.exception.lrmi.ApplicationException;
+import com.gigaspaces.exception.lrmi.ProtocolException;
 import com.gigaspaces.internal.lrmi.LRMIMonitoringModule;
 import com.j_spaces.kernel.pool.Resource;
 
@@ -52,4 +54,21 @@ public abstract class ConnectionResource
 
     public abstract LRMIMonitoringModule getMonitoringModule();
 
+    /**
+     * Marks this resource as shared by concurrent invocations, must be called before it
+     * is connected.
+     *
+     * @since 16.4.0
+     */
+    public abstract void setMultiplexed();
+
+    /**
+     * Invokes a method over a resource which was {@linkplain #setMultiplexed()
+     * multiplexed}, may be called concurrently.
+     *
+     * @since 16.4.0
+     */
+    public abstract Object invokeMultiplexed(Object proxy, LRMIMethod lrmiMethod, Object[] args)
+            throws ApplicationException, ProtocolException, java.rmi.RemoteException, InterruptedException;
+
 }
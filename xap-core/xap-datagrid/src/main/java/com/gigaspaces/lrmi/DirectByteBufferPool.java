@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.lrmi;
+
+import com.gigaspaces.logger.Constants;
+import com.j_spaces.kernel.SystemProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of direct buffers shared by all the LRMI connections of this process, which is used to
+ * transfer large packets between the heap buffers they are marshalled to and the socket channels.
+ *
+ * Buffers are pooled in power of two size classes, from {@link #MIN_BUFFER_SIZE} up to the
+ * maximal buffer size. Released buffers are kept as long as the pooled bytes do not exceed the
+ * configured maximum, otherwise they are left to the garbage collector. When leak detection is
+ * enabled, the stack trace of each lease is kept, and leases which are not released for a long
+ * time are reported.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DirectByteBufferPool {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+    private static final long LEAK_REPORT_THRESHOLD = 60 * 1000;
+    private static final int LEAK_CHECK_INTERVAL = 1024;
+
+    private static final DirectByteBufferPool _defaultPool = new DirectByteBufferPool(
+            Integer.getInteger(SystemProperties.MAX_LRMI_BUFFER_SIZE, SystemProperties.MAX_LRMI_BUFFER_SIZE_DEFAULT),
+            Long.getLong(SystemProperties.LRMI_DIRECT_BUFFER_POOL_MAX_BYTES, SystemProperties.LRMI_DIRECT_BUFFER_POOL_MAX_BYTES_DEFAULT),
+            Boolean.getBoolean(SystemProperties.LRMI_DIRECT_BUFFER_POOL_LEAK_DETECTION));
+
+    private final int _maxBufferSize;
+    private final long _maxPooledBytes;
+    private final Queue<ByteBuffer>[] _sizeClasses;
+    private final AtomicLong _pooledBytes = new AtomicLong();
+    private final AtomicLong _leasedBuffers = new AtomicLong();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _leaks = new LongAdder();
+    // null unless leak detection is enabled
+    private final Map<ByteBuffer, LeaseRecord> _leases;
+    private int _leasesSinceCheck;
+
+    /**
+     * @return the pool shared by the LRMI readers and writers, or null if the pool is disabled.
+     */
+    public static DirectByteBufferPool getDefaultPool() {
+        return _defaultPool.isEnabled() ? _defaultPool : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public DirectByteBufferPool(int maxBufferSize, long maxPooledBytes, boolean leakDetection) {
+        this._maxBufferSize = Math.max(MIN_BUFFER_SIZE, maxBufferSize);
+        this._maxPooledBytes = maxPooledBytes;
+        this._sizeClasses = new Queue[sizeClass(_maxBufferSize) + 1];
+        for (int i = 0; i < _sizeClasses.length; i++)
+            _sizeClasses[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        this._leases = leakDetection ? new IdentityHashMap<ByteBuffer, LeaseRecord>() : null;
+    }
+
+    public boolean isEnabled() {
+        return _maxPooledBytes > 0;
+    }
+
+    /**
+     * @return the largest buffer which can be acquired.
+     */
+    public int getMaxBufferSize() {
+        return _maxBufferSize;
+    }
+
+    /**
+     * Acquires a cleared direct buffer whose limit is the requested size, which should be {@link
+     * #release(ByteBuffer) released} once it is no longer used.
+     *
+     * @throws IllegalArgumentException if the size exceeds the {@link #getMaxBufferSize() maximal
+     *                                  buffer size}.
+     */
+    public ByteBuffer acquire(int size) {
+        if (size > _maxBufferSize)
+            throw new IllegalArgumentException("Requested buffer size [" + size + "] exceeds the maximal pooled buffer size [" + _maxBufferSize + "]");
+
+        final int sizeClass = sizeClass(size);
+        ByteBuffer buffer = _sizeClasses[sizeClass].poll();
+        if (buffer != null) {
+            _pooledBytes.addAndGet(-buffer.capacity());
+            _hits.increment();
+        } else {
+            buffer = ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << sizeClass);
+            _misses.increment();
+        }
+        _leasedBuffers.incrementAndGet();
+        if (_leases != null)
+            trackLease(buffer);
+
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer acquired from this pool.
+     */
+    public void release(ByteBuffer buffer) {
+        if (_leases != null && !untrackLease(buffer))
+            return;
+        _leasedBuffers.decrementAndGet();
+
+        final int capacity = buffer.capacity();
+        // keeps the buffer only if the pool is not full, otherwise its memory is freed once it is collected
+        if (_pooledBytes.addAndGet(capacity) <= _maxPooledBytes) {
+            _sizeClasses[sizeClass(capacity)].offer(buffer);
+        } else {
+            _pooledBytes.addAndGet(-capacity);
+        }
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= MIN_BUFFER_SIZE)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros((size - 1) / MIN_BUFFER_SIZE);
+    }
+
+    private void trackLease(ByteBuffer buffer) {
+        List<LeaseRecord> leaked = null;
+        synchronized (_leases) {
+            _leases.put(buffer, new LeaseRecord());
+            if (++_leasesSinceCheck >= LEAK_CHECK_INTERVAL) {
+                _leasesSinceCheck = 0;
+                final long threshold = System.currentTimeMillis() - LEAK_REPORT_THRESHOLD;
+                for (LeaseRecord record : _leases.values()) {
+                    if (!record.reported && record.timestamp < threshold) {
+                        record.reported = true;
+                        if (leaked == null)
+                            leaked = new ArrayList<LeaseRecord>();
+                        leaked.add(record);
+                    }
+                }
+            }
+        }
+        if (leaked != null) {
+            for (LeaseRecord record : leaked) {
+                _leaks.increment();
+                _logger.warn("A direct buffer was not returned to the LRMI buffer pool for more than " + LEAK_REPORT_THRESHOLD + "ms, it was acquired by:", record);
+            }
+        }
+    }
+
+    private boolean untrackLease(ByteBuffer buffer) {
+        final LeaseRecord record;
+        synchronized (_leases) {
+            record = _leases.remove(buffer);
+        }
+        if (record == null) {
+            _logger.warn("Ignoring the release of a buffer which is not leased from the LRMI buffer pool", new IllegalStateException());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the bytes of the buffers kept by the pool.
+     */
+    public long getPooledBytes() {
+        return _pooledBytes.get();
+    }
+
+    /**
+     * @return the number of buffers which were acquired and not released yet.
+     */
+    public long getLeasedBuffers() {
+        return _leasedBuffers.get();
+    }
+
+    /**
+     * @return the counter of acquisitions which reused a pooled buffer.
+     */
+    public LongAdder getHitsCounter() {
+        return _hits;
+    }
+
+    /**
+     * @return the counter of acquisitions which allocated a new buffer.
+     */
+    public LongAdder getMissesCounter() {
+        return _misses;
+    }
+
+    /**
+     * @return the counter of reported leases, only counted when leak detection is enabled.
+     */
+    public LongAdder getLeaksCounter() {
+        return _leaks;
+    }
+
+    private static class LeaseRecord extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final long timestamp = System.currentTimeMillis();
+        private boolean reported;
+
+        private LeaseRecord() {
+            super("Buffer lease");
+        }
+    }
+}
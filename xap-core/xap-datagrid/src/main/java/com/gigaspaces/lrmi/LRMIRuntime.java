@@ -31,6 +31,8 @@ import com.gigaspaces.logger.LogUtils;
 import com.gigaspaces.lrmi.ProtocolAdapter.Side;
 import com.gigaspaces.lrmi.nio.Pivot;
 import com.gigaspaces.lrmi.nio.async.LRMIThreadPoolExecutor;
+import com.gigaspaces.lrmi.nio.async.RequestScheduler;
+import com.gigaspaces.lrmi.nio.async.VirtualThreadExecutor;
 import com.gigaspaces.lrmi.nio.watchdog.Watchdog;
 import com.gigaspaces.management.transport.ITransportConnection;
 import com.j_spaces.core.service.ServiceConfigLoader;
@@ -44,8 +46,10 @@ import java.rmi.NoSuchObjectException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,6 +87,8 @@ public class LRMIRuntime {
     final private LRMIThreadPoolExecutor _livenessPriorityThreadPool;
     final private LRMIThreadPoolExecutor _monitoringPriorityThreadPool;
     final private LRMIThreadPoolExecutor _customThreadPool;
+    final private VirtualThreadExecutor _virtualThreadExecutor;
+    final private RequestScheduler _requestScheduler;
     final private StubCache _stubCache;
     final private INetworkMapper _networkMapper = constructNetworkMapper();
     //Current lrmi usage simply doesn't support shutdown on last registrar since the client 
@@ -147,6 +153,35 @@ public class LRMIRuntime {
                 Thread.NORM_PRIORITY,
                 "LRMI-Custom",
                 true, true);
+        _virtualThreadExecutor = createVirtualThreadExecutor(_lrmiThreadPool);
+        _requestScheduler = createRequestScheduler(config);
+    }
+
+    private static VirtualThreadExecutor createVirtualThreadExecutor(Executor overflowExecutor) {
+        if (!Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_VIRTUAL_THREADS, SystemProperties.LRMI_VIRTUAL_THREADS_DEFAULT)))
+            return null;
+        if (!VirtualThreadExecutor.isSupported()) {
+            _logger.warn(SystemProperties.LRMI_VIRTUAL_THREADS + " is ignored since virtual threads are not supported by this JVM (Java 21 or later is required), using the LRMI connection thread pool");
+            return null;
+        }
+        int maxConcurrency = Integer.getInteger(SystemProperties.LRMI_VIRTUAL_THREADS_MAX_CONCURRENCY, SystemProperties.LRMI_VIRTUAL_THREADS_MAX_CONCURRENCY_DEFAULT);
+        if (_logger.isInfoEnabled())
+            _logger.info("Processing LRMI requests on virtual threads [max-concurrency=" + maxConcurrency + "]");
+        return new VirtualThreadExecutor(maxConcurrency, "LRMI-Virtual", overflowExecutor);
+    }
+
+    private RequestScheduler createRequestScheduler(ITransportConfig config) {
+        if (!Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_SCHEDULER, SystemProperties.LRMI_SCHEDULER_DEFAULT)))
+            return null;
+        int defaultMaxConcurrency = _virtualThreadExecutor != null ? _virtualThreadExecutor.getMaxConcurrency() : config.getMaxThreads();
+        int maxConcurrency = Integer.getInteger(SystemProperties.LRMI_SCHEDULER_MAX_CONCURRENCY, defaultMaxConcurrency);
+        int[] weights = RequestScheduler.parseWeights(System.getProperty(SystemProperties.LRMI_SCHEDULER_WEIGHTS, SystemProperties.LRMI_SCHEDULER_WEIGHTS_DEFAULT));
+        long maxQueueTime = Long.getLong(SystemProperties.LRMI_SCHEDULER_MAX_QUEUE_TIME, SystemProperties.LRMI_SCHEDULER_MAX_QUEUE_TIME_DEFAULT);
+        int maxQueueSize = Integer.getInteger(SystemProperties.LRMI_SCHEDULER_MAX_QUEUE_SIZE, SystemProperties.LRMI_SCHEDULER_MAX_QUEUE_SIZE_DEFAULT);
+        if (_logger.isInfoEnabled())
+            _logger.info("Scheduling LRMI requests by operation class [max-concurrency=" + maxConcurrency +
+                    ", weights=" + Arrays.toString(weights) + ", max-queue-time=" + maxQueueTime + "ms, max-queue-size=" + maxQueueSize + "]");
+        return new RequestScheduler(getRequestExecutor(), maxConcurrency, weights, maxQueueTime, maxQueueSize);
     }
 
 
@@ -203,6 +238,33 @@ public class LRMIRuntime {
         return _lrmiThreadPool;
     }
 
+    /**
+     * @return the executor which processes regular priority requests, which is the {@link
+     * #getThreadPool() thread pool} unless {@link SystemProperties#LRMI_VIRTUAL_THREADS virtual
+     * threads} are enabled
+     * @since 16.4.0
+     */
+    public Executor getRequestExecutor() {
+        return _virtualThreadExecutor != null ? _virtualThreadExecutor : _lrmiThreadPool;
+    }
+
+    /**
+     * @return the virtual thread executor, or null if virtual threads are not enabled
+     * @since 16.4.0
+     */
+    public VirtualThreadExecutor getVirtualThreadExecutor() {
+        return _virtualThreadExecutor;
+    }
+
+    /**
+     * @return the scheduler of regular priority requests, or null if requests are dispatched
+     * directly to the {@link #getRequestExecutor() request executor}
+     * @since 16.4.0
+     */
+    public RequestScheduler getRequestScheduler() {
+        return _requestScheduler;
+    }
+
     public DynamicThreadPoolExecutor getMonitoringPriorityThreadPool() {
         return _monitoringPriorityThreadPool;
     }
@@ -519,6 +581,8 @@ public class LRMIRuntime {
         _monitoringPriorityThreadPool.shutdownNow();
         _livenessPriorityThreadPool.shutdownNow();
         _customThreadPool.shutdown();
+        if (_virtualThreadExecutor != null)
+            _virtualThreadExecutor.shutdown();
 
         DynamicSmartStub.shutdown();
 
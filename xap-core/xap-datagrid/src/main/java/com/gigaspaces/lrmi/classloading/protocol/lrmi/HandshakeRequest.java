@@ -40,6 +40,8 @@ public class HandshakeRequest implements SmartExternalizable {
 
     private PlatformLogicalVersion _logicalVersion;
     private long _pid;
+    private boolean _multiplexed;
+    private boolean _compression;
 
     //For Externalizable
     public HandshakeRequest() {
@@ -51,6 +53,16 @@ public class HandshakeRequest implements SmartExternalizable {
         _pid = SystemInfo.singleton().os().processId();
     }
 
+    public HandshakeRequest(PlatformLogicalVersion logicalVersion, boolean multiplexed) {
+        this(logicalVersion);
+        _multiplexed = multiplexed;
+    }
+
+    public HandshakeRequest(PlatformLogicalVersion logicalVersion, boolean multiplexed, boolean compression) {
+        this(logicalVersion, multiplexed);
+        _compression = compression;
+    }
+
     public void readExternal(ObjectInput in) throws IOException,
             ClassNotFoundException {
         byte serialVersion = in.readByte();
@@ -62,12 +74,18 @@ public class HandshakeRequest implements SmartExternalizable {
         //interfere since nothing else is being read from stream afterwards
         if (_logicalVersion.greaterOrEquals(PlatformLogicalVersion.v9_1_0))
             _pid = in.readLong();
+        if (_logicalVersion.greaterOrEquals(PlatformLogicalVersion.v16_4_0)) {
+            _multiplexed = in.readBoolean();
+            _compression = in.readBoolean();
+        }
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeByte(SERIAL_VERSION);
         out.writeObject(_logicalVersion);
         out.writeLong(_pid);
+        out.writeBoolean(_multiplexed);
+        out.writeBoolean(_compression);
     }
 
     public PlatformLogicalVersion getSourcePlatformLogicalVersion() {
@@ -78,4 +96,22 @@ public class HandshakeRequest implements SmartExternalizable {
         return _pid;
     }
 
+    /**
+     * @return true if the connection is shared by concurrent invocations, whose replies are
+     * matched to the requests by correlation id.
+     * @since 16.4.0
+     */
+    public boolean isMultiplexed() {
+        return _multiplexed;
+    }
+
+    /**
+     * @return true if the client compresses large requests and asks for large replies to be
+     * compressed as well.
+     * @since 16.4.0
+     */
+    public boolean isCompression() {
+        return _compression;
+    }
+
 }
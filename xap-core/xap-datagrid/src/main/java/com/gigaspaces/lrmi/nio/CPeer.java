@@ -26,6 +26,7 @@ import com.gigaspaces.exception.lrmi.LRMIUnhandledException.Stage;
 import com.gigaspaces.exception.lrmi.ProtocolException;
 import com.gigaspaces.internal.io.MarshalContextClearedException;
 import com.gigaspaces.internal.lrmi.ConnectionUrlDescriptor;
+import com.gigaspaces.internal.lrmi.LRMILatencyMonitor;
 import com.gigaspaces.internal.lrmi.LRMIMonitoringModule;
 import com.gigaspaces.internal.reflection.ReflectionUtil;
 import com.gigaspaces.internal.utils.StringUtils;
@@ -61,12 +62,13 @@ import com.j_spaces.kernel.SystemProperties;
 
 import net.jini.space.InternalSpaceException;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
-import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SocketChannel;
 import java.rmi.ConnectException;
@@ -98,6 +100,9 @@ public class CPeer extends BaseClientPeer {
     private static final boolean CHANGE_THREAD_NAME_ON_INVOCATION = Boolean.getBoolean("com.gs.lrmi.change.thread.name");
 
     private static final LongAdder connections = new LongAdder();
+    private static final int WRITE_COALESCING_MAX_BYTES = Integer.getInteger(SystemProperties.LRMI_WRITE_COALESCING_MAX_BYTES, SystemProperties.LRMI_WRITE_COALESCING_MAX_BYTES_DEFAULT);
+    private static final boolean COMPRESSION = PacketCompressor.isEnabled();
+    private static final LRMILatencyMonitor LATENCY_MONITOR = LRMILatencyMonitor.getDefault();
 
     private long _generatedTraffic;
     private long _receivedTraffic;
@@ -158,6 +163,9 @@ public class CPeer extends BaseClientPeer {
     // go through volatile read
     private AsyncContext _asyncContext = null;
     private boolean _asyncConnect;
+    private boolean _unixDomainSockets;
+    private boolean _multiplexed;
+    private volatile MultiplexedContext _multiplexedContext;
 
     public static LongAdder getConnectionsCounter() {
         return connections;
@@ -184,6 +192,7 @@ public class CPeer extends BaseClientPeer {
         _slowConsumerRetries = config.getSlowConsumerRetries();
         _protocolValidationEnabled = ((NIOConfiguration) config).isProtocolValidationEnabled();
         _asyncConnect = System.getProperty(SystemProperties.LRMI_USE_ASYNC_CONNECT) == null || Boolean.getBoolean(SystemProperties.LRMI_USE_ASYNC_CONNECT);
+        _unixDomainSockets = config.isUnixDomainSockets() && UnixDomainSockets.isSupported() && IOBlockFilterManager.getFilterFactory() == null;
     }
 
     @Override
@@ -192,11 +201,101 @@ public class CPeer extends BaseClientPeer {
     }
 
     public synchronized void connect(String connectionURL, LRMIMethod lrmiMethod) throws MalformedURLException, RemoteException {
-        if (_asyncConnect && IOBlockFilterManager.getFilterFactory() == null && _slowConsumerThroughput == 0 && clientConversationRunner != null) {
+        if (_asyncConnect && IOBlockFilterManager.getFilterFactory() == null && _slowConsumerThroughput == 0 && clientConversationRunner != null
+                && !isUnixDomainSocketAvailable(connectionURL)) {
             connectAsync(connectionURL, lrmiMethod);
         } else {
             connectSync(connectionURL, lrmiMethod);
         }
+        // the server compresses its replies once it got the handshake, requests are compressed only if it can read them
+        if (isCompressionRequested()) {
+            _reader.setCompression();
+            if (_serviceVersion != null && _serviceVersion.greaterOrEquals(PlatformLogicalVersion.v16_4_0))
+                _writer.setCompression(new PacketCompressor());
+        }
+        if (_multiplexed)
+            startMultiplexing(connectionURL);
+    }
+
+    // the async connect conversation is tcp only, a server on this host is connected synchronously
+    private boolean isUnixDomainSocketAvailable(String connectionURL) throws MalformedURLException {
+        if (!_unixDomainSockets)
+            return false;
+        ConnectionUrlDescriptor connectionUrlDescriptor = ConnectionUrlDescriptor.fromUrl(connectionURL);
+        ServerAddress address = mapAddress(connectionUrlDescriptor.getHostname(), connectionUrlDescriptor.getPort());
+        return getUnixDomainSocketFile(address.getHost(), address.getPort()) != null;
+    }
+
+    /**
+     * @return the socket file of a server on this host which accepts unix domain socket connections, null if none
+     */
+    private File getUnixDomainSocketFile(String host, int port) {
+        if (!_unixDomainSockets || !UnixDomainSockets.isLocalHost(host))
+            return null;
+        try {
+            return UnixDomainSockets.findSocketFile(host, port);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCompressionRequested() {
+        return COMPRESSION && IOBlockFilterManager.getFilterFactory() == null;
+    }
+
+    @Override
+    public void setMultiplexed() {
+        _multiplexed = true;
+    }
+
+    /**
+     * Hands the connected channel to the client selector, which reads the replies of all the
+     * invocations sharing it from now on.
+     */
+    private void startMultiplexing(String connectionURL) throws RemoteException {
+        try {
+            m_SockChannel.configureBlocking(false);
+            MultiplexedContext multiplexedContext = new MultiplexedContext(this, _handler);
+            _writer.setWriteInterestManager(multiplexedContext);
+            if (WRITE_COALESCING_MAX_BYTES > 0)
+                _writer.setCoalescing(WRITE_COALESCING_MAX_BYTES);
+            _handler.addChannel(m_SockChannel, multiplexedContext);
+            _multiplexedContext = multiplexedContext;
+        } catch (Exception ex) {
+            disconnect();
+            throw new java.rmi.ConnectException("Connect Failed to [" + connectionURL + "], failed to register multiplexed connection", ex);
+        }
+    }
+
+    /**
+     * Watches the replies of the invocations pending on the multiplexed connection. If no reply
+     * arrives within the request timeout, the watchdog verifies the server is still processing
+     * requests of the connection, and closes it otherwise. Called under the lock of the
+     * multiplexed context.
+     */
+    void watchMultiplexedReplies(boolean pending) {
+        ClientPeerWatchedObjectsContext watchdogContext = _watchdogContext;
+        if (watchdogContext == null)
+            return;
+        if (pending) {
+            //restarts the watch of the remaining invocations
+            watchdogContext.watchIdle();
+            watchdogContext.watchResponse("multiplexed");
+        } else {
+            watchdogContext.watchIdle();
+        }
+    }
+
+    /**
+     * @return the exception of the watchdog which closed the multiplexed connection, if any
+     */
+    Exception getMultiplexedWatchException() {
+        ClientPeerWatchedObjectsContext watchdogContext = _watchdogContext;
+        return watchdogContext != null && watchdogContext.responseWatchHasException() ? watchdogContext.getAndClearResponseWatchException() : null;
+    }
+
+    long getWatchdogRequestTimeout() {
+        return _config.getWatchdogRequestTimeout();
     }
 
     //Flush the local members to the main memory once done
@@ -264,7 +363,7 @@ public class CPeer extends BaseClientPeer {
             conversation.addChat(new WriteBytesChat(ProtocolValidation.getProtocolHeaderBytes()));
         }
 
-        RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion()));
+        RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion(), _multiplexed, isCompressionRequested()));
         requestPacket.operationPriority = getOperationPriority(lrmiMethod, LRMIInvocationContext.getCurrentContext());
         conversation.addChat(new LRMIChat(requestPacket));
 
@@ -307,7 +406,10 @@ public class CPeer extends BaseClientPeer {
         try {
             ServerAddress transformedAddress = mapAddress(host, connectionUrlDescriptor.getPort());
 
-            m_SockChannel = createChannel(transformedAddress.getHost(), transformedAddress.getPort());
+            File socketFile = getUnixDomainSocketFile(transformedAddress.getHost(), transformedAddress.getPort());
+            m_SockChannel = socketFile != null
+                    ? createUnixDomainChannel(transformedAddress.getHost(), transformedAddress.getPort(), socketFile)
+                    : createChannel(transformedAddress.getHost(), transformedAddress.getPort());
             _socketDisplayString = NIOUtils.getSocketDisplayString(m_SockChannel);
 
             if (_writer != null)
@@ -381,14 +483,10 @@ public class CPeer extends BaseClientPeer {
         if (_logger.isDebugEnabled()) {
             String localAddress = "not connected";
             if (m_SockChannel != null) {
+                SocketAddress localSocketAddress = NIOUtils.getLocalSocketAddress(m_SockChannel);
                 //Avoid possible NPE if socket gets disconnected
-                Socket socket = m_SockChannel.socket();
-                if (socket != null) {
-                    SocketAddress localSocketAddress = socket.getLocalSocketAddress();
-                    //Avoid possible NPE if socket gets disconnected
-                    if (localSocketAddress != null)
-                        localAddress = localSocketAddress.toString();
-                }
+                if (localSocketAddress != null)
+                    localAddress = localSocketAddress.toString();
             }
             _logger.debug("At " + methodName + " method, " + description + " [invoker address=" + localAddress + ", ServerEndPoint=" + getConnectionURL() + "]");
         }
@@ -438,6 +536,27 @@ public class CPeer extends BaseClientPeer {
         return sockChannel;
     }
 
+    /**
+     * Create a new unix domain socket channel to a server on this host, or a tcp one if its socket
+     * file is stale
+     */
+    private SocketChannel createUnixDomainChannel(String host, int port, File socketFile) throws IOException {
+        if (_logger.isDebugEnabled())
+            _logger.debug("connecting new unix domain socket channel to " + host + ":" + port + " at " + socketFile);
+
+        SocketChannel sockChannel;
+        try {
+            sockChannel = UnixDomainSockets.connect(socketFile);
+        } catch (IOException e) {
+            if (_logger.isDebugEnabled())
+                _logger.debug("Failed to connect to unix domain socket " + socketFile + ", connecting using tcp", e);
+            return createChannel(host, port);
+        }
+        m_Address = new InetSocketAddress(host, port);
+        sockChannel.configureBlocking(_blocking);
+        return sockChannel;
+    }
+
     /**
      * Creates a new Socket
      */
@@ -501,6 +620,13 @@ public class CPeer extends BaseClientPeer {
         }
         closeSocketAndUnregisterWatchdog();
 
+        MultiplexedContext multiplexedContext = _multiplexedContext;
+        if (multiplexedContext != null) {
+            _multiplexedContext = null;
+            //Fails the invocations pending on the closed channel
+            multiplexedContext.close(new ClosedChannelException());
+        }
+
         m_SockChannel = null;
         Writer writer = _writer;
         if (writer != null) {
@@ -588,7 +714,7 @@ public class CPeer extends BaseClientPeer {
     }
 
     private void doHandshake(LRMIMethod lrmiMethod) throws IOException, IOFilterException, ClassNotFoundException {
-        RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion()));
+        RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion(), _multiplexed, isCompressionRequested()));
         requestPacket.operationPriority = getOperationPriority(lrmiMethod, LRMIInvocationContext.getCurrentContext());
 
         String previousThreadName = updateThreadNameIfNeeded();
@@ -658,6 +784,7 @@ public class CPeer extends BaseClientPeer {
             final OperationPriority priority = getOperationPriority(lrmiMethod, currentContext);
             _requestPacket.set(getObjectId(), lrmiMethod.orderId, args, lrmiMethod.isOneWay,
                     isCallBack, lrmiMethod, clientClassLoaderId, priority, _serviceVersion);
+            _requestPacket.setOperationClass(currentContext.getOperationClass());
 
             final String monitoringId = Pivot.extractMonitoringId(_requestPacket);
 
@@ -691,7 +818,9 @@ public class CPeer extends BaseClientPeer {
 
             previousThreadName = updateThreadNameIfNeeded();
 
+            final long startTime = LATENCY_MONITOR != null ? System.nanoTime() : 0;
             _writer.writeRequest(_requestPacket);
+            final long writeTime = LATENCY_MONITOR != null ? System.nanoTime() - startTime : 0;
 
             /** if <code>true</code> the client peer mode is one way, don't wait for reply */
             if (lrmiMethod.isOneWay) {
@@ -743,6 +872,9 @@ public class CPeer extends BaseClientPeer {
                     }
                 }
 
+                if (LATENCY_MONITOR != null)
+                    LATENCY_MONITOR.recordClient(monitoringId, System.nanoTime() - startTime, writeTime);
+
                 // check for exception from server
                 //noinspection ThrowableResultOfMethodCallIgnored
                 if (_replayPacket.getException() != null)
@@ -843,6 +975,95 @@ public class CPeer extends BaseClientPeer {
         }
     }
 
+    /**
+     * Invokes a method over this connection while other threads may be invoking over it as well,
+     * the reply is matched to the request by the multiplexed context.
+     */
+    @Override
+    public Object invokeMultiplexed(Object proxy, LRMIMethod lrmiMethod, Object[] args)
+            throws ApplicationException, ProtocolException, RemoteException, InterruptedException {
+        MultiplexedContext multiplexedContext = _multiplexedContext;
+        if (multiplexedContext == null) {
+            // wait for a concurrent connect to complete
+            synchronized (this) {
+                multiplexedContext = _multiplexedContext;
+            }
+        }
+        final String connectionURL = getConnectionURL();
+        if (multiplexedContext == null)
+            throw new ConnectException("LRMI transport protocol over NIO multiplexed connection with ServerEndPoint: [" + connectionURL + "] is closed");
+
+        LRMIInvocationContext currentContext = LRMIInvocationContext.getCurrentContext();
+        try {
+            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            long clientClassLoaderId = getClassProvider().putClassLoader(contextClassLoader);
+
+            final boolean isCallBack = lrmiMethod.isCallBack || currentContext.isCallbackMethod();
+            final OperationPriority priority = getOperationPriority(lrmiMethod, currentContext);
+            RequestPacket requestPacket = new RequestPacket(getObjectId(), lrmiMethod.orderId, args, lrmiMethod.isOneWay,
+                    isCallBack, lrmiMethod, clientClassLoaderId, priority, _serviceVersion);
+            requestPacket.setOperationClass(currentContext.getOperationClass());
+            final String monitoringId = Pivot.extractMonitoringId(requestPacket);
+
+            if (lrmiMethod.isOneWay) {
+                multiplexedContext.send(requestPacket);
+                _monitoringModule.monitorActivity(monitoringId, _writer, _reader);
+                return null;
+            }
+
+            if (lrmiMethod.isAsync) {
+                LRMIFuture result = (LRMIFuture) FutureContext.getFutureResult();
+                if (result == null) {
+                    result = new LRMIFuture(contextClassLoader);
+                } else {
+                    result.reset(contextClassLoader);
+                }
+                multiplexedContext.invokeAsync(requestPacket, contextClassLoader, _remoteClassLoaderIdentifier, result);
+                _monitoringModule.monitorActivity(monitoringId, _writer, _reader);
+                FutureContext.setFutureResult(result);
+                return null;
+            }
+
+            final long startTime = LATENCY_MONITOR != null ? System.nanoTime() : 0;
+            ReplyPacket<Object> replyPacket = multiplexedContext.invoke(requestPacket, contextClassLoader, _remoteClassLoaderIdentifier);
+            _monitoringModule.monitorActivity(monitoringId, _writer, _reader);
+            // the request is written along with the requests of other threads, so its own write time is not known
+            if (LATENCY_MONITOR != null)
+                LATENCY_MONITOR.recordClient(monitoringId, System.nanoTime() - startTime, -1);
+
+            Exception exception = replyPacket.getException();
+            if (exception != null)
+                throw exception;
+
+            return replyPacket.getResult();
+        } catch (RemoteException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            String exMessage = "LRMI transport protocol over NIO broken multiplexed connection with ServerEndPoint: [" + connectionURL + "]";
+            if (_logger.isDebugEnabled())
+                _logger.debug(exMessage, ex);
+            throw new ConnectException(exMessage, ex);
+        } catch (MarshalContextClearedException ex) {
+            String exMessage = "LRMI transport protocol over NIO broken multiplexed connection with ServerEndPoint: [" + connectionURL + "]";
+            if (_logger.isDebugEnabled())
+                _logger.debug(exMessage, ex);
+            throw new RemoteException(exMessage, ex);
+        } catch (ApplicationException ex) {
+            throw ex;
+        } catch (ProtocolException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (InterruptedException ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            String exMsg = "LRMI transport protocol over NIO multiplexed connection [" + connectionURL + "] caught unexpected exception: " + ex.toString();
+            if (_logger.isDebugEnabled())
+                _logger.debug(exMsg, ex);
+            throw new ProtocolException(exMsg, ex);
+        }
+    }
+
     private String updateThreadNameIfNeeded() {
         if (!CHANGE_THREAD_NAME_ON_INVOCATION)
             return null;
@@ -903,6 +1124,7 @@ public class CPeer extends BaseClientPeer {
 
             // write request
             _requestPacket.set(LRMIRuntime.DUMMY_OBJECT_ID, 0, new Object[]{}, true, false, _dummyMethod, -1, OperationPriority.REGULAR, _serviceVersion);
+            _requestPacket.setOperationClass(null);
             _writer.writeRequest(_requestPacket);
 
             return true;
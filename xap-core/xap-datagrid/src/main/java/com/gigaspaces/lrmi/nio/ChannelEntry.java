@@ -37,7 +37,7 @@ import net.jini.space.InternalSpaceException;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
@@ -47,6 +47,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,6 +107,12 @@ public class ChannelEntry implements IWriteInterestManager {
     private final WriteExecutionPhaseListener _writeExecutionPhaseListener = new ChannelEntryWriteExecutionPhaseListener();
     private volatile State _currentChannelState = State.IDLE;
     private volatile boolean _firstMessage = true;
+    private volatile boolean _multiplexed;
+    //requests of a multiplexed channel whose replies were not written yet
+    private final AtomicInteger _pendingReplies = new AtomicInteger();
+    //tasks of a multiplexed channel which must run one at a time, in order
+    private final Queue<Runnable> _orderedTasks = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicBoolean _runningOrderedTasks = new AtomicBoolean();
 
 
     /**
@@ -192,10 +203,9 @@ public class ChannelEntry implements IWriteInterestManager {
             return _clientEndPointAddress;
         }
 
-        Socket socket = _socketChannel.socket();
-        if (socket == null)
-            return null;
-        return (InetSocketAddress) socket.getRemoteSocketAddress();
+        SocketAddress address = NIOUtils.getRemoteSocketAddress(_socketChannel);
+        // unix domain socket clients have no end point address
+        return address instanceof InetSocketAddress ? (InetSocketAddress) address : null;
     }
 
     public void writeReply(ReplyPacket packet, boolean reuseBuffer, Writer.Context ctx, String monitoringId) {
@@ -217,7 +227,9 @@ public class ChannelEntry implements IWriteInterestManager {
         _writeSelectorThread.removeWriteInterest(_writeSelectionKey);
         _writeSelectionKey = null;
 
-        if (restoreReadInterest)
+        // a multiplexed channel is returned for read once a request is unmarshalled, and may
+        // already be reading the next request
+        if (restoreReadInterest && !_multiplexed)
             returnSocket(); // reregister socket for read events
     }
 
@@ -297,6 +309,78 @@ public class ChannelEntry implements IWriteInterestManager {
         return _sourcePid;
     }
 
+    /**
+     * @return true if the client shares this channel between concurrent invocations, as declared
+     * in its handshake.
+     * @since 16.4.0
+     */
+    public boolean isMultiplexed() {
+        return _multiplexed;
+    }
+
+    public void setMultiplexed() {
+        _multiplexed = true;
+    }
+
+    /**
+     * Called when a request which expects a reply is read from a multiplexed channel. The channel
+     * reports {@link State#PROGRESS} to the client watchdog until all such replies are written.
+     */
+    public void onMultiplexedRequest() {
+        _pendingReplies.incrementAndGet();
+    }
+
+    /**
+     * Runs the task on the executor after the tasks previously submitted by this method completed,
+     * used to unmarshall the requests of a multiplexed channel in the order they were read while
+     * the channel keeps reading.
+     */
+    public void executeInOrder(Runnable task, Executor executor) {
+        _orderedTasks.add(task);
+        if (!_runningOrderedTasks.compareAndSet(false, true))
+            return;
+        try {
+            executeOrderedTasks(executor);
+        } catch (RuntimeException e) {
+            _runningOrderedTasks.set(false);
+            throw e;
+        }
+    }
+
+    private void executeOrderedTasks(Executor executor) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    Runnable next;
+                    while ((next = _orderedTasks.poll()) != null) {
+                        try {
+                            next.run();
+                        } catch (Throwable t) {
+                            _logger.warn("Failed to process a request of " + getClientEndPointAddress(), t);
+                        }
+                    }
+                    _runningOrderedTasks.set(false);
+                    // a task submitted after the poll and before the flag was cleared
+                    if (_orderedTasks.isEmpty() || !_runningOrderedTasks.compareAndSet(false, true))
+                        return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Inflates the compressed requests read from this channel, and compresses the large replies
+     * written to it unless it uses a filter manager.
+     *
+     * @since 16.4.0
+     */
+    public void setCompression() {
+        _reader.setCompression();
+        if (_filterManager == null)
+            _writer.setCompression(new PacketCompressor());
+    }
+
     public long getGeneratedTraffic() {
         return _writer.getGeneratedTraffic();
     }
@@ -368,6 +452,9 @@ public class ChannelEntry implements IWriteInterestManager {
     }
 
     public State getChannelState() {
+        //a multiplexed channel is returned for read while its requests are processed
+        if (_multiplexed)
+            return _pendingReplies.get() > 0 ? State.PROGRESS : State.IDLE;
         return _currentChannelState;
     }
 
@@ -395,8 +482,16 @@ public class ChannelEntry implements IWriteInterestManager {
 
     private class ChannelEntryWriteExecutionPhaseListener implements WriteExecutionPhaseListener {
         public void onPhase(Writer.Context.Phase phase) {
-            if (phase == Writer.Context.Phase.FINISH)
+            if (phase == Writer.Context.Phase.FINISH) {
                 setChannelState(State.IDLE);
+                //the handshake reply is written after the channel became multiplexed
+                if (_multiplexed) {
+                    int pending;
+                    do {
+                        pending = _pendingReplies.get();
+                    } while (pending > 0 && !_pendingReplies.compareAndSet(pending, pending - 1));
+                }
+            }
         }
     }
 
@@ -0,0 +1,470 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.exception.lrmi.LRMIUnhandledException;
+import com.gigaspaces.exception.lrmi.LRMIUnhandledException.Stage;
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.LRMIInvocationContext.InvocationStage;
+import com.gigaspaces.lrmi.LRMIInvocationContext.ProxyWriteType;
+import com.gigaspaces.lrmi.LRMIInvocationTrace;
+import com.gigaspaces.lrmi.LRMIRuntime;
+import com.gigaspaces.lrmi.classloading.LRMIRemoteClassLoaderIdentifier;
+import com.gigaspaces.lrmi.nio.async.LRMIFuture;
+import com.gigaspaces.lrmi.nio.filters.IOFilterException;
+import com.gigaspaces.lrmi.nio.selector.handler.client.ClientHandler;
+import com.gigaspaces.lrmi.nio.selector.handler.client.Context;
+import com.j_spaces.kernel.ClassLoaderHelper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.rmi.UnmarshalException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client handler context of a connection shared by concurrent invocations.
+ *
+ * Invoking threads tag their requests with a correlation id and write them through the (serialized)
+ * connection writer, a write which can not complete at once is finished by the selector thread, as
+ * well as one way and asynchronous requests when the writer is coalescing writes. The
+ * selector thread reads the replies in the order they arrive and queues them, a thread of the LRMI
+ * pool unmarshals them one at a time (they share the stream context of the connection) using the
+ * context of the matching invocation, and hands each to the waiting thread.
+ *
+ * <p>While replies are awaited the connection is watched by the watchdog, which closes it if no
+ * reply arrives within the request timeout and the server is not processing requests of the
+ * connection. Waiting threads check the connection at the same interval, so a connection closed
+ * without the selector noticing fails its pending invocations as well.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MultiplexedContext implements Context {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+    private static final Logger _contextLogger = LoggerFactory.getLogger(Constants.LOGGER_LRMI_CONTEXT);
+
+    private final CPeer _cpeer;
+    private final ClientHandler _handler;
+    private final Reader _reader;
+    private final Writer _writer;
+    private final Map<Long, PendingInvocation> _pendingInvocations = new ConcurrentHashMap<Long, PendingInvocation>();
+    private final AtomicLong _correlationIdGenerator = new AtomicLong();
+    private final AtomicBoolean _closed = new AtomicBoolean();
+    private volatile Throwable _closeReason;
+    private volatile SelectionKey _selectionKey;
+    // accessed by the selector thread only
+    private Reader.Context _readerCtx;
+    // replies read by the selector thread, unmarshalled in order by one thread at a time
+    private final Queue<MarshalInputStream> _replies = new ConcurrentLinkedQueue<MarshalInputStream>();
+    private final AtomicBoolean _unmarshalling = new AtomicBoolean();
+    private final Executor _replyExecutor;
+    private final Runnable _replyUnmarshaller = new Runnable() {
+        @Override
+        public void run() {
+            unmarshalReplies();
+        }
+    };
+    // number of registered invocations awaiting a reply, guarded by the watch lock
+    private final Object _watchLock = new Object();
+    private int _numAwaitingReplies;
+
+    public MultiplexedContext(CPeer cpeer, ClientHandler handler) {
+        this._cpeer = cpeer;
+        this._handler = handler;
+        this._reader = cpeer.getReader();
+        this._writer = cpeer.getWriter();
+        this._replyExecutor = LRMIRuntime.getRuntime().getThreadPool();
+    }
+
+    /**
+     * Sends the request and waits for its reply.
+     *
+     * @throws IOException if the connection is broken, in which case it is closed along with all
+     *                     the invocations pending on it.
+     */
+    public ReplyPacket<Object> invoke(RequestPacket requestPacket, ClassLoader contextClassLoader,
+                                      LRMIRemoteClassLoaderIdentifier remoteClassLoaderIdentifier)
+            throws IOException, IOFilterException, InterruptedException {
+        final PendingInvocation invocation = new PendingInvocation(contextClassLoader, remoteClassLoaderIdentifier, null);
+        register(requestPacket, invocation);
+        write(requestPacket, invocation._trace, false);
+        // the invocation is kept pending even if the thread is interrupted, since its reply
+        // still has to be read from the stream
+        final long checkInterval = Math.max(_cpeer.getWatchdogRequestTimeout(), 1);
+        while (!invocation.await(checkInterval))
+            verifyConnection();
+        return invocation.getReply();
+    }
+
+    /**
+     * Closes the context, failing the pending invocations, if its channel was closed without the
+     * selector noticing, e.g. by the watchdog.
+     */
+    private void verifyConnection() {
+        if (_closed.get())
+            return;
+        SocketChannel channel = _cpeer.getChannel();
+        if (channel == null || !channel.isOpen()) {
+            Exception watchException = _cpeer.getMultiplexedWatchException();
+            close(watchException != null ? watchException : new ClosedChannelException());
+        }
+    }
+
+    /**
+     * Sends the request, its reply is set to the given future once received. A failure to send the
+     * request is set to the future as well.
+     */
+    public void invokeAsync(RequestPacket requestPacket, ClassLoader contextClassLoader,
+                            LRMIRemoteClassLoaderIdentifier remoteClassLoaderIdentifier, LRMIFuture future) {
+        final PendingInvocation invocation = new PendingInvocation(contextClassLoader, remoteClassLoaderIdentifier, future);
+        try {
+            register(requestPacket, invocation);
+            write(requestPacket, invocation._trace, true);
+        } catch (Exception e) {
+            // the connection was closed, which failed the invocation if it was registered
+            if (!invocation.isDone())
+                invocation.fail(e);
+        }
+    }
+
+    /**
+     * Sends a one way request.
+     */
+    public void send(RequestPacket requestPacket) throws IOException, IOFilterException {
+        if (_closed.get())
+            throw closedException(_closeReason);
+        write(requestPacket, _contextLogger.isDebugEnabled() ? LRMIInvocationContext.getCurrentContext().getTrace() : null, true);
+    }
+
+    private void register(RequestPacket requestPacket, PendingInvocation invocation) throws IOException {
+        final long correlationId = _correlationIdGenerator.incrementAndGet();
+        requestPacket.setCorrelationId(correlationId);
+        _pendingInvocations.put(correlationId, invocation);
+        onAwaitingReplies(1);
+        // checked after the registration, so either close() fails this invocation or it is seen here
+        if (_closed.get()) {
+            if (_pendingInvocations.remove(correlationId) != null)
+                onAwaitingReplies(-1);
+            throw closedException(_closeReason);
+        }
+    }
+
+    /**
+     * Watches the connection while replies are awaited, the watch is restarted whenever a reply
+     * arrives.
+     */
+    private void onAwaitingReplies(int delta) {
+        synchronized (_watchLock) {
+            _numAwaitingReplies += delta;
+            if (delta < 0 || _numAwaitingReplies == 1)
+                _cpeer.watchMultiplexedReplies(_numAwaitingReplies > 0);
+        }
+    }
+
+    private void write(RequestPacket requestPacket, LRMIInvocationTrace trace, boolean deferrable) throws IOException, IOFilterException {
+        Writer.Context writeContext = new Writer.Context(trace);
+        // a thread waiting for the reply should not wait for more requests to be coalesced with its own
+        writeContext.setDeferrable(deferrable);
+        try {
+            _writer.writeRequest(requestPacket, true, writeContext);
+        } catch (IOException e) {
+            close(e);
+            throw e;
+        } catch (RuntimeException e) {
+            //The stream context may be left inconsistent with the one of the server
+            close(e);
+            throw e;
+        }
+    }
+
+    public boolean isClosed() {
+        return _closed.get();
+    }
+
+    public void setSelectionKey(SelectionKey key) {
+        _selectionKey = key;
+        // called on registration, which only sets the write interest
+        if (key != null)
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+    }
+
+    public SelectionKey getSelectionKey() {
+        return _selectionKey;
+    }
+
+    public void handleSetReadInterest() {
+    }
+
+    public void handleRead() {
+        try {
+            while (true) {
+                if (_readerCtx == null) {
+                    _readerCtx = new Reader.Context(_selectionKey);
+                    // the reply is unmarshalled by another thread while the next one is read
+                    _readerCtx.createNewBuffer = true;
+                }
+                MarshalInputStream replyStream = _reader.readReply(_readerCtx);
+                if (_readerCtx.phase != Reader.Context.Phase.FINISH)
+                    break;
+                _readerCtx = null;
+                _replies.add(replyStream);
+                scheduleUnmarshalling();
+            }
+            _handler.addReadInterest(this);
+        } catch (Throwable t) {
+            close(t);
+        }
+    }
+
+    private void scheduleUnmarshalling() {
+        if (!_unmarshalling.compareAndSet(false, true))
+            return;
+        try {
+            _replyExecutor.execute(_replyUnmarshaller);
+        } catch (RejectedExecutionException e) {
+            _unmarshalling.set(false);
+            close(e);
+        }
+    }
+
+    /**
+     * Replies are unmarshalled one at a time, in the order they were read, because they share the
+     * stream context of the connection.
+     */
+    private void unmarshalReplies() {
+        while (true) {
+            MarshalInputStream replyStream;
+            while ((replyStream = _replies.poll()) != null) {
+                // the invocations were failed by close
+                if (_closed.get()) {
+                    _replies.clear();
+                    break;
+                }
+                try {
+                    dispatchReply(replyStream);
+                } catch (Throwable t) {
+                    close(t);
+                }
+            }
+            _unmarshalling.set(false);
+            // a reply queued after the poll and before the flag was cleared
+            if (_replies.isEmpty() || !_unmarshalling.compareAndSet(false, true))
+                return;
+        }
+    }
+
+    private void dispatchReply(MarshalInputStream replyStream) throws ClassNotFoundException, IOException {
+        CorrelatedReplyPacket replyPacket = new CorrelatedReplyPacket();
+        try {
+            _reader.unmarshallReply(replyStream, replyPacket);
+        } catch (Exception e) {
+            // the invocation is no longer pending, so closing the connection would not fail it
+            if (replyPacket._invocation != null) {
+                replyPacket._invocation.fail(e);
+                onAwaitingReplies(-1);
+            }
+            throw e;
+        }
+
+        if (replyPacket._invocation == null) {
+            //A reply which is not correlated to any request is only sent by the server when it failed to read one
+            Exception exception = replyPacket.getException();
+            throw new UnmarshalException("Received a reply which does not correspond to any pending invocation from [" + _cpeer.getConnectionURL() + "]", exception);
+        }
+        replyPacket._invocation.complete(replyPacket);
+        onAwaitingReplies(-1);
+
+        Exception exception = replyPacket.getException();
+        if (exception instanceof LRMIUnhandledException && ((LRMIUnhandledException) exception).getStage() == Stage.DESERIALIZATION) {
+            //The server reset its read context, which can not be done while other requests are in flight
+            close(exception);
+        }
+    }
+
+    public void handleWrite() {
+        try {
+            _writer.onWriteEvent();
+        } catch (Throwable t) {
+            close(t);
+        }
+    }
+
+    public void removeWriteInterest(boolean restoreReadInterest) {
+        //The read interest is kept while writing, the write interest was already removed by the selector thread
+    }
+
+    public void setWriteInterest() {
+        _handler.addWriteInterest(this);
+    }
+
+    /**
+     * Called by the Selector on unregister.
+     */
+    public void close() {
+        close(new ClosedChannelException());
+    }
+
+    /**
+     * Closes the connection and fails all the pending invocations.
+     */
+    public void close(Throwable exception) {
+        if (!_closed.compareAndSet(false, true))
+            return;
+
+        _closeReason = exception;
+        if (_logger.isDebugEnabled())
+            _logger.debug("Closing multiplexed LRMI connection with ServerEndPoint: [" + _cpeer.getConnectionURL() + "] with " + _pendingInvocations.size() + " pending invocations", exception);
+
+        _cpeer.disconnect();
+        for (Long correlationId : _pendingInvocations.keySet()) {
+            PendingInvocation invocation = _pendingInvocations.remove(correlationId);
+            if (invocation != null)
+                invocation.fail(exception);
+        }
+    }
+
+    public void closeAndDisconnect() {
+        close(new ClosedChannelException());
+    }
+
+    private static IOException closedException(Throwable closeReason) {
+        IOException exception = new ClosedChannelException();
+        if (closeReason != null)
+            exception.initCause(closeReason);
+        return exception;
+    }
+
+    /**
+     * Holds the invocation context required to unmarshal the reply.
+     */
+    private static class PendingInvocation {
+        private final ClassLoader _contextClassLoader;
+        private final LRMIRemoteClassLoaderIdentifier _remoteClassLoaderIdentifier;
+        private final LRMIInvocationTrace _trace;
+        private final ProxyWriteType _proxyWriteType;
+        private final PlatformLogicalVersion _sourceLogicalVersion;
+        private final PlatformLogicalVersion _targetLogicalVersion;
+        private final LRMIFuture _future;
+        private final CountDownLatch _done = new CountDownLatch(1);
+        private volatile ReplyPacket<Object> _reply;
+        private volatile Throwable _failure;
+
+        private PendingInvocation(ClassLoader contextClassLoader, LRMIRemoteClassLoaderIdentifier remoteClassLoaderIdentifier, LRMIFuture future) {
+            this._future = future;
+            this._contextClassLoader = contextClassLoader;
+            this._remoteClassLoaderIdentifier = remoteClassLoaderIdentifier;
+            LRMIInvocationContext invocationContext = LRMIInvocationContext.getCurrentContext();
+            this._trace = _contextLogger.isDebugEnabled() ? invocationContext.getTrace() : null;
+            this._proxyWriteType = invocationContext.getProxyWriteType();
+            this._sourceLogicalVersion = invocationContext.getSourceLogicalVersion();
+            this._targetLogicalVersion = invocationContext.getTargetLogicalVersion();
+        }
+
+        private boolean isDone() {
+            return _done.getCount() == 0;
+        }
+
+        private void complete(ReplyPacket<Object> reply) {
+            _reply = reply;
+            _done.countDown();
+            if (_future != null)
+                _future.setResultPacket(reply);
+        }
+
+        private void fail(Throwable failure) {
+            _failure = failure;
+            _done.countDown();
+            if (_future != null)
+                _future.setResult(failure instanceof Exception ? failure : new ExecutionException(failure));
+        }
+
+        /**
+         * @return true if the invocation is done, false if the timeout elapsed first
+         */
+        private boolean await(long timeout) throws InterruptedException {
+            return _done.await(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        private ReplyPacket<Object> getReply() throws IOException {
+            Throwable failure = _failure;
+            if (failure == null)
+                return _reply;
+            if (failure instanceof IOException)
+                throw (IOException) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            IOException exception = new IOException(failure.toString());
+            exception.initCause(failure);
+            throw exception;
+        }
+    }
+
+    /**
+     * Finds the pending invocation once the correlation id is read, and reads the rest of the reply
+     * within its context.
+     */
+    private class CorrelatedReplyPacket extends ReplyPacket<Object> {
+        private PendingInvocation _invocation;
+
+        @Override
+        public void readExternal(MarshalInputStream in) throws IOException, ClassNotFoundException {
+            readHeader(in);
+            if (getCorrelationId() != 0)
+                _invocation = _pendingInvocations.remove(getCorrelationId());
+            if (_invocation == null) {
+                readBody(in);
+                return;
+            }
+
+            final ClassLoader currentClassLoader = Thread.currentThread().getContextClassLoader();
+            final boolean changeClassLoader = currentClassLoader != _invocation._contextClassLoader;
+            if (changeClassLoader)
+                ClassLoaderHelper.setContextClassLoader(_invocation._contextClassLoader, true /*ignore security*/);
+            LRMIRemoteClassLoaderIdentifier previousIdentifier = RemoteClassLoaderContext.set(_invocation._remoteClassLoaderIdentifier);
+            try {
+                LRMIInvocationContext.updateContext(_invocation._trace, _invocation._proxyWriteType, InvocationStage.CLIENT_RECEIVE_REPLY,
+                        _invocation._sourceLogicalVersion, _invocation._targetLogicalVersion, false, null, null);
+                readBody(in);
+            } finally {
+                LRMIInvocationContext.resetContext();
+                RemoteClassLoaderContext.set(previousIdentifier);
+                if (changeClassLoader)
+                    ClassLoaderHelper.setContextClassLoader(currentClassLoader, true /*ignore security*/);
+            }
+        }
+    }
+}
@@ -16,13 +16,17 @@
 
 package com.gigaspaces.lrmi.nio;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
 import java.nio.channels.SocketChannel;
 
 @com.gigaspaces.api.InternalApi
 public class NIOUtils {
     public static String getSocketDisplayString(SocketChannel channel) {
+        if (UnixDomainSockets.isUnixDomain(channel))
+            return getLocalSocketAddress(channel) + "->" + getRemoteSocketAddress(channel);
         Socket socket = channel.socket();
         String identifier = "disconnected";
         if (socket != null) {
@@ -34,4 +38,34 @@ public class NIOUtils {
         }
         return identifier;
     }
+
+    /**
+     * @return the remote address of a TCP or unix domain socket channel, null if not connected.
+     */
+    public static SocketAddress getRemoteSocketAddress(SocketChannel channel) {
+        if (UnixDomainSockets.isUnixDomain(channel)) {
+            try {
+                return channel.getRemoteAddress();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        Socket socket = channel.socket();
+        return socket == null ? null : socket.getRemoteSocketAddress();
+    }
+
+    /**
+     * @return the local address of a TCP or unix domain socket channel, null if not bound.
+     */
+    public static SocketAddress getLocalSocketAddress(SocketChannel channel) {
+        if (UnixDomainSockets.isUnixDomain(channel)) {
+            try {
+                return channel.getLocalAddress();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        Socket socket = channel.socket();
+        return socket == null ? null : socket.getLocalSocketAddress();
+    }
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.lrmi.nio;
+
+import com.j_spaces.kernel.SystemProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the payload of large LRMI packets with Deflate. A compressed payload starts with
+ * {@link #COMPRESSED_MARKER}, which is never the first byte of a marshalled packet, followed by the
+ * length of the original payload and the deflated bytes. Only the {@link Reader} of a connection
+ * which negotiated compression in its handshake looks for the marker, and it rejects a payload whose
+ * original length is above {@link #MAX_ORIGINAL_LENGTH}. The original payload is inflated into a
+ * buffer which grows with the inflated bytes, so a corrupted length does not allocate memory by
+ * itself.
+ *
+ * <p>A packet whose compressed size is above <tt>maxRatio</tt> of its original size is sent as is.
+ * After {@link #POOR_RESULTS_BEFORE_BACKOFF} such packets in a row compression is skipped for a
+ * number of packets, doubled on each consecutive backoff, so a connection carrying incompressible
+ * data pays for compression only once in a while.
+ *
+ * <p>Not thread safe, used under the lock of its {@link Writer}.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class PacketCompressor {
+    public static final byte COMPRESSED_MARKER = 0;
+
+    static final int POOR_RESULTS_BEFORE_BACKOFF = 4;
+    private static final int MIN_BACKOFF_PACKETS = 16;
+    private static final int MAX_BACKOFF_PACKETS = 4096;
+
+    private static final int LENGTH_SIZE = 4;
+    // marker and original length
+    private static final int HEADER_SIZE = 1 + 4;
+    private static final int MIN_INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    public static final int MAX_ORIGINAL_LENGTH = Integer.getInteger(SystemProperties.LRMI_COMPRESSION_MAX_MESSAGE_SIZE,
+            SystemProperties.LRMI_COMPRESSION_MAX_MESSAGE_SIZE_DEFAULT);
+
+    private static final LongAdder compressedPackets = new LongAdder();
+    private static final LongAdder poorlyCompressedPackets = new LongAdder();
+    private static final LongAdder bytesSaved = new LongAdder();
+    private static final LongAdder compressionTime = new LongAdder();
+    private static final LongAdder decompressionTime = new LongAdder();
+
+    private final int _threshold;
+    private final double _maxRatio;
+    private final Deflater _deflater = new Deflater(Deflater.BEST_SPEED);
+    private int _poorResults;
+    private int _backoffPackets;
+    private int _skippedPackets;
+
+    public PacketCompressor() {
+        this(Integer.getInteger(SystemProperties.LRMI_COMPRESSION_THRESHOLD, SystemProperties.LRMI_COMPRESSION_THRESHOLD_DEFAULT),
+                Double.parseDouble(System.getProperty(SystemProperties.LRMI_COMPRESSION_MAX_RATIO, SystemProperties.LRMI_COMPRESSION_MAX_RATIO_DEFAULT)));
+    }
+
+    public PacketCompressor(int threshold, double maxRatio) {
+        _threshold = Math.max(threshold, 1);
+        _maxRatio = maxRatio;
+    }
+
+    /**
+     * @return true if compression was requested for the connections of this client.
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_COMPRESSION, SystemProperties.LRMI_COMPRESSION_DEFAULT));
+    }
+
+    /**
+     * @return the number of packets which were sent compressed.
+     */
+    public static LongAdder getCompressedPacketsCounter() {
+        return compressedPackets;
+    }
+
+    /**
+     * @return the number of packets which were compressed but sent as is because of a poor ratio.
+     */
+    public static LongAdder getPoorlyCompressedPacketsCounter() {
+        return poorlyCompressedPackets;
+    }
+
+    /**
+     * @return the total number of bytes which were not sent thanks to compression.
+     */
+    public static LongAdder getBytesSavedCounter() {
+        return bytesSaved;
+    }
+
+    /**
+     * @return the total time in microseconds spent compressing packets, including poorly compressed
+     * ones.
+     */
+    public static LongAdder getCompressionTimeCounter() {
+        return compressionTime;
+    }
+
+    /**
+     * @return the total time in microseconds spent decompressing packets.
+     */
+    public static LongAdder getDecompressionTimeCounter() {
+        return decompressionTime;
+    }
+
+    /**
+     * @param packet a prepared packet, its length followed by its payload, positioned at 0.
+     * @return a new buffer holding the compressed packet, or the given packet if it is not worth
+     * compressing.
+     */
+    public ByteBuffer compress(ByteBuffer packet) {
+        int length = packet.limit() - LENGTH_SIZE;
+        if (length < _threshold)
+            return packet;
+        if (_skippedPackets > 0) {
+            _skippedPackets--;
+            return packet;
+        }
+
+        long startTime = System.nanoTime();
+        int maxCompressedLength = (int) (length * _maxRatio);
+        byte[] output = new byte[LENGTH_SIZE + HEADER_SIZE + maxCompressedLength];
+        _deflater.reset();
+        _deflater.setInput(packet.array(), packet.arrayOffset() + LENGTH_SIZE, length);
+        _deflater.finish();
+        int compressedLength = 0;
+        while (!_deflater.finished() && compressedLength < maxCompressedLength)
+            compressedLength += _deflater.deflate(output, LENGTH_SIZE + HEADER_SIZE + compressedLength, maxCompressedLength - compressedLength);
+        boolean compressed = _deflater.finished();
+        compressionTime.add((System.nanoTime() - startTime) / 1000);
+
+        if (!compressed) {
+            poorlyCompressedPackets.increment();
+            if (++_poorResults >= POOR_RESULTS_BEFORE_BACKOFF) {
+                _poorResults = 0;
+                _backoffPackets = _backoffPackets == 0 ? MIN_BACKOFF_PACKETS : Math.min(_backoffPackets * 2, MAX_BACKOFF_PACKETS);
+                _skippedPackets = _backoffPackets;
+            }
+            return packet;
+        }
+
+        _poorResults = 0;
+        _backoffPackets = 0;
+        compressedPackets.increment();
+        bytesSaved.add(length - HEADER_SIZE - compressedLength);
+        ByteBuffer result = ByteBuffer.wrap(output, 0, LENGTH_SIZE + HEADER_SIZE + compressedLength);
+        result.putInt(0, HEADER_SIZE + compressedLength);
+        result.put(LENGTH_SIZE, COMPRESSED_MARKER);
+        result.putInt(LENGTH_SIZE + 1, length);
+        return result;
+    }
+
+    /**
+     * @param payload the payload of a packet, which may be larger than its length.
+     * @param length  the length of the payload.
+     * @return true if the payload was compressed by a {@link PacketCompressor}.
+     */
+    public static boolean isCompressed(byte[] payload, int length) {
+        return length > HEADER_SIZE && payload[0] == COMPRESSED_MARKER;
+    }
+
+    /**
+     * @param inflater          an inflater owned by the caller.
+     * @param payload           a {@link #isCompressed compressed} payload.
+     * @param length            the length of the payload.
+     * @param maxOriginalLength the maximal accepted length of the original payload.
+     * @return the original payload.
+     */
+    public static byte[] decompress(Inflater inflater, byte[] payload, int length, int maxOriginalLength) throws IOException {
+        long startTime = System.nanoTime();
+        int originalLength = ByteBuffer.wrap(payload, 1, LENGTH_SIZE).getInt();
+        if (originalLength < 0)
+            throw new IOException("Corrupted compressed packet, original length is " + originalLength);
+        if (originalLength > maxOriginalLength)
+            throw new IOException("Compressed packet is rejected, original length is " + originalLength + " bytes, the limit is " + maxOriginalLength + " bytes");
+        // grown as bytes are inflated, well compressed packets are inflated without growing
+        byte[] result = new byte[(int) Math.min(originalLength, Math.max(MIN_INFLATE_BUFFER_SIZE, 4L * length))];
+        inflater.reset();
+        inflater.setInput(payload, HEADER_SIZE, length - HEADER_SIZE);
+        try {
+            int resultLength = 0;
+            while (resultLength < originalLength) {
+                if (resultLength == result.length)
+                    result = Arrays.copyOf(result, (int) Math.min(originalLength, 2L * result.length));
+                int inflated = inflater.inflate(result, resultLength, result.length - resultLength);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                resultLength += inflated;
+            }
+            if (resultLength != originalLength)
+                throw new IOException("Corrupted compressed packet, expected " + originalLength + " bytes, inflated " + resultLength + " bytes");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed packet", e);
+        }
+        decompressionTime.add((System.nanoTime() - startTime) / 1000);
+        return result;
+    }
+}
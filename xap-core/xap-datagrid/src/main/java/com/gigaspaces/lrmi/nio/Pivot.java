@@ -18,6 +18,7 @@ package com.gigaspaces.lrmi.nio;
 
 import com.gigaspaces.async.Executors;
 import com.gigaspaces.config.lrmi.nio.NIOConfiguration;
+import com.gigaspaces.exception.lrmi.ApplicationException;
 import com.gigaspaces.exception.lrmi.LRMIUnhandledException;
 import com.gigaspaces.exception.lrmi.LRMIUnhandledException.Stage;
 import com.gigaspaces.exception.lrmi.ProtocolException;
@@ -26,6 +27,7 @@ import com.gigaspaces.internal.collections.LongObjectMap;
 import com.gigaspaces.internal.io.MarshalContextClearedException;
 import com.gigaspaces.internal.io.MarshalInputStream;
 import com.gigaspaces.internal.lrmi.LRMIInboundMonitoringDetailsImpl;
+import com.gigaspaces.internal.lrmi.LRMILatencyMonitor;
 import com.gigaspaces.internal.lrmi.LRMIServiceMonitoringDetailsImpl;
 import com.gigaspaces.internal.utils.concurrent.ContextClassLoaderRunnable;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
@@ -39,6 +41,7 @@ import com.gigaspaces.lrmi.LRMIMethod;
 import com.gigaspaces.lrmi.LRMIRuntime;
 import com.gigaspaces.lrmi.ObjectRegistry;
 import com.gigaspaces.lrmi.ObjectRegistry.Entry;
+import com.gigaspaces.lrmi.OperationClass;
 import com.gigaspaces.lrmi.OperationPriority;
 import com.gigaspaces.lrmi.ProtocolAdapter;
 import com.gigaspaces.lrmi.ServerPeer;
@@ -46,6 +49,8 @@ import com.gigaspaces.lrmi.classloading.*;
 import com.gigaspaces.lrmi.classloading.protocol.lrmi.HandshakeRequest;
 import com.gigaspaces.lrmi.classloading.protocol.lrmi.LRMIConnection;
 import com.gigaspaces.lrmi.nio.ChannelEntry.State;
+import com.gigaspaces.lrmi.nio.async.RequestScheduler;
+import com.gigaspaces.lrmi.nio.filters.IOBlockFilterManager;
 import com.gigaspaces.lrmi.nio.filters.IOFilterException;
 import com.gigaspaces.lrmi.nio.selector.SelectorManager;
 import com.gigaspaces.lrmi.nio.selector.handler.ReadSelectorThread;
@@ -66,6 +71,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.rmi.NoSuchObjectException;
 import java.rmi.Remote;
+import java.rmi.RemoteException;
 import java.rmi.UnmarshalException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -101,6 +107,7 @@ public class Pivot {
     // logger
     final private static Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
     final private static Logger _contextLogger = LoggerFactory.getLogger(Constants.LOGGER_LRMI_CONTEXT);
+    final private static LRMILatencyMonitor _latencyMonitor = LRMILatencyMonitor.getDefault();
 
     private final IClassProvider _classProvider;
 
@@ -114,6 +121,10 @@ public class Pivot {
         }
 
         public synchronized IClassProvider getClassProvider() throws IOException, IOFilterException {
+            // the class provider is requested over the channel synchronously, which can not be done while
+            // other invocations share it
+            if (channel.isMultiplexed())
+                throw new IOException("Remote class loading is not supported over a multiplexed connection from " + channel.getClientEndPointAddress());
             if(isSimpleClassLoadingEnabled() && checkClientBackwardsCompatibility()){
                 _logger.debug("Simple remote classloading is enabled, using SimpleClassProvider");
                 if(_simpleClassProvider == null){
@@ -156,15 +167,21 @@ public class Pivot {
         }
     }
 
-    private final static class ChannelEntryTask implements Runnable {
+    private final static class ChannelEntryTask implements RequestScheduler.Request {
         final private Pivot pivot;
         final private ChannelEntry channelEntry;
         final private MarshalInputStream stream;
+        final private long creationTime;
+        private RemoteException rejection;
+        // set when the request was unmarshalled ahead of its invocation
+        private RequestPacket unmarshalledPacket;
+        private long unmarshallTime;
 
         private ChannelEntryTask(Pivot pivot, ChannelEntry channelEntry, MarshalInputStream stream) {
             this.pivot = pivot;
             this.channelEntry = channelEntry;
             this.stream = stream;
+            this.creationTime = _latencyMonitor != null ? System.nanoTime() : 0;
         }
 
         public void run() {
@@ -175,17 +192,38 @@ public class Pivot {
                 // in order to retrieve class provider from it if necessary.
                 LRMIConnection.setConnection(channelEntry.getRemoteClassProvider());
 
-                RequestPacket requestPacket = channelEntry.unmarshall(stream);
+                final long startTime = _latencyMonitor != null ? System.nanoTime() : 0;
+                final long queueTime;
+                final long unmarshallDuration;
+                RequestPacket requestPacket = unmarshalledPacket;
+                if (requestPacket != null) {
+                    requestPacket.reapplyLRMIRemoteClassLoaderState();
+                    queueTime = startTime - creationTime - unmarshallTime;
+                    unmarshallDuration = unmarshallTime;
+                } else {
+                    requestPacket = channelEntry.unmarshall(stream);
+                    queueTime = startTime - creationTime;
+                    unmarshallDuration = _latencyMonitor != null ? System.nanoTime() - startTime : 0;
+                }
 
                 if (requestPacket == null) {
                     channelEntry.returnSocket(); // releases Reader Selector
                 } else {
+                    // the client does not wait for this reply before sending its next request
+                    if (channelEntry.isMultiplexed() && unmarshalledPacket == null) {
+                        if (!requestPacket.isOneWay())
+                            channelEntry.onMultiplexedRequest();
+                        channelEntry.returnSocket();
+                    }
                     try {
                         //Update stage once we finished unmarshaling the request
                         LRMIInvocationContext.updateContext(null, null, InvocationStage.INVOCATION_HANDLING, null, null, false, null, null);
                         if (_logger.isTraceEnabled())
                             _logger.trace("<-- " + requestPacket);
-                        pivot.handleRequest(requestPacket, channelEntry);
+                        if (rejection != null)
+                            pivot.rejectRequest(requestPacket, channelEntry, rejection);
+                        else
+                            pivot.handleRequest(requestPacket, channelEntry, queueTime, unmarshallDuration);
                     } finally {
                         //During unmarshal of request packet, a lrmi remote class loader context is switched in case a remote class
                         //loading will be needed, after finished executing the method, the previous should be restored for recursive
@@ -203,6 +241,39 @@ public class Pivot {
             }
         }
 
+        @Override
+        public void reject(RemoteException reason) {
+            // the request is still unmarshalled, to keep the stream context in sync with the client
+            rejection = reason;
+            run();
+        }
+
+        /**
+         * Unmarshalls the request ahead of its invocation, so a multiplexed channel can read on
+         * while the request waits to be invoked. Must be called in the order the requests of the
+         * channel were read, since they share its stream context.
+         *
+         * @return false if the request could not be unmarshalled
+         */
+        private boolean unmarshallAhead() {
+            try {
+                setLRMIInvocationContext();
+                LRMIConnection.setConnection(channelEntry.getRemoteClassProvider());
+                final long startTime = _latencyMonitor != null ? System.nanoTime() : 0;
+                RequestPacket requestPacket = channelEntry.unmarshall(stream);
+                if (requestPacket == null)
+                    return false;
+                // reapplied by the thread which invokes the request
+                requestPacket.restorePreviousLRMIRemoteClassLoaderState();
+                unmarshallTime = _latencyMonitor != null ? System.nanoTime() - startTime : 0;
+                unmarshalledPacket = requestPacket;
+                return true;
+            } finally {
+                LRMIConnection.clearConnection();
+                LRMIInvocationContext.resetContext();
+            }
+        }
+
         private void setLRMIInvocationContext() {
             LRMIInvocationTrace trace = _contextLogger.isDebugEnabled() ? new LRMIInvocationTrace(null, null, NIOUtils.getSocketDisplayString(channelEntry.getSocketChannel()), false) : null;
             //We do not need a new snapshot because this is called by a new task which we control
@@ -242,6 +313,7 @@ public class Pivot {
     final private Executor _monitoringPriorityThreadPool;
     final private Executor _customThreadPool;
     final private Executor _directExecutor;
+    final private RequestScheduler _requestScheduler;
     final private SelectorManager _selectorManager;
 
     //default response handler used by the response context.
@@ -257,13 +329,15 @@ public class Pivot {
         m_Channels = new ConcurrentHashMap<SocketChannel, ChannelEntry>();
         _selectorManager = new SelectorManager(this, config.getBindHostName(),
                 config.getBindPort(),
-                config.getReadSelectorThreads());
+                config.getReadSelectorThreads(),
+                config.isUnixDomainSockets() && UnixDomainSockets.isSupported() && IOBlockFilterManager.getFilterFactory() == null);
 
-        _threadPool = LRMIRuntime.getRuntime().getThreadPool();
+        _threadPool = LRMIRuntime.getRuntime().getRequestExecutor();
         _livenessPriorityThreadPool = LRMIRuntime.getRuntime().getLivenessPriorityThreadPool();
         _monitoringPriorityThreadPool = LRMIRuntime.getRuntime().getMonitoringPriorityThreadPool();
         _customThreadPool = LRMIRuntime.getRuntime().getCustomThreadPool();
         _directExecutor = Executors.newDirectExecutor();
+        _requestScheduler = LRMIRuntime.getRuntime().getRequestScheduler();
         _protocolValidationEnabled = config.isProtocolValidationEnabled();
     }
 
@@ -355,7 +429,7 @@ public class Pivot {
 
         WriteSelectorThread writeHandler = _selectorManager.getWriteHandler(key.channel());
 
-        Socket socket = channel.socket();
+        Socket socket = UnixDomainSockets.isUnixDomain(channel) ? null : channel.socket();
         InetSocketAddress socketAddress = (InetSocketAddress) (socket == null ? null : socket.getRemoteSocketAddress());
         ChannelEntry channelEntry = new ChannelEntry(writeHandler, readHandler, key, socketAddress, this);
         m_Channels.put(channel, channelEntry);
@@ -385,7 +459,7 @@ public class Pivot {
             // close channel and remove it from table
             // remove client socket mapping before closing the socket
             SocketChannel socketChannel = channelEntry.getSocketChannel();
-            Socket socket = socketChannel.socket();
+            Socket socket = UnixDomainSockets.isUnixDomain(socketChannel) ? null : socketChannel.socket();
             if (socket != null) {
                 SocketAddress socketAddress = socket.getRemoteSocketAddress();
                 if (socketAddress != null)
@@ -439,7 +513,32 @@ public class Pivot {
             task = ctx.systemRequestContext.getResponseTask(this, channelEntry, ctx.startTimestamp);
         } else {
             operationPriority = RequestPacket.getOperationPriorityFromBytes(ctx.bytes);
-            task = new ChannelEntryTask(this, channelEntry, stream);
+            final ChannelEntryTask channelEntryTask = new ChannelEntryTask(this, channelEntry, stream);
+            if (operationPriority == OperationPriority.REGULAR && _requestScheduler != null) {
+                OperationClass requestClass = RequestPacket.getOperationClassFromBytes(ctx.bytes);
+                final boolean oneWay = RequestPacket.isOneWayFromBytes(ctx.bytes);
+                // unclassified requests come from older clients, which may not know the rejection exception
+                final boolean rejectable = requestClass != null && !oneWay;
+                final OperationClass operationClass = requestClass != null ? requestClass : OperationClass.DEFAULT;
+                if (channelEntry.isMultiplexed()) {
+                    // the channel is not held while the request waits in the scheduler queue, the
+                    // requests read meanwhile are unmarshalled after this one
+                    if (!oneWay)
+                        channelEntry.onMultiplexedRequest();
+                    channelEntry.returnSocket();
+                    channelEntry.executeInOrder(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (channelEntryTask.unmarshallAhead())
+                                _requestScheduler.execute(channelEntryTask, operationClass, rejectable);
+                        }
+                    }, _threadPool);
+                    return;
+                }
+                _requestScheduler.execute(channelEntryTask, operationClass, rejectable);
+                return;
+            }
+            task = channelEntryTask;
         }
         //We are using the selector thread indication of priority because it is safer because the channel system priority is not volatile
         getExecutor(operationPriority).execute(task);
@@ -479,6 +578,13 @@ public class Pivot {
             if (reqObject instanceof HandshakeRequest) {
                 HandshakeRequest handshakeRequest = (HandshakeRequest) reqObject;
                 channelEntry.setSourceDetails(handshakeRequest.getSourcePlatformLogicalVersion(), handshakeRequest.getSourcePid());
+                if (handshakeRequest.isMultiplexed()) {
+                    // from now on the read interest is restored once a request is unmarshalled instead of once its reply is written
+                    channelEntry.setMultiplexed();
+                    channelEntry.returnSocket();
+                }
+                if (handshakeRequest.isCompression())
+                    channelEntry.setCompression();
                 LRMIInvocationContext.getCurrentContext().setSourceLogicalVersion(handshakeRequest.getSourcePlatformLogicalVersion());
                 return new ReplyPacket<Object>(null, null);
             }
@@ -492,7 +598,8 @@ public class Pivot {
                 //One way method, return read interest here to allow this socket to accept next invocations since the client have already returned
                 //the corresponding cpeer to the pool as it was not waiting for a response 
                 //and we could have pending invocations already waiting in this socket incoming buffer.
-                channelEntry.returnSocket();
+                if (!channelEntry.isMultiplexed())
+                    channelEntry.returnSocket();
                 sendResponse = false;
             }
 
@@ -562,6 +669,15 @@ public class Pivot {
      * @param channelEntry  a channel(socket) wrapper
      */
     public void handleRequest(RequestPacket requestPacket, ChannelEntry channelEntry) {
+        handleRequest(requestPacket, channelEntry, -1, 0);
+    }
+
+    /**
+     * @param queueWaitNanos  the time the request waited for a thread, negative if its latency
+     *                        should not be recorded.
+     * @param unmarshallNanos the time it took to unmarshall the request.
+     */
+    private void handleRequest(RequestPacket requestPacket, ChannelEntry channelEntry, long queueWaitNanos, long unmarshallNanos) {
         /* link channelEntry with remoteObjID, this gives us info which channelEntries open vs. remoteObjID */
         channelEntry.setOwnerRemoteObjID(requestPacket.getObjectId());
 
@@ -575,18 +691,24 @@ public class Pivot {
                     LRMIInvocationContext.getCurrentContext().getSourceLogicalVersion(),
                     requestPacket.operationPriority,
                     monitoringId,
-                    trace);
+                    trace,
+                    requestPacket.getCorrelationId());
             ResponseContext.setExistingResponseContext(respContext);
         }
 
+        final boolean recordLatency = _latencyMonitor != null && queueWaitNanos >= 0;
+        final long executionStartTime = recordLatency ? System.nanoTime() : 0;
         ReplyPacket replyPacket = consumeAndHandleRequest(requestPacket, respContext, channelEntry);
         ResponseContext.clearResponseContext();
+        final long executionEndTime = recordLatency ? System.nanoTime() : 0;
 
         //	 If replyPacket is null - it's a one way request or callback
         // return without sending reply to the client
         if (replyPacket == null) {
             if (isMonitorActivity())
                 channelEntry.monitorActivity(monitoringId);
+            if (recordLatency)
+                _latencyMonitor.recordServer(monitoringId, queueWaitNanos, executionEndTime - executionStartTime, unmarshallNanos);
             return;
         }
 
@@ -594,7 +716,25 @@ public class Pivot {
         // should be created to make sure class definition will be sent to be read by the
         // corresponding (fresh) MarshalledInputStream on the other side.
         boolean reuseBuffer = requestPacket.getRequestObject() == null;
+        replyPacket.setCorrelationId(requestPacket.getCorrelationId());
         sendResponse(channelEntry, replyPacket, respContext, reuseBuffer, monitoringId);
+        if (recordLatency)
+            _latencyMonitor.recordServer(monitoringId, queueWaitNanos, executionEndTime - executionStartTime,
+                    unmarshallNanos + System.nanoTime() - executionEndTime);
+    }
+
+    /**
+     * Replies to a request which was not processed with the supplied exception.
+     */
+    private void rejectRequest(RequestPacket requestPacket, ChannelEntry channelEntry, RemoteException reason) {
+        if (requestPacket.isOneWay() || requestPacket.getRequestObject() != null) {
+            handleRequest(requestPacket, channelEntry);
+            return;
+        }
+        channelEntry.setOwnerRemoteObjID(requestPacket.getObjectId());
+        ReplyPacket<Object> replyPacket = new ReplyPacket<Object>(null, new ApplicationException(null, reason));
+        replyPacket.setCorrelationId(requestPacket.getCorrelationId());
+        sendResponse(channelEntry, replyPacket, null, true, extractMonitoringId(requestPacket));
     }
 
     public static String extractMonitoringId(RequestPacket requestPacket) {
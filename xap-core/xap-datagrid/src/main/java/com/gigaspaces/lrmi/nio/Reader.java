@@ -23,6 +23,7 @@ import com.gigaspaces.internal.io.MarshalContextClearedException;
 import com.gigaspaces.internal.io.MarshalInputStream;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.LRMIUtilities;
+import com.gigaspaces.lrmi.DirectByteBufferPool;
 import com.gigaspaces.lrmi.SmartByteBufferCache;
 import com.gigaspaces.lrmi.nio.SystemRequestHandler.SystemRequestContext;
 import com.gigaspaces.lrmi.nio.filters.IOFilterException;
@@ -47,6 +48,7 @@ import java.nio.charset.StandardCharsets;
 import java.rmi.NoSuchObjectException;
 import java.util.Arrays;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Inflater;
 
 /**
  * A Reader is capable of reading Request Packets and Reply Packets from a Socket Channel. An NIO
@@ -77,6 +79,8 @@ public class Reader {
     private final SocketChannel _socketChannel;
 
     private static final int BUFFER_LIMIT = Integer.getInteger(SystemProperties.MAX_LRMI_BUFFER_SIZE, SystemProperties.MAX_LRMI_BUFFER_SIZE_DEFAULT);
+    // stages the windows of large packets instead of the temporary direct buffers of the reading thread, may be null
+    private static final DirectByteBufferPool DIRECT_BUFFER_POOL = DirectByteBufferPool.getDefaultPool();
 
 
     /* Object stream - initialized with null to simplify the code. */
@@ -100,6 +104,10 @@ public class Reader {
     private long _receivedTraffic;
 
     private final SystemRequestHandler _systemRequestHandler;
+    // set once compression was negotiated, payloads of other connections are never inflated
+    private volatile boolean _compression;
+    // created on the first compressed packet
+    private Inflater _inflater;
 
     public static LongAdder getReceivedTrafficCounter() {
         return receivedTraffic;
@@ -208,6 +216,16 @@ public class Reader {
         this._filterManager = filterManager;
     }
 
+    /**
+     * Inflates the packets compressed by the peer, to be called once compression was negotiated in
+     * the handshake of the connection.
+     *
+     * @since 16.4.0
+     */
+    public void setCompression() {
+        this._compression = true;
+    }
+
     /**
      * Prepares log massage.
      */
@@ -322,12 +340,12 @@ public class Reader {
         try {
             originalSoTimeout = LRMIUtilities.getAndSetSocketTimeout(_socketChannel, LRMIUtilities.READ_BLOCK_TIMEOUT);
             while (bytesRead < dataLength) {
-                ByteBuffer workingBuffer = buffer;
                 if (shouldUseSlidingWindow) {
                     buffer.position(bytesRead).limit(Math.min(dataLength, bytesRead + BUFFER_LIMIT));
-                    workingBuffer = buffer.slice();
+                    bRead = readWindow(buffer.slice());
+                } else {
+                    bRead = _socketChannel.read(buffer);
                 }
-                bRead = _socketChannel.read(workingBuffer);
                 if (bRead == -1) // EOF
                     throwCloseConnection();
                 bytesRead += bRead;
@@ -426,7 +444,8 @@ public class Reader {
             }
 
             if (ctx.messageSizeLimit != 0 && ctx.messageSizeLimit <= ctx.dataLength) {
-                String offendingAddress = _socketChannel.socket() != null ? String.valueOf(_socketChannel.socket().getRemoteSocketAddress()) : "unknown";
+                SocketAddress remoteAddress = NIOUtils.getRemoteSocketAddress(_socketChannel);
+                String offendingAddress = remoteAddress != null ? String.valueOf(remoteAddress) : "unknown";
                 String msg = "Handshake failed, expecting message of up to " + ctx.messageSizeLimit + " bytes, actual size is: " + ctx.dataLength + " bytes, offending address is " + offendingAddress;
                 if (offendingMessageLogger.isTraceEnabled()) {
                     ByteBuffer buffer = getByteBufferAllocated(ctx.createNewBuffer, Math.min(ctx.dataLength, 5 * 1024));
@@ -454,7 +473,7 @@ public class Reader {
                 while (ctx.bytesRead < ctx.dataLength) {
                     ctx.buffer.position(ctx.bytesRead).limit(Math.min(ctx.dataLength, ctx.bytesRead + BUFFER_LIMIT));
                     ByteBuffer window = ctx.buffer.slice();
-                    int bRead = _socketChannel.read(window);
+                    int bRead = readWindow(window);
                     if (bRead == -1) // EOF
                         throwCloseConnection();
                     ctx.bytesRead += bRead;
@@ -484,11 +503,33 @@ public class Reader {
         throw new IllegalStateException(String.valueOf(ctx.phase));
     }
 
+    /**
+     * Reads a window of a large packet through a pooled direct buffer.
+     *
+     * @return the number of bytes read, or -1 on EOF.
+     */
+    private int readWindow(ByteBuffer window) throws IOException {
+        if (DIRECT_BUFFER_POOL == null || window.isDirect() || window.remaining() > DIRECT_BUFFER_POOL.getMaxBufferSize())
+            return _socketChannel.read(window);
+
+        ByteBuffer directBuffer = DIRECT_BUFFER_POOL.acquire(window.remaining());
+        try {
+            int bRead = _socketChannel.read(directBuffer);
+            if (bRead > 0) {
+                directBuffer.flip();
+                window.put(directBuffer);
+            }
+            return bRead;
+        } finally {
+            DIRECT_BUFFER_POOL.release(directBuffer);
+        }
+    }
+
     /**
      * @return the endpoint of the connected SocketChannel.
      */
     private SocketAddress getEndPointAddress() {
-        return _socketChannel != null ? _socketChannel.socket().getRemoteSocketAddress() : null;
+        return _socketChannel != null ? NIOUtils.getRemoteSocketAddress(_socketChannel) : null;
     }
 
     /**
@@ -511,7 +552,10 @@ public class Reader {
     }
 
     public <T> ReplyPacket<T> unmarshallReply(MarshalInputStream stream) throws ClassNotFoundException, NoSuchObjectException {
-        ReplyPacket<T> packet = new ReplyPacket<T>();
+        return unmarshallReply(stream, new ReplyPacket<T>());
+    }
+
+    public <T> ReplyPacket<T> unmarshallReply(MarshalInputStream stream, ReplyPacket<T> packet) throws ClassNotFoundException, NoSuchObjectException {
         unmarshall(packet, stream);
 
         if (_logger.isTraceEnabled()) {
@@ -631,10 +675,22 @@ public class Reader {
     private byte[] readBytesBlocking(boolean createNewBuffer, int slowConsumerTimeout, int sizeLimit) throws IOException, IOFilterException {
         final ByteBuffer bytes = readBytesFromChannelBlocking(createNewBuffer, slowConsumerTimeout, sizeLimit);
         if (_filterManager != null) {
-            return _filterManager.handleBlockingContant(toByteArray(bytes), slowConsumerTimeout);
+            return decompressIfNeeded(_filterManager.handleBlockingContant(toByteArray(bytes), slowConsumerTimeout));
         }
 
-        return bytes.array();
+        return decompressIfNeeded(bytes.array(), bytes.limit());
+    }
+
+    private byte[] decompressIfNeeded(byte[] payload) throws IOException {
+        return decompressIfNeeded(payload, payload.length);
+    }
+
+    private byte[] decompressIfNeeded(byte[] payload, int length) throws IOException {
+        if (!_compression || !PacketCompressor.isCompressed(payload, length))
+            return payload;
+        if (_inflater == null)
+            _inflater = new Inflater();
+        return PacketCompressor.decompress(_inflater, payload, length, PacketCompressor.MAX_ORIGINAL_LENGTH);
     }
 
     private byte[] toByteArray(ByteBuffer bytes) {
@@ -654,10 +710,13 @@ public class Reader {
             return null;
         }
         if (ctx.phase == Context.Phase.FINISH) {
-            if (_filterManager == null || ctx.isSystemRequest())
+            if (ctx.isSystemRequest())
                 return bytes.array();
+            if (_filterManager == null)
+                return decompressIfNeeded(bytes.array(), bytes.limit());
 
-            return _filterManager.handleNoneBlockingContant(ctx, toByteArray(bytes));
+            byte[] res = _filterManager.handleNoneBlockingContant(ctx, toByteArray(bytes));
+            return res != null ? decompressIfNeeded(res) : null;
         }
 
         return null;
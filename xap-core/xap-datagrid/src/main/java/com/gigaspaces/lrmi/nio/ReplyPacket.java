@@ -37,9 +37,12 @@ import java.rmi.UnmarshalException;
 public class ReplyPacket<T> implements IPacket {
     private static final long serialVersionUID = 1L;
     private static final byte SERIAL_VERSION = Byte.MIN_VALUE + 1;
+    // Written instead of SERIAL_VERSION when the reply is followed by a correlation id
+    private static final byte CORRELATED_SERIAL_VERSION = Byte.MIN_VALUE + 2;
 
     private T result;
     private Exception exception;   // if not null - an exception occurred
+    private long correlationId;
 
     public ReplyPacket() {
     }
@@ -71,18 +74,46 @@ public class ReplyPacket<T> implements IPacket {
         return exception;
     }
 
+    /**
+     * @return the correlation id of the request this is a reply to, or 0 if the request was not
+     * sent over a multiplexed connection.
+     * @since 16.4.0
+     */
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
     public void clear() {
         result = null;
         exception = null;
+        correlationId = 0;
     }
 
     /*
      * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
      */
     public void readExternal(MarshalInputStream in) throws IOException, ClassNotFoundException {
-        if (in.readByte() != SERIAL_VERSION)
+        readHeader(in);
+        readBody(in);
+    }
+
+    /**
+     * Reads the serial version and the correlation id, if any, so the reply can be matched to its
+     * request before the rest of the reply is read by {@link #readBody(MarshalInputStream)}.
+     */
+    protected void readHeader(MarshalInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version == CORRELATED_SERIAL_VERSION)
+            correlationId = in.readLong();
+        else if (version != SERIAL_VERSION)
             throw new UnmarshalException("Requested version does not match local version. Please make sure you are using the same version on both ends.");
+    }
 
+    protected void readBody(MarshalInputStream in) throws IOException, ClassNotFoundException {
         LRMIRemoteClassLoaderIdentifier remoteClassLoaderId = RemoteClassLoaderContext.get();
         LRMIRemoteClassLoaderIdentifier previousIdentifier = null;
         if (remoteClassLoaderId != null)
@@ -106,7 +137,12 @@ public class ReplyPacket<T> implements IPacket {
 	 */
     public void writeExternal(MarshalOutputStream out) throws IOException {
         //Writes serial version
-        out.writeByte(SERIAL_VERSION);
+        if (correlationId != 0) {
+            out.writeByte(CORRELATED_SERIAL_VERSION);
+            out.writeLong(correlationId);
+        } else {
+            out.writeByte(SERIAL_VERSION);
+        }
 
         PlatformLogicalVersion version = LRMIInvocationContext.getEndpointLogicalVersion();
         if (version.greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
@@ -25,6 +25,7 @@ import com.gigaspaces.lrmi.LRMIInvocationTrace;
 import com.gigaspaces.lrmi.LRMIMethod;
 import com.gigaspaces.lrmi.LRMIRuntime;
 import com.gigaspaces.lrmi.ObjectRegistry;
+import com.gigaspaces.lrmi.OperationClass;
 import com.gigaspaces.lrmi.OperationPriority;
 import com.gigaspaces.lrmi.classloading.LRMIRemoteClassLoaderIdentifier;
 import com.gigaspaces.lrmi.classloading.protocol.lrmi.LRMIConnection;
@@ -57,6 +58,7 @@ public class RequestPacket implements IPacket {
     private long remoteClassLoaderId;
     private int methodOrderId;
     private Object[] args;
+    private long correlationId;
 
     transient private LRMIMethod invokeMethod;
     transient private LRMIRemoteClassLoaderIdentifier previousIdentifier;
@@ -79,6 +81,7 @@ public class RequestPacket implements IPacket {
     private transient boolean isOneWay;
     public transient boolean isCallBack;
     public transient OperationPriority operationPriority;
+    private transient OperationClass operationClass;
     private transient PlatformLogicalVersion targetVersion;
 
     public RequestPacket() {
@@ -158,6 +161,9 @@ public class RequestPacket implements IPacket {
             throw new UnmarshalException("Requested version [" + version + "] does not match local version [" + SERIAL_VERSION + "]. Please make sure you are using the same version on both ends, service version is " + PlatformVersion.getOfficialVersion());
 
         final byte flags = in.readByte();
+        operationClass = (flags & BitMap.IS_CLASSIFIED) != 0 ? OperationClass.fromCode(in.readByte()) : null;
+        if ((flags & BitMap.IS_CORRELATED) != 0)
+            correlationId = in.readLong();
 
         if ((flags & BitMap.REQUEST_OBJECT) != 0) // UID not a null
         {
@@ -256,7 +262,12 @@ public class RequestPacket implements IPacket {
       */
     public void writeExternal(MarshalOutputStream out) throws IOException {
         out.writeByte(SERIAL_VERSION);
-        out.writeByte(buildFlags());
+        final byte flags = buildFlags();
+        out.writeByte(flags);
+        if ((flags & BitMap.IS_CLASSIFIED) != 0)
+            out.writeByte(operationClass.getCode());
+        if (correlationId != 0)
+            out.writeLong(correlationId);
         if (_requestObj != null) {
             out.writeObject(_requestObj);
         } else {
@@ -300,6 +311,8 @@ public class RequestPacket implements IPacket {
         builder.append(", isOneWay = ").append(isOneWay);
         builder.append(", isCallBack = ").append(isCallBack);
         builder.append(", Priority = ").append(operationPriority);
+        if (correlationId != 0)
+            builder.append(", CorrelationId = ").append(correlationId);
         builder.append(']');
         return builder.toString();
     }
@@ -315,6 +328,8 @@ public class RequestPacket implements IPacket {
         byte IS_MONITORING_PRIORITY = 1 << 4;
         byte IS_DIRECT_PRIORITY = IS_LIVENESS_PRIORITY | IS_MONITORING_PRIORITY;
         byte IS_CUSTOM_PRIORITY = 1 << 5;
+        byte IS_CORRELATED = 1 << 6;
+        byte IS_CLASSIFIED = (byte) (1 << 7);
     }
 
     private byte buildFlags() {
@@ -328,6 +343,12 @@ public class RequestPacket implements IPacket {
         if (isCallBack) {
             flags |= BitMap.IS_CALLBACK;
         }
+        if (correlationId != 0) {
+            flags |= BitMap.IS_CORRELATED;
+        }
+        if (isClassified()) {
+            flags |= BitMap.IS_CLASSIFIED;
+        }
         return encodePriority(operationPriority, flags);
     }
 
@@ -350,11 +371,51 @@ public class RequestPacket implements IPacket {
         return isOneWay;
     }
 
+    /**
+     * @return the id which the reply of this request should carry, or 0 if the request was not sent
+     * over a multiplexed connection.
+     * @since 16.4.0
+     */
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    /**
+     * @return the class of this request, or null if the client did not classify it
+     * @since 16.4.0
+     */
+    public OperationClass getOperationClass() {
+        return operationClass;
+    }
+
+    public void setOperationClass(OperationClass operationClass) {
+        this.operationClass = operationClass;
+    }
+
+    private boolean isClassified() {
+        // only regular invocations are scheduled by class, older servers do not expect the class byte
+        return operationClass != null && _requestObj == null && operationPriority == OperationPriority.REGULAR &&
+                targetVersion != null && targetVersion.greaterOrEquals(PlatformLogicalVersion.v16_4_0);
+    }
+
     public void restorePreviousLRMIRemoteClassLoaderState() {
         if (shouldRestore)
             LRMIConnection.setRemoteClassLoaderIdentifier(previousIdentifier);
     }
 
+    /**
+     * Switches the remote class loader context of the connection back to the one of this request,
+     * for a request which is invoked after its state was restored once it was unmarshalled.
+     */
+    public void reapplyLRMIRemoteClassLoaderState() {
+        if (shouldRestore)
+            previousIdentifier = LRMIConnection.setRemoteClassLoaderIdentifier(new LRMIRemoteClassLoaderIdentifier(lrmiId, remoteClassLoaderId));
+    }
+
 
     /**
      * Assumes internal knowledge of how the LRMI incoming invocation bytes should appear
@@ -368,4 +429,26 @@ public class RequestPacket implements IPacket {
             throw new IllegalStateException("Incoming invocation request is not of known format, byte array length is too small - " + bytes.length);
         return decodePriority(bytes[3]);
     }
+
+    /**
+     * Assumes internal knowledge of how the LRMI incoming invocation bytes should appear
+     *
+     * @param bytes the bytes
+     * @return the class of the request, or null if the client did not classify it
+     * @since 16.4.0
+     */
+    public static OperationClass getOperationClassFromBytes(byte[] bytes) {
+        if (bytes.length < 5 || (bytes[3] & BitMap.IS_CLASSIFIED) == 0)
+            return null;
+        return OperationClass.fromCode(bytes[4]);
+    }
+
+    /**
+     * Assumes internal knowledge of how the LRMI incoming invocation bytes should appear
+     *
+     * @since 16.4.0
+     */
+    public static boolean isOneWayFromBytes(byte[] bytes) {
+        return bytes.length >= 4 && (bytes[3] & BitMap.IS_ONEWAY) != 0;
+    }
 }
@@ -24,6 +24,7 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,7 +87,8 @@ public class SystemRequestHandlerImpl
                     ChannelEntry.State channelEntryState = null;
 
                     InetAddress clientAddress = null;
-                    Socket socket = channelEntry.getSocketChannel().socket();
+                    SocketChannel socketChannel = channelEntry.getSocketChannel();
+                    Socket socket = UnixDomainSockets.isUnixDomain(socketChannel) ? null : socketChannel.socket();
                     if (socket != null)
                         clientAddress = socket.getInetAddress();
 
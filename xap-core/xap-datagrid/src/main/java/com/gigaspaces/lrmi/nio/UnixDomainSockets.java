@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.logger.Constants;
+import com.j_spaces.kernel.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Unix domain socket channels for LRMI connections between processes of the same host, which skip
+ * the TCP loopback stack. A server listening on a TCP address and port also listens on the socket
+ * file {@link #getSocketFile derived} from them, a server listening on the wildcard address on a file
+ * derived from its port only, so a client which targets that host and port {@link #findSocketFile
+ * finds} the file if the server is on its host.
+ *
+ * <p>The socket files are kept in a directory of the current user under java.io.tmpdir which only
+ * its owner can access, unless a directory is configured, and a client connects only to socket files
+ * owned by its user. Servers and clients running as different users therefore connect over TCP.
+ *
+ * <p>Unix domain socket channels were added in Java 16 and are accessed by reflection, {@link
+ * #isSupported()} is false on older versions.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class UnixDomainSockets {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+
+    private static final ProtocolFamily UNIX = getUnixProtocolFamily();
+    private static final Method OPEN_CHANNEL = getMethod(SocketChannel.class, "open", ProtocolFamily.class);
+    private static final Method OPEN_SERVER_CHANNEL = getMethod(ServerSocketChannel.class, "open", ProtocolFamily.class);
+    private static final Method CREATE_ADDRESS = getAddressFactory();
+    private static final ConcurrentMap<String, Boolean> localHosts = new ConcurrentHashMap<String, Boolean>();
+    private static final Set<PosixFilePermission> OWNER_ONLY = EnumSet.of(PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
+
+    /**
+     * @return true if unix domain socket channels are available in this JVM.
+     */
+    public static boolean isSupported() {
+        return UNIX != null && OPEN_CHANNEL != null && OPEN_SERVER_CHANNEL != null && CREATE_ADDRESS != null;
+    }
+
+    /**
+     * @return true if the channel is a unix domain socket channel, whose {@link SocketChannel#socket()}
+     * is not supported.
+     */
+    public static boolean isUnixDomain(SocketChannel channel) {
+        if (UNIX == null)
+            return false;
+        try {
+            SocketAddress address = channel.getLocalAddress();
+            if (address != null)
+                return !(address instanceof InetSocketAddress);
+        } catch (IOException e) {
+            // closed, fall through
+        }
+        try {
+            channel.socket();
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return the socket file of a server listening on the given TCP address and port.
+     */
+    public static File getSocketFile(InetAddress bindAddress, int port) throws IOException {
+        String address = bindAddress == null || bindAddress.isAnyLocalAddress() ? "any" : bindAddress.getHostAddress().replace(':', '_');
+        return new File(getSocketDir(), "gs-lrmi-" + address + "-" + port + ".sock");
+    }
+
+    /**
+     * @return the socket file of a server on this host which listens on the given TCP host and port,
+     * either on its address or on the wildcard address, or null if there is none owned by the
+     * current user.
+     */
+    public static File findSocketFile(String host, int port) throws IOException {
+        File socketFile = getSocketFile(InetAddress.getByName(host), port);
+        if (!socketFile.exists())
+            socketFile = getSocketFile(null, port);
+        return socketFile.exists() && isOwnedByCurrentUser(socketFile.toPath()) ? socketFile : null;
+    }
+
+    private static File getSocketDir() throws IOException {
+        String configuredDir = System.getProperty(SystemProperties.LRMI_UNIX_DOMAIN_SOCKETS_DIR);
+        if (configuredDir != null)
+            return new File(configuredDir);
+        String user = System.getProperty("user.name");
+        Path dir = new File(System.getProperty("java.io.tmpdir"), "gs-lrmi-" + user).toPath();
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                Files.createDirectory(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } catch (FileAlreadyExistsException e) {
+                // created by another process, verified below
+            } catch (UnsupportedOperationException e) {
+                Files.createDirectories(dir);
+            }
+        }
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS) || !isOwnedByCurrentUser(dir))
+            throw new IOException("Socket files directory " + dir + " is not a directory of user " + user);
+        try {
+            if (!OWNER_ONLY.containsAll(Files.getPosixFilePermissions(dir, LinkOption.NOFOLLOW_LINKS)))
+                throw new IOException("Socket files directory " + dir + " is accessible by other users than " + user);
+        } catch (UnsupportedOperationException e) {
+            // not a posix file system, the owner check is all there is
+        }
+        return dir.toFile();
+    }
+
+    private static boolean isOwnedByCurrentUser(Path path) throws IOException {
+        String user = System.getProperty("user.name");
+        String owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
+        // windows owners are qualified by their domain
+        return owner.equals(user) || owner.endsWith("\\" + user);
+    }
+
+    /**
+     * @return true if the host is an address of this machine.
+     */
+    public static boolean isLocalHost(String host) {
+        Boolean result = localHosts.get(host);
+        if (result == null) {
+            try {
+                InetAddress address = InetAddress.getByName(host);
+                result = address.isLoopbackAddress() || address.isAnyLocalAddress() || NetworkInterface.getByInetAddress(address) != null;
+            } catch (IOException e) {
+                result = false;
+            }
+            localHosts.put(host, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return a blocking channel connected to the socket file.
+     */
+    public static SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel channel = open();
+        try {
+            channel.connect(toAddress(socketFile));
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return an unconnected unix domain socket channel.
+     */
+    public static SocketChannel open() throws IOException {
+        return (SocketChannel) invoke(OPEN_CHANNEL, null, UNIX);
+    }
+
+    /**
+     * Binds a server channel to the socket file. A file left behind by a process which is gone is
+     * replaced, a file which is still accepted on fails the bind.
+     */
+    public static ServerSocketChannel bind(File socketFile, int backlog) throws IOException {
+        if (socketFile.exists()) {
+            if (isAccepting(socketFile))
+                throw new IOException("Socket file " + socketFile + " is used by another process");
+            if (!socketFile.delete() && socketFile.exists())
+                throw new IOException("Failed to delete stale socket file " + socketFile);
+            if (_logger.isDebugEnabled())
+                _logger.debug("Deleted stale socket file " + socketFile);
+        }
+        ServerSocketChannel serverChannel = (ServerSocketChannel) invoke(OPEN_SERVER_CHANNEL, null, UNIX);
+        try {
+            serverChannel.bind(toAddress(socketFile), backlog);
+            return serverChannel;
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+    }
+
+    private static boolean isAccepting(File socketFile) {
+        try {
+            connect(socketFile).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static SocketAddress toAddress(File socketFile) throws IOException {
+        return (SocketAddress) invoke(CREATE_ADDRESS, null, socketFile.getPath());
+    }
+
+    private static Object invoke(Method method, Object target, Object arg) throws IOException {
+        if (method == null)
+            throw new UnsupportedOperationException("Unix domain sockets require Java 16 or later");
+        try {
+            return method.invoke(target, arg);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static ProtocolFamily getUnixProtocolFamily() {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Method getAddressFactory() {
+        try {
+            return getMethod(Class.forName("java.net.UnixDomainSocketAddress"), "of", String.class);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method getMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
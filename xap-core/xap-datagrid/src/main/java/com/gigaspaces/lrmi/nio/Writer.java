@@ -22,6 +22,7 @@ import com.gigaspaces.internal.io.MarshalContextClearedException;
 import com.gigaspaces.internal.io.MarshalOutputStream;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.DirectByteBufferPool;
 import com.gigaspaces.lrmi.LRMIInvocationTrace;
 import com.gigaspaces.lrmi.SmartByteBufferCache;
 import com.gigaspaces.lrmi.nio.filters.IOFilterException;
@@ -38,6 +39,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.concurrent.atomic.LongAdder;
@@ -65,6 +67,9 @@ public class Writer implements IChannelWriter {
 
     final static private int LENGTH_SIZE = 4; //4 bytes for length
 
+    // stages the windows of large packets instead of the temporary direct buffers of the writing thread, may be null
+    final static private DirectByteBufferPool DIRECT_BUFFER_POOL = DirectByteBufferPool.getDefaultPool();
+
     private MarshalOutputStream _oos;
     final private GSByteArrayOutputStream _baos;
 
@@ -90,6 +95,16 @@ public class Writer implements IChannelWriter {
 
     private final Queue<Context> _contexts;
     private static final LongAdder pendingWrites = new LongAdder();
+    private static final LongAdder coalescedWrites = new LongAdder();
+    private static final LongAdder coalescedPackets = new LongAdder();
+    private static final LongAdder coalescingDelay = new LongAdder();
+
+    // write coalescing, disabled when 0
+    private int _coalescingMaxBytes;
+    private int _coalescedBytes;
+    private ByteBuffer[] _gatheringBuffers;
+    // compression of large packets, disabled when null
+    private PacketCompressor _compressor;
 
     private IWriteInterestManager _writeInterestManager;
 
@@ -101,6 +116,32 @@ public class Writer implements IChannelWriter {
         return pendingWrites;
     }
 
+    /**
+     * @return the number of writes of coalesced packets.
+     * @since 16.4.0
+     */
+    public static LongAdder getCoalescedWritesCounter() {
+        return coalescedWrites;
+    }
+
+    /**
+     * @return the number of packets written by gathering writes, divided by the number of {@link
+     * #getCoalescedWritesCounter() coalesced writes} it gives the average batch size.
+     * @since 16.4.0
+     */
+    public static LongAdder getCoalescedPacketsCounter() {
+        return coalescedPackets;
+    }
+
+    /**
+     * @return the total time in microseconds coalesced packets waited in the queue until completely
+     * written.
+     * @since 16.4.0
+     */
+    public static LongAdder getCoalescingDelayCounter() {
+        return coalescingDelay;
+    }
+
     public Writer(SocketChannel sockChannel, IWriteInterestManager writeInterestManager) {
         this(sockChannel, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, writeInterestManager);
     }
@@ -141,11 +182,37 @@ public class Writer implements IChannelWriter {
         _writeInterestManager = writeInterestManager;
     }
 
+    /**
+     * Gathers the non blocking writes of {@linkplain Context#setDeferrable(boolean) deferrable}
+     * contexts until the next write event, and writes all the pending packets with a single
+     * gathering write. Must be called before the first non blocking write, and is not supported
+     * with a filter manager.
+     *
+     * @param maxBytes the pending bytes which are written at once instead of waiting for the write
+     *                 event.
+     * @since 16.4.0
+     */
+    public synchronized void setCoalescing(int maxBytes) {
+        _coalescingMaxBytes = maxBytes;
+        if (maxBytes > 0 && _gatheringBuffers == null)
+            _gatheringBuffers = new ByteBuffer[16];
+    }
+
+    /**
+     * Compresses the packets written from now on which are large enough, should only be set once the
+     * remote peer is known to handle compressed packets. Not supported with a filter manager.
+     *
+     * @since 16.4.0
+     */
+    public synchronized void setCompression(PacketCompressor compressor) {
+        _compressor = compressor;
+    }
+
     /**
      * @return the endpoint of the connected SocketChannel.
      */
     public SocketAddress getEndPointAddress() {
-        return _sockChannel != null ? _sockChannel.socket().getRemoteSocketAddress() : null;
+        return _sockChannel != null ? NIOUtils.getRemoteSocketAddress(_sockChannel) : null;
     }
 
     public void writeRequest(RequestPacket packet, boolean reuseBuffer, Context ctx) throws IOException, IOFilterException {
@@ -186,7 +253,9 @@ public class Writer implements IChannelWriter {
         MarshalOutputStream mos;
         GSByteArrayOutputStream bos;
 
-        final boolean reuseBuffer = requestReuseBuffer && _contexts.isEmpty();
+        // coalesced packets are copied out of the reused buffer, see below
+        final boolean coalesce = _coalescingMaxBytes > 0 && ctx != null;
+        final boolean reuseBuffer = requestReuseBuffer && (coalesce || _contexts.isEmpty());
         if (reuseBuffer) {
             mos = new MarshalOutputStream(_baos, _oos);
             _oos = mos;
@@ -225,10 +294,27 @@ public class Writer implements IChannelWriter {
                 mos.closeContext();
             }
         }
+        boolean compressed = false;
+        if (_compressor != null) {
+            ByteBuffer compressedBuffer = _compressor.compress(buffer);
+            compressed = compressedBuffer != buffer;
+            buffer = compressedBuffer;
+        }
         _generatedTraffic += buffer.limit();
         generatedTraffic.add(buffer.limit());
 
-        if (ctx != null) {
+        if (coalesce) {
+            // the marshal context is kept across the pending packets since they are marshalled in the order they are
+            // written, only the bytes are copied since the reused buffer is overwritten by the next packet
+            if (!compressed) {
+                ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+                copy.put(buffer);
+                copy.flip();
+                buffer = copy;
+            }
+            ctx.setBuffer(buffer);
+            writeBytesToChannelNoneBlocking(ctx, true);
+        } else if (ctx != null) {
             // non blocking mode.
             ctx.setBuffer(buffer);
             writeBytesNonBlocking(ctx);
@@ -248,6 +334,8 @@ public class Writer implements IChannelWriter {
         private int totalLength;
         private final LRMIInvocationTrace trace;
         private final long creationTime;
+        private boolean deferrable;
+        private long enqueueTime;
 
         public Context(LRMIInvocationTrace trace) {
             this.trace = trace;
@@ -306,6 +394,19 @@ public class Writer implements IChannelWriter {
             return creationTime;
         }
 
+        /**
+         * @return true if the packet may wait for other packets to be written with it, when the
+         * writer is {@linkplain Writer#setCoalescing(int) coalescing}.
+         * @since 16.4.0
+         */
+        public boolean isDeferrable() {
+            return deferrable;
+        }
+
+        public void setDeferrable(boolean deferrable) {
+            this.deferrable = deferrable;
+        }
+
         public Context duplicate() {
             Context res = createContextForDuplication();
             res.setPhase(phase);
@@ -313,6 +414,7 @@ public class Writer implements IChannelWriter {
             res.setCurrentPosition(currentPosition);
             res.setTotalBytesWritten(totalBytesWritten);
             res.setBuffer(buffer);
+            res.setDeferrable(deferrable);
             return res;
         }
 
@@ -380,6 +482,10 @@ public class Writer implements IChannelWriter {
      * @see com.gigaspaces.lrmi.nio.IChannelWriter#writeBytesToChannelNoneBlocking(com.gigaspaces.lrmi.nio.Writer.Context)
      */
     public synchronized void writeBytesToChannelNoneBlocking(Context ctx, boolean restoreReadInterest) throws IOException {
+        if (_coalescingMaxBytes > 0 && !ctx.isSystemResponse()) {
+            coalesce(ctx);
+            return;
+        }
         if (_contexts.isEmpty()) {
             noneBlockingWrite(ctx);
             if (ctx.getPhase() != Context.Phase.FINISH) {
@@ -398,6 +504,90 @@ public class Writer implements IChannelWriter {
         }
     }
 
+    /**
+     * Queues the context behind the pending ones, a deferrable context is written on the next write
+     * event unless enough bytes are pending, others are written at once along with all the pending
+     * packets.
+     */
+    private void coalesce(Context ctx) throws IOException {
+        final boolean first = _contexts.isEmpty();
+        ctx.enqueueTime = System.nanoTime();
+        _contexts.offer(ctx);
+        pendingWrites.increment();
+        _coalescedBytes += ctx.getBuffer().remaining();
+
+        if (!ctx.isDeferrable() || _coalescedBytes >= _coalescingMaxBytes) {
+            writeCoalesced();
+        } else if (first) {
+            // the write event will flush this packet along with the ones queued until then
+            setWriteInterest();
+        }
+    }
+
+    /**
+     * Writes the pending packets, gathering up to the maximal coalescing bytes in each write. Sets
+     * the write interest if the channel buffer is full.
+     */
+    private void writeCoalesced() throws IOException {
+        while (!_contexts.isEmpty()) {
+            Context head = _contexts.peek();
+            int headLength = head.getPhase() == Context.Phase.START ? head.getBuffer().remaining() : head.getTotalLength();
+            if (headLength >= BUFFER_LIMIT) {
+                // large packets are written on their own using a sliding window
+                coalescedWrites.increment();
+                noneBlockingWrite(head);
+                if (head.getPhase() != Context.Phase.FINISH) {
+                    setWriteInterest();
+                    return;
+                }
+                onCoalescedWriteCompleted(_contexts.poll());
+                continue;
+            }
+
+            int count = 0;
+            long bytes = 0;
+            for (Context ctx : _contexts) {
+                int remaining = ctx.getBuffer().remaining();
+                if (count != 0 && (bytes + remaining > _coalescingMaxBytes || remaining >= BUFFER_LIMIT))
+                    break;
+                if (count == _gatheringBuffers.length)
+                    _gatheringBuffers = Arrays.copyOf(_gatheringBuffers, count * 2);
+                if (ctx.getPhase() == Context.Phase.START) {
+                    ctx.setTotalLength(remaining);
+                    ctx.setPhase(Context.Phase.WRITING);
+                }
+                _gatheringBuffers[count++] = ctx.getBuffer();
+                bytes += remaining;
+            }
+
+            try {
+                _sockChannel.write(_gatheringBuffers, 0, count);
+            } finally {
+                Arrays.fill(_gatheringBuffers, 0, count, null);
+            }
+            coalescedWrites.increment();
+            for (int i = 0; i < count; i++) {
+                Context ctx = _contexts.peek();
+                ctx.setTotalBytesWritten(ctx.getTotalLength() - ctx.getBuffer().remaining());
+                if (ctx.getBuffer().hasRemaining()) {
+                    // socket channel buffer seems to be full, need to wait on the selector.
+                    setWriteInterest();
+                    return;
+                }
+                ctx.setPhase(Context.Phase.FINISH);
+                onCoalescedWriteCompleted(_contexts.poll());
+            }
+        }
+        removeWriteInterest(true);
+    }
+
+    private void onCoalescedWriteCompleted(Context ctx) {
+        pendingWrites.decrement();
+        coalescedPackets.increment();
+        coalescingDelay.add((System.nanoTime() - ctx.enqueueTime) / 1000);
+        _coalescedBytes -= ctx.getTotalLength();
+    }
+
     protected void noneBlockingWrite(Context ctx) throws IOException {
         if (ctx.getPhase() == Context.Phase.START) {
             int dataLength = ctx.getBuffer().remaining();
@@ -414,7 +604,7 @@ public class Writer implements IChannelWriter {
                     ctx.getBuffer().position(ctx.getCurrentPosition()).limit(Math.min(ctx.getTotalLength(), ctx.getCurrentPosition() + BUFFER_LIMIT));
                     ByteBuffer window = ctx.getBuffer().slice();
                     int windowSize = window.remaining();
-                    bytes = _sockChannel.write(window);
+                    bytes = writeWindow(window);
                     ctx.setCurrentPosition(ctx.getCurrentPosition() + bytes);
                     ctx.setTotalBytesWritten(ctx.getTotalBytesWritten() + bytes);
 
@@ -436,6 +626,26 @@ public class Writer implements IChannelWriter {
     }
 
 
+    /**
+     * Writes a window of a large packet through a pooled direct buffer, the position of the window
+     * is not updated.
+     *
+     * @return the number of bytes written.
+     */
+    private int writeWindow(ByteBuffer window) throws IOException {
+        if (DIRECT_BUFFER_POOL == null || window.isDirect() || window.remaining() > DIRECT_BUFFER_POOL.getMaxBufferSize())
+            return _sockChannel.write(window);
+
+        ByteBuffer directBuffer = DIRECT_BUFFER_POOL.acquire(window.remaining());
+        try {
+            directBuffer.put(window.duplicate());
+            directBuffer.flip();
+            return _sockChannel.write(directBuffer);
+        } finally {
+            DIRECT_BUFFER_POOL.release(directBuffer);
+        }
+    }
+
     private void writeBytesBlocking(ByteBuffer dataBuffer) throws IOException, IOFilterException {
         if (_filterManager != null) {
             _filterManager.writeBytesBlocking(dataBuffer);
@@ -469,7 +679,7 @@ public class Writer implements IChannelWriter {
                     dataBuffer.position(currentPosision).limit(Math.min(length, currentPosision + BUFFER_LIMIT));
                     ByteBuffer window = dataBuffer.slice();
                     int windowSize = window.remaining();
-                    bytes = _sockChannel.write(window);
+                    bytes = writeWindow(window);
                     currentPosision += bytes;
 
                     if (bytes == 0) {
@@ -551,6 +761,10 @@ public class Writer implements IChannelWriter {
      * @see #noneBlockingWrite
      */
     public synchronized void onWriteEvent() throws IOException {
+        if (_coalescingMaxBytes > 0) {
+            writeCoalesced();
+            return;
+        }
         LRMIInvocationTrace trace = null;
         try {
             while (!_contexts.isEmpty()) {
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.lrmi.nio.async;
+
+import com.gigaspaces.exception.lrmi.RequestRejectedException;
+import com.gigaspaces.lrmi.OperationClass;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Schedules regular priority requests in front of the executor which processes them. Requests are
+ * queued per {@link OperationClass}, and whenever fewer than <tt>maxConcurrency</tt> requests are
+ * being processed the next one is picked from the queues by smooth weighted round robin, so a flood
+ * of one class gets no more than its weight's share of the executor.
+ *
+ * <p>A request which waited in its queue longer than <tt>maxQueueTime</tt> is {@linkplain
+ * Request#reject rejected} instead of processed, on the assumption that its caller is about to give
+ * up on it anyway, and a request which arrives when the queue of its class already holds
+ * <tt>maxQueueSize</tt> requests is rejected right away, so a flood of one class can not pile up
+ * without bound. Replication requests and requests which were not marked as rejectable are always
+ * queued and processed.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class RequestScheduler {
+
+    /**
+     * A request which can be completed without being processed.
+     */
+    public interface Request extends Runnable {
+        /**
+         * Completes the request with the supplied exception instead of running it.
+         */
+        void reject(RemoteException reason);
+    }
+
+    private final Executor _executor;
+    private final int _maxConcurrency;
+    private final long _maxQueueTimeNanos;
+    private final int _maxQueueSize;
+    private final ClassQueue[] _queues;
+    // guarded by this
+    private int _running;
+
+    /**
+     * @param weights      the weight of each operation class, indexed by its ordinal
+     * @param maxQueueTime the time in milliseconds after which a waiting request is rejected, or 0
+     *                     to never reject requests
+     * @param maxQueueSize the number of waiting requests of a class above which its requests are
+     *                     rejected, or 0 for an unbounded queue
+     */
+    public RequestScheduler(Executor executor, int maxConcurrency, int[] weights, long maxQueueTime, int maxQueueSize) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        OperationClass[] operationClasses = OperationClass.values();
+        if (weights.length != operationClasses.length)
+            throw new IllegalArgumentException("Expected " + operationClasses.length + " weights but got " + weights.length);
+        _executor = executor;
+        _maxConcurrency = maxConcurrency;
+        _maxQueueTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueTime);
+        _maxQueueSize = maxQueueSize;
+        _queues = new ClassQueue[operationClasses.length];
+        for (OperationClass operationClass : operationClasses) {
+            int weight = weights[operationClass.ordinal()];
+            if (weight <= 0)
+                throw new IllegalArgumentException("Weight of " + operationClass + " must be positive: " + weight);
+            _queues[operationClass.ordinal()] = new ClassQueue(operationClass, weight);
+        }
+    }
+
+    /**
+     * Parses weights of the form <tt>replication=8,default=4,bulk=1</tt>, classes which are not
+     * listed get a weight of 1.
+     */
+    public static int[] parseWeights(String weights) {
+        int[] result = new int[OperationClass.values().length];
+        for (int i = 0; i < result.length; i++)
+            result[i] = 1;
+        for (String token : weights.split(",")) {
+            token = token.trim();
+            if (token.isEmpty())
+                continue;
+            int separator = token.indexOf('=');
+            if (separator == -1)
+                throw new IllegalArgumentException("Illegal weight [" + token + "], expected <class>=<weight>");
+            OperationClass operationClass = OperationClass.valueOf(token.substring(0, separator).trim().toUpperCase());
+            result[operationClass.ordinal()] = Integer.parseInt(token.substring(separator + 1).trim());
+        }
+        return result;
+    }
+
+    /**
+     * Queues the request, and dispatches it to the executor if the executor is not saturated. A
+     * rejectable request whose class queue is full is rejected on the executor instead.
+     *
+     * @param rejectable false if the request must be processed no matter how long it waits
+     */
+    public void execute(Request request, OperationClass operationClass, boolean rejectable) {
+        Entry entry = new Entry(request, _queues[operationClass.ordinal()], rejectable, System.nanoTime());
+        Entry next;
+        synchronized (this) {
+            if (entry.isOverflow()) {
+                next = null;
+            } else {
+                entry.queue.add(entry);
+                if (_running == _maxConcurrency)
+                    return;
+                _running++;
+                next = next();
+            }
+        }
+        if (next != null)
+            dispatch(next);
+        else
+            rejectOverflow(entry);
+    }
+
+    private void rejectOverflow(final Entry entry) {
+        entry.queue.dispatched.increment();
+        entry.queue.rejected.increment();
+        _executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                entry.request.reject(new RequestRejectedException("Request was rejected by an overloaded server since " +
+                        _maxQueueSize + " requests of class " + entry.queue.operationClass + " are already waiting to be processed"));
+            }
+        });
+    }
+
+    private void dispatch(Entry entry) {
+        try {
+            _executor.execute(entry);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                _running--;
+            }
+            throw e;
+        }
+    }
+
+    private void onCompletion() {
+        Entry next;
+        synchronized (this) {
+            next = next();
+            if (next == null)
+                _running--;
+        }
+        if (next != null)
+            dispatch(next);
+    }
+
+    // guarded by this
+    private Entry next() {
+        ClassQueue selected = null;
+        int totalWeight = 0;
+        for (ClassQueue queue : _queues) {
+            if (queue.entries.isEmpty())
+                continue;
+            queue.currentWeight += queue.weight;
+            totalWeight += queue.weight;
+            if (selected == null || queue.currentWeight > selected.currentWeight)
+                selected = queue;
+        }
+        if (selected == null)
+            return null;
+        selected.currentWeight -= totalWeight;
+        return selected.entries.poll();
+    }
+
+    public int getMaxConcurrency() {
+        return _maxConcurrency;
+    }
+
+    public synchronized int getRunning() {
+        return _running;
+    }
+
+    public synchronized int getQueueSize(OperationClass operationClass) {
+        return _queues[operationClass.ordinal()].entries.size();
+    }
+
+    /**
+     * @return the number of requests of the class which were processed or rejected
+     */
+    public LongAdder getDispatchedCounter(OperationClass operationClass) {
+        return _queues[operationClass.ordinal()].dispatched;
+    }
+
+    /**
+     * @return the total time in microseconds which requests of the class waited in the queue
+     */
+    public LongAdder getWaitTimeCounter(OperationClass operationClass) {
+        return _queues[operationClass.ordinal()].waitTimeMicros;
+    }
+
+    public LongAdder getRejectedCounter(OperationClass operationClass) {
+        return _queues[operationClass.ordinal()].rejected;
+    }
+
+    private static final class ClassQueue {
+        final OperationClass operationClass;
+        final int weight;
+        final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+        final LongAdder dispatched = new LongAdder();
+        final LongAdder waitTimeMicros = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        int currentWeight;
+
+        private ClassQueue(OperationClass operationClass, int weight) {
+            this.operationClass = operationClass;
+            this.weight = weight;
+        }
+
+        void add(Entry entry) {
+            entries.add(entry);
+        }
+    }
+
+    private final class Entry implements Runnable {
+        final Request request;
+        final ClassQueue queue;
+        final boolean rejectable;
+        final long enqueueTime;
+
+        private Entry(Request request, ClassQueue queue, boolean rejectable, long enqueueTime) {
+            this.request = request;
+            this.queue = queue;
+            this.rejectable = rejectable;
+            this.enqueueTime = enqueueTime;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long waitTime = System.nanoTime() - enqueueTime;
+                queue.dispatched.increment();
+                queue.waitTimeMicros.add(TimeUnit.NANOSECONDS.toMicros(waitTime));
+                if (isRejected(waitTime)) {
+                    queue.rejected.increment();
+                    request.reject(new RequestRejectedException("Request was rejected by an overloaded server after waiting " +
+                            TimeUnit.NANOSECONDS.toMillis(waitTime) + "ms to be processed, the limit is " +
+                            TimeUnit.NANOSECONDS.toMillis(_maxQueueTimeNanos) + "ms"));
+                } else {
+                    request.run();
+                }
+            } finally {
+                onCompletion();
+            }
+        }
+
+        // guarded by the scheduler
+        private boolean isOverflow() {
+            return rejectable && _maxQueueSize > 0 && queue.entries.size() >= _maxQueueSize &&
+                    queue.operationClass != OperationClass.REPLICATION;
+        }
+
+        private boolean isRejected(long waitTime) {
+            return rejectable && _maxQueueTimeNanos > 0 && waitTime > _maxQueueTimeNanos &&
+                    queue.operationClass != OperationClass.REPLICATION;
+        }
+    }
+}
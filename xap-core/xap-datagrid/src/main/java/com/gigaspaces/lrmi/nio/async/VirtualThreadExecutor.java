@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.lrmi.nio.async;
+
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.start.SystemBoot;
+
+import org.jini.rio.boot.CommonClassLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An executor which runs each task on a new virtual thread, allowing requests which block (e.g. a
+ * take waiting for a matching entry) to wait without holding a platform thread. The number of
+ * concurrently running tasks is capped by a semaphore. Since tasks are submitted by selector
+ * threads, an execution beyond the cap never waits for a permit: the task is handed to the
+ * overflow executor (the platform thread pool), or rejected if there is none.
+ *
+ * <p>Virtual threads are created by reflection since they are only available on Java 21 or later,
+ * use {@link #isSupported()} before creating one.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class VirtualThreadExecutor implements Executor {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+
+    private static final Method OF_VIRTUAL = getMethod(Thread.class, "ofVirtual");
+
+    private final ThreadFactory _threadFactory;
+    private final Semaphore _permits;
+    private final int _maxConcurrency;
+    private final Executor _overflowExecutor;
+    private final LongAdder _completedTasks = new LongAdder();
+    private final LongAdder _overflowTasks = new LongAdder();
+    private volatile boolean _shutdown;
+
+    /**
+     * @param overflowExecutor runs the tasks submitted while <tt>maxConcurrency</tt> tasks are
+     *                         running, or null to reject them
+     */
+    public VirtualThreadExecutor(int maxConcurrency, String name, Executor overflowExecutor) {
+        if (!isSupported())
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        _threadFactory = createThreadFactory(name);
+        _maxConcurrency = maxConcurrency;
+        _permits = new Semaphore(maxConcurrency);
+        _overflowExecutor = overflowExecutor;
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null)
+            throw new NullPointerException("Can't execute null task.");
+        if (_shutdown)
+            throw new RejectedExecutionException("Executor was shutdown");
+        if (!_permits.tryAcquire()) {
+            _overflowTasks.increment();
+            if (_overflowExecutor == null)
+                throw new RejectedExecutionException("Executor is running " + _maxConcurrency + " tasks");
+            _overflowExecutor.execute(command);
+            return;
+        }
+        Thread thread;
+        try {
+            thread = _threadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        command.run();
+                    } finally {
+                        _completedTasks.increment();
+                        _permits.release();
+                    }
+                }
+            });
+            thread.start();
+        } catch (RuntimeException e) {
+            _permits.release();
+            throw e;
+        } catch (Error e) {
+            _permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Rejects further tasks, tasks which are already running are not interrupted.
+     */
+    public void shutdown() {
+        _shutdown = true;
+    }
+
+    public boolean isShutdown() {
+        return _shutdown;
+    }
+
+    public int getMaxConcurrency() {
+        return _maxConcurrency;
+    }
+
+    /**
+     * @return the number of tasks which are currently running
+     */
+    public int getActiveCount() {
+        return _maxConcurrency - _permits.availablePermits();
+    }
+
+    /**
+     * @return the number of tasks which were handed to the overflow executor, or rejected, since
+     * the maximal number of tasks were running
+     */
+    public long getOverflowTaskCount() {
+        return _overflowTasks.sum();
+    }
+
+    public long getCompletedTaskCount() {
+        return _completedTasks.sum();
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        final ThreadFactory virtualThreadFactory;
+        try {
+            // Thread.ofVirtual().name(name + "-", 0).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            virtualThreadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("Failed to create a virtual thread factory", e);
+        }
+        if (!SystemBoot.isRunningWithinGSC())
+            return virtualThreadFactory;
+        // since the LRMI is loaded in the common class loader, make sure each new thread is using
+        // the common class loader (see LRMIThreadPoolExecutor).
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = virtualThreadFactory.newThread(runnable);
+                thread.setContextClassLoader(CommonClassLoader.getInstance());
+                return thread;
+            }
+        };
+    }
+
+    private static Method getMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (SecurityException e) {
+            if (_logger.isDebugEnabled())
+                _logger.debug("Virtual threads are not accessible", e);
+            return null;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.gigaspaces.config.lrmi.nio.NIOConfiguration;
 import com.gigaspaces.internal.utils.GsEnv;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.nio.Pivot;
+import com.gigaspaces.lrmi.nio.UnixDomainSockets;
 import com.gigaspaces.lrmi.nio.selector.handler.AcceptSelectorThread;
 import com.gigaspaces.lrmi.nio.selector.handler.ReadSelectorThread;
 import com.gigaspaces.lrmi.nio.selector.handler.WriteSelectorThread;
@@ -28,12 +29,14 @@ import com.j_spaces.kernel.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Event queue for I/O events raised by a selector. This class receives the lower level events
@@ -52,6 +55,7 @@ import java.util.StringTokenizer;
 @com.gigaspaces.api.InternalApi
 public class SelectorManager extends ManagedRunnable {
     private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+    private static final long ADAPT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
     private final ServerSocket _serverSocket;
     private final String _host;
@@ -59,9 +63,30 @@ public class SelectorManager extends ManagedRunnable {
     private final ReadSelectorThread[] _readSelectorThread;
     private final WriteSelectorThread[] _writeSelectorThread;
     private final AcceptSelectorThread _acceptSelectorThread;
+    private final Pivot _pivot;
+    private final boolean _adaptive;
+    private final int _readyKeysRate;
+    private volatile int _activeReadSelectorThreads;
+    private long _lastAdaptTime;
+    private long _lastReadyKeys;
+    private File _unixDomainSocketFile;
+    private ServerSocketChannel _unixDomainServerChannel;
+    private AcceptSelectorThread _unixDomainAcceptSelectorThread;
 
     public SelectorManager(Pivot pivot, String hostName, String port, int readSelectorThreads) throws IOException {
+        this(pivot, hostName, port, readSelectorThreads, false);
+    }
+
+    /**
+     * @param unixDomainSockets if true, connections from the same host are accepted on a unix
+     *                          domain socket as well
+     * @since 16.4.0
+     */
+    public SelectorManager(Pivot pivot, String hostName, String port, int readSelectorThreads, boolean unixDomainSockets) throws IOException {
         _host = hostName;
+        _pivot = pivot;
+        _adaptive = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_SELECTOR_ADAPTIVE, SystemProperties.LRMI_SELECTOR_ADAPTIVE_DEFAULT));
+        _readyKeysRate = Integer.getInteger(SystemProperties.LRMI_SELECTOR_ADAPTIVE_READY_KEYS_RATE, SystemProperties.LRMI_SELECTOR_ADAPTIVE_READY_KEYS_RATE_DEFAULT);
         _readSelectorThread = new ReadSelectorThread[readSelectorThreads];
         _writeSelectorThread = new WriteSelectorThread[readSelectorThreads];
         try {
@@ -71,15 +96,21 @@ public class SelectorManager extends ManagedRunnable {
             _port = bind(_serverSocket, hostName, port);
 
 
+            // an adaptive selector starts more read threads on demand
+            _activeReadSelectorThreads = _adaptive ? 1 : readSelectorThreads;
             for (int i = 0; i < readSelectorThreads; ++i) {
-                _readSelectorThread[i] = new ReadSelectorThread(pivot, "LRMI-Selector-Read-Thread-" + i);
+                if (i < _activeReadSelectorThreads)
+                    _readSelectorThread[i] = new ReadSelectorThread(pivot, "LRMI-Selector-Read-Thread-" + i);
                 _writeSelectorThread[i] = new WriteSelectorThread(pivot, "LRMI-Selector-Write-Thread-" + i);
             }
+            _lastAdaptTime = System.nanoTime();
 
             _acceptSelectorThread = new AcceptSelectorThread(this, "LRMI-Selector-Accept-Thread-" + _port,
                     serverSocketChannel);
             _logger.info("Listening to incoming connections on {} (reader threads: {}, writer threads: {})",
                     getBindInetSocketAddress(), readSelectorThreads, readSelectorThreads);
+            if (unixDomainSockets)
+                listenOnUnixDomainSocket();
         } catch (IOException e) {
             waitWhileFinish();
             throw e;
@@ -125,6 +156,37 @@ public class SelectorManager extends ManagedRunnable {
         }
     }
 
+    private void listenOnUnixDomainSocket() {
+        int backlog = Integer.getInteger(SystemProperties.LRMI_ACCEPT_BACKLOG, SystemProperties.LRMI_ACCEPT_BACKLOG_DEFUALT);
+        try {
+            // a server bound to the wildcard address listens on a file derived from its port only
+            File socketFile = UnixDomainSockets.getSocketFile(_serverSocket.getInetAddress(), _port);
+            _unixDomainServerChannel = UnixDomainSockets.bind(socketFile, backlog);
+            _unixDomainSocketFile = socketFile;
+            _unixDomainAcceptSelectorThread = new AcceptSelectorThread(this, "LRMI-Selector-Accept-Thread-uds-" + _port,
+                    _unixDomainServerChannel);
+            _logger.info("Listening to incoming connections from this host on unix domain socket {}", socketFile);
+        } catch (Exception e) {
+            // clients on this host fall back to tcp
+            _logger.warn("Failed to listen on a unix domain socket, connections from this host will use tcp", e);
+            closeUnixDomainSocket();
+        }
+    }
+
+    private void closeUnixDomainSocket() {
+        if (_unixDomainServerChannel != null) {
+            try {
+                _unixDomainServerChannel.close();
+            } catch (IOException ex) {
+                if (_logger.isDebugEnabled()) {
+                    _logger.debug("Error while closing the unix domain server socket.", ex);
+                }
+            }
+        }
+        if (_unixDomainSocketFile != null && !_unixDomainSocketFile.delete() && _logger.isDebugEnabled())
+            _logger.debug("Failed to delete unix domain socket file " + _unixDomainSocketFile);
+    }
+
     @Override
     protected void waitWhileFinish() {
         if (_serverSocket != null) {
@@ -137,9 +199,13 @@ public class SelectorManager extends ManagedRunnable {
             }
         }
 
+        closeUnixDomainSocket();
+
         // accept handler
         if (_acceptSelectorThread != null)
             _acceptSelectorThread.requestShutdown();
+        if (_unixDomainAcceptSelectorThread != null)
+            _unixDomainAcceptSelectorThread.requestShutdown();
 
         // close readers
         for (ReadSelectorThread selectorThread : _readSelectorThread) {
@@ -167,7 +233,55 @@ public class SelectorManager extends ManagedRunnable {
     }
 
     public ReadSelectorThread getReadHandler(SelectableChannel channel) {
-        return getHandler(_readSelectorThread, channel);
+        if (!_adaptive)
+            return getHandler(_readSelectorThread, channel);
+        // channels stay on the thread they were registered with, so only new connections are balanced
+        int activeThreads = adaptReadSelectorThreads();
+        return _readSelectorThread[Math.abs(System.identityHashCode(channel) % activeThreads)];
+    }
+
+    public int getActiveReadSelectorThreads() {
+        return _activeReadSelectorThreads;
+    }
+
+    /**
+     * Adds a read selector thread if the active ones handle more than the configured ready keys
+     * rate, stops assigning connections to the last one if they handle less than a quarter of it.
+     */
+    private synchronized int adaptReadSelectorThreads() {
+        int activeThreads = _activeReadSelectorThreads;
+        long now = System.nanoTime();
+        if (now - _lastAdaptTime < ADAPT_INTERVAL_NANOS || shouldShutdown())
+            return activeThreads;
+
+        long readyKeys = 0;
+        for (ReadSelectorThread selectorThread : _readSelectorThread) {
+            if (selectorThread != null)
+                readyKeys += selectorThread.getReadyKeys();
+        }
+        double rate = (readyKeys - _lastReadyKeys) * (double) TimeUnit.SECONDS.toNanos(1) / (now - _lastAdaptTime) / activeThreads;
+        _lastAdaptTime = now;
+        _lastReadyKeys = readyKeys;
+
+        if (rate > _readyKeysRate && activeThreads < _readSelectorThread.length) {
+            if (_readSelectorThread[activeThreads] == null) {
+                try {
+                    _readSelectorThread[activeThreads] = new ReadSelectorThread(_pivot, "LRMI-Selector-Read-Thread-" + activeThreads);
+                } catch (IOException e) {
+                    _logger.warn("Failed to start an additional read selector thread", e);
+                    return activeThreads;
+                }
+            }
+            activeThreads++;
+        } else if (rate < _readyKeysRate / 4 && activeThreads > 1) {
+            activeThreads--;
+        } else {
+            return activeThreads;
+        }
+        if (_logger.isDebugEnabled())
+            _logger.debug("Assigning new connections to " + activeThreads + " read selector threads, ready keys rate per thread was " + (long) rate);
+        _activeReadSelectorThreads = activeThreads;
+        return activeThreads;
     }
 
     public WriteSelectorThread getWriteHandler(SelectableChannel channel) {
@@ -19,14 +19,16 @@ package com.gigaspaces.lrmi.nio.selector.handler;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.time.SystemTime;
 import com.j_spaces.kernel.ManagedRunnable;
+import com.j_spaces.kernel.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.Socket;
 import java.nio.channels.*;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides a general selector logic.
@@ -36,15 +38,75 @@ import java.util.Set;
  */
 public abstract class AbstractSelectorThread extends ManagedRunnable implements Runnable {
     private static final long SELECT_TIMEOUT = 10 * 1000; // 10 sec
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(Integer.getInteger(SystemProperties.LRMI_SELECTOR_SPIN_MICROS,
+            SystemProperties.LRMI_SELECTOR_SPIN_MICROS_DEFAULT));
     protected static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
 
+    private static final LongAdder wakeups = new LongAdder();
+    private static final LongAdder emptyWakeups = new LongAdder();
+    private static final LongAdder spinWakeups = new LongAdder();
+    private static final LongAdder readyKeys = new LongAdder();
+
     final private Selector _selector;
+    private final long _spinNanos;
     private long lastCleanup = 0;
+    // written by the selector thread only
+    private volatile long _readyKeys;
 
     protected volatile Thread ownerThread;
 
     protected AbstractSelectorThread() throws IOException {
+        this(false);
+    }
+
+    /**
+     * @param busySpin if true, the channels are polled for {@link SystemProperties#LRMI_SELECTOR_SPIN_MICROS}
+     *                 before blocking in select
+     * @since 16.4.0
+     */
+    protected AbstractSelectorThread(boolean busySpin) throws IOException {
         _selector = Selector.open();
+        _spinNanos = busySpin ? SPIN_NANOS : 0;
+    }
+
+    /**
+     * @return select calls which returned, including those with no ready keys.
+     * @since 16.4.0
+     */
+    public static LongAdder getWakeupsCounter() {
+        return wakeups;
+    }
+
+    /**
+     * @return select calls which returned with no ready keys.
+     * @since 16.4.0
+     */
+    public static LongAdder getEmptyWakeupsCounter() {
+        return emptyWakeups;
+    }
+
+    /**
+     * @return select calls which found ready keys while polling, before blocking.
+     * @since 16.4.0
+     */
+    public static LongAdder getSpinWakeupsCounter() {
+        return spinWakeups;
+    }
+
+    /**
+     * @return keys handled by all selector threads, divided by the wakeups it is the ready keys per cycle.
+     * @since 16.4.0
+     */
+    public static LongAdder getReadyKeysCounter() {
+        return readyKeys;
+    }
+
+    /**
+     * @return keys handled by this selector thread.
+     * @since 16.4.0
+     */
+    public long getReadyKeys() {
+        return _readyKeys;
     }
 
     public void run() {
@@ -59,11 +121,14 @@ public abstract class AbstractSelectorThread extends ManagedRunnable implements
         try {
             enableSelectionKeys();
             checkForDeadConnections();
-            _selector.select(SELECT_TIMEOUT);
+            select();
             Set<SelectionKey> readyKeys = _selector.selectedKeys();
+            wakeups.increment();
             if (readyKeys == null || readyKeys.isEmpty()) {
+                emptyWakeups.increment();
                 return;
             }
+            countReadyKeys(readyKeys.size());
             Iterator<SelectionKey> iterator = readyKeys.iterator();
             while (iterator.hasNext()) {
                 key = iterator.next();
@@ -101,6 +166,26 @@ public abstract class AbstractSelectorThread extends ManagedRunnable implements
         }
     }
 
+    private void select() throws IOException {
+        if (_spinNanos > 0) {
+            long deadline = System.nanoTime() + _spinNanos;
+            do {
+                if (_selector.selectNow() > 0) {
+                    spinWakeups.increment();
+                    return;
+                }
+                // selectNow clears wakeups, handle the requests they were made for
+                enableSelectionKeys();
+            } while (System.nanoTime() - deadline < 0 && !shouldShutdown());
+        }
+        _selector.select(SELECT_TIMEOUT);
+    }
+
+    private void countReadyKeys(int count) {
+        readyKeys.add(count);
+        _readyKeys += count;
+    }
+
     private void delay(IOException ex) {
         try {
             Thread.sleep(1000);
@@ -180,11 +265,9 @@ public abstract class AbstractSelectorThread extends ManagedRunnable implements
     protected void closeChannel(SocketChannel channel) {
         if (channel == null)
             return;
-        Socket socket = channel.socket();
         try {
-            socket.shutdownInput();
-            socket.shutdownOutput();
-            socket.close();
+            channel.shutdownInput();
+            channel.shutdownOutput();
         } catch (IOException ex) {
             if (_logger.isDebugEnabled()) {
                 _logger.debug("error while closing a key", ex);
@@ -42,7 +42,7 @@ public class ReadSelectorThread extends AbstractSelectorThread {
     private final Pivot _pivot;
 
     public ReadSelectorThread(Pivot pivot, String name) throws IOException {
-        super();
+        super(true);
         this._pivot = pivot;
         GSThread.daemon(this, name).start();
     }
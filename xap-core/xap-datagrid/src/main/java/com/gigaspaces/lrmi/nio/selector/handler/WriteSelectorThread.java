@@ -43,7 +43,7 @@ public class WriteSelectorThread extends AbstractSelectorThread {
     private final AtomicInteger _keysToCreateCounter = new AtomicInteger();
 
     public WriteSelectorThread(Pivot pivot, String name) throws IOException {
-        super();
+        super(true);
         this._pivot = pivot;
         GSThread.daemon(this, name).start();
     }
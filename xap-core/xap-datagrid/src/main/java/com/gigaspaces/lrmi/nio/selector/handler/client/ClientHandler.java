@@ -45,7 +45,7 @@ public class ClientHandler extends AbstractSelectorThread {
     final private AtomicInteger _interestsCounter = new AtomicInteger();
 
     public ClientHandler() throws IOException {
-        super();
+        super(true);
     }
 
     @Override
@@ -119,6 +119,7 @@ public class ClientHandler extends AbstractSelectorThread {
             InterestRequest request = _interests.remove();
             _interestsCounter.decrementAndGet();
             int ops = 0;
+            boolean add = false;
             switch (request.getAction()) {
                 case WRITE:
                     ops = SelectionKey.OP_WRITE;
@@ -127,6 +128,14 @@ public class ClientHandler extends AbstractSelectorThread {
                     request.getContext().handleSetReadInterest();
                     ops = SelectionKey.OP_READ;
                     break;
+                case ADD_WRITE:
+                    ops = SelectionKey.OP_WRITE;
+                    add = true;
+                    break;
+                case ADD_READ:
+                    ops = SelectionKey.OP_READ;
+                    add = true;
+                    break;
             }
 
             //The watchdog could reset the selection key if it disconnected this channel and there was a registration to readInterest which
@@ -135,7 +144,7 @@ public class ClientHandler extends AbstractSelectorThread {
             if (selectionKey == null)
                 return;
             try {
-                selectionKey.interestOps(ops);
+                selectionKey.interestOps(add ? selectionKey.interestOps() | ops : ops);
             } catch (CancelledKeyException e) {
                 cancelKey(selectionKey);
             }
@@ -181,6 +190,34 @@ public class ClientHandler extends AbstractSelectorThread {
         }
     }
 
+    /**
+     * Adds read interest while keeping a pending write interest, used by contexts which read and
+     * write the channel concurrently.
+     *
+     * @since 16.4.0
+     */
+    public void addReadInterest(Context ctx) {
+        addInterest(ctx, InterestRequest.Action.ADD_READ);
+    }
+
+    /**
+     * Adds write interest while keeping the read interest, used by contexts which read and write
+     * the channel concurrently.
+     *
+     * @since 16.4.0
+     */
+    public void addWriteInterest(Context ctx) {
+        addInterest(ctx, InterestRequest.Action.ADD_WRITE);
+    }
+
+    private void addInterest(Context ctx, InterestRequest.Action action) {
+        _interests.add(new InterestRequest(ctx, action));
+        _interestsCounter.incrementAndGet();
+        if (ownerThread != Thread.currentThread()) {
+            getSelector().wakeup();
+        }
+    }
+
     @Override
     protected void cancelKey(SelectionKey key) {
         Context ctx = (Context) key.attachment();
@@ -22,7 +22,10 @@ package com.gigaspaces.lrmi.nio.selector.handler.client;
  */
 @com.gigaspaces.api.InternalApi
 public class InterestRequest {
-    public enum Action {READ, WRITE}
+    /**
+     * READ and WRITE replace the interest set of the channel, ADD_READ and ADD_WRITE add to it.
+     */
+    public enum Action {READ, WRITE, ADD_READ, ADD_WRITE}
 
     final private Context context;
     final private Action action;
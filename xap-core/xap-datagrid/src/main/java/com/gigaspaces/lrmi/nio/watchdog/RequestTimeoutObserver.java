@@ -23,6 +23,8 @@ import com.gigaspaces.logger.LogLevel;
 import com.gigaspaces.lrmi.ConnectionResource;
 import com.gigaspaces.lrmi.LRMIUtilities;
 import com.gigaspaces.lrmi.nio.CPeer;
+import com.gigaspaces.lrmi.nio.NIOUtils;
+import com.gigaspaces.lrmi.nio.UnixDomainSockets;
 import com.gigaspaces.lrmi.nio.async.AsyncContext;
 import com.gigaspaces.lrmi.nio.watchdog.Watchdog.WatchedObject;
 import com.gigaspaces.time.SystemTime;
@@ -77,11 +79,26 @@ public class RequestTimeoutObserver
         long startInvocationVersion = -1;
 
         try {
+            WatchedObject watched = bucket.iterator().next();
+            startInvocationVersion = watched.getVersion();
+
+            if (UnixDomainSockets.isUnixDomain(watched.getSocket())) {
+                // A server on this host is alive as long as it accepts on its socket file. There is no client
+                // port to look the watched invocation up by, so the connection is assumed to be valid.
+                serverAddress = NIOUtils.getRemoteSocketAddress(watched.getSocket());
+                if (serverAddress == null)
+                    throw new IOException("Watched socket was already closed: " + watched.getSocket());
+                socketChannel = UnixDomainSockets.open();
+                socketChannel.connect(serverAddress);
+                if (_logger.isDebugEnabled())
+                    _logger.debug("Established new connection with the ServerEndPoint [" + serverAddress + "], assuming connection is valid");
+                watched.startWatch();
+                return;
+            }
+
             socketChannel = SocketChannel.open();
             LRMIUtilities.initNewSocketProperties(socketChannel);
             Socket newSock = socketChannel.socket();
-            WatchedObject watched = bucket.iterator().next();
-            startInvocationVersion = watched.getVersion();
 
             // Test connection to server
             // Open a new socket
@@ -143,21 +160,17 @@ public class RequestTimeoutObserver
 
     protected String getFailureToCloseInvalidConnectionMessage(SocketAddress serverAddress, SocketChannel watchedSocketChannel) {
         return "A connection to the ServerEndPoint [" +
-                watchedSocketChannel.socket().getRemoteSocketAddress() +
+                NIOUtils.getRemoteSocketAddress(watchedSocketChannel) +
                 "] that is not reachable, could not be closed. ";
     }
 
     protected String getLocalAddressString(SocketChannel socketChannel) {
         String localAddress = "not connected";
         if (socketChannel != null) {
+            SocketAddress localSocketAddress = NIOUtils.getLocalSocketAddress(socketChannel);
             //Avoid possible NPE if socket gets disconnected
-            Socket socket = socketChannel.socket();
-            if (socket != null) {
-                SocketAddress localSocketAddress = socket.getLocalSocketAddress();
-                //Avoid possible NPE if socket gets disconnected
-                if (localSocketAddress != null)
-                    localAddress = localSocketAddress.toString();
-            }
+            if (localSocketAddress != null)
+                localAddress = localSocketAddress.toString();
         }
         return localAddress;
     }
@@ -22,6 +22,8 @@ import com.gigaspaces.internal.utils.concurrent.GSThread;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.logger.LogLevel;
 import com.gigaspaces.lrmi.ConnectionResource;
+import com.gigaspaces.lrmi.nio.NIOUtils;
+import com.gigaspaces.lrmi.nio.UnixDomainSockets;
 import com.j_spaces.core.service.ServiceConfigLoader;
 import com.j_spaces.kernel.SystemProperties;
 
@@ -467,6 +469,8 @@ public class Watchdog extends GSThread {
         private int _time = UNWATCHED;
         // The socket to watch
         private final SocketChannel _socket;
+        // A unix domain socket has no remote address once closed, kept for a stable hash code
+        private final SocketAddress _unixDomainRemoteAddress;
 
         // The client using the watched socket
         protected final ConnectionResource _client;
@@ -490,6 +494,7 @@ public class Watchdog extends GSThread {
         public WatchedObject(WatchdogGroup group, SocketChannel socket, ConnectionResource client) {
             _watchdogGroup = group;
             _socket = socket;
+            _unixDomainRemoteAddress = socket != null && UnixDomainSockets.isUnixDomain(socket) ? NIOUtils.getRemoteSocketAddress(socket) : null;
             _client = client;
         }
 
@@ -551,8 +556,8 @@ public class Watchdog extends GSThread {
         public boolean equals(Object obj) {
             if (!(obj instanceof WatchedObject))
                 return false;
-            SocketAddress myAddress = _socket.socket().getRemoteSocketAddress();
-            SocketAddress hisAddress = ((WatchedObject) obj)._socket.socket().getRemoteSocketAddress();
+            SocketAddress myAddress = getRemoteSocketAddress();
+            SocketAddress hisAddress = ((WatchedObject) obj).getRemoteSocketAddress();
             if (myAddress != null)
                 return myAddress.equals(hisAddress);
             return false;
@@ -560,12 +565,16 @@ public class Watchdog extends GSThread {
 
         @Override
         public int hashCode() {
-            SocketAddress address = _socket.socket().getRemoteSocketAddress();
+            SocketAddress address = getRemoteSocketAddress();
             if (null == address)
                 return 0;
             return address.hashCode();
         }
 
+        private SocketAddress getRemoteSocketAddress() {
+            return _unixDomainRemoteAddress != null ? _unixDomainRemoteAddress : _socket.socket().getRemoteSocketAddress();
+        }
+
         // used to map watchdog logs to a specific method invocation
         public String getMonitoringId() {
             return monitoringId;
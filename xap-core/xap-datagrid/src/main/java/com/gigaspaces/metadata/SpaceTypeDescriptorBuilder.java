@@ -76,6 +76,7 @@ public class SpaceTypeDescriptorBuilder {
     private Boolean _broadcast;
     private TieredStorageTableConfig _tieredStorageTableConfig;
     private boolean _hasRoutingAnnotation;
+    private boolean _columnarStorage;
 
     /**
      * Initialize a type descriptor builder using the specified type name.
@@ -257,6 +258,20 @@ public class SpaceTypeDescriptorBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the numeric fixed properties of this type's entries are also kept in columns
+     * (one primitive array per property), so aggregations over the whole type can scan them
+     * without visiting each entry. Applies only to ALL_IN_CACHE spaces without blob store, tiered
+     * storage or MVCC, and is ignored otherwise. Default is false.
+     *
+     * @param columnarStorage true to keep a columnar layout for this type, false otherwise.
+     * @since 16.4.0
+     */
+    public SpaceTypeDescriptorBuilder columnarStorage(boolean columnarStorage) {
+        this._columnarStorage = columnarStorage;
+        return this;
+    }
+
     /**
      *
      * */
@@ -605,6 +620,44 @@ public class SpaceTypeDescriptorBuilder {
         return addIndex(SpaceIndexFactory.createPropertyIndex(propertyName, indexType, unique));
     }
 
+    /**
+     * Adds an index of the specified type for the specified property.
+     *
+     * @param propertyName Name of property to index.
+     * @param indexType    Type of index.
+     * @param unique       is it a unique index
+     * @param offHeap      should the index be stored outside of the Java heap
+     * @since 16.4.0
+     */
+    public SpaceTypeDescriptorBuilder addPropertyIndex(String propertyName, SpaceIndexType indexType, boolean unique, boolean offHeap) {
+        return addIndex(SpaceIndexFactory.createPropertyIndex(propertyName, indexType, unique, offHeap));
+    }
+
+    /**
+     * Adds an index of the specified type for the specified property.
+     *
+     * @param propertyName      Name of property to index.
+     * @param indexType         Type of index.
+     * @param unique            is it a unique index
+     * @param orderedIndexStore data structure backing the ordered part of the index
+     * @since 16.4.0
+     */
+    public SpaceTypeDescriptorBuilder addPropertyIndex(String propertyName, SpaceIndexType indexType, boolean unique, OrderedIndexStore orderedIndexStore) {
+        return addIndex(SpaceIndexFactory.createPropertyIndex(propertyName, indexType, unique, orderedIndexStore));
+    }
+
+    /**
+     * Adds an equality index for the specified property which keeps a compressed bitmap of the
+     * entries of each value, so AND/OR conditions on several bitmap indexes are resolved by bitmap
+     * operations.
+     *
+     * @param propertyName Name of property to index.
+     * @since 16.4.0
+     */
+    public SpaceTypeDescriptorBuilder addBitmapPropertyIndex(String propertyName) {
+        return addIndex(SpaceIndexFactory.createBitmapPropertyIndex(propertyName));
+    }
+
     /**
      * Adds an index of the specified type for the specified path.
      *
@@ -832,7 +885,8 @@ public class SpaceTypeDescriptorBuilder {
                 binaryStorageAdapterClass,
                 _broadcast,
                 _tieredStorageTableConfig,
-                _hasRoutingAnnotation);
+                _hasRoutingAnnotation,
+                _columnarStorage);
     }
 
     private void applyDefaults() {
@@ -1053,7 +1107,13 @@ public class SpaceTypeDescriptorBuilder {
             final int position = getPositionOf(index.getName(), fixedProperties);
             if (position != -1) {
                 final boolean isUnique = ((ISpaceIndex) index).isUnique() || index.getName().equals(idPropertyName);
+                final boolean isOffHeap = ((ISpaceIndex) index).isOffHeap();
+                final OrderedIndexStore orderedIndexStore = ((ISpaceIndex) index).getOrderedIndexStore();
+                final boolean isBitmap = ((ISpaceIndex) index).isBitmap();
                 index = new SpacePropertyIndex(index.getName(), index.getIndexType(), isUnique, position);
+                ((ISpaceIndex) index).setOffHeap(isOffHeap);
+                ((ISpaceIndex) index).setOrderedIndexStore(orderedIndexStore);
+                ((ISpaceIndex) index).setBitmap(isBitmap);
             }
             result.put(index.getName(), index);
         }
@@ -40,6 +40,9 @@ public abstract class AbstractSpaceIndex extends AbstractExternalizable implemen
     private String _name;
     private SpaceIndexType _indexType;
     private boolean _isUnique;
+    private boolean _isOffHeap;
+    private OrderedIndexStore _orderedIndexStore = OrderedIndexStore.SKIP_LIST;
+    private boolean _isBitmap;
 
     public AbstractSpaceIndex() {
     }
@@ -70,6 +73,36 @@ public abstract class AbstractSpaceIndex extends AbstractExternalizable implemen
         _isUnique = val;
     }
 
+    @Override
+    public boolean isOffHeap() {
+        return _isOffHeap;
+    }
+
+    @Override
+    public void setOffHeap(boolean val) {
+        _isOffHeap = val;
+    }
+
+    @Override
+    public OrderedIndexStore getOrderedIndexStore() {
+        return _orderedIndexStore;
+    }
+
+    @Override
+    public void setOrderedIndexStore(OrderedIndexStore orderedIndexStore) {
+        _orderedIndexStore = orderedIndexStore != null ? orderedIndexStore : OrderedIndexStore.SKIP_LIST;
+    }
+
+    @Override
+    public boolean isBitmap() {
+        return _isBitmap;
+    }
+
+    @Override
+    public void setBitmap(boolean val) {
+        _isBitmap = val;
+    }
+
     @Override
     public boolean isMultiValuePerEntryIndex() {
         return false;
@@ -126,6 +159,9 @@ public abstract class AbstractSpaceIndex extends AbstractExternalizable implemen
 
     private static final byte FLAG_VERSION = 1 << 0;
     private static final byte FLAG_UNIQUE = 1 << 1;
+    private static final byte FLAG_OFF_HEAP = 1 << 2;
+    private static final byte FLAG_BTREE_ORDERED_STORE = 1 << 3;
+    private static final byte FLAG_BITMAP = 1 << 4;
 
     @Override
     protected void readExternalImpl(ObjectInput in)
@@ -144,6 +180,9 @@ public abstract class AbstractSpaceIndex extends AbstractExternalizable implemen
         final byte flags = in.readByte();
 
         _isUnique = ((flags & FLAG_UNIQUE) != 0);
+        _isOffHeap = ((flags & FLAG_OFF_HEAP) != 0);
+        _orderedIndexStore = (flags & FLAG_BTREE_ORDERED_STORE) != 0 ? OrderedIndexStore.BTREE : OrderedIndexStore.SKIP_LIST;
+        _isBitmap = ((flags & FLAG_BITMAP) != 0);
 
         if ((flags & FLAG_VERSION) != 0) {
             PlatformLogicalVersion version = (PlatformLogicalVersion) in.readObject();
@@ -184,6 +223,12 @@ public abstract class AbstractSpaceIndex extends AbstractExternalizable implemen
 
         if (_isUnique)
             flags |= FLAG_UNIQUE;
+        if (_isOffHeap)
+            flags |= FLAG_OFF_HEAP;
+        if (_orderedIndexStore == OrderedIndexStore.BTREE)
+            flags |= FLAG_BTREE_ORDERED_STORE;
+        if (_isBitmap)
+            flags |= FLAG_BITMAP;
         return flags;
     }
 
@@ -205,6 +250,7 @@ public abstract class AbstractSpaceIndex extends AbstractExternalizable implemen
 
     @Override
     public String toString() {
-        return "SpaceIndex[name=" + _name + ", type=" + _indexType + ", unique=" + _isUnique + "]";
+        return "SpaceIndex[name=" + _name + ", type=" + _indexType + ", unique=" + _isUnique + (_isOffHeap ? ", offHeap=true" : "")
+                + (_orderedIndexStore != OrderedIndexStore.SKIP_LIST ? ", orderedStore=" + _orderedIndexStore : "") + (_isBitmap ? ", bitmap=true" : "") + "]";
     }
 }
@@ -67,6 +67,42 @@ public interface ISpaceIndex extends SpaceIndex, SmartExternalizable, ISwapExter
      */
     void setUnique(boolean val);
 
+    /**
+     * @return true if the index entries are stored outside of the Java heap
+     * @since 16.4.0
+     */
+    boolean isOffHeap();
+
+    /**
+     * sets the off-heap storage indicator to the desired value.
+     * @since 16.4.0
+     */
+    void setOffHeap(boolean val);
+
+    /**
+     * @return the data structure backing the ordered part of the index
+     * @since 16.4.0
+     */
+    OrderedIndexStore getOrderedIndexStore();
+
+    /**
+     * sets the data structure backing the ordered part of the index.
+     * @since 16.4.0
+     */
+    void setOrderedIndexStore(OrderedIndexStore orderedIndexStore);
+
+    /**
+     * @return true if a bitmap of the entries of each value is kept for the index
+     * @since 16.4.0
+     */
+    boolean isBitmap();
+
+    /**
+     * sets the bitmap indicator to the desired value.
+     * @since 16.4.0
+     */
+    void setBitmap(boolean val);
+
 
     /**
      * @return the value that will be used to index the data
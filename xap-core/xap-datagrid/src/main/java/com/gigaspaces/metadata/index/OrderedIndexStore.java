@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.metadata.index;
+
+/**
+ * Determines the data structure backing the ordered part of an {@link SpaceIndexType#ORDERED} or
+ * {@link SpaceIndexType#EQUAL_AND_ORDERED} index.
+ *
+ * @since 16.4.0
+ */
+public enum OrderedIndexStore {
+    /**
+     * Default value - a concurrent skip list, supports any comparable property type.
+     */
+    SKIP_LIST,
+    /**
+     * A B+-tree keeping unboxed keys in contiguous arrays, which makes range scans more cache
+     * friendly. Applies to integral properties (long, int, short, byte, char and their wrappers),
+     * indexes of other properties use a {@link #SKIP_LIST}.
+     */
+    BTREE
+}
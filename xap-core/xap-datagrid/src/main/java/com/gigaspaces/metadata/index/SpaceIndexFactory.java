@@ -56,6 +56,55 @@ public class SpaceIndexFactory {
         return createPathIndex_Impl(propertyName, indexType, unique);
     }
 
+    /**
+     * Creates a space index for the specified property with the specified index type.
+     *
+     * @param propertyName Name of property to index.
+     * @param indexType    type of index.
+     * @param unique       tre if unique index.
+     * @param offHeap      true if the index should be stored outside of the Java heap. Applies to
+     *                     equality indexes of integral properties (long, int, short, byte, char),
+     *                     other indexes are kept on heap.
+     * @return A space index for the specified property.
+     * @since 16.4.0
+     */
+    public static SpaceIndex createPropertyIndex(String propertyName, SpaceIndexType indexType, boolean unique, boolean offHeap) {
+        SpaceIndex index = createPathIndex_Impl(propertyName, indexType, unique);
+        ((ISpaceIndex) index).setOffHeap(offHeap);
+        return index;
+    }
+
+    /**
+     * Creates a space index for the specified property with the specified index type.
+     *
+     * @param propertyName      Name of property to index.
+     * @param indexType         type of index.
+     * @param unique            tre if unique index.
+     * @param orderedIndexStore data structure backing the ordered part of the index, relevant for
+     *                          ordered indexes only.
+     * @return A space index for the specified property.
+     * @since 16.4.0
+     */
+    public static SpaceIndex createPropertyIndex(String propertyName, SpaceIndexType indexType, boolean unique, OrderedIndexStore orderedIndexStore) {
+        SpaceIndex index = createPathIndex_Impl(propertyName, indexType, unique);
+        ((ISpaceIndex) index).setOrderedIndexStore(orderedIndexStore);
+        return index;
+    }
+
+    /**
+     * Creates an equality index for the specified property which keeps a compressed bitmap of the
+     * entries of each value, suited to low-cardinality properties.
+     *
+     * @param propertyName Name of property to index.
+     * @return A space index for the specified property.
+     * @since 16.4.0
+     */
+    public static SpaceIndex createBitmapPropertyIndex(String propertyName) {
+        SpaceIndex index = createPathIndex_Impl(propertyName, SpaceIndexType.EQUAL, false);
+        ((ISpaceIndex) index).setBitmap(true);
+        return index;
+    }
+
     /**
      * Creates a space index for the specified path with the specified index type.
      *
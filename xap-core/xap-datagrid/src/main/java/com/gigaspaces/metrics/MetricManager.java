@@ -16,6 +16,7 @@
 
 package com.gigaspaces.metrics;
 
+import com.gigaspaces.internal.lrmi.LRMILatencyMonitor;
 import com.gigaspaces.internal.os.ProcessCpuSampler;
 import com.gigaspaces.internal.os.ProcessCpuSamplerFactory;
 import com.gigaspaces.internal.oshi.OshiChecker;
@@ -25,10 +26,16 @@ import com.gigaspaces.internal.utils.GsEnv;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.ConnectionPool;
+import com.gigaspaces.lrmi.DirectByteBufferPool;
 import com.gigaspaces.lrmi.LRMIRuntime;
+import com.gigaspaces.lrmi.OperationClass;
 import com.gigaspaces.lrmi.nio.CPeer;
+import com.gigaspaces.lrmi.nio.PacketCompressor;
 import com.gigaspaces.lrmi.nio.Reader;
 import com.gigaspaces.lrmi.nio.Writer;
+import com.gigaspaces.lrmi.nio.async.RequestScheduler;
+import com.gigaspaces.lrmi.nio.selector.handler.AbstractSelectorThread;
+import com.gigaspaces.lrmi.nio.async.VirtualThreadExecutor;
 import com.gigaspaces.metrics.factories.*;
 import com.gigaspaces.start.SystemBoot;
 import com.gigaspaces.start.SystemInfo;
@@ -399,12 +406,90 @@ public class MetricManager implements Closeable {
         registrator.register("received-traffic", new LongCounter(Reader.getReceivedTrafficCounter()));
         registrator.register("generated-traffic", new LongCounter(Writer.getGeneratedTrafficCounter()));
         registrator.register("pending-writes", new LongCounter(Writer.getPendingWritesCounter()));
+        registrator.register(registrator.toPath("write-coalescing", "writes"), new LongCounter(Writer.getCoalescedWritesCounter()));
+        registrator.register(registrator.toPath("write-coalescing", "packets"), new LongCounter(Writer.getCoalescedPacketsCounter()));
+        registrator.register(registrator.toPath("write-coalescing", "delay-micros"), new LongCounter(Writer.getCoalescingDelayCounter()));
+        registrator.register(registrator.toPath("compression", "compressed-packets"), new LongCounter(PacketCompressor.getCompressedPacketsCounter()));
+        registrator.register(registrator.toPath("compression", "poorly-compressed-packets"), new LongCounter(PacketCompressor.getPoorlyCompressedPacketsCounter()));
+        registrator.register(registrator.toPath("compression", "bytes-saved"), new LongCounter(PacketCompressor.getBytesSavedCounter()));
+        registrator.register(registrator.toPath("compression", "compress-micros"), new LongCounter(PacketCompressor.getCompressionTimeCounter()));
+        registrator.register(registrator.toPath("compression", "decompress-micros"), new LongCounter(PacketCompressor.getDecompressionTimeCounter()));
+        registrator.register(registrator.toPath("selector", "wakeups"), new LongCounter(AbstractSelectorThread.getWakeupsCounter()));
+        registrator.register(registrator.toPath("selector", "empty-wakeups"), new LongCounter(AbstractSelectorThread.getEmptyWakeupsCounter()));
+        registrator.register(registrator.toPath("selector", "spin-wakeups"), new LongCounter(AbstractSelectorThread.getSpinWakeupsCounter()));
+        registrator.register(registrator.toPath("selector", "ready-keys"), new LongCounter(AbstractSelectorThread.getReadyKeysCounter()));
         registrator.register(MetricConstants.CONNECTIONS_METRIC_NAME, new LongCounter(CPeer.getConnectionsCounter()));
         registrator.register(MetricConstants.ACTIVE_CONNECTIONS_METRIC_NAME, new LongCounter(ConnectionPool.getActiveConnectionsCounter()));
+        final DirectByteBufferPool directBufferPool = DirectByteBufferPool.getDefaultPool();
+        if (directBufferPool != null) {
+            MetricRegistrator poolRegistrator = registrator.extend("direct-buffer-pool");
+            poolRegistrator.register("pooled-bytes", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return directBufferPool.getPooledBytes();
+                }
+            });
+            poolRegistrator.register("leased-buffers", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return directBufferPool.getLeasedBuffers();
+                }
+            });
+            poolRegistrator.register("hits", new LongCounter(directBufferPool.getHitsCounter()));
+            poolRegistrator.register("misses", new LongCounter(directBufferPool.getMissesCounter()));
+            poolRegistrator.register("leaks", new LongCounter(directBufferPool.getLeaksCounter()));
+        }
         registerThreadPoolMetrics(registrator.extend("connection-pool"), lrmiRuntime.getThreadPool());
         registerThreadPoolMetrics(registrator.extend("liveness-pool"), lrmiRuntime.getLivenessPriorityThreadPool());
         registerThreadPoolMetrics(registrator.extend("monitoring-pool"), lrmiRuntime.getMonitoringPriorityThreadPool());
         registerThreadPoolMetrics(registrator.extend("custom-pool"), lrmiRuntime.getCustomThreadPool());
+        final VirtualThreadExecutor virtualThreadExecutor = lrmiRuntime.getVirtualThreadExecutor();
+        if (virtualThreadExecutor != null) {
+            MetricRegistrator virtualRegistrator = registrator.extend("virtual-threads");
+            virtualRegistrator.register("active-threads", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() throws Exception {
+                    return virtualThreadExecutor.getActiveCount();
+                }
+            });
+            virtualRegistrator.register("overflow-tasks", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return virtualThreadExecutor.getOverflowTaskCount();
+                }
+            });
+            virtualRegistrator.register("completed-tasks", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return virtualThreadExecutor.getCompletedTaskCount();
+                }
+            });
+        }
+        final LRMILatencyMonitor latencyMonitor = LRMILatencyMonitor.getDefault();
+        if (latencyMonitor != null)
+            latencyMonitor.setRegistrator(registrator.extend("latency"));
+        final RequestScheduler requestScheduler = lrmiRuntime.getRequestScheduler();
+        if (requestScheduler != null) {
+            MetricRegistrator schedulerRegistrator = registrator.extend("scheduler");
+            schedulerRegistrator.register("running", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() throws Exception {
+                    return requestScheduler.getRunning();
+                }
+            });
+            for (final OperationClass operationClass : OperationClass.values()) {
+                MetricRegistrator classRegistrator = schedulerRegistrator.extend(operationClass.name().toLowerCase());
+                classRegistrator.register("queueSize", new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() throws Exception {
+                        return requestScheduler.getQueueSize(operationClass);
+                    }
+                });
+                classRegistrator.register("dispatched", new LongCounter(requestScheduler.getDispatchedCounter(operationClass)));
+                classRegistrator.register("wait-micros", new LongCounter(requestScheduler.getWaitTimeCounter(operationClass)));
+                classRegistrator.register("rejected", new LongCounter(requestScheduler.getRejectedCounter(operationClass)));
+            }
+        }
         return registrator;
     }
 
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.metrics.internal;
+
+import com.gigaspaces.metrics.MetricRegistrator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in microseconds, with fixed log-linear buckets in the spirit of
+ * HdrHistogram: values below {@value #SUB_BUCKETS} are counted exactly, and each power of two
+ * above it is split into {@value #SUB_BUCKETS} buckets, so any recorded value is reported within
+ * about 3% of itself. Recording is lock free and allocation free, values above an hour are counted
+ * as an hour.
+ *
+ * <p>The percentiles are {@linkplain #register registered} as gauges of the values recorded since
+ * the previous sample.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = TimeUnit.HOURS.toMicros(1);
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    // only accessed by the metric sampler
+    private long[] _previousCounts = new long[BUCKETS];
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        _counts.incrementAndGet(indexOf(Math.max(0, Math.min(micros, MAX_VALUE))));
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + mantissa - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the highest value counted in the bucket of the given index.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * @return the values recorded since the previous call, should be called by a single thread.
+     */
+    public Snapshot intervalSnapshot() {
+        long[] counts = new long[BUCKETS];
+        long[] delta = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = _counts.get(i);
+            delta[i] = counts[i] - _previousCounts[i];
+        }
+        _previousCounts = counts;
+        return new Snapshot(delta);
+    }
+
+    /**
+     * Registers the count, percentiles and maximum of each sample, the values of a sample with no
+     * recorded latencies are omitted.
+     */
+    public void register(MetricRegistrator registrator) {
+        final GaugeContextProvider<Snapshot> context = new GaugeContextProvider<Snapshot>() {
+            @Override
+            protected Snapshot loadValue() {
+                return intervalSnapshot();
+            }
+        };
+        registrator.register("count", new InternalGauge<Long>(context) {
+            @Override
+            public Long getValue() {
+                return context.get().getCount();
+            }
+        });
+        registerPercentile(registrator, context, "p50", 50);
+        registerPercentile(registrator, context, "p90", 90);
+        registerPercentile(registrator, context, "p99", 99);
+        registerPercentile(registrator, context, "p999", 99.9);
+        registerPercentile(registrator, context, "max", 100);
+    }
+
+    private static void registerPercentile(MetricRegistrator registrator, final GaugeContextProvider<Snapshot> context, String name, final double percentile) {
+        registrator.register(name, new InternalGauge<Long>(context) {
+            @Override
+            public Long getValue() {
+                Snapshot snapshot = context.get();
+                return snapshot.getCount() == 0 ? null : snapshot.getValueAtPercentile(percentile);
+            }
+        });
+    }
+
+    public static class Snapshot {
+        private final long[] _counts;
+        private final long _count;
+
+        private Snapshot(long[] counts) {
+            long count = 0;
+            for (long c : counts)
+                count += c;
+            _counts = counts;
+            _count = count;
+        }
+
+        public long getCount() {
+            return _count;
+        }
+
+        /**
+         * @param percentile between 0 and 100.
+         * @return the value in microseconds which the given percentage of the values does not
+         * exceed, or 0 if no values were recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            long rank = Math.max(1, (long) Math.ceil(_count * Math.min(percentile, 100) / 100));
+            long seen = 0;
+            for (int i = 0; i < _counts.length; i++) {
+                seen += _counts[i];
+                if (seen >= rank)
+                    return highestValueOf(i);
+            }
+            return 0;
+        }
+
+        public long getMax() {
+            return getValueAtPercentile(100);
+        }
+    }
+}
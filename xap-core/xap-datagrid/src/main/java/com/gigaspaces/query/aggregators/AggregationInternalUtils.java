@@ -20,6 +20,7 @@ package com.gigaspaces.query.aggregators;
 import com.gigaspaces.client.iterator.internal.SpaceIteratorAggregator;
 import com.gigaspaces.internal.query.RawEntryConverter;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +37,7 @@ import java.util.Set;
 public class AggregationInternalUtils {
 
     private static final Set<Class> _certifiedAggregators = initCertifiedAggregators();
+    private static final Set<Class> _batchAggregators = initBatchAggregators();
 
     private static Set<Class> initCertifiedAggregators() {
         Set<Class> result = new HashSet<Class>();
@@ -55,6 +57,17 @@ public class AggregationInternalUtils {
         return result;
     }
 
+    private static Set<Class> initBatchAggregators() {
+        Set<Class> result = new HashSet<Class>();
+        result.add(CountAggregator.class);
+        result.add(SumAggregator.class);
+        result.add(AverageAggregator.class);
+        result.add(MaxValueAggregator.class);
+        result.add(MinValueAggregator.class);
+        result.add(GroupByAggregator.class);
+        return result;
+    }
+
     public static List<SpaceEntriesAggregator> getAggregators(AggregationSet aggregationSet) {
         return aggregationSet.getAggregators();
     }
@@ -94,7 +107,41 @@ public class AggregationInternalUtils {
         return false;
     }
 
+    /**
+     * @return true if the aggregator can aggregate a batch of entries at once. Only the exact
+     * built-in classes qualify, since subclasses may override the per-entry aggregation.
+     */
+    public static boolean isBatchAggregator(SpaceEntriesAggregator aggregator) {
+        if (!_batchAggregators.contains(aggregator.getClass()))
+            return false;
+        return !(aggregator instanceof AbstractPathAggregator) || ((AbstractPathAggregator) aggregator).getFunctionCallColumn() == null;
+    }
+
+    public static boolean containsBatchAggregators(Collection<SpaceEntriesAggregator> aggregators) {
+        for (SpaceEntriesAggregator aggregator : aggregators) {
+            if (isBatchAggregator(aggregator))
+                return true;
+        }
+        return false;
+    }
+
+    public static boolean containsOnlyBatchAggregators(Collection<SpaceEntriesAggregator> aggregators) {
+        for (SpaceEntriesAggregator aggregator : aggregators) {
+            if (!isBatchAggregator(aggregator))
+                return false;
+        }
+        return true;
+    }
+
     public static List<SpaceEntriesAggregator> getSelectors(GroupByAggregator aggregator) {
         return aggregator.getSelectAggregators();
     }
+
+    public static boolean isWidest(SumAggregator aggregator) {
+        return aggregator.isWidest();
+    }
+
+    public static boolean isWidest(AverageAggregator aggregator) {
+        return aggregator.isWidest();
+    }
 }
@@ -52,6 +52,20 @@ public class AverageAggregator extends AbstractPathAggregator<AverageAggregator.
             result = result != null ? result.add(value, 1) : new AverageTuple(value, widest);
     }
 
+    @Override
+    void aggregateBatch(SpaceEntriesAggregatorContext context, int[] rows, int numRows) {
+        Object[] values = context.getBatchPathValues(getPath());
+        long count = BatchAggregationUtils.countNonNull(values, rows, numRows);
+        if (count == 0)
+            return;
+        if (result == null) {
+            result = new AverageTuple();
+            result.widest = widest;
+        }
+        result.sum = BatchAggregationUtils.sum(result.sum, values, rows, numRows, widest);
+        result.count += count;
+    }
+
     @Override
     public void aggregateIntermediateResult(AverageTuple partitionResult) {
         if (result == null)
@@ -80,6 +94,10 @@ public class AverageAggregator extends AbstractPathAggregator<AverageAggregator.
         return this;
     }
 
+    boolean isWidest() {
+        return widest;
+    }
+
     public static class AverageTuple implements SmartExternalizable {
 
         private static final long serialVersionUID = 1L;
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.query.aggregators;
+
+import com.gigaspaces.internal.utils.math.MutableByte;
+import com.gigaspaces.internal.utils.math.MutableDouble;
+import com.gigaspaces.internal.utils.math.MutableFloat;
+import com.gigaspaces.internal.utils.math.MutableInteger;
+import com.gigaspaces.internal.utils.math.MutableLong;
+import com.gigaspaces.internal.utils.math.MutableNumber;
+import com.gigaspaces.internal.utils.math.MutableShort;
+
+/**
+ * Primitive loops over the path values of a batch of entries, shared by the built-in aggregators.
+ * Each loop produces the same result as aggregating the rows one by one in order.
+ *
+ * @since 16.4.0
+ */
+class BatchAggregationUtils {
+
+    private BatchAggregationUtils() {
+    }
+
+    static long countNonNull(Object[] values, int[] rows, int numRows) {
+        long count = 0;
+        for (int i = 0; i < numRows; i++) {
+            if (values[rows[i]] != null)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Adds the non-null values of the rows to the specified sum, creating it from the class of the
+     * first value if it is null.
+     *
+     * @return the sum, which may be a different instance than the specified one
+     */
+    static MutableNumber sum(MutableNumber sum, Object[] values, int[] rows, int numRows, boolean widest) {
+        int i = 0;
+        if (sum == null) {
+            while (i < numRows && values[rows[i]] == null)
+                i++;
+            if (i == numRows)
+                return null;
+            sum = MutableNumber.fromClass(values[rows[i]].getClass(), widest);
+        }
+
+        if (sum instanceof MutableLong || sum instanceof MutableInteger || sum instanceof MutableShort || sum instanceof MutableByte) {
+            // integral sums wrap around, so the values can be added in any order
+            long result = 0;
+            for (; i < numRows; i++) {
+                Object value = values[rows[i]];
+                if (value == null)
+                    continue;
+                if (isIntegral(value.getClass()))
+                    result += ((Number) value).longValue();
+                else
+                    sum.add((Number) value);
+            }
+            sum.add(result);
+            return sum;
+        }
+        if (sum instanceof MutableDouble) {
+            double result = sum.toNumber().doubleValue();
+            for (; i < numRows; i++) {
+                Object value = values[rows[i]];
+                if (value != null)
+                    result += ((Number) value).doubleValue();
+            }
+            sum = new MutableDouble();
+            sum.add(result);
+            return sum;
+        }
+        if (sum instanceof MutableFloat) {
+            float result = sum.toNumber().floatValue();
+            for (; i < numRows; i++) {
+                Object value = values[rows[i]];
+                if (value != null)
+                    result += ((Number) value).floatValue();
+            }
+            sum = new MutableFloat();
+            sum.add(result);
+            return sum;
+        }
+        for (; i < numRows; i++) {
+            Object value = values[rows[i]];
+            if (value != null)
+                sum.add((Number) value);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the first minimal (or maximal) non-null value of the rows, or null if all values are
+     * null or are not of a single primitive wrapper class, in which case the caller should compare
+     * the values one by one.
+     */
+    static Object selectPrimitive(Object[] values, int[] rows, int numRows, boolean max) {
+        Object result = null;
+        int i = 0;
+        while (i < numRows && (result = values[rows[i]]) == null)
+            i++;
+        if (result == null)
+            return null;
+        final Class<?> type = result.getClass();
+        if (isIntegral(type)) {
+            long resultValue = ((Number) result).longValue();
+            for (i++; i < numRows; i++) {
+                Object value = values[rows[i]];
+                if (value == null)
+                    continue;
+                if (value.getClass() != type)
+                    return null;
+                long longValue = ((Number) value).longValue();
+                if (max ? longValue > resultValue : longValue < resultValue) {
+                    result = value;
+                    resultValue = longValue;
+                }
+            }
+            return result;
+        }
+        if (type == Double.class || type == Float.class) {
+            // same order as Double.compareTo and Float.compareTo
+            double resultValue = ((Number) result).doubleValue();
+            for (i++; i < numRows; i++) {
+                Object value = values[rows[i]];
+                if (value == null)
+                    continue;
+                if (value.getClass() != type)
+                    return null;
+                double doubleValue = ((Number) value).doubleValue();
+                int compare = Double.compare(doubleValue, resultValue);
+                if (max ? compare > 0 : compare < 0) {
+                    result = value;
+                    resultValue = doubleValue;
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+    }
+}
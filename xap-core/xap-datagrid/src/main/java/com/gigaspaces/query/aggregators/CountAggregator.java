@@ -52,6 +52,14 @@ public class CountAggregator extends AbstractPathAggregator<Long> {
             result++;
     }
 
+    @Override
+    void aggregateBatch(SpaceEntriesAggregatorContext context, int[] rows, int numRows) {
+        if (getPath() == null)
+            result += numRows;
+        else
+            result += BatchAggregationUtils.countNonNull(context.getBatchPathValues(getPath()), rows, numRows);
+    }
+
     @Override
     public void aggregateIntermediateResult(Long partitionResult) {
         this.result += partitionResult;
@@ -29,6 +29,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -139,6 +140,53 @@ public class GroupByAggregator extends SpaceEntriesAggregator<GroupByResult> imp
             aggregator.aggregate(context);
     }
 
+    @Override
+    void aggregateBatch(SpaceEntriesAggregatorContext context, int[] rows, int numRows) {
+        if (map == null) {
+            map = new HashMap<GroupByKey, SpaceEntriesAggregator[]>();
+            key = new GroupByKey(groupByPaths.length);
+        }
+
+        // Split the rows by group, keeping their order within each group:
+        Object[][] pathValues = new Object[groupByPaths.length][];
+        for (int i = 0; i < groupByPaths.length; i++)
+            pathValues[i] = context.getBatchPathValues(groupByPaths[i]);
+        SingleValueFunctionAggregator[] functions = GroupByKey.getFunctions(groupByPaths, context);
+        Map<SpaceEntriesAggregator[], GroupRows> groups = new IdentityHashMap<SpaceEntriesAggregator[], GroupRows>();
+        GroupRows prevGroupRows = null;
+        SpaceEntriesAggregator[] prevGroup = null;
+        for (int i = 0; i < numRows; i++) {
+            key.initialize(pathValues, functions, rows[i]);
+            SpaceEntriesAggregator[] group = getOrCreate(key);
+            if (group != prevGroup) {
+                prevGroup = group;
+                prevGroupRows = groups.get(group);
+                if (prevGroupRows == null) {
+                    prevGroupRows = new GroupRows();
+                    groups.put(group, prevGroupRows);
+                }
+            }
+            prevGroupRows.add(rows[i]);
+        }
+
+        // Aggregate:
+        for (Map.Entry<SpaceEntriesAggregator[], GroupRows> entry : groups.entrySet()) {
+            for (SpaceEntriesAggregator aggregator : entry.getKey())
+                context.aggregateBatch(aggregator, entry.getValue().rows, entry.getValue().size);
+        }
+    }
+
+    private static class GroupRows {
+        private int[] rows = new int[8];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length)
+                rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+    }
+
     private SpaceEntriesAggregator[] getOrCreate(GroupByKey key) {
         SpaceEntriesAggregator[] group = map.get(key);
         if (group == null) {
@@ -20,6 +20,7 @@ package com.gigaspaces.query.aggregators;
 import com.gigaspaces.query.CompoundResult;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -81,6 +82,39 @@ public class GroupByKey extends CompoundResult {
         return true;
     }
 
+    /**
+     * @return the function applied to the value of each group by path by {@link
+     * #initialize(String[], SpaceEntriesAggregatorContext)}, null for paths without a function
+     */
+    static SingleValueFunctionAggregator[] getFunctions(String[] groupByPaths, SpaceEntriesAggregatorContext context) {
+        SingleValueFunctionAggregator[] functions = new SingleValueFunctionAggregator[groupByPaths.length];
+        for (SpaceEntriesAggregator aggregator : context.getAggregators()) {
+            if (aggregator instanceof GroupByAggregator) {
+                List<SpaceEntriesAggregator> selectAggregators = ((GroupByAggregator) aggregator).getAggregators();
+                for (int i = 0; i < groupByPaths.length && selectAggregators != null; i++) {
+                    for (SpaceEntriesAggregator selectAggregator : selectAggregators) {
+                        if (selectAggregator instanceof SingleValueFunctionAggregator
+                                && groupByPaths[i].equals(((SingleValueFunctionAggregator) selectAggregator).getPath())) {
+                            functions[i] = (SingleValueFunctionAggregator) selectAggregator;
+                            break;
+                        }
+                    }
+                }
+                break;
+            }
+        }
+        return functions;
+    }
+
+    /**
+     * Initializes the key from the group by values of a row of a batch.
+     */
+    void initialize(Object[][] pathValues, SingleValueFunctionAggregator[] functions, int row) {
+        hashCode = 0;
+        for (int i = 0; i < pathValues.length; i++)
+            values[i] = functions[i] != null ? functions[i].apply(pathValues[i][row]) : pathValues[i][row];
+    }
+
     protected void setNameIndex(Map<String, Integer> nameIndexMap) {
         this.nameIndexMap = nameIndexMap;
     }
@@ -42,6 +42,21 @@ public class MinValueAggregator<T extends Serializable & Comparable> extends Abs
             result = result == null || result.compareTo(value) > 0 ? value : result;
     }
 
+    @Override
+    void aggregateBatch(SpaceEntriesAggregatorContext context, int[] rows, int numRows) {
+        Object[] values = context.getBatchPathValues(getPath());
+        T value = (T) BatchAggregationUtils.selectPrimitive(values, rows, numRows, false);
+        if (value != null) {
+            result = result == null || result.compareTo(value) > 0 ? value : result;
+            return;
+        }
+        for (int i = 0; i < numRows; i++) {
+            value = (T) values[rows[i]];
+            if (value != null)
+                result = result == null || result.compareTo(value) > 0 ? value : result;
+        }
+    }
+
     @Override
     public void aggregateIntermediateResult(T partitionResult) {
         result = result == null || result.compareTo(partitionResult) > 0 ? partitionResult : result;
@@ -46,6 +46,14 @@ public abstract class SpaceEntriesAggregator<T extends Serializable> implements
 
     public abstract void aggregate(SpaceEntriesAggregatorContext context);
 
+    /**
+     * Aggregates the specified rows of the current batch of the context. Used only for the
+     * aggregators listed by {@link AggregationInternalUtils#isBatchAggregator}, which override it.
+     */
+    void aggregateBatch(SpaceEntriesAggregatorContext context, int[] rows, int numRows) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support batch aggregation");
+    }
+
     public abstract T getIntermediateResult();
 
     public abstract void aggregateIntermediateResult(T partitionResult);
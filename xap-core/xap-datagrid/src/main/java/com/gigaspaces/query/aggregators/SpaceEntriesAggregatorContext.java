@@ -31,6 +31,11 @@ public abstract class SpaceEntriesAggregatorContext {
 
     private final Collection<SpaceEntriesAggregator> aggregators;
     private final Map<String, Object> pathCache;
+    // values of each path for the rows of the current batch, extracted on first use
+    private final Map<String, Object[]> batchPathValues = new HashMap<String, Object[]>();
+    private int batchSize;
+    private int batchRow = -1;
+    private int[] allRows;
 
     protected SpaceEntriesAggregatorContext(Collection<SpaceEntriesAggregator> aggregators) {
         this.aggregators = aggregators;
@@ -38,6 +43,8 @@ public abstract class SpaceEntriesAggregatorContext {
     }
 
     public Object getPathValue(String path) {
+        if (batchRow != -1)
+            return getBatchPathValues(path)[batchRow];
         if (pathCache == null)
             return getPathValueImpl(path);
 
@@ -89,6 +96,80 @@ public abstract class SpaceEntriesAggregatorContext {
             aggregator.aggregate(this);
     }
 
+    /**
+     * Aggregates the <tt>size</tt> entries buffered by the context as one batch. Aggregators which
+     * support it aggregate the whole batch at once, using the values of each path extracted once
+     * for the batch, the others aggregate the entries of the batch one by one.
+     *
+     * @see #moveToBatchRow(int)
+     * @since 16.4.0
+     */
+    protected void aggregateBatch(int size) {
+        if (allRows == null || allRows.length < size) {
+            allRows = new int[size];
+            for (int i = 0; i < size; i++)
+                allRows[i] = i;
+        }
+        batchSize = size;
+        try {
+            for (SpaceEntriesAggregator aggregator : aggregators)
+                aggregateBatch(aggregator, allRows, size);
+        } finally {
+            batchRow = -1;
+            batchSize = 0;
+            batchPathValues.clear();
+        }
+    }
+
+    /**
+     * Positions the context on the specified entry of the current batch, so the entry accessors of
+     * the context return that entry. Contexts which call {@link #aggregateBatch(int)} must
+     * override it.
+     *
+     * @since 16.4.0
+     */
+    protected void moveToBatchRow(int row) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support batch aggregation");
+    }
+
+    void aggregateBatch(SpaceEntriesAggregator aggregator, int[] rows, int numRows) {
+        if (AggregationInternalUtils.isBatchAggregator(aggregator)) {
+            aggregator.aggregateBatch(this, rows, numRows);
+        } else {
+            for (int i = 0; i < numRows; i++) {
+                setBatchRow(rows[i]);
+                aggregator.aggregate(this);
+            }
+        }
+    }
+
+    /**
+     * @return the values of the specified path for each entry of the current batch, indexed by
+     * row
+     */
+    Object[] getBatchPathValues(String path) {
+        Object[] values = batchPathValues.get(path);
+        if (values == null) {
+            int currRow = batchRow;
+            values = new Object[batchSize];
+            for (int row = 0; row < batchSize; row++) {
+                moveToBatchRow(row);
+                values[row] = getPathValueImpl(path);
+            }
+            if (currRow != -1)
+                moveToBatchRow(currRow);
+            batchPathValues.put(path, values);
+        }
+        return values;
+    }
+
+    private void setBatchRow(int row) {
+        if (row != batchRow) {
+            moveToBatchRow(row);
+            batchRow = row;
+        }
+    }
+
     public Collection<SpaceEntriesAggregator> getAggregators() {
         return aggregators;
     }
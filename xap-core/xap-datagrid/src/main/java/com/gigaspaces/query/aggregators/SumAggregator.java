@@ -51,6 +51,11 @@ public class SumAggregator extends AbstractPathAggregator<MutableNumber> {
         add((Number) getPathValue(context));
     }
 
+    @Override
+    void aggregateBatch(SpaceEntriesAggregatorContext context, int[] rows, int numRows) {
+        result = BatchAggregationUtils.sum(result, context.getBatchPathValues(getPath()), rows, numRows, widest);
+    }
+
     @Override
     public MutableNumber getIntermediateResult() {
         return result;
@@ -82,6 +87,10 @@ public class SumAggregator extends AbstractPathAggregator<MutableNumber> {
         return this;
     }
 
+    boolean isWidest() {
+        return widest;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         super.writeExternal(out);
@@ -416,6 +416,14 @@ public interface Constants {
         String ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE = "engine.query.result.size.limit.memory.check.batch.size";
         String ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE_DEFAULT = "0";
 
+        //number of threads scanning the candidates of a single query in parallel, 0 scans them on the operation thread
+        String ENGINE_QUERY_PARALLEL_SCAN_THREADS = "engine.query.parallel-scan.threads";
+        String ENGINE_QUERY_PARALLEL_SCAN_THREADS_DEFAULT = "0";
+
+        //minimal number of candidates of a query scanned in parallel
+        String ENGINE_QUERY_PARALLEL_SCAN_MIN_ENTRIES = "engine.query.parallel-scan.min-entries";
+        String ENGINE_QUERY_PARALLEL_SCAN_MIN_ENTRIES_DEFAULT = "50000";
+
         String ENGINE_DEMOTE_MIN_TIMEOUT = "engine.demote.min-timeout";
         String ENGINE_DEMOTE_MIN_TIMEOUT_DEFAULT = "5s";
         String ENGINE_DEMOTE_COMPLETION_EVENT_TIMEOUT = "engine.demote.completion-event-timeout";
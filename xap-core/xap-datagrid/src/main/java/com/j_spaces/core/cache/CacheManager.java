@@ -30,6 +30,7 @@ import com.gigaspaces.internal.cluster.node.impl.directPersistency.ioImpl.Direct
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationChannelDataFilter;
 import com.gigaspaces.internal.cluster.node.impl.notification.NotificationReplicationChannelDataFilter;
 import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.query.BitmapIndexScanner;
 import com.gigaspaces.internal.query.ICustomQuery;
 import com.gigaspaces.internal.query.IQueryIndexScanner;
 import com.gigaspaces.internal.query.explainplan.*;
@@ -88,6 +89,7 @@ import com.j_spaces.core.cache.blobStore.recovery.BlobStoreRecoveryHelperWrapper
 import com.j_spaces.core.cache.blobStore.sadapter.BlobStoreFifoInitialLoader;
 import com.j_spaces.core.cache.blobStore.sadapter.BlobStoreStorageAdapter;
 import com.j_spaces.core.cache.blobStore.sadapter.IBlobStoreStorageAdapter;
+import com.j_spaces.core.cache.bitmap.BitmapEntriesIterator;
 import com.j_spaces.core.cache.context.Context;
 import com.j_spaces.core.cache.context.IndexMetricsContext;
 import com.j_spaces.core.cache.context.TemplateMatchTier;
@@ -209,6 +211,8 @@ public class CacheManager extends AbstractCacheManager
 
     final private long _recoveryLogInterval = Long.getLong(SystemProperties.CACHE_MANAGER_RECOVER_INTERVAL_LOG, SystemProperties.CACHE_MANAGER_RECOVER_INTERVAL_DEFAULT);
     final private boolean _logRecoveryProcess = Boolean.parseBoolean(System.getProperty(SystemProperties.CACHE_MANAGER_LOG_RECOVER_PROCESS, "true"));
+    final private int _initialLoadBatchSize = Integer.getInteger(SystemProperties.CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE, SystemProperties.CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE_DEFAULT);
+    final private boolean _writeMultipleBatchIndexing = Boolean.parseBoolean(System.getProperty(SystemProperties.CACHE_MANAGER_WRITE_MULTIPLE_BATCH_INDEXING, String.valueOf(SystemProperties.CACHE_MANAGER_WRITE_MULTIPLE_BATCH_INDEXING_DEFAULT)));
 
     private boolean _partialUpdateReplication;
 
@@ -1077,6 +1081,15 @@ public class CacheManager extends AbstractCacheManager
                             insertBlobStoreEntryToCache = _replicationNode.getDirectPesistencySyncHandler().getEmbeddedSyncHandler().getInitialLoadHandler().onLoadingEntry(eh);
                         }
                         if (insertBlobStoreEntryToCache) {
+                            final TypeData batchTypeData = getInitialLoadBatchTypeData(eh);
+                            if (batchTypeData != null) {
+                                _engine.getMemoryManager().monitorMemoryUsage(true);
+                                if (initialLoadInfo.getBatchTypeData() != null && initialLoadInfo.getBatchTypeData() != batchTypeData)
+                                    insertInitialLoadBatchToCache(context, initialLoadInfo);
+                                if (initialLoadInfo.addToBatch(eh, batchTypeData, _initialLoadBatchSize))
+                                    insertInitialLoadBatchToCache(context, initialLoadInfo);
+                                continue; //counted when the batch is inserted
+                            }
                             safeInsertEntryToCache(context, eh, false /* newEntry */, null /*pType*/, false /*pin*/, entryFromBlobStore ? InitialLoadOrigin.FROM_BLOBSTORE : InitialLoadOrigin.FROM_EXTERNAL_DATA_SOURCE /*fromInitialLoad*/);
                         } else {
                             continue;
@@ -1095,6 +1108,8 @@ public class CacheManager extends AbstractCacheManager
                     initialLoadInfo.setLastLoggedTime(logInsertionIfNeeded(initialLoadInfo.getRecoveryStartTime(), initialLoadInfo.getLastLoggedTime(), initialLoadInfo.getInsertedToCache()));
 
                 } //while
+                if (initialLoadInfo.getBatchSize() > 0)
+                    insertInitialLoadBatchToCache(context, initialLoadInfo);
             }
             //any sorted blobStore entries ?
             if (isBlobStoreCachePolicy() && !initialLoadInfo.getBlobStoreFifoInitialLoader().isEmpty()) {
@@ -1117,6 +1132,141 @@ public class CacheManager extends AbstractCacheManager
         }
     }
 
+    /**
+     * @return the type data of an entry loaded from the data source if it can be inserted to cache
+     * as part of a batch, null if it should be inserted by itself
+     */
+    private TypeData getInitialLoadBatchTypeData(IEntryHolder eh) {
+        if (_initialLoadBatchSize <= 1 || isBlobStoreCachePolicy() || isEvictableFromSpaceCachePolicy() || isMVCCEnabled())
+            return null;
+        final TypeData typeData = _typeDataMap.get(eh.getServerTypeDesc());
+        return typeData.isFifoSupport() || typeData.getFifoGroupingIndex() != null ? null : typeData;
+    }
+
+    /**
+     * Inserts the entries batched by the initial load to cache and indexes them one index at a
+     * time.
+     */
+    private void insertInitialLoadBatchToCache(Context context, InitialLoadInfo initialLoadInfo) {
+        final TypeData typeData = initialLoadInfo.getBatchTypeData();
+        final IEntryHolder[] batch = initialLoadInfo.getBatch();
+        final int batchSize = initialLoadInfo.getBatchSize();
+        final IServerTypeDesc serverTypeDesc = batch[0].getServerTypeDesc();
+        final IEntryCacheInfo[] entries = new IEntryCacheInfo[batchSize];
+        int count = 0;
+        for (int i = 0; i < batchSize; i++) {
+            IEntryCacheInfo pEntry = EntryCacheInfoFactory.createEntryCacheInfo(batch[i], typeData.numberOfBackRefs(), false /*pin*/, getEngine());
+            if (_entries.putIfAbsent(pEntry.getUID(), pEntry) == null)
+                entries[count++] = pEntry;
+            else
+                initialLoadInfo.getInitialLoadErrors().add("Object with duplicate uid -  [" + batch[i].getClassName() + ":" + batch[i].getUID() + "]");
+        }
+        initialLoadInfo.clearBatch();
+
+        try {
+            insertEntriesReferencesOrRemove(context, entries, count, typeData);
+        } catch (RuntimeException ex) {
+            if (_logger.isErrorEnabled())
+                _logger.error(" insertion of initial load batch problem type=" + serverTypeDesc.getTypeName() + " size=" + count, ex);
+            throw ex;
+        }
+
+        for (int i = 0; i < count; i++) {
+            IEntryCacheInfo pEntry = entries[i];
+            _leaseManager.registerEntryLease(pEntry, pEntry.getEntryHolder(this).getEntryData().getExpirationTime());
+            initialLoadInfo.incrementInsertedToCache();
+        }
+        initialLoadInfo.setLastLoggedTime(logInsertionIfNeeded(initialLoadInfo.getRecoveryStartTime(), initialLoadInfo.getLastLoggedTime(), initialLoadInfo.getInsertedToCache()));
+    }
+
+    /**
+     * Inserts the refs of a batch of entries of the same type which are already in the uid map.
+     * If it fails, the entries are removed from cache and from their transaction.
+     */
+    private void insertEntriesReferencesOrRemove(Context context, IEntryCacheInfo[] entries, int count, TypeData typeData) {
+        if (count == 0)
+            return;
+        try {
+            insertEntriesReferences(context, entries, count, typeData);
+            //a new index may have been added while indexing the batch
+            if (typeData.supportsDynamicIndexing() && typeData.isTypeDataReplaced()) {
+                TypeData currentTypeData = _typeDataMap.get(entries[0].getEntryHolder(this).getServerTypeDesc());
+                for (int i = 0; i < count; i++)
+                    TypeDataIndex.reindexEntry(this, entries[i], currentTypeData);
+            }
+        } catch (RuntimeException ex) {
+            for (int i = 0; i < count; i++) {
+                IEntryCacheInfo pEntry = entries[i];
+                IEntryHolder entryHolder = pEntry.getEntryHolder(this);
+                pEntry.setRemoved();
+                entryHolder.setDeleted(true);
+                try {//remove the index refs inserted so far, the back refs tell how far each entry got
+                    if (pEntry.getMainListBackRef() != null)
+                        removeEntryReferences(pEntry, typeData, Math.max(context.getNumOfIndexesInserted(), 1)/*onError*/);
+                } catch (Exception ex1) {
+                }//suppress
+                XtnEntry xtnEntry = entryHolder.getXidOriginated();
+                if (xtnEntry != null) {
+                    try {
+                        xtnEntry.getXtnData().removeFromNewEntries(pEntry);
+                        disconnectEntryFromXtn(context, entryHolder, xtnEntry, false/*XtnEnd*/);
+                    } catch (Exception ex1) {
+                    }//suppress
+                }
+                _entries.remove(pEntry.getUID(), pEntry);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @return true if the refs of a new entry written by a transactional writeMultiple can be
+     * inserted with the rest of the operation entries of its type, see {@link
+     * #insertPendingEntriesReferences(Context)}
+     */
+    private boolean isPendingEntryReferences(Context context, IEntryHolder entryHolder, TypeData typeData, boolean newEntry) {
+        return newEntry && context.getPendingEntriesReferences() != null && entryHolder.getXidOriginated() != null
+                && entryHolder.getEntryData().getExpirationTime() == Long.MAX_VALUE
+                && !typeData.hasSequenceNumber() && !typeData.isFifoSupport() && typeData.getFifoGroupingIndex() == null
+                && typeData.getNumUniqueIndexes() == 0;
+    }
+
+    /**
+     * @return true if the new entries of a writeMultiple under the transaction can be indexed as
+     * one batch per type at the end of the operation
+     */
+    public boolean isWriteMultipleBatchIndexingSupported() {
+        return _writeMultipleBatchIndexing && !isBlobStoreCachePolicy() && !isEvictableFromSpaceCachePolicy()
+                && !isTieredStorageCachePolicy() && !isMVCCEnabled();
+    }
+
+    /**
+     * Inserts the refs of the new entries of a transactional writeMultiple, one batch per type.
+     * Called before the transaction lock is released so the entries are indexed before any other
+     * operation of the transaction. Entries of a failed batch are removed from cache, the first
+     * failure is thrown after all the types are handled.
+     */
+    public void insertPendingEntriesReferences(Context context) {
+        final Map<TypeData, List<IEntryCacheInfo>> pending = context.getPendingEntriesReferences();
+        context.setPendingEntriesReferences(null);
+        if (pending == null)
+            return;
+        RuntimeException failure = null;
+        for (Map.Entry<TypeData, List<IEntryCacheInfo>> batch : pending.entrySet()) {
+            IEntryCacheInfo[] entries = batch.getValue().toArray(new IEntryCacheInfo[batch.getValue().size()]);
+            try {
+                insertEntriesReferencesOrRemove(context, entries, entries.length, batch.getKey());
+            } catch (RuntimeException ex) {
+                if (_logger.isErrorEnabled())
+                    _logger.error(" insertion of writeMultiple batch problem type=" + entries[0].getEntryHolder(this).getClassName() + " size=" + entries.length, ex);
+                if (failure == null)
+                    failure = ex;
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
     //in case types loaded from mirror verify they reside in ssd
     private void insertMetadataTypeToBlobstoreIfNeeded(IEntryHolder eh, Set<String> typesIn) {
         if (!eh.getServerTypeDesc().getTypeDesc().isBlobstoreEnabled() || typesIn.contains(eh.getServerTypeDesc().getTypeDesc().getTypeName()))
@@ -1310,6 +1460,12 @@ public class CacheManager extends AbstractCacheManager
 
         if (_replicationNode != null && _replicationNode.getDirectPesistencySyncHandler() != null)
             _replicationNode.getDirectPesistencySyncHandler().close();
+
+        for (IServerTypeDesc serverTypeDesc : getTypeManager().getSafeTypeTable().values()) {
+            TypeData typeData = _typeDataMap.get(serverTypeDesc);
+            if (typeData != null)
+                typeData.closeIndexes();
+        }
     }
 
     /**
@@ -3372,6 +3528,7 @@ public class CacheManager extends AbstractCacheManager
                 clearEntries(typeData, context);
                 clearTemplates(typeDesc.getTypeName());
                 _typeDataMap.remove(typeDesc);
+                typeData.closeIndexes();
             } catch (SAException ex) {
                 JSpaceUtilities.throwEngineInternalSpaceException(ex.getMessage(), ex);
             } finally {
@@ -3770,6 +3927,7 @@ public class CacheManager extends AbstractCacheManager
         boolean alreadyIn = false;
         boolean insertedToEvictionStrategy = false;
         boolean applySequenceNumber = newEntry && typeData.hasSequenceNumber() && !context.isFromReplication() && !_engine.isLocalCache();
+        final boolean pendingReferences = isPendingEntryReferences(context, entryHolder, typeData, newEntry);
 
         if (newEntry && typeData.isFifoSupport()) {
             long xtnNum = getLatestTTransactionTerminationNum();
@@ -3832,11 +3990,14 @@ public class CacheManager extends AbstractCacheManager
                 return (res = oldEntry);
             }
 
-            insertEntryReferences(context, pEntry, typeData, applySequenceNumber);
+            if (pendingReferences)
+                context.clearNumOfIndexesInserted(); //refs are inserted at the end of the writeMultiple
+            else
+                insertEntryReferences(context, pEntry, typeData, applySequenceNumber);
             //after inserting entry references- we recheck the type-data in order
             //to check if new index was added in order to prevent entry insertion that is missing
             // ad added index- checking a barrier
-            if (!recheckedTypeData && typeData.supportsDynamicIndexing() && typeData.isTypeDataReplaced()) {
+            if (!pendingReferences && !recheckedTypeData && typeData.supportsDynamicIndexing() && typeData.isTypeDataReplaced()) {
                 recheckedTypeData = true;
                 typeData = _typeDataMap.get(entryHolder.getServerTypeDesc());
                 TypeDataIndex.reindexEntry(this, pEntry, typeData);
@@ -3878,6 +4039,12 @@ public class CacheManager extends AbstractCacheManager
                 _cacheSize.incrementAndGet();
             if (newEntry && pEntry.isBlobStoreEntry() && isDirectPersistencyEmbeddedtHandlerUsed())
                 _engine.getReplicationNode().getDirectPesistencySyncHandler().getEmbeddedSyncHandler().onSpaceOpRemovePhantomIfExists(pEntry.getUID());
+            if (pendingReferences) {
+                List<IEntryCacheInfo> batch = context.getPendingEntriesReferences().get(typeData);
+                if (batch == null)
+                    context.getPendingEntriesReferences().put(typeData, batch = new ArrayList<IEntryCacheInfo>());
+                batch.add(pEntry);
+            }
             return (res = pEntry);
         } catch (Exception ex) {
             //if execption thrown in process mark entry as removed
@@ -3885,7 +4052,8 @@ public class CacheManager extends AbstractCacheManager
             pEntry.getEntryHolder(this).setDeleted(true);
 
             try {//remove- if possible- index refs. done mainly to avoid unique values stuck in cache
-                removeEntryReferences(pEntry, typeData, context.getNumOfIndexesInserted()/*onError*/);
+                if (!pendingReferences)
+                    removeEntryReferences(pEntry, typeData, context.getNumOfIndexesInserted()/*onError*/);
             } catch (Exception ex1) {
             }//suppress
 
@@ -3989,6 +4157,52 @@ public class CacheManager extends AbstractCacheManager
                     pEntry.getBackRefs().set(sequenceNumPlaceHolderPos + 1, pEntry.getBackRefs().remove(curpos));
             }
         }
+
+        if (pType.getColumnarStore() != null)
+            pType.getColumnarStore().insert(pEntry, pEntry.getEntryHolder(this));
+    }
+
+
+    /**
+     * Inserts the refs of a batch of entries of the same type which are not visible to other
+     * operations yet. Each index is updated for the whole batch before the next one, so the back
+     * refs of every entry keep the order of {@link #insertEntryReferences}.
+     */
+    void insertEntriesReferences(Context context, IEntryCacheInfo[] entries, int count, TypeData pType) {
+        context.clearNumOfIndexesInserted();
+        for (int i = 0; i < count; i++)
+            entries[i].setMainListBackRef(pType.getEntries().add(entries[i]));
+
+        if (pType.hasIndexes()) {
+            int indexBuildNumber = 0;
+            for (TypeDataIndex index : pType.getIndexes()) {
+                if (pType.disableIdIndexForEntries(index))
+                    continue;
+                //counted before the index is updated, a failure may leave part of the batch indexed by it
+                context.incrementNumOfIndexesInserted();
+                index.insertEntriesIndexedField(entries, count, pType);
+                if (pType.supportsDynamicIndexing() && index.getIndexCreationNumber() > indexBuildNumber)
+                    indexBuildNumber = index.getIndexCreationNumber();
+            }
+
+            for (int i = 0; i < count; i++) {
+                IEntryCacheInfo pEntry = entries[i];
+                if (pType.supportsDynamicIndexing() && indexBuildNumber > 0 && indexBuildNumber > pEntry.getLatestIndexCreationNumber())
+                    pEntry.setLatestIndexCreationNumber(indexBuildNumber);
+                for (QueryExtensionIndexManagerWrapper queryExtensionIndexManager : pType.getForeignQueriesHandlers())
+                    queryExtensionIndexManager.insertEntry(new SpaceServerEntryImpl(pEntry, this), false /*fromTransactionalUpdate*/);
+            }
+        }
+
+        if (pType.hasSequenceNumber() && !_engine.isLocalCache()) {
+            for (int i = 0; i < count; i++) {
+                IEntryHolder entryHolder = entries[i].getEntryHolder(this);
+                pType.getSequenceNumberGenerator().updateIfGreater((Long) entryHolder.getEntryData().getFixedPropertyValue(entryHolder.getServerTypeDesc().getTypeDesc().getSequenceNumberFixedPropertyID()));
+            }
+        }
+
+        if (pType.getColumnarStore() != null)
+            pType.getColumnarStore().insert(entries, count, this);
     }
 
 
@@ -4139,6 +4353,8 @@ public class CacheManager extends AbstractCacheManager
             entryHolder.updateEntryData(newEntryData, newExpirationTime);
 
             typeData.updateEntryReferences(this, entryHolder, pEntry, originalEntryData);
+            if (typeData.getColumnarStore() != null)
+                typeData.getColumnarStore().update(pEntry, entryHolder.getEntryData());
 
             if (context.isReRegisterLeaseOnUpdate())
             //need to re-register in lease manager
@@ -4313,6 +4529,8 @@ public class CacheManager extends AbstractCacheManager
         boolean onError = numOfIndexesInsertedOnError > 0;
         int refpos = 1;
         pType.getEntries().remove(pEntry.getMainListBackRef());
+        if (pType.getColumnarStore() != null)
+            pType.getColumnarStore().remove(pEntry);
         int numIndexesProcessed = 0;
         if (pType.hasIndexes()) {
             IEntryData entryData = pEntry.getEntryHolder(this).getEntryData();
@@ -4890,13 +5108,13 @@ public class CacheManager extends AbstractCacheManager
         final boolean ignoreOrderedIndexes = entryType.getEntries().size() < _minExtendedIndexActivationSize && !context.isBlobStoreUsePureIndexesAccess();
         context.setIntersectionEnablment(entryType.isBlobStoreClass() && !template.isFifoGroupPoll());
         MultiIntersectedStoredList<IEntryCacheInfo> intersectedList = null;   //if index intersection desired
-        int uidsSize =Integer.MAX_VALUE;
+        int uidsSize =Integer.MAX_VALUE; //size of the shortest exact sized iterator (uids or bitmaps)
 
         final ICustomQuery customQuery = template.getCustomQuery();
         boolean indexUsed = false;
         String nameOfChosenCustomIndex = null;
         if (customQuery != null && customQuery.getCustomIndexes() != null) {
-            for (IQueryIndexScanner index : customQuery.getCustomIndexes()) {
+            for (IQueryIndexScanner index : BitmapIndexScanner.combine(customQuery.getCustomIndexes(), entryType, template, latestIndexToConsider, false /*union*/)) {
                 // Get entries in space that match the indexed value in the query (a.k.a potential match list):
                 IObjectsList result = index.getIndexedEntriesByType(context, entryType, template, latestIndexToConsider);
 
@@ -4923,14 +5141,16 @@ public class CacheManager extends AbstractCacheManager
                         final IScanListIterator resultScan = (IScanListIterator<IEntryCacheInfo>) result;
                         if (index.isUidsScanner()) {
                             uidsIter = (ScanUidsIterator) resultScan;
-                            uidsSize = uidsIter.size();
+                            uidsSize = Math.min(uidsSize, uidsIter.size());
+                        } else if (resultScan instanceof BitmapEntriesIterator) {
+                            uidsSize = Math.min(uidsSize, resultScan.size());
                         }
                         if (resultScan.hasSize()) {
                             if (resultOIS == null || resultScan.size() < resultOIS.size()) {
                                 resultOIS = resultScan;
                                 nameOfChosenCustomIndex = index.getIndexName();
                             }
-                        } else {
+                        } else if (uidsSize == Integer.MAX_VALUE) {
                             //can't compare, override with last result (might not be the optimal approach)
                             resultOIS = resultScan;
                             nameOfChosenCustomIndex = index.getIndexName();
@@ -5695,6 +5915,8 @@ public class CacheManager extends AbstractCacheManager
             keptEntryData = shadowEh.getEntryData();
             pmaster.setBackRefs(shadowEh.getBackRefs());
             pmaster.getEntryHolder(this).restoreUpdateXtnRollback(shadowEh.getEntryData());
+            if (pType.getColumnarStore() != null)
+                pType.getColumnarStore().update(pmaster, keptEntryData);
         } else {
             if (shadowEh.getNumOfLeaseUpdates() > 0  /*!pmaster.isSameLeaseManagerRef(shadowEh)*/)
                 _leaseManager.unregister(shadowEh, shadowEh.getEntryData().getExpirationTime());
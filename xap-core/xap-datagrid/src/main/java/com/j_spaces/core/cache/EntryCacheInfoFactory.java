@@ -20,6 +20,7 @@ import com.gigaspaces.internal.server.space.SpaceEngine;
 import com.gigaspaces.internal.server.storage.IEntryHolder;
 import com.j_spaces.core.cache.blobStore.BlobStoreRefEntryCacheInfo;
 import com.j_spaces.core.cache.blobStore.IBlobStoreEntryHolder;
+import com.j_spaces.core.cache.columnar.ColumnarEntryCacheInfo;
 import com.j_spaces.core.cache.mvcc.MVCCEntryCacheInfo;
 
 /*******************************************************************************
@@ -63,7 +64,9 @@ public class EntryCacheInfoFactory {
         return engine.getCacheManager().isEvictableFromSpaceCachePolicy() ?
                 new EvictableEntryCacheInfo(entryHolder, backRefsSize, pin)
                 : engine.isMvccEnabled() ?
-                    createMvccEntryCacheInfo(entryHolder, backRefsSize) : new MemoryBasedEntryCacheInfo(entryHolder, backRefsSize);
+                    createMvccEntryCacheInfo(entryHolder, backRefsSize)
+                : entryHolder.getServerTypeDesc().getTypeDesc().isColumnarStorage() ?
+                    new ColumnarEntryCacheInfo(entryHolder, backRefsSize) : new MemoryBasedEntryCacheInfo(entryHolder, backRefsSize);
     }
 
 
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
 
 /**
  * Handles data manipulation of space extended index
@@ -43,17 +44,26 @@ import java.util.concurrent.ConcurrentMap;
 public class ExtendedIndexHandler<K>
         implements IExtendedEntriesIndex<K, IEntryCacheInfo> {
     private static final Logger _logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE);
-    private final FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>> _orderedStore;
-    private final FastConcurrentSkipListMap<Object, IEntryCacheInfo> _uniqueOrderedStore;
+    private final ConcurrentNavigableMap<Object, IStoredList<IEntryCacheInfo>> _orderedStore;
+    private final ConcurrentNavigableMap<Object, IEntryCacheInfo> _uniqueOrderedStore;
     private final TypeDataIndex _index;
     private final RecentExtendedIndexUpdates _recentExtendedIndexUpdates;
 
     private static final boolean FORCE_ORDERED_SCAN = true;
 
     public ExtendedIndexHandler(TypeDataIndex index) {
+        this(index, new FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>>());
+    }
+
+    /**
+     * @param orderedStore the (empty) sorted map backing the index, keyed by the natural order of
+     *                     the index values
+     * @since 16.4.0
+     */
+    public ExtendedIndexHandler(TypeDataIndex index, ConcurrentNavigableMap<Object, IStoredList<IEntryCacheInfo>> orderedStore) {
         _index = index;
-        _orderedStore = new FastConcurrentSkipListMap<>();
-        _uniqueOrderedStore = _index.isUniqueIndex() ? (FastConcurrentSkipListMap<Object, IEntryCacheInfo>) ((FastConcurrentSkipListMap) _orderedStore) : null;
+        _orderedStore = orderedStore;
+        _uniqueOrderedStore = _index.isUniqueIndex() ? (ConcurrentNavigableMap<Object, IEntryCacheInfo>) ((ConcurrentNavigableMap) _orderedStore) : null;
         if (index.getCacheManager().getEngine().getLeaseManager().isSupportsRecentExtendedUpdates())
             _recentExtendedIndexUpdates = new RecentExtendedIndexUpdates(index.getCacheManager());
         else
@@ -62,7 +72,7 @@ public class ExtendedIndexHandler<K>
 
 
     @Override
-    public FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>> getOrderedStore() {
+    public ConcurrentNavigableMap<Object, IStoredList<IEntryCacheInfo>> getOrderedStore() {
         return _orderedStore;
     }
 
@@ -24,10 +24,10 @@ package com.j_spaces.core.cache;
  * to you by GigaSpaces.
  *******************************************************************************/
 
-import com.gigaspaces.internal.backport.java.util.concurrent.FastConcurrentSkipListMap;
 import com.j_spaces.kernel.IStoredList;
 
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
 
 /**
  * Created by yechielf on 09/08/2015.
@@ -40,7 +40,7 @@ public interface IExtendedEntriesIndex<K, V> extends IExtendedIndex<K, V> {
 
     ConcurrentMap<Object, IEntryCacheInfo> getUniqueEntriesStore();
 
-    FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>> getOrderedStore();
+    ConcurrentNavigableMap<Object, IStoredList<IEntryCacheInfo>> getOrderedStore();
 
     void onUpdate(IEntryCacheInfo eci);
 
@@ -18,9 +18,11 @@
 package com.j_spaces.core.cache;
 
 import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
 import com.gigaspaces.time.SystemTime;
 import com.j_spaces.core.cache.blobStore.sadapter.BlobStoreFifoInitialLoader;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +52,10 @@ public class InitialLoadInfo {
     private IServerTypeDesc _curDesc; //used in off heap
     private TypeData _curTypeData;  //used  in off heap
 
+    private IEntryHolder[] _batch;  //entries of _batchTypeData pending batch insertion
+    private int _batchSize;
+    private TypeData _batchTypeData;
+
     public InitialLoadInfo(Logger logger, boolean logRecoveryProcess, long recoveryLogInterval) {
         _initialLoadErrors = new LinkedList<String>();
         _recoveryStartTime = SystemTime.timeMillis();
@@ -132,6 +138,35 @@ public class InitialLoadInfo {
         this._curTypeData = _curTypeData;
     }
 
+    public IEntryHolder[] getBatch() {
+        return _batch;
+    }
+
+    public int getBatchSize() {
+        return _batchSize;
+    }
+
+    public TypeData getBatchTypeData() {
+        return _batchTypeData;
+    }
+
+    /**
+     * @return true if the batch is full after adding the entry
+     */
+    public boolean addToBatch(IEntryHolder entryHolder, TypeData typeData, int maxBatchSize) {
+        if (_batch == null)
+            _batch = new IEntryHolder[maxBatchSize];
+        _batchTypeData = typeData;
+        _batch[_batchSize++] = entryHolder;
+        return _batchSize == maxBatchSize;
+    }
+
+    public void clearBatch() {
+        Arrays.fill(_batch, 0, _batchSize, null);
+        _batchSize = 0;
+        _batchTypeData = null;
+    }
+
     public LinkedList<String> getInitialLoadErrors() {
         return _initialLoadErrors;
     }
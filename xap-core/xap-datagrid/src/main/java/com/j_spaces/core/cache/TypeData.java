@@ -34,6 +34,8 @@ import com.j_spaces.core.SpaceOperations;
 import com.j_spaces.core.XtnEntry;
 import com.j_spaces.core.admin.TemplateInfo;
 import com.j_spaces.core.cache.TypeDataIndex.UpdateIndexModes;
+import com.j_spaces.core.cache.bitmap.BitmapIndexStore;
+import com.j_spaces.core.cache.columnar.ColumnarTypeStore;
 import com.j_spaces.core.cache.fifoGroup.FifoGroupCacheImpl;
 import com.j_spaces.core.client.SequenceNumberException;
 import com.j_spaces.kernel.IObjectInfo;
@@ -148,6 +150,10 @@ public class TypeData {
     private final SequenceNumberGenerator _sequenceNumberGenerator;
     private final TypeDataIndex<?> _sequenceNumberIndex; //null if not indexed or undefined
 
+    //columnar copy of the numeric properties, null if the type is not columnar
+    private final ColumnarTypeStore _columnarStore;
+    private final BitmapIndexStore _bitmapIndexStore;
+
     //reasons for replacing type-data
     public static enum TypeDataRecreationReasons {
         DYNAMIC_INDEX_CREATION, DYNAMIC_INDEX_CREATION_COMPLETION
@@ -205,6 +211,8 @@ public class TypeData {
         HashSet<String> indexesRelatedDynamicProperties = new HashSet<String>();
 
         _isBlobStoreClass = typeDataFactory.getCcheManager().isBlobStoreCachePolicy() && serverTypeDesc.getTypeDesc().isBlobstoreEnabled();
+        _columnarStore = serverTypeDesc.getTypeDesc().isColumnarStorage() && !isLocalCache && ColumnarTypeStore.isSupported(_cacheManager)
+                ? new ColumnarTypeStore(serverTypeDesc.getTypeDesc()) : null;
 
         if (serverTypeDesc.getTypeDesc().hasSequenceNumber()) {
             if (_cacheManager.isEvictableFromSpaceCachePolicy() && !_cacheManager.isMemorySpace())
@@ -391,6 +399,7 @@ public class TypeData {
             _uniqueIndexes = new ArrayList<TypeDataIndex>(uniqueIndexes);
         else
             _uniqueIndexes = null;
+        _bitmapIndexStore = createBitmapIndexStore(_indexes, isLocalCache);
 
         _indexesRelatedFixedProperties = indexesRelatedFixedProperties;
         _indexesRelatedDynamicProperties = indexesRelatedDynamicProperties;
@@ -457,6 +466,8 @@ public class TypeData {
         _hasInitialIndexes = originalTypeData._hasInitialIndexes;
         _anyInitialExtendedIndex = originalTypeData._anyInitialExtendedIndex;
         _isBlobStoreClass = originalTypeData._isBlobStoreClass;
+        _columnarStore = originalTypeData._columnarStore;
+        _bitmapIndexStore = originalTypeData._bitmapIndexStore;
         boolean[] indexesRelatedFixedProperties = new boolean[originalTypeData._indexesRelatedFixedProperties.length];
         System.arraycopy(originalTypeData._indexesRelatedFixedProperties, 0, indexesRelatedFixedProperties, 0, indexesRelatedFixedProperties.length);
         HashSet<String> indexesRelatedDynamicProperties = new HashSet<String>(originalTypeData._indexesRelatedDynamicProperties);
@@ -813,6 +824,16 @@ public class TypeData {
         return _indexes;
     }
 
+    /**
+     * Releases resources held outside of the heap by the type indexes.
+     */
+    public void closeIndexes() {
+        if (_indexes == null)
+            return;
+        for (TypeDataIndex<Object> index : _indexes)
+            index.close();
+    }
+
     public int numberOfBackRefs() {
         return _numOfBackRefs;
     }
@@ -962,6 +983,35 @@ public class TypeData {
         return _sequenceNumberGenerator;
     }
 
+    public ColumnarTypeStore getColumnarStore() {
+        return _columnarStore;
+    }
+
+    /**
+     * @return the bitmaps of the bitmap indexes of the type, null if the type has no bitmap index
+     */
+    public BitmapIndexStore getBitmapIndexStore() {
+        return _bitmapIndexStore;
+    }
+
+    /**
+     * bitmaps are kept for the indexes declared with the type, indexes added dynamically are not
+     * kept in bitmaps
+     */
+    private BitmapIndexStore createBitmapIndexStore(TypeDataIndex<?>[] indexes, boolean isLocalCache) {
+        if (isLocalCache || !BitmapIndexStore.isSupported(_cacheManager))
+            return null;
+        BitmapIndexStore store = null;
+        for (TypeDataIndex<?> index : indexes) {
+            if (BitmapIndexStore.isSupported(index)) {
+                if (store == null)
+                    store = new BitmapIndexStore();
+                index.setBitmapStore(store);
+            }
+        }
+        return store;
+    }
+
     public boolean hasSequenceNumberIndex() {
         return _sequenceNumberIndex != null;
     }
@@ -34,12 +34,19 @@ import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.collections.economy.EconomyConcurrentHashMap;
 import com.gigaspaces.internal.utils.collections.economy.HashEntryHandlerSpaceEntry;
 import com.gigaspaces.internal.utils.collections.economy.IEconomyConcurrentMap;
+import com.gigaspaces.internal.utils.collections.primitives.ConcurrentLongKeyBTreeMap;
+import com.gigaspaces.internal.utils.collections.primitives.ConcurrentLongKeyHashMap;
+import com.gigaspaces.internal.utils.collections.primitives.OffHeapLongKeyHashMap;
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
 import com.gigaspaces.metadata.index.ISpaceIndex;
+import com.gigaspaces.metadata.index.OrderedIndexStore;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 import com.gigaspaces.metrics.LongCounter;
 import com.gigaspaces.server.ServerEntry;
 import com.j_spaces.core.cache.fifoGroup.FifoGroupsMainIndexExtention;
 import com.j_spaces.core.cache.fifoGroup.IFifoGroupsIndexExtention;
+import com.j_spaces.core.cache.bitmap.BitmapIndexStore;
+import com.j_spaces.core.cache.statistics.IndexStatistics;
 import com.j_spaces.core.client.DuplicateIndexValueException;
 import com.j_spaces.core.client.TemplateMatchCodes;
 import com.j_spaces.kernel.IObjectInfo;
@@ -115,8 +122,16 @@ public class TypeDataIndex<K> {
     //non volatile-non protected
     private int _estimatedNumNonNullValues;
     private int _estimatedUniqueNonNullValues;
+    //cardinality statistics of ordered index values, null if not collected
+    private final IndexStatistics _statistics;
+    //bitmaps of the index values, null if not a bitmap index
+    private volatile BitmapIndexStore _bitmapStore;
 
     private final boolean _useEconomyHashMap;
+    //entries stores are keyed by unboxed integral values
+    private final boolean _primitiveKeysStore;
+    //entries stores tables are kept off-heap
+    private final boolean _offHeapStore;
 
     private Class<?> _valueType;
 
@@ -167,8 +182,21 @@ public class TypeDataIndex<K> {
         _unique = index.isUnique();
         int numOfCHMSegents = Integer.getInteger(SystemProperties.CACHE_MANAGER_HASHMAP_SEGMENTS, SystemProperties.CACHE_MANAGER_HASHMAP_SEGMENTS_DEFAULT);
 
+        ConcurrentLongKeyHashMap.KeyType primitiveKeyType = !_thinExtendedIndex ? ConcurrentLongKeyHashMap.getKeyType(valueClass) : null;
+        _offHeapStore = primitiveKeyType != null && index.isOffHeap() && UnsafeHolder.isAvailable();
+        _primitiveKeysStore = primitiveKeyType != null && (_offHeapStore || usePrimitiveIndexStore());
+        if (index.isOffHeap() && !_offHeapStore && _logger.isWarnEnabled())
+            _logger.warn("Off-heap storage is not supported for index [" + index.getName() + "] of type " + (valueClass != null ? valueClass.getName() : "unknown")
+                    + " with index type " + _indexType + ", the index will be stored on heap");
+
         if (!_thinExtendedIndex) {
-            if (_useEconomyHashMap) {
+            if (_offHeapStore) {
+                this._uniqueEntriesStore = index.isUnique() ? new OffHeapLongKeyHashMap<IEntryCacheInfo>(primitiveKeyType, numOfCHMSegents) : null;
+                this._nonUniqueEntriesStore = new OffHeapLongKeyHashMap<IStoredList<IEntryCacheInfo>>(primitiveKeyType, numOfCHMSegents);
+            } else if (_primitiveKeysStore) {
+                this._uniqueEntriesStore = index.isUnique() ? new ConcurrentLongKeyHashMap<IEntryCacheInfo>(primitiveKeyType, numOfCHMSegents) : null;
+                this._nonUniqueEntriesStore = new ConcurrentLongKeyHashMap<IStoredList<IEntryCacheInfo>>(primitiveKeyType, numOfCHMSegents);
+            } else if (_useEconomyHashMap) {
                 this._uniqueEntriesStore = index.isUnique() ? new EconomyConcurrentHashMap<Object, IEntryCacheInfo>(16, 0.75f, numOfCHMSegents, new HashEntryHandlerSpaceEntry(pos)) : null;
                 this._nonUniqueEntriesStore = new EconomyConcurrentHashMap<Object, IStoredList<IEntryCacheInfo>>(16, 0.75f, numOfCHMSegents, new HashEntryHandlerSpaceEntry<Object>(pos));
             } else {
@@ -188,7 +216,13 @@ public class TypeDataIndex<K> {
         _NNullTemplates = StoredListFactory.createConcurrentSegmentedList(true/* supportFifoPerSegment*/,1 /* inputNumOfSegments*/,true /* padded*/);
 
         if (_indexType.isOrdered()) {
-            _concurrentExtendedIndex = new ExtendedIndexHandler<K>(this);
+            ConcurrentLongKeyHashMap.KeyType orderedKeyType = index.getOrderedIndexStore() == OrderedIndexStore.BTREE ? ConcurrentLongKeyHashMap.getKeyType(valueClass) : null;
+            if (index.getOrderedIndexStore() == OrderedIndexStore.BTREE && orderedKeyType == null && _logger.isWarnEnabled())
+                _logger.warn("B+-tree ordered store is not supported for index [" + index.getName() + "] of type " + (valueClass != null ? valueClass.getName() : "unknown")
+                        + ", the index will use a skip list");
+            _concurrentExtendedIndex = orderedKeyType != null
+                    ? new ExtendedIndexHandler<K>(this, new ConcurrentLongKeyBTreeMap<IStoredList<IEntryCacheInfo>>(orderedKeyType))
+                    : new ExtendedIndexHandler<K>(this);
 
             m_Notify_GT_Index = new TemplatesExtendedIndexHandler<K>(this);
             m_RT_GT_Index = new TemplatesExtendedIndexHandler<K>(this);
@@ -196,6 +230,8 @@ public class TypeDataIndex<K> {
             m_RT_LT_Index = new TemplatesExtendedIndexHandler<K>(this);
             m_Notify_NE_Index = new TemplatesExtendedIndexHandler<K>(this);
             m_RT_NE_Index = new TemplatesExtendedIndexHandler<K>(this);
+            _statistics = Boolean.parseBoolean(System.getProperty(SystemProperties.ENGINE_INDEX_STATISTICS, String.valueOf(SystemProperties.ENGINE_INDEX_STATISTICS_DEFAULT)))
+                    ? new IndexStatistics() : null;
 
         } else {
             _concurrentExtendedIndex = null;
@@ -205,6 +241,7 @@ public class TypeDataIndex<K> {
             m_RT_LT_Index = null;
             m_Notify_NE_Index = null;
             m_RT_NE_Index = null;
+            _statistics = null;
         }
         _fifoGroupsIndexType = fifoGroupsIndexType;
         if (isFifoGroupsMainIndex())
@@ -241,6 +278,27 @@ public class TypeDataIndex<K> {
         }
     }
 
+    private static boolean usePrimitiveIndexStore() {
+        String val = System.getProperty(SystemProperties.CACHE_MANAGER_PRIMITIVE_INDEX_STORE);
+        return Boolean.parseBoolean(val != null ? val : SystemProperties.CACHE_MANAGER_PRIMITIVE_INDEX_STORE_DEFAULT);
+    }
+
+    public boolean isOffHeapStore() {
+        return _offHeapStore;
+    }
+
+    /**
+     * Closes the off-heap entries stores, their memory is released once the index is no longer
+     * referenced. The index cannot be used afterwards.
+     */
+    public void close() {
+        if (!_offHeapStore)
+            return;
+        if (_uniqueEntriesStore != null)
+            ((OffHeapLongKeyHashMap<IEntryCacheInfo>) _uniqueEntriesStore).close();
+        ((OffHeapLongKeyHashMap<IStoredList<IEntryCacheInfo>>) _nonUniqueEntriesStore).close();
+    }
+
     public boolean isExtendedIndex() {
         return _concurrentExtendedIndex != null;
     }
@@ -382,6 +440,25 @@ public class TypeDataIndex<K> {
         return _concurrentExtendedIndex;
     }
 
+    /**
+     * @return the cardinality statistics of the index values, null if not collected
+     */
+    public IndexStatistics getStatistics() {
+        return _statistics;
+    }
+
+    /**
+     * @return the bitmaps store which keeps the values of the index, null if not a bitmap index
+     */
+    public BitmapIndexStore getBitmapStore() {
+        return _bitmapStore;
+    }
+
+    public void setBitmapStore(BitmapIndexStore bitmapStore) {
+        bitmapStore.register(this);
+        _bitmapStore = bitmapStore;
+    }
+
 
     /**
      * insert entry indexed field from cache.
@@ -481,7 +558,7 @@ public class TypeDataIndex<K> {
                     }
                     //a single object is stored, create a SL and add it
                     if (newSL == null) {
-                        if (_useEconomyHashMap)
+                        if (_useEconomyHashMap && !_primitiveKeysStore)
                             newSL = StoredListFactory.createConcurrentSegmentedList(false /*segmented*/, pType.isAllowFifoIndexScans(), fieldValue);
                         else
                             newSL = StoredListFactory.createConcurrentList(pType.isAllowFifoIndexScans());
@@ -533,9 +610,157 @@ public class TypeDataIndex<K> {
                     throw ex;
                 }
             }
+            if (_statistics != null)
+                _statistics.onInsert(fieldValue);
+            if (_bitmapStore != null)
+                _bitmapStore.add(this, fieldValue, pEntry);
         } /* else - there is a non-null value */
     }
 
+    /**
+     * insert the indexed field of a batch of entries which are not visible to other operations yet
+     * (initial load). Entries are grouped by index value so the entries store is accessed once per
+     * distinct value, and ordered indexes are updated in ascending value order. The back refs of
+     * each entry are appended as in {@link #insertEntryIndexedField(IEntryCacheInfo, Object,
+     * TypeData)}.
+     */
+    public void insertEntriesIndexedField(IEntryCacheInfo[] entries, int count, TypeData pType) {
+        if (isUniqueIndex() || isMultiValuePerEntryIndex() || _fifoGroupsIndexExtention != null || (_useEconomyHashMap && !_primitiveKeysStore)) {
+            for (int i = 0; i < count; i++)
+                insertEntryIndexedField(entries[i], (K) getIndexValue(entries[i].getEntryHolder(_cacheManager).getEntryData()), pType);
+            return;
+        }
+
+        Map<Object, IndexValueGroup<K>> groupsByValue = new HashMap<Object, IndexValueGroup<K>>();
+        List<IndexValueGroup<K>> groups = new ArrayList<IndexValueGroup<K>>();
+        for (int i = 0; i < count; i++) {
+            IEntryCacheInfo pEntry = entries[i];
+            K fieldValue = (K) getIndexValue(pEntry.getEntryHolder(_cacheManager).getEntryData());
+            if (fieldValue == null) {
+                IObjectInfo oi = _nullEntries.add(pEntry);
+                if (pEntry.getBackRefs() != null)
+                    pEntry.getBackRefs().add(oi);
+                continue;
+            }
+            IndexValueGroup<K> group = groupsByValue.get(fieldValue);
+            if (group == null) {
+                group = new IndexValueGroup<K>(fieldValue);
+                groupsByValue.put(fieldValue, group);
+                groups.add(group);
+            }
+            group.add(pEntry);
+        }
+
+        if (isExtendedIndex())
+            IndexValueGroup.sort(groups);
+        for (IndexValueGroup<K> group : groups)
+            insertEntriesIndexedValue(group, pType);
+    }
+
+    private void insertEntriesIndexedValue(IndexValueGroup<K> group, TypeData pType) {
+        final IEntryCacheInfo[] entries = group._entries;
+        final int size = group._size;
+        final IObjectInfo<IEntryCacheInfo>[] ois = new IObjectInfo[size];
+        final ConcurrentMap<Object, IStoredList<IEntryCacheInfo>> store = getNonUniqueEntriesStore();
+        K fieldValue = group._value;
+        boolean alreadyCloned = false;
+        int inserted = 0;
+
+        updateValueType(fieldValue);
+        IStoredList<IEntryCacheInfo> currentSL = store.get(fieldValue);
+        if (currentSL == null) {
+            if (_considerValueClone) {
+                fieldValue = (K) cloneIndexValue(fieldValue, entries[0].getEntryHolder(_cacheManager));
+                alreadyCloned = true;
+            }
+            IStoredList<IEntryCacheInfo> newSL;
+            if (size == 1) {
+                newSL = entries[0];
+                ois[0] = entries[0];
+            } else {
+                newSL = StoredListFactory.createConcurrentList(pType.isAllowFifoIndexScans());
+                for (int i = 0; i < size; i++)
+                    ois[i] = newSL.addUnlocked(entries[i]);
+            }
+            if (store.putIfAbsent(fieldValue, newSL) == null) {
+                inserted = size;
+                for (int i = 0; i < size; i++)
+                    markIndexValue(i == 0);
+            }
+        } else if (currentSL.isMultiObjectCollection()) {
+            // may be invalidated by PersistentGC while adding
+            while (inserted < size && (ois[inserted] = currentSL.add(entries[inserted])) != null) {
+                markIndexValue(false);
+                inserted++;
+            }
+        } else {
+            IStoredList<IEntryCacheInfo> newSL = StoredListFactory.createConcurrentList(pType.isAllowFifoIndexScans());
+            newSL.addUnlocked(currentSL.getObjectFromHead());
+            for (int i = 0; i < size; i++)
+                ois[i] = newSL.addUnlocked(entries[i]);
+            if (store.replace(fieldValue, currentSL, newSL)) {
+                inserted = size;
+                for (int i = 0; i < size; i++)
+                    markIndexValue(false);
+            }
+        }
+
+        for (int i = 0; i < inserted; i++) {
+            IEntryCacheInfo pEntry = entries[i];
+            ArrayList<IObjectInfo<IEntryCacheInfo>> backRefs = pEntry.getBackRefs();
+            if (backRefs != null)
+                backRefs.add(ois[i]);
+            if (isExtendedIndex()) {
+                IObjectInfo oi = ois[i];
+                if (!isThinExtendedIndex())
+                    oi = _concurrentExtendedIndex.insertEntryIndexedField(pEntry, fieldValue, pType, alreadyCloned);
+                if (backRefs != null)
+                    backRefs.add(oi); //if thin we insert same backref not to break existing code
+            }
+            if (_statistics != null)
+                _statistics.onInsert(fieldValue);
+            if (_bitmapStore != null)
+                _bitmapStore.add(this, fieldValue, pEntry);
+        }
+        //the value was changed concurrently- insert the rest one by one
+        for (int i = inserted; i < size; i++)
+            insertEntryIndexedField_impl(entries[i], group._value, pType, entries[i].getBackRefs());
+    }
+
+    /**
+     * entries of a batch which share an index value
+     */
+    private static final class IndexValueGroup<K> {
+        private static final Comparator<IndexValueGroup<?>> _comparator = new Comparator<IndexValueGroup<?>>() {
+            @Override
+            public int compare(IndexValueGroup<?> o1, IndexValueGroup<?> o2) {
+                return ((Comparable) o1._value).compareTo(o2._value);
+            }
+        };
+
+        private final K _value;
+        private IEntryCacheInfo[] _entries = new IEntryCacheInfo[1];
+        private int _size;
+
+        private IndexValueGroup(K value) {
+            _value = value;
+        }
+
+        private void add(IEntryCacheInfo pEntry) {
+            if (_size == _entries.length)
+                _entries = Arrays.copyOf(_entries, _size * 2);
+            _entries[_size++] = pEntry;
+        }
+
+        private static <K> void sort(List<IndexValueGroup<K>> groups) {
+            try {
+                Collections.sort(groups, _comparator);
+            } catch (ClassCastException e) {
+                //values are not mutually comparable- the order is only an optimization
+            }
+        }
+    }
+
     K cloneIndexValue(K fieldValue, IEntryHolder entryHolder) {
         Class<?> clzz = !_valueTypeKnown ? fieldValue.getClass() : getValueType();
         if (!_valueTypeKnown && TypeDataIndex.isImmutableIndexValue(clzz))
@@ -725,6 +950,10 @@ public class TypeDataIndex<K> {
             if (oi != _DummyOI && !isThinExtendedIndex())
                 _concurrentExtendedIndex.removeEntryIndexedField(eh, fieldValue, pEntry, oi);
         }
+        if (_statistics != null && !fromFailure)
+            _statistics.onRemove(fieldValue);
+        if (_bitmapStore != null && !fromFailure)
+            _bitmapStore.remove(this, fieldValue, pEntry);
     }
     
     
@@ -851,7 +1080,7 @@ public class TypeDataIndex<K> {
     }
 
     public void prepareForReplacingEntryIndexedField(Object fieldValue) {
-        if (!_useEconomyHashMap || fieldValue == null)
+        if (!_useEconomyHashMap || _primitiveKeysStore || fieldValue == null)
             return;
 
         if (isUniqueIndex() /*&& oi == pEntry TBD open-up when unique index is a general feature*/)
@@ -889,7 +1118,7 @@ public class TypeDataIndex<K> {
 
 
     public boolean usedEconomyHashMap() {
-        return _useEconomyHashMap;
+        return _useEconomyHashMap && !_primitiveKeysStore;
     }
 
     public Class<?> getValueType() {
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache.bitmap;
+
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.kernel.list.IScanListIterator;
+
+/**
+ * Scans the entries of a {@link BitmapIndexStore} evaluation. The size of the scan is exact, so it
+ * can be compared with the size of stored lists when the shortest potential match list is chosen.
+ *
+ * <p>NOTE - for single threaded use
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class BitmapEntriesIterator implements IScanListIterator<IEntryCacheInfo> {
+
+    private final IEntryCacheInfo[] _entries;
+    private int _nextPos;
+
+    public BitmapEntriesIterator(IEntryCacheInfo[] entries) {
+        _entries = entries;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return _nextPos < _entries.length;
+    }
+
+    @Override
+    public IEntryCacheInfo next() {
+        return _entries[_nextPos++];
+    }
+
+    @Override
+    public void releaseScan() {
+    }
+
+    @Override
+    public int getAlreadyMatchedFixedPropertyIndexPos() {
+        return -1;
+    }
+
+    @Override
+    public boolean isAlreadyMatched() {
+        return false;
+    }
+
+    @Override
+    public boolean isIterator() {
+        return true;
+    }
+
+    @Override
+    public boolean hasSize() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return _entries.length;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache.bitmap;
+
+import com.gigaspaces.internal.gnu.trove.TObjectHashingStrategy;
+import com.gigaspaces.internal.gnu.trove.TObjectIntHashMap;
+import com.gigaspaces.internal.utils.collections.primitives.RoaringBitmap;
+import com.gigaspaces.metadata.index.ISpaceIndex;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.TypeDataIndex;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps a compressed bitmap of entries for each value of the bitmap indexes of a type, so an AND
+ * (or OR) of equality conditions on several low cardinality indexes is evaluated by intersecting
+ * (or uniting) bitmaps instead of scanning the stored list of one of the values and matching each
+ * of its entries.
+ *
+ * <p>Each entry that has a non null value in one of the bitmap indexes is assigned a dense
+ * ordinal, which is the position of the entry in the bitmaps. The ordinal is released and reused
+ * once all the values of the entry are removed. The bitmaps complement the regular stores of the
+ * indexes, which are kept as is and updated first.
+ *
+ * <p>Updates of all the bitmap indexes of the type ({@link #add} and {@link #remove}) take a single
+ * type-wide write lock, bitmaps are evaluated under the read lock. Writers of the type therefore
+ * serialize on that lock once it declares a bitmap index, which suits the read-mostly types bitmap
+ * indexes are meant for, not types with a high rate of concurrent writes.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class BitmapIndexStore {
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+    private final Map<TypeDataIndex<?>, Map<Object, RoaringBitmap>> _bitmaps = new IdentityHashMap<TypeDataIndex<?>, Map<Object, RoaringBitmap>>();
+    //ordinal + 1 of each entry, 0 when absent
+    private final TObjectIntHashMap<IEntryCacheInfo> _ordinals = new TObjectIntHashMap<IEntryCacheInfo>(new IdentityHashingStrategy());
+    private IEntryCacheInfo[][] _entries = new IEntryCacheInfo[0][];
+    //number of bitmaps each ordinal is set in
+    private int[][] _refCounts = new int[0][];
+    private int[] _freeOrdinals = new int[16];
+    private int _numFreeOrdinals;
+    private int _ordinalsLimit;
+
+    /**
+     * @return true if bitmap indexes can be used with the cache policy of the specified cache
+     * manager: all entries are kept in memory, and without versions.
+     */
+    public static boolean isSupported(CacheManager cacheManager) {
+        return cacheManager.isAllInCachePolicy() && !cacheManager.isMVCCEnabled();
+    }
+
+    /**
+     * @return true if the specified index is declared as a bitmap index and holds a single value of
+     * each entry
+     */
+    public static boolean isSupported(TypeDataIndex<?> index) {
+        ISpaceIndex definition = index.getIndexDefinition();
+        return definition != null && definition.isBitmap() && !index.isUniqueIndex() && !index.isMultiValuePerEntryIndex()
+                && !index.isCompound() && index.getFifoGroupsIndexType() == ISpaceIndex.FifoGroupsIndexTypes.NONE;
+    }
+
+    public void register(TypeDataIndex<?> index) {
+        _lock.writeLock().lock();
+        try {
+            _bitmaps.put(index, new HashMap<Object, RoaringBitmap>());
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    public void add(TypeDataIndex<?> index, Object value, IEntryCacheInfo pEntry) {
+        _lock.writeLock().lock();
+        try {
+            Map<Object, RoaringBitmap> bitmaps = _bitmaps.get(index);
+            int ordinal = _ordinals.get(pEntry) - 1;
+            if (ordinal < 0) {
+                ordinal = allocateOrdinal();
+                _ordinals.put(pEntry, ordinal + 1);
+                _entries[ordinal >>> CHUNK_SHIFT][ordinal & CHUNK_MASK] = pEntry;
+            }
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap == null) {
+                bitmap = new RoaringBitmap();
+                bitmaps.put(value, bitmap);
+            }
+            if (bitmap.add(ordinal))
+                _refCounts[ordinal >>> CHUNK_SHIFT][ordinal & CHUNK_MASK]++;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(TypeDataIndex<?> index, Object value, IEntryCacheInfo pEntry) {
+        _lock.writeLock().lock();
+        try {
+            int ordinal = _ordinals.get(pEntry) - 1;
+            if (ordinal < 0)
+                return;
+            Map<Object, RoaringBitmap> bitmaps = _bitmaps.get(index);
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap == null || !bitmap.remove(ordinal))
+                return;
+            if (bitmap.isEmpty())
+                bitmaps.remove(value);
+            int chunk = ordinal >>> CHUNK_SHIFT;
+            int offset = ordinal & CHUNK_MASK;
+            if (--_refCounts[chunk][offset] == 0) {
+                _ordinals.remove(pEntry);
+                _entries[chunk][offset] = null;
+                if (_numFreeOrdinals == _freeOrdinals.length)
+                    _freeOrdinals = Arrays.copyOf(_freeOrdinals, _numFreeOrdinals * 2);
+                _freeOrdinals[_numFreeOrdinals++] = ordinal;
+            }
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates a condition of the form <tt>(a = a1 OR a = a2 ...) AND (b = b1 ...) ...</tt>, or an
+     * OR of all the values when <tt>union</tt> is set.
+     *
+     * @param indexes the bitmap indexes of the condition
+     * @param values  the values of each index, converted to the value type of the index
+     * @return the entries which match the condition, in ordinal order
+     */
+    public IEntryCacheInfo[] evaluate(TypeDataIndex<?>[] indexes, Collection<Object>[] values, boolean union) {
+        _lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (int i = 0; i < indexes.length; i++) {
+                RoaringBitmap bitmap = unite(_bitmaps.get(indexes[i]), values[i]);
+                result = result == null ? bitmap : union ? RoaringBitmap.or(result, bitmap) : RoaringBitmap.and(result, bitmap);
+                if (!union && result.isEmpty())
+                    return new IEntryCacheInfo[0];
+            }
+            int[] ordinals = result != null ? result.toArray() : new int[0];
+            IEntryCacheInfo[] entries = new IEntryCacheInfo[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++)
+                entries[i] = _entries[ordinals[i] >>> CHUNK_SHIFT][ordinals[i] & CHUNK_MASK];
+            return entries;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries which have an ordinal
+     */
+    public int size() {
+        _lock.readLock().lock();
+        try {
+            return _ordinals.size();
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    private static RoaringBitmap unite(Map<Object, RoaringBitmap> bitmaps, Collection<Object> values) {
+        RoaringBitmap result = null;
+        for (Object value : values) {
+            RoaringBitmap bitmap = bitmaps != null ? bitmaps.get(value) : null;
+            if (bitmap != null)
+                result = result == null ? bitmap : RoaringBitmap.or(result, bitmap);
+        }
+        return result != null ? result : new RoaringBitmap();
+    }
+
+    private int allocateOrdinal() {
+        if (_numFreeOrdinals > 0)
+            return _freeOrdinals[--_numFreeOrdinals];
+        int ordinal = _ordinalsLimit++;
+        if ((ordinal & CHUNK_MASK) == 0) {
+            int numChunks = (ordinal >>> CHUNK_SHIFT) + 1;
+            _entries = Arrays.copyOf(_entries, numChunks);
+            _entries[numChunks - 1] = new IEntryCacheInfo[CHUNK_SIZE];
+            _refCounts = Arrays.copyOf(_refCounts, numChunks);
+            _refCounts[numChunks - 1] = new int[CHUNK_SIZE];
+        }
+        return ordinal;
+    }
+
+    private static class IdentityHashingStrategy implements TObjectHashingStrategy<IEntryCacheInfo> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int computeHashCode(IEntryCacheInfo object) {
+            return System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(IEntryCacheInfo o1, IEntryCacheInfo o2) {
+            return o1 == o2;
+        }
+    }
+}
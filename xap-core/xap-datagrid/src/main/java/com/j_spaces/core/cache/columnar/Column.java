@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.columnar;
+
+import com.gigaspaces.internal.metadata.PropertyInfo;
+
+import java.util.Arrays;
+
+import static com.j_spaces.core.cache.columnar.ColumnarTypeStore.CHUNK_MASK;
+import static com.j_spaces.core.cache.columnar.ColumnarTypeStore.CHUNK_SHIFT;
+import static com.j_spaces.core.cache.columnar.ColumnarTypeStore.CHUNK_SIZE;
+
+/**
+ * The values of one numeric fixed property for all the rows of a {@link ColumnarTypeStore}, kept in
+ * primitive chunks of {@link ColumnarTypeStore#CHUNK_SIZE} rows. A row has a value only if its bit
+ * is set in the chunk's presence bitmap, null values and free rows are zero.
+ *
+ * <p>The values of a block of 64 rows, one word of the presence bitmap, are guarded by the lock of
+ * the block in the owning store. Chunks are added under the grow lock of the store.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public abstract class Column {
+
+    private final String _name;
+    private final int _position;
+    private final Class<?> _valueClass;
+    private long[][] _present = new long[0][];
+    private volatile boolean _mixedTypes;
+
+    Column(String name, int position, Class<?> valueClass) {
+        this._name = name;
+        this._position = position;
+        this._valueClass = valueClass;
+    }
+
+    /**
+     * @return a column for the specified property, or null if its values are not kept in columns
+     */
+    static Column create(PropertyInfo property, int position) {
+        if (property.getType() == null || property.getStorageAdapter() != null)
+            return null;
+        Class<?> type = property.getType();
+        if (type == long.class || type == Long.class)
+            return new LongColumn(property.getName(), position, Long.class);
+        if (type == int.class || type == Integer.class)
+            return new LongColumn(property.getName(), position, Integer.class);
+        if (type == short.class || type == Short.class)
+            return new LongColumn(property.getName(), position, Short.class);
+        if (type == byte.class || type == Byte.class)
+            return new LongColumn(property.getName(), position, Byte.class);
+        //float is not kept, summing floats in double precision would change the results of non widest sums
+        if (type == double.class || type == Double.class)
+            return new DoubleColumn(property.getName(), position);
+        return null;
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * @return the fixed property position of the column
+     */
+    public int getPosition() {
+        return _position;
+    }
+
+    /**
+     * @return the class of the (boxed) values of the column
+     */
+    public Class<?> getValueClass() {
+        return _valueClass;
+    }
+
+    /**
+     * @return true if a value of an unexpected class was written to the column, in which case the
+     * column cannot be used for scans
+     */
+    public boolean isMixedTypes() {
+        return _mixedTypes;
+    }
+
+    /**
+     * @return a bitmap of the rows of the chunk which have a non null value
+     */
+    public long[] getPresent(int chunk) {
+        return _present[chunk];
+    }
+
+    void ensureChunks(int numChunks) {
+        if (_present.length < numChunks)
+            _present = Arrays.copyOf(_present, numChunks);
+        for (int i = 0; i < numChunks; i++) {
+            if (_present[i] == null) {
+                _present[i] = new long[CHUNK_SIZE >>> 6];
+                allocateChunk(i);
+            }
+        }
+    }
+
+    void set(int row, Object value) {
+        int chunk = row >>> CHUNK_SHIFT;
+        int offset = row & CHUNK_MASK;
+        if (value != null && value.getClass() != _valueClass) {
+            _mixedTypes = true;
+            value = null;
+        }
+        if (value == null) {
+            _present[chunk][offset >>> 6] &= ~(1L << offset);
+            clearValue(chunk, offset);
+        } else {
+            _present[chunk][offset >>> 6] |= 1L << offset;
+            setValue(chunk, offset, value);
+        }
+    }
+
+    void clear(int row) {
+        set(row, null);
+    }
+
+    abstract void allocateChunk(int chunk);
+
+    abstract void setValue(int chunk, int offset, Object value);
+
+    abstract void clearValue(int chunk, int offset);
+}
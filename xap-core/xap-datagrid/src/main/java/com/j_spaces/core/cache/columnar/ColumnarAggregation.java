@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.columnar;
+
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.utils.math.MutableNumber;
+import com.gigaspaces.query.aggregators.AbstractPathAggregator;
+import com.gigaspaces.query.aggregators.AggregationInternalUtils;
+import com.gigaspaces.query.aggregators.AverageAggregator;
+import com.gigaspaces.query.aggregators.CountAggregator;
+import com.gigaspaces.query.aggregators.MaxValueAggregator;
+import com.gigaspaces.query.aggregators.MinValueAggregator;
+import com.gigaspaces.query.aggregators.SpaceEntriesAggregator;
+import com.gigaspaces.query.aggregators.SumAggregator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.j_spaces.core.cache.columnar.ColumnarTypeStore.CHUNK_SIZE;
+
+/**
+ * Computes aggregations over all the entries of a {@link ColumnarTypeStore} from its columns.
+ *
+ * <p>Supports count, sum, average, min and max of a property kept in a column, and count of
+ * entries. Each chunk is first reduced to a bitmap of the rows to aggregate, and the values of
+ * those rows are accumulated in primitives, which are handed to the aggregators as intermediate
+ * results once the scan completes. The scan is abandoned, leaving the aggregators untouched, if it
+ * reaches an entry which a regular scan would have to inspect: an entry locked by a transaction or
+ * an expired one.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ColumnarAggregation implements ColumnarTypeStore.ChunkVisitor {
+
+    private final ColumnarTypeStore _store;
+    private final List<Accumulator> _accumulators;
+    private final long[] _matchedRows = new long[CHUNK_SIZE >>> 6];
+    private long _leaseFilter;
+    private int _numMatched;
+
+    private ColumnarAggregation(ColumnarTypeStore store, List<Accumulator> accumulators) {
+        this._store = store;
+        this._accumulators = accumulators;
+    }
+
+    /**
+     * @return an aggregation of the specified aggregators over the store, or null if any of them
+     * cannot be computed from the columns of the store
+     */
+    public static ColumnarAggregation create(ColumnarTypeStore store, Collection<SpaceEntriesAggregator> aggregators) {
+        List<Accumulator> accumulators = new ArrayList<Accumulator>(aggregators.size());
+        for (SpaceEntriesAggregator aggregator : aggregators) {
+            Accumulator accumulator = createAccumulator(store, aggregator);
+            if (accumulator == null)
+                return null;
+            accumulators.add(accumulator);
+        }
+        return new ColumnarAggregation(store, accumulators);
+    }
+
+    private static Accumulator createAccumulator(ColumnarTypeStore store, SpaceEntriesAggregator aggregator) {
+        //subclasses may aggregate differently, only the exact classes are supported
+        Class<?> aggregatorClass = aggregator.getClass();
+        if (!(aggregator instanceof AbstractPathAggregator) || ((AbstractPathAggregator) aggregator).getFunctionCallColumn() != null)
+            return null;
+        String path = ((AbstractPathAggregator) aggregator).getPath();
+        if (aggregatorClass == CountAggregator.class && path == null)
+            return new CountAccumulator(aggregator, null);
+        Column column = store.getColumn(path);
+        if (column == null)
+            return null;
+        if (aggregatorClass == CountAggregator.class)
+            return new CountAccumulator(aggregator, column);
+        if (aggregatorClass == SumAggregator.class)
+            return new SumAccumulator(aggregator, column, AggregationInternalUtils.isWidest((SumAggregator) aggregator), false);
+        if (aggregatorClass == AverageAggregator.class)
+            return new SumAccumulator(aggregator, column, AggregationInternalUtils.isWidest((AverageAggregator) aggregator), true);
+        if (aggregatorClass == MinValueAggregator.class)
+            return new MinMaxAccumulator(aggregator, column, false);
+        if (aggregatorClass == MaxValueAggregator.class)
+            return new MinMaxAccumulator(aggregator, column, true);
+        return null;
+    }
+
+    /**
+     * Scans the store and accumulates the values of the matched entries.
+     *
+     * @param leaseFilter entries which expire before this time abandon the scan
+     * @return the number of entries aggregated, or -1 if the scan was abandoned
+     */
+    public int execute(long leaseFilter) {
+        _leaseFilter = leaseFilter;
+        _numMatched = 0;
+        return _store.scan(this) ? _numMatched : -1;
+    }
+
+    /**
+     * Hands the accumulated results to the aggregators, to be called after a successful {@link
+     * #execute}.
+     */
+    public void apply() {
+        for (Accumulator accumulator : _accumulators)
+            accumulator.apply();
+    }
+
+    @Override
+    public boolean visit(int chunk, IEntryHolder[] entries, long[] usedRows) {
+        for (Accumulator accumulator : _accumulators)
+            if (accumulator.column != null && accumulator.column.isMixedTypes())
+                return false;
+
+        for (int word = 0; word < usedRows.length; word++) {
+            long rows = usedRows[word];
+            long matched = rows;
+            while (rows != 0) {
+                int offset = (word << 6) + Long.numberOfTrailingZeros(rows);
+                rows &= rows - 1;
+                IEntryHolder entry = entries[offset];
+                if (entry.isDeleted())
+                    matched &= ~(1L << offset);
+                else if (entry.isEntryUnderWriteLockXtn() || entry.isExpired(_leaseFilter))
+                    return false;
+            }
+            _matchedRows[word] = matched;
+            _numMatched += Long.bitCount(matched);
+        }
+
+        for (Accumulator accumulator : _accumulators)
+            accumulator.accumulate(chunk, _matchedRows);
+        return true;
+    }
+
+    private abstract static class Accumulator {
+        final SpaceEntriesAggregator aggregator;
+        final Column column;
+
+        Accumulator(SpaceEntriesAggregator aggregator, Column column) {
+            this.aggregator = aggregator;
+            this.column = column;
+        }
+
+        abstract void accumulate(int chunk, long[] rows);
+
+        abstract void apply();
+    }
+
+    private static class CountAccumulator extends Accumulator {
+        private long count;
+
+        CountAccumulator(SpaceEntriesAggregator aggregator, Column column) {
+            super(aggregator, column);
+        }
+
+        @Override
+        void accumulate(int chunk, long[] rows) {
+            long[] present = column != null ? column.getPresent(chunk) : null;
+            for (int word = 0; word < rows.length; word++)
+                count += Long.bitCount(present != null ? rows[word] & present[word] : rows[word]);
+        }
+
+        @Override
+        void apply() {
+            ((CountAggregator) aggregator).aggregateIntermediateResult(count);
+        }
+    }
+
+    private static class SumAccumulator extends Accumulator {
+        private final boolean widest;
+        private final boolean average;
+        private long longSum;
+        private double doubleSum;
+        private long count;
+
+        SumAccumulator(SpaceEntriesAggregator aggregator, Column column, boolean widest, boolean average) {
+            super(aggregator, column);
+            this.widest = widest;
+            this.average = average;
+        }
+
+        @Override
+        void accumulate(int chunk, long[] rows) {
+            long[] present = column.getPresent(chunk);
+            if (column instanceof LongColumn) {
+                long[] values = ((LongColumn) column).getValues(chunk);
+                long sum = 0;
+                for (int word = 0; word < rows.length; word++) {
+                    long bits = rows[word] & present[word];
+                    int base = word << 6;
+                    if (bits == -1L) {
+                        for (int i = base; i < base + 64; i++)
+                            sum += values[i];
+                        count += 64;
+                    } else {
+                        count += Long.bitCount(bits);
+                        for (; bits != 0; bits &= bits - 1)
+                            sum += values[base + Long.numberOfTrailingZeros(bits)];
+                    }
+                }
+                longSum += sum;
+            } else {
+                double[] values = ((DoubleColumn) column).getValues(chunk);
+                double sum = doubleSum;
+                for (int word = 0; word < rows.length; word++) {
+                    long bits = rows[word] & present[word];
+                    int base = word << 6;
+                    if (bits == -1L) {
+                        for (int i = base; i < base + 64; i++)
+                            sum += values[i];
+                        count += 64;
+                    } else {
+                        count += Long.bitCount(bits);
+                        for (; bits != 0; bits &= bits - 1)
+                            sum += values[base + Long.numberOfTrailingZeros(bits)];
+                    }
+                }
+                doubleSum = sum;
+            }
+        }
+
+        @Override
+        void apply() {
+            if (count == 0)
+                return;
+            Number sum = column instanceof LongColumn ? (Number) longSum : (Number) doubleSum;
+            if (average) {
+                Number zero = column instanceof LongColumn ? ((LongColumn) column).box(0) : (Number) 0d;
+                AverageAggregator.AverageTuple tuple = new AverageAggregator.AverageTuple(zero, widest).add(sum, count - 1);
+                ((AverageAggregator) aggregator).aggregateIntermediateResult(tuple);
+            } else {
+                //integral sums wrap exactly as when summed in the (narrower) type of the values
+                MutableNumber result = MutableNumber.fromClass(column.getValueClass(), widest);
+                result.add(sum);
+                ((SumAggregator) aggregator).aggregateIntermediateResult(result);
+            }
+        }
+    }
+
+    private static class MinMaxAccumulator extends Accumulator {
+        private final boolean max;
+        private boolean found;
+        private long longResult;
+        private double doubleResult;
+
+        MinMaxAccumulator(SpaceEntriesAggregator aggregator, Column column, boolean max) {
+            super(aggregator, column);
+            this.max = max;
+        }
+
+        @Override
+        void accumulate(int chunk, long[] rows) {
+            long[] present = column.getPresent(chunk);
+            if (column instanceof LongColumn) {
+                long[] values = ((LongColumn) column).getValues(chunk);
+                for (int word = 0; word < rows.length; word++) {
+                    int base = word << 6;
+                    for (long bits = rows[word] & present[word]; bits != 0; bits &= bits - 1) {
+                        long value = values[base + Long.numberOfTrailingZeros(bits)];
+                        if (!found || (max ? value > longResult : value < longResult)) {
+                            longResult = value;
+                            found = true;
+                        }
+                    }
+                }
+            } else {
+                double[] values = ((DoubleColumn) column).getValues(chunk);
+                for (int word = 0; word < rows.length; word++) {
+                    int base = word << 6;
+                    for (long bits = rows[word] & present[word]; bits != 0; bits &= bits - 1) {
+                        double value = values[base + Long.numberOfTrailingZeros(bits)];
+                        //same order as Double.compareTo, used by the regular aggregation
+                        int compare = Double.compare(value, doubleResult);
+                        if (!found || (max ? compare > 0 : compare < 0)) {
+                            doubleResult = value;
+                            found = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        void apply() {
+            if (!found)
+                return;
+            Serializable result = column instanceof LongColumn ? ((LongColumn) column).box(longResult) : (Serializable) doubleResult;
+            if (max)
+                ((MaxValueAggregator) aggregator).aggregateIntermediateResult(result);
+            else
+                ((MinValueAggregator) aggregator).aggregateIntermediateResult(result);
+        }
+    }
+}
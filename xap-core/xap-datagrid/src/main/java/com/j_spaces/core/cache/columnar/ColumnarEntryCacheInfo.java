@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.columnar;
+
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.j_spaces.core.cache.MemoryBasedEntryCacheInfo;
+
+/**
+ * The cache info of an entry of a type with columnar storage, which also keeps the row of the entry
+ * in the {@link ColumnarTypeStore} of the type.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ColumnarEntryCacheInfo extends MemoryBasedEntryCacheInfo {
+
+    //written by the store under the lock of the row, -1 when the entry has no row
+    private int _columnarRow = -1;
+
+    public ColumnarEntryCacheInfo(IEntryHolder entryHolder, int backRefsSize) {
+        super(entryHolder, backRefsSize);
+    }
+
+    int getColumnarRow() {
+        return _columnarRow;
+    }
+
+    void setColumnarRow(int row) {
+        _columnarRow = row;
+    }
+}
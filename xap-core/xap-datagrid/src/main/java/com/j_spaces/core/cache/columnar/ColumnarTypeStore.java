@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.columnar;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.metadata.PropertyInfo;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A columnar copy of the numeric fixed properties of the entries of a type, kept alongside the
+ * regular (row) storage of the entries when the type is declared with columnar storage.
+ *
+ * <p>Each entry is assigned a row, kept in its {@link ColumnarEntryCacheInfo}, and each numeric
+ * property is kept in a {@link Column} of primitive chunks indexed by row, so a scan of a property
+ * over the whole type reads consecutive primitives instead of visiting the properties array of every
+ * entry. The entry holder of each row is kept as well, so scanners can check the state of the entry
+ * (deleted, locked by a transaction, expired) and single entry access keeps going through the entry
+ * data. The columns are a copy of the entry data: each row costs 8 bytes per column on top of it.
+ *
+ * <p>Rows are handed out in blocks of 64, one word of the chunk bitmaps, by allocators picked by the
+ * hash of the entry, and each block is guarded by one of {@value #NUM_LOCKS} locks. Concurrent
+ * inserts, updates and removals of entries in different blocks therefore do not contend. A scan
+ * read-locks all the locks while it visits one chunk.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ColumnarTypeStore {
+
+    public static final int CHUNK_SHIFT = 12;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    public static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    //one lock per block of a chunk, the blocks of a chunk are guarded by distinct locks
+    private static final int NUM_LOCKS = CHUNK_SIZE >>> BLOCK_SHIFT;
+    private static final int MAX_ALLOCATORS = 64;
+
+    private final Column[] _columns;
+    private final Map<String, Column> _columnsByName;
+    private final StampedLock[] _locks = new StampedLock[NUM_LOCKS];
+    private final RowAllocator[] _allocators;
+    private final LongAdder _size = new LongAdder();
+    //guards the growth of the chunk arrays
+    private final Object _growLock = new Object();
+    private int _nextBlock;
+    private volatile IEntryHolder[][] _entries = new IEntryHolder[0][];
+    private volatile long[][] _usedRows = new long[0][];
+    //written last when the store grows, so readers of the number of chunks see their arrays
+    private volatile int _numChunks;
+    //set if an entry without a row was inserted, the columns then miss it and cannot be scanned
+    private volatile boolean _incomplete;
+
+    public ColumnarTypeStore(ITypeDesc typeDesc) {
+        PropertyInfo[] properties = typeDesc.getProperties();
+        List<Column> columns = new ArrayList<Column>();
+        Map<String, Column> columnsByName = new HashMap<String, Column>();
+        for (int i = 0; i < properties.length; i++) {
+            Column column = Column.create(properties[i], i);
+            if (column != null) {
+                columns.add(column);
+                columnsByName.put(column.getName(), column);
+            }
+        }
+        _columns = columns.toArray(new Column[columns.size()]);
+        _columnsByName = Collections.unmodifiableMap(columnsByName);
+        for (int i = 0; i < NUM_LOCKS; i++)
+            _locks[i] = new StampedLock();
+        int numAllocators = 1;
+        while (numAllocators < Runtime.getRuntime().availableProcessors() && numAllocators < MAX_ALLOCATORS)
+            numAllocators <<= 1;
+        _allocators = new RowAllocator[numAllocators];
+        for (int i = 0; i < numAllocators; i++)
+            _allocators[i] = new RowAllocator();
+    }
+
+    /**
+     * @return true if columnar storage can be used with the cache policy of the specified cache
+     * manager: all entries are kept in memory, and without versions.
+     */
+    public static boolean isSupported(CacheManager cacheManager) {
+        return cacheManager.isAllInCachePolicy() && !cacheManager.isMVCCEnabled();
+    }
+
+    /**
+     * @return the column of the specified property, or null if the property is not kept in a
+     * column
+     */
+    public Column getColumn(String propertyName) {
+        return propertyName != null ? _columnsByName.get(propertyName) : null;
+    }
+
+    public int size() {
+        return (int) _size.sum();
+    }
+
+    public void insert(IEntryCacheInfo pEntry, IEntryHolder entryHolder) {
+        if (!(pEntry instanceof ColumnarEntryCacheInfo)) {
+            _incomplete = true;
+            return;
+        }
+        ColumnarEntryCacheInfo columnarEntry = (ColumnarEntryCacheInfo) pEntry;
+        int row = columnarEntry.getColumnarRow();
+        if (row < 0) {
+            row = allocatorOf(pEntry).allocate();
+            columnarEntry.setColumnarRow(row);
+            _size.increment();
+        }
+        StampedLock lock = lockOf(row);
+        long stamp = lock.writeLock();
+        try {
+            int chunk = row >>> CHUNK_SHIFT;
+            int offset = row & CHUNK_MASK;
+            _entries[chunk][offset] = entryHolder;
+            _usedRows[chunk][offset >>> 6] |= 1L << offset;
+            setValues(row, entryHolder.getEntryData());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts a batch of entries.
+     */
+    public void insert(IEntryCacheInfo[] entries, int count, CacheManager cacheManager) {
+        for (int i = 0; i < count; i++)
+            insert(entries[i], entries[i].getEntryHolder(cacheManager));
+    }
+
+    /**
+     * Replaces the values of the row of the specified entry with its new entry data.
+     */
+    public void update(IEntryCacheInfo pEntry, IEntryData entryData) {
+        int row = rowOf(pEntry);
+        if (row < 0)
+            return;
+        StampedLock lock = lockOf(row);
+        long stamp = lock.writeLock();
+        try {
+            setValues(row, entryData);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(IEntryCacheInfo pEntry) {
+        int row = rowOf(pEntry);
+        if (row < 0)
+            return;
+        StampedLock lock = lockOf(row);
+        long stamp = lock.writeLock();
+        try {
+            int chunk = row >>> CHUNK_SHIFT;
+            int offset = row & CHUNK_MASK;
+            _entries[chunk][offset] = null;
+            _usedRows[chunk][offset >>> 6] &= ~(1L << offset);
+            for (Column column : _columns)
+                column.clear(row);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        ((ColumnarEntryCacheInfo) pEntry).setColumnarRow(-1);
+        allocatorOf(pEntry).free(row);
+        _size.decrement();
+    }
+
+    /**
+     * Visits the chunks of the store in order, holding the read locks of a chunk while it is
+     * visited.
+     *
+     * @return false if the visitor stopped the scan, or if the store misses entries of the type
+     */
+    public boolean scan(ChunkVisitor visitor) {
+        final long[] stamps = new long[NUM_LOCKS];
+        for (int chunk = 0; chunk < _numChunks; chunk++) {
+            if (_incomplete)
+                return false;
+            for (int i = 0; i < NUM_LOCKS; i++)
+                stamps[i] = _locks[i].readLock();
+            try {
+                if (!visitor.visit(chunk, _entries[chunk], _usedRows[chunk]))
+                    return false;
+            } finally {
+                for (int i = 0; i < NUM_LOCKS; i++)
+                    _locks[i].unlockRead(stamps[i]);
+            }
+        }
+        return !_incomplete;
+    }
+
+    private static int rowOf(IEntryCacheInfo pEntry) {
+        return pEntry instanceof ColumnarEntryCacheInfo ? ((ColumnarEntryCacheInfo) pEntry).getColumnarRow() : -1;
+    }
+
+    private StampedLock lockOf(int row) {
+        return _locks[(row >>> BLOCK_SHIFT) & (NUM_LOCKS - 1)];
+    }
+
+    private RowAllocator allocatorOf(IEntryCacheInfo pEntry) {
+        int h = System.identityHashCode(pEntry);
+        h ^= (h >>> 16);
+        return _allocators[h & (_allocators.length - 1)];
+    }
+
+    /**
+     * @return the first row of a block which was not handed out yet, growing the store if needed
+     */
+    private int claimBlock() {
+        synchronized (_growLock) {
+            int row = _nextBlock++ << BLOCK_SHIFT;
+            int numChunks = (row >>> CHUNK_SHIFT) + 1;
+            if (numChunks > _numChunks) {
+                IEntryHolder[][] entries = Arrays.copyOf(_entries, numChunks);
+                long[][] usedRows = Arrays.copyOf(_usedRows, numChunks);
+                for (int i = _numChunks; i < numChunks; i++) {
+                    entries[i] = new IEntryHolder[CHUNK_SIZE];
+                    usedRows[i] = new long[CHUNK_SIZE >>> 6];
+                }
+                for (Column column : _columns)
+                    column.ensureChunks(numChunks);
+                _entries = entries;
+                _usedRows = usedRows;
+                _numChunks = numChunks;
+            }
+            return row;
+        }
+    }
+
+    private void setValues(int row, IEntryData entryData) {
+        for (Column column : _columns)
+            column.set(row, entryData.getFixedPropertyValue(column.getPosition()));
+    }
+
+    /**
+     * Hands out the rows of the blocks it claimed, and reuses the rows freed by its entries.
+     */
+    private final class RowAllocator {
+        //all fields are guarded by the allocator monitor
+        private int _nextRow;
+        private int _blockEnd;
+        private int[] _freeRows = new int[16];
+        private int _numFreeRows;
+
+        synchronized int allocate() {
+            if (_numFreeRows > 0)
+                return _freeRows[--_numFreeRows];
+            if (_nextRow == _blockEnd) {
+                _nextRow = claimBlock();
+                _blockEnd = _nextRow + BLOCK_SIZE;
+            }
+            return _nextRow++;
+        }
+
+        synchronized void free(int row) {
+            if (_numFreeRows == _freeRows.length)
+                _freeRows = Arrays.copyOf(_freeRows, _numFreeRows * 2);
+            _freeRows[_numFreeRows++] = row;
+        }
+    }
+
+    /**
+     * Visits one chunk of a {@link ColumnarTypeStore} scan.
+     */
+    public interface ChunkVisitor {
+        /**
+         * @param chunk    index of the chunk, used to get the values of the chunk from columns
+         * @param entries  the entry holder of each row of the chunk
+         * @param usedRows a bitmap of the rows of the chunk which hold an entry
+         * @return false to stop the scan
+         */
+        boolean visit(int chunk, IEntryHolder[] entries, long[] usedRows);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.columnar;
+
+import java.util.Arrays;
+
+import static com.j_spaces.core.cache.columnar.ColumnarTypeStore.CHUNK_SIZE;
+
+/**
+ * A column of double values (primitive or boxed).
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DoubleColumn extends Column {
+
+    private double[][] _values = new double[0][];
+
+    DoubleColumn(String name, int position) {
+        super(name, position, Double.class);
+    }
+
+    public double[] getValues(int chunk) {
+        return _values[chunk];
+    }
+
+    @Override
+    void allocateChunk(int chunk) {
+        if (_values.length <= chunk)
+            _values = Arrays.copyOf(_values, chunk + 1);
+        _values[chunk] = new double[CHUNK_SIZE];
+    }
+
+    @Override
+    void setValue(int chunk, int offset, Object value) {
+        _values[chunk][offset] = (Double) value;
+    }
+
+    @Override
+    void clearValue(int chunk, int offset) {
+        _values[chunk][offset] = 0;
+    }
+}
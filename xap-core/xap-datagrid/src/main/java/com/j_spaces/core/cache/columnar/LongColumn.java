@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.columnar;
+
+import java.util.Arrays;
+
+import static com.j_spaces.core.cache.columnar.ColumnarTypeStore.CHUNK_SIZE;
+
+/**
+ * A column of long, int, short or byte values (primitive or boxed), all kept as longs.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class LongColumn extends Column {
+
+    private long[][] _values = new long[0][];
+
+    LongColumn(String name, int position, Class<?> valueClass) {
+        super(name, position, valueClass);
+    }
+
+    public long[] getValues(int chunk) {
+        return _values[chunk];
+    }
+
+    /**
+     * @return the value boxed in the class of the column values
+     */
+    public Number box(long value) {
+        Class<?> valueClass = getValueClass();
+        if (valueClass == Long.class)
+            return value;
+        if (valueClass == Integer.class)
+            return (int) value;
+        if (valueClass == Short.class)
+            return (short) value;
+        return (byte) value;
+    }
+
+    @Override
+    void allocateChunk(int chunk) {
+        if (_values.length <= chunk)
+            _values = Arrays.copyOf(_values, chunk + 1);
+        _values[chunk] = new long[CHUNK_SIZE];
+    }
+
+    @Override
+    void setValue(int chunk, int offset, Object value) {
+        _values[chunk][offset] = ((Number) value).longValue();
+    }
+
+    @Override
+    void clearValue(int chunk, int offset) {
+        _values[chunk][offset] = 0;
+    }
+}
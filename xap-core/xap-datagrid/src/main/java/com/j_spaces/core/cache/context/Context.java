@@ -39,6 +39,7 @@ import com.gigaspaces.lrmi.nio.IResponseContext;
 import com.j_spaces.core.*;
 import com.j_spaces.core.cache.IEntryCacheInfo;
 import com.j_spaces.core.cache.InitialLoadInfo;
+import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
 import com.j_spaces.core.cache.blobStore.storage.bulks.BlobStoreBulkInfo;
 import com.j_spaces.core.cache.blobStore.storage.preFetch.BlobStorePreFetchBatchResult;
@@ -206,6 +207,9 @@ public class Context {
     //used in blob-store bulking
     private BlobStoreBulkInfo _blobStoreBulkInfo;
 
+    //used in transactional writeMultiple, new entries per type whose refs are inserted as a batch
+    private Map<TypeData, List<IEntryCacheInfo>> _pendingEntriesReferences;
+
     //used in blob-store to avoid access to ssd and use only intersection of indexes
     private boolean _blobStoreUsePureIndexesAccess;
     private boolean _blobStoreTryNonPersistentOp;
@@ -465,6 +469,7 @@ public class Context {
         _indexUsed = false;
         _initialLoadInfo = null;
         _blobStoreBulkInfo = null;
+        _pendingEntriesReferences = null;
         _blobStoreUsePureIndexesAccess = false;
         _blobStoreTryNonPersistentOp = false;
         _blobStorePreFetchBatchResult = null;
@@ -813,6 +818,10 @@ public class Context {
         ++_numOfEntriesMatched;
     }
 
+    public void incrementNumOfEntriesMatched(int delta) {
+        _numOfEntriesMatched += delta;
+    }
+
     public int getNumberOfEntriesMatched() {
         return _numOfEntriesMatched;
     }
@@ -894,6 +903,14 @@ public class Context {
         _blobStoreBulkInfo = bi;
     }
 
+    public Map<TypeData, List<IEntryCacheInfo>> getPendingEntriesReferences() {
+        return _pendingEntriesReferences;
+    }
+
+    public void setPendingEntriesReferences(Map<TypeData, List<IEntryCacheInfo>> pendingEntriesReferences) {
+        _pendingEntriesReferences = pendingEntriesReferences;
+    }
+
     public void setBlobStoreUsePureIndexesAccess(boolean val) {
         _blobStoreUsePureIndexesAccess = val;
     }
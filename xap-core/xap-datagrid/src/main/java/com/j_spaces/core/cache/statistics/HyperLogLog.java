@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache.statistics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * HyperLogLog sketch of the number of distinct values offered to it, with a standard error of
+ * ~1.6% (1.04 / sqrt(4096 registers)). The registers are packed four to an int and raised with
+ * compare-and-set, so concurrent offers are not lost. Values can not be removed from the sketch, it
+ * counts the distinct values offered since it was created.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class HyperLogLog {
+    private static final int PRECISION = 12;
+    private static final int NUM_REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / NUM_REGISTERS);
+
+    //register i is byte (i & 3) of int (i >>> 2)
+    private final AtomicIntegerArray _registers = new AtomicIntegerArray(NUM_REGISTERS >>> 2);
+
+    public void offer(Object value) {
+        offerHash(mix(value.hashCode()));
+    }
+
+    void offerHash(long hash) {
+        final int register = (int) (hash >>> (64 - PRECISION));
+        //the remaining bits are padded with a 1 so the rank never exceeds 64 - PRECISION + 1
+        final int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        final int index = register >>> 2;
+        final int shift = (register & 3) << 3;
+        while (true) {
+            final int word = _registers.get(index);
+            if (((word >>> shift) & 0xff) >= rank)
+                return;
+            if (_registers.compareAndSet(index, word, (word & ~(0xff << shift)) | (rank << shift)))
+                return;
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < NUM_REGISTERS; i++) {
+            final int register = (_registers.get(i >>> 2) >>> ((i & 3) << 3)) & 0xff;
+            sum += 1.0 / (1L << register);
+            if (register == 0)
+                zeros++;
+        }
+        double estimate = ALPHA * NUM_REGISTERS * NUM_REGISTERS / sum;
+        //small range correction
+        if (estimate <= 2.5 * NUM_REGISTERS && zeros != 0)
+            estimate = NUM_REGISTERS * Math.log((double) NUM_REGISTERS / zeros);
+        return Math.round(estimate);
+    }
+
+    /**
+     * spreads a 32 bit hash code over 64 bits (murmur3 finalizer)
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache.statistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cardinality statistics of the non-null values of an ordered index - the number of distinct values
+ * (HyperLogLog) and a sample of the values used to estimate the number of entries a range scan of
+ * the index will return. Maintained on insertion and removal of the indexed values by concurrent
+ * writers, and used by <tt>CompoundAndIndexScanner</tt> to pick the most selective index.
+ *
+ * <p>The estimates are approximate:
+ * <ul>
+ * <li>The number of values is exact once concurrent updates complete.</li>
+ * <li>The number of distinct values has a ~1.6% standard error, but counts values removed since,
+ * capped by the number of values. Under churn of distinct values it over-estimates, so equality
+ * scans are under-estimated.</li>
+ * <li>A range estimate from the 1024 sampled values has a standard error of up to ~1.6% of the
+ * number of values (sqrt(p(1-p)/1024) for a range holding a fraction p of them), so estimates of
+ * ranges holding less than a few percent of the values are only reliable as "small".</li>
+ * </ul>
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class IndexStatistics {
+    private static final int SAMPLE_SIZE = 1024;
+    //below this number of sampled values the estimates are not reliable
+    private static final int MIN_SAMPLE_SIZE = 64;
+
+    private final HyperLogLog _distinctValues = new HyperLogLog();
+    private final ValueSample _sample = new ValueSample(SAMPLE_SIZE);
+    private final LongAdder _numValues = new LongAdder();
+
+    public void onInsert(Object value) {
+        _numValues.increment();
+        _distinctValues.offer(value);
+        _sample.offer(value, getNumValues());
+    }
+
+    public void onRemove(Object value) {
+        _numValues.decrement();
+        _sample.remove(value);
+    }
+
+    /**
+     * @return the number of non-null values currently indexed
+     */
+    public long getNumValues() {
+        return Math.max(0, _numValues.sum());
+    }
+
+    public long estimateDistinctValues() {
+        return Math.min(_distinctValues.estimate(), getNumValues());
+    }
+
+    /**
+     * @return the estimated number of values in the range, a <tt>null</tt> bound leaves the range
+     * open, or -1 if there are not enough statistics to estimate it
+     */
+    public long estimateRange(Comparable min, boolean includeMin, Comparable max, boolean includeMax) {
+        final long numValues = getNumValues();
+        final int sampleSize = _sample.size();
+        if (sampleSize < MIN_SAMPLE_SIZE)
+            return -1;
+        if (min != null && max != null && includeMin && includeMax && min.equals(max))
+            return Math.max(1, numValues / Math.max(1, estimateDistinctValues()));
+
+        final int count = _sample.countInRange(min, includeMin, max, includeMax);
+        if (count < 0)
+            return -1;
+        //a range missed by the sample is assumed to hold half of a sample bucket
+        if (count == 0)
+            return numValues / (2L * sampleSize);
+        return numValues * count / sampleSize;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStatistics{values=" + getNumValues() + ", distinct=" + estimateDistinctValues() + "}";
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reservoir sample of the values currently stored, used as an equi-depth histogram to estimate the
+ * fraction of values within a range. Once the sample is full an offered value replaces a random
+ * sampled value with probability <tt>capacity / liveValues</tt>, and a removed value is evicted
+ * from the sample if it was sampled, so under churn the sample follows the values currently stored
+ * instead of the whole insertion history.
+ *
+ * <p>Changes of the sample are synchronized. Most offers and removals do not change it and are
+ * decided without locking: offers by a random draw, removals by a filter of the hash codes of the
+ * sampled values, read racily - a stale read may miss an eviction, which only affects accuracy.
+ *
+ * @since 16.4.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ValueSample {
+    private final Object[] _values;
+    private final int[] _hashes;
+    //number of sampled values per hash code slot, for a quick check that a value is not sampled
+    private final int[] _filter;
+    private volatile int _size;
+
+    public ValueSample(int capacity) {
+        _values = new Object[capacity];
+        _hashes = new int[capacity];
+        _filter = new int[Integer.highestOneBit(capacity) << 3];
+    }
+
+    /**
+     * @param liveValues the number of values currently stored, including this one
+     */
+    public void offer(Object value, long liveValues) {
+        if (_size == _values.length && ThreadLocalRandom.current().nextLong(Math.max(liveValues, _values.length)) >= _values.length)
+            return;
+        final int hash = value.hashCode();
+        synchronized (this) {
+            int pos = _size;
+            if (pos < _values.length)
+                _size = pos + 1;
+            else {
+                pos = ThreadLocalRandom.current().nextInt(pos);
+                _filter[filterSlot(_hashes[pos])]--;
+            }
+            _values[pos] = value;
+            _hashes[pos] = hash;
+            _filter[filterSlot(hash)]++;
+        }
+    }
+
+    /**
+     * Evicts the value from the sample, if it was sampled.
+     */
+    public void remove(Object value) {
+        final int hash = value.hashCode();
+        final int slot = filterSlot(hash);
+        if (_filter[slot] == 0)
+            return;
+        synchronized (this) {
+            final int last = _size - 1;
+            for (int i = last; i >= 0; i--) {
+                if (_hashes[i] == hash && value.equals(_values[i])) {
+                    _values[i] = _values[last];
+                    _hashes[i] = _hashes[last];
+                    _values[last] = null;
+                    _filter[slot]--;
+                    _size = last;
+                    return;
+                }
+            }
+        }
+    }
+
+    private int filterSlot(int hash) {
+        return (int) HyperLogLog.mix(hash) & (_filter.length - 1);
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return the number of sampled values in the range, a <tt>null</tt> bound leaves the range
+     * open, or -1 if the sampled values can not be compared with the bounds
+     */
+    public int countInRange(Comparable min, boolean includeMin, Comparable max, boolean includeMax) {
+        final Object[] values;
+        synchronized (this) {
+            values = Arrays.copyOf(_values, _size);
+        }
+        int count = 0;
+        try {
+            for (Object value : values) {
+                if (min != null) {
+                    int res = min.compareTo(value);
+                    if (res > 0 || (res == 0 && !includeMin))
+                        continue;
+                }
+                if (max != null) {
+                    int res = max.compareTo(value);
+                    if (res < 0 || (res == 0 && !includeMax))
+                        continue;
+                }
+                count++;
+            }
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        return count;
+    }
+}
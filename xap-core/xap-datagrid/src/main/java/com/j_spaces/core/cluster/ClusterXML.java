@@ -1665,7 +1665,7 @@ public class ClusterXML {
                 } else {
                     replPolicy.getSwapRedologPolicy().setFlushBufferPacketsCount(Integer.parseInt(value));
                 }
-            } else if (storageType.equals(RedoLogSwapStorageType.BYTE_BUFFER)) {
+            } else if (storageType.equals(RedoLogSwapStorageType.BYTE_BUFFER) || storageType.equals(RedoLogSwapStorageType.MEMORY_MAPPED)) {
                 value = getNodeValueIfExists(swapRedologNode, SWAP_REDOLOG_FLUSH_BUFFER_PACKET_COUNT);
                 if (value != null)
                     replPolicy.getSwapRedologPolicy().setFlushBufferPacketsCount(Integer.parseInt(value));
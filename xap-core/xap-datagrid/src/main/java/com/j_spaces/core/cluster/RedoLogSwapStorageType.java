@@ -30,5 +30,11 @@ public enum RedoLogSwapStorageType {
     /**
      * Redo log packets are stored using SQLite - a SQL database engine
      */
-    SQLITE
+    SQLITE,
+    /**
+     * Redo log packets are serialized/deserialized to/from memory mapped segment files
+     *
+     * @since 16.4.0
+     */
+    MEMORY_MAPPED
 }
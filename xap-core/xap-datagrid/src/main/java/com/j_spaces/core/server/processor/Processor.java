@@ -2434,6 +2434,8 @@ public class Processor implements IConsumerObject<BusPacket<Processor>> {
             } else {//trow directly up
                 _engine.executeOnMatchingEntries(context, template, makeWaitForInfo);
             }
+            if (template.getAggregatorContext() != null)
+                template.getAggregatorContext().flush();
         } finally {
             context.setTransactionalMultipleOperation(false);
             if (txnEntry != null && template.isTakeOperation())
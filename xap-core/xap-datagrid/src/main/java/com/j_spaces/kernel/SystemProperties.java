@@ -155,6 +155,34 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int LRMI_READ_SELECTOR_THREADS_DEFAULT = 4;
 
+    /**
+     * Number of microseconds an LRMI selector thread polls its channels before blocking in select,
+     * trading a busy core for lower wakeup latency. Defaults to 0 (always block)
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SELECTOR_SPIN_MICROS = "com.gs.transport_protocol.lrmi.selector.spin-micros";
+    public final static int LRMI_SELECTOR_SPIN_MICROS_DEFAULT = 0;
+
+    /**
+     * Set to true in order to start a single read selector thread, and add threads up to {@link
+     * #LRMI_READ_SELECTOR_THREADS} or remove them according to the ready keys rate. Defaults to
+     * false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SELECTOR_ADAPTIVE = "com.gs.transport_protocol.lrmi.selector.adaptive";
+    public final static String LRMI_SELECTOR_ADAPTIVE_DEFAULT = "false";
+
+    /**
+     * Ready keys per second per read selector thread above which an adaptive selector adds a
+     * thread, it removes one below a quarter of it. Defaults to 20000
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SELECTOR_ADAPTIVE_READY_KEYS_RATE = "com.gs.transport_protocol.lrmi.selector.adaptive.ready-keys-rate";
+    public final static int LRMI_SELECTOR_ADAPTIVE_READY_KEYS_RATE_DEFAULT = 20000;
+
     public static final int LRMI_SYSTEM_PRIORITY_QUEUE_CAPACITY_DEFAULT = Integer.MAX_VALUE;
 
     public static final int LRMI_SYSTEM_PRIORITY_THREAD_IDLE_TIMEOUT = 60000;
@@ -251,6 +279,24 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int LRMI_CACHED_BUFFER_EXPUNGE_TIMES_THRESHOLD_DEFAULT = 20;
 
+    /**
+     * The maximal bytes of direct buffers kept by the LRMI direct buffer pool, which are used to
+     * transfer packets larger than {@link #MAX_LRMI_BUFFER_SIZE} to and from the network. Set to 0
+     * in order to disable the pool. Defaults to 32MB
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_DIRECT_BUFFER_POOL_MAX_BYTES = "com.gs.transport_protocol.lrmi.direct-buffer-pool.max-bytes";
+    public final static long LRMI_DIRECT_BUFFER_POOL_MAX_BYTES_DEFAULT = 32 * 1024 * 1024;
+
+    /**
+     * Set to true in order to record the stack trace of each buffer acquired from the LRMI direct
+     * buffer pool, and log the ones which are not returned for a long time. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_DIRECT_BUFFER_POOL_LEAK_DETECTION = "com.gs.transport_protocol.lrmi.direct-buffer-pool.leak-detection";
+
     /**
      * The default size to maximum queue length for incoming connection indications.
      */
@@ -291,6 +337,177 @@ public class SystemProperties extends CommonSystemProperties {
     public final static String LRMI_SIMPLE_CLASSLOADING = "com.gs.transport_protocol.lrmi.simple-classloading";
     public final static String LRMI_SIMPLE_CLASSLOADING_DEFAULT = "false";
 
+    /**
+     * Set to true in order to send invocations over a few connections shared by all the invoking
+     * threads, tagging each request with a correlation id, instead of occupying a pooled connection
+     * per in-flight invocation. Remote class loading is not available over shared
+     * connections. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_MULTIPLEXED = "com.gs.transport_protocol.lrmi.multiplexed";
+    public final static String LRMI_MULTIPLEXED_DEFAULT = "false";
+
+    /**
+     * The number of shared connections per remote service when {@link #LRMI_MULTIPLEXED} is
+     * enabled. Defaults to 2
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_MULTIPLEXED_CHANNELS = "com.gs.transport_protocol.lrmi.multiplexed.channels";
+    public final static int LRMI_MULTIPLEXED_CHANNELS_DEFAULT = 2;
+
+    /**
+     * The maximal number of bytes of one-way and asynchronous requests which are gathered before
+     * they are written to a {@linkplain #LRMI_MULTIPLEXED multiplexed} connection in a single
+     * write. Requests are gathered until the client selector thread is woken up to flush them, or
+     * until a synchronous request is written. Set to 0 to write each request on its own. Defaults
+     * to 0
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_WRITE_COALESCING_MAX_BYTES = "com.gs.transport_protocol.lrmi.write-coalescing.max-bytes";
+    public final static int LRMI_WRITE_COALESCING_MAX_BYTES_DEFAULT = 0;
+
+    /**
+     * Set to true in order to process regular priority LRMI requests on a new virtual thread per
+     * request instead of the LRMI connection thread pool. Requires Java 21 or later, otherwise the
+     * thread pool is used. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_VIRTUAL_THREADS = "com.gs.transport_protocol.lrmi.virtual-threads";
+    public final static String LRMI_VIRTUAL_THREADS_DEFAULT = "false";
+
+    /**
+     * The maximal number of regular priority LRMI requests which are processed concurrently when
+     * {@link #LRMI_VIRTUAL_THREADS} is enabled. Requests beyond it are processed by the LRMI
+     * connection thread pool. Defaults to 10000
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_VIRTUAL_THREADS_MAX_CONCURRENCY = "com.gs.transport_protocol.lrmi.virtual-threads.max-concurrency";
+    public final static int LRMI_VIRTUAL_THREADS_MAX_CONCURRENCY_DEFAULT = 10000;
+
+    /**
+     * Set to true in order to queue regular priority LRMI requests per operation class (default,
+     * bulk and replication) and dispatch them to the request executor by weight, so a flood of one
+     * class does not starve the others. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SCHEDULER = "com.gs.transport_protocol.lrmi.scheduler";
+    public final static String LRMI_SCHEDULER_DEFAULT = "false";
+
+    /**
+     * The relative share of each operation class when {@link #LRMI_SCHEDULER} is enabled, in the
+     * form of <tt>class=weight</tt> pairs. Defaults to "replication=8,default=4,bulk=1"
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SCHEDULER_WEIGHTS = "com.gs.transport_protocol.lrmi.scheduler.weights";
+    public final static String LRMI_SCHEDULER_WEIGHTS_DEFAULT = "replication=8,default=4,bulk=1";
+
+    /**
+     * The time in milliseconds a request may wait in the {@linkplain #LRMI_SCHEDULER scheduler}
+     * queue before it is rejected with a retryable exception instead of being processed. Replication
+     * requests and one way requests are never rejected. Set to 0 to never reject requests. Defaults
+     * to 10000
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SCHEDULER_MAX_QUEUE_TIME = "com.gs.transport_protocol.lrmi.scheduler.max-queue-time";
+    public final static long LRMI_SCHEDULER_MAX_QUEUE_TIME_DEFAULT = 10000;
+
+    /**
+     * The number of requests of an operation class which may wait in the {@linkplain
+     * #LRMI_SCHEDULER scheduler} queue, further requests of the class are rejected right away with
+     * a retryable exception. Replication requests and one way requests are never rejected. Set to 0
+     * for unbounded queues. Defaults to 10000
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SCHEDULER_MAX_QUEUE_SIZE = "com.gs.transport_protocol.lrmi.scheduler.max-queue-size";
+    public final static int LRMI_SCHEDULER_MAX_QUEUE_SIZE_DEFAULT = 10000;
+
+    /**
+     * The maximal number of requests the {@linkplain #LRMI_SCHEDULER scheduler} dispatches to the
+     * request executor concurrently. Defaults to the maximal number of LRMI connection threads, or
+     * to {@link #LRMI_VIRTUAL_THREADS_MAX_CONCURRENCY} when virtual threads are enabled
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_SCHEDULER_MAX_CONCURRENCY = "com.gs.transport_protocol.lrmi.scheduler.max-concurrency";
+
+    /**
+     * Set to true in order to request Deflate compression of large LRMI packets on the connections
+     * of this client, negotiated with the server on connect. Ignored when a network filter is used or
+     * when the server does not support it. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_COMPRESSION = "com.gs.transport_protocol.lrmi.compression";
+    public final static String LRMI_COMPRESSION_DEFAULT = "false";
+
+    /**
+     * The minimal size in bytes of an LRMI packet which is compressed when {@link #LRMI_COMPRESSION}
+     * is enabled. Defaults to 8192
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_COMPRESSION_THRESHOLD = "com.gs.transport_protocol.lrmi.compression.threshold";
+    public final static int LRMI_COMPRESSION_THRESHOLD_DEFAULT = 8192;
+
+    /**
+     * The maximal ratio between the compressed and the original size of an LRMI packet for the
+     * compressed packet to be sent, poorly compressed packets are sent as is. A connection which
+     * repeatedly fails to reach it stops compressing for a growing number of packets. Defaults to
+     * 0.9
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_COMPRESSION_MAX_RATIO = "com.gs.transport_protocol.lrmi.compression.max-ratio";
+    public final static String LRMI_COMPRESSION_MAX_RATIO_DEFAULT = "0.9";
+
+    /**
+     * The maximal original size in bytes of a compressed LRMI packet, a connection which receives a
+     * compressed packet claiming a larger size is closed. Defaults to 1073741824 (1GB)
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_COMPRESSION_MAX_MESSAGE_SIZE = "com.gs.transport_protocol.lrmi.compression.max-message-size";
+    public final static int LRMI_COMPRESSION_MAX_MESSAGE_SIZE_DEFAULT = 1 << 30;
+
+    /**
+     * Set to true in order to record latency histograms per remote method, on the client side
+     * (round trip and serialization) and on the server side (queue wait, execution and
+     * serialization), published as lrmi.latency metrics. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_LATENCY_HISTOGRAMS = "com.gs.transport_protocol.lrmi.latency-histograms";
+    public final static String LRMI_LATENCY_HISTOGRAMS_DEFAULT = "false";
+
+    /**
+     * Set to true in order to accept LRMI connections on a unix domain socket as well, and to
+     * connect through it to servers on the same host which accept them. Requires Java 16 or later.
+     * Connections using a network filter always use TCP. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_UNIX_DOMAIN_SOCKETS = "com.gs.transport_protocol.lrmi.unix-domain-sockets";
+    public final static String LRMI_UNIX_DOMAIN_SOCKETS_DEFAULT = "false";
+
+    /**
+     * The directory of the unix domain socket files of {@link #LRMI_UNIX_DOMAIN_SOCKETS}, must be
+     * the same for the servers and clients of a host. Clients only connect to socket files owned by
+     * their user. Defaults to a directory of the current user under the java.io.tmpdir directory,
+     * which only its owner can access
+     *
+     * @since 16.4.0
+     */
+    public final static String LRMI_UNIX_DOMAIN_SOCKETS_DIR = "com.gs.transport_protocol.lrmi.unix-domain-sockets.dir";
+
     /**
      * Set to true in order to set the codebase URL path that a remote party should use to download the definition
      * for a specified class. Default is false.
@@ -662,6 +879,23 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int ENGINE_LRU_SEGMENTS_DEFAULT = 5 * Runtime.getRuntime().availableProcessors() + 1;
 
+    /**
+     * Number of matched entries handed to the aggregators of an aggregate operation as one batch.
+     * Built-in aggregators process a batch with primitive loops over the values of each path, 0 or
+     * 1 aggregates the entries one by one.
+     */
+    public final static String ENGINE_AGGREGATION_BATCH_SIZE = "com.gs.engine.aggregationBatchSize";
+
+    public final static int ENGINE_AGGREGATION_BATCH_SIZE_DEFAULT = 256;
+
+    /**
+     * Collect cardinality statistics of the values of ordered indexes (distinct values and a sample
+     * of the values), used to estimate the size of range scans when choosing the index of a query.
+     */
+    public final static String ENGINE_INDEX_STATISTICS = "com.gs.engine.indexStatistics";
+
+    public final static boolean ENGINE_INDEX_STATISTICS_DEFAULT = false;
+
     /**
      * are the before/after remove filters general and not only for lease cancel/expiration
      */
@@ -704,6 +938,33 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int CACHE_MANAGER_HASHMAP_SEGMENTS_DEFAULT = 64;
 
+    /**
+     * Use primitive-keyed stores for equality indexes of integral properties (long, int, short,
+     * byte, char and their wrappers), avoiding boxed keys and hash entry objects.
+     */
+    public final static String CACHE_MANAGER_PRIMITIVE_INDEX_STORE = "com.gs.cacheManager.primitiveIndexStore";
+
+    public final static String CACHE_MANAGER_PRIMITIVE_INDEX_STORE_DEFAULT = "true";
+
+    /**
+     * Number of entries of the same type inserted to cache as one batch on initial load from the
+     * data source, indexes are updated once per batch and distinct index value. 0 or 1 inserts the
+     * entries one by one.
+     */
+    public final static String CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE = "com.gs.cacheManager.initialLoadBatchSize";
+
+    public final static int CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE_DEFAULT = 10000;
+
+    /**
+     * When true, the index refs of new entries written by a writeMultiple under a transaction are
+     * inserted as one batch per type at the end of the operation, while the transaction lock is
+     * still held. Entries with a lease, a sequence number, unique indexes or FIFO support are
+     * indexed one by one.
+     */
+    public final static String CACHE_MANAGER_WRITE_MULTIPLE_BATCH_INDEXING = "com.gs.cacheManager.writeMultipleBatchIndexing";
+
+    public final static boolean CACHE_MANAGER_WRITE_MULTIPLE_BATCH_INDEXING_DEFAULT = true;
+
     /**
      * The timeout that a caller to the lease manager reaper force cycle is ready to wait for the
      * cycle to be completed
@@ -788,6 +1049,79 @@ public class SystemProperties extends CommonSystemProperties {
     public static final String REPLICATION_USE_BACKUP_BLOBSTORE_BULKS = "com.gs.replication.blobstore.use_backup_bulks";
     public static final String REPLICATION_USE_BACKUP_BLOBSTORE_BULKS_DEFAULT = "true";
 
+    /**
+     * Number of threads a global order backup uses to apply replicated packets of different entries
+     * in parallel, packets of the same entry are applied in order. Defaults to 0 (sequential)
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_PARALLEL_APPLY_THREADS = "com.gs.replication.parallel-apply.threads";
+    public static final int REPLICATION_PARALLEL_APPLY_THREADS_DEFAULT = 0;
+
+    /**
+     * Minimal number of consecutive single entry packets which are applied in parallel. Defaults to
+     * 50
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_PARALLEL_APPLY_THRESHOLD = "com.gs.replication.parallel-apply.threshold";
+    public static final int REPLICATION_PARALLEL_APPLY_THRESHOLD_DEFAULT = 50;
+
+    /**
+     * If true, replication batches are sent to targets which support it as a single deflated
+     * payload. Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_BATCH_ENCODING = "com.gs.replication.batch-encoding.enabled";
+    public static final String REPLICATION_BATCH_ENCODING_DEFAULT = "false";
+
+    /**
+     * If true, encoded batches sent to a backup which is in sync carry updates as the fixed
+     * properties which were changed rather than the full entry. Defaults to true
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_BATCH_ENCODING_DELTA_UPDATES = "com.gs.replication.batch-encoding.delta-updates";
+    public static final String REPLICATION_BATCH_ENCODING_DELTA_UPDATES_DEFAULT = "true";
+
+    /**
+     * If true, async and reliable async channels tune their batch size and idle delay from the
+     * measured round trip time, target throughput and backlog size, within the bounds below.
+     * Defaults to false
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_ADAPTIVE_BATCHING = "com.gs.replication.adaptive-batching.enabled";
+    public static final String REPLICATION_ADAPTIVE_BATCHING_DEFAULT = "false";
+
+    /**
+     * Maximal batch size of an adaptive channel as a multiple of its configured batch size, which
+     * is its minimal batch size. Defaults to 8
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_ADAPTIVE_BATCHING_MAX_BATCH_FACTOR = "com.gs.replication.adaptive-batching.max-batch-factor";
+    public static final int REPLICATION_ADAPTIVE_BATCHING_MAX_BATCH_FACTOR_DEFAULT = 8;
+
+    /**
+     * Minimal idle delay in milliseconds of an adaptive channel, its configured interval is its
+     * maximal idle delay. Defaults to 1
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_ADAPTIVE_BATCHING_MIN_IDLE_DELAY = "com.gs.replication.adaptive-batching.min-idle-delay";
+    public static final long REPLICATION_ADAPTIVE_BATCHING_MIN_IDLE_DELAY_DEFAULT = 1;
+
+    /**
+     * Round trip time in milliseconds above which an adaptive channel reduces its batch size.
+     * Defaults to 200
+     *
+     * @since 16.4.0
+     */
+    public static final String REPLICATION_ADAPTIVE_BATCHING_TARGET_RTT = "com.gs.replication.adaptive-batching.target-rtt";
+    public static final long REPLICATION_ADAPTIVE_BATCHING_TARGET_RTT_DEFAULT = 200;
+
     public static final String DIRECT_PERSISTENCY_RECOVER_RETRIES = "com.gs.direct_persistency.recover_retries";
     public static final int DIRECT_PERSISTENCY_RECOVER_RETRIES_DEFAULT = 10;
 
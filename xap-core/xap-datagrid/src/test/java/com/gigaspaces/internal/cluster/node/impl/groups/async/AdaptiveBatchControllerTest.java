@@ -0,0 +1,66 @@
+package com.gigaspaces.internal.cluster.node.impl.groups.async;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveBatchControllerTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    public void testGrowsWhileTargetFallsBehind() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 800, 1, 1000, 200);
+        Assert.assertEquals(100, controller.getBatchSize());
+        Assert.assertEquals(1000, controller.getIdleDelay());
+
+        controller.onBatchReplicated(100, RTT, 10000);
+        Assert.assertEquals(200, controller.getBatchSize());
+        Assert.assertEquals(1, controller.getIdleDelay());
+        // Larger batches in the same round trip time raise the throughput
+        controller.onBatchReplicated(200, RTT, 10000);
+        controller.onBatchReplicated(400, RTT, 10000);
+        controller.onBatchReplicated(800, RTT, 10000);
+        Assert.assertEquals(800, controller.getBatchSize());
+        Assert.assertEquals(5000, controller.getRoundTripTime());
+    }
+
+    @Test
+    public void testStopsGrowingWhenThroughputDoesNot() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 800, 1, 1000, 200);
+        controller.onBatchReplicated(100, RTT, 10000);
+        Assert.assertEquals(200, controller.getBatchSize());
+        // Twice the packets took four times as long
+        controller.onBatchReplicated(200, 4 * RTT, 10000);
+        Assert.assertEquals(200, controller.getBatchSize());
+    }
+
+    @Test
+    public void testShrinksAboveTargetRtt() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 800, 1, 1000, 200);
+        controller.onBatchReplicated(100, RTT, 10000);
+        controller.onBatchReplicated(200, RTT, 10000);
+        Assert.assertEquals(400, controller.getBatchSize());
+        for (int i = 0; i < 20; i++)
+            controller.onBatchReplicated(400, TimeUnit.MILLISECONDS.toNanos(500), 10000);
+        Assert.assertEquals(100, controller.getBatchSize());
+        Assert.assertEquals(1, controller.getIdleDelay());
+    }
+
+    @Test
+    public void testLightLoad() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 800, 1, 1000, 200);
+        controller.onBatchReplicated(100, RTT, 10000);
+        Assert.assertEquals(200, controller.getBatchSize());
+        for (int i = 0; i < 20; i++)
+            controller.onBatchReplicated(3, RTT, 0);
+        Assert.assertEquals(100, controller.getBatchSize());
+        // Waits about a round trip between batches rather than the configured interval
+        Assert.assertEquals(5, controller.getIdleDelay());
+
+        for (int i = 0; i < 20; i++)
+            controller.onIdleCycle();
+        Assert.assertEquals(1000, controller.getIdleDelay());
+    }
+}
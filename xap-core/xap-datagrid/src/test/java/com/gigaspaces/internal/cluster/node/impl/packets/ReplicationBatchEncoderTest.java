@@ -0,0 +1,77 @@
+package com.gigaspaces.internal.cluster.node.impl.packets;
+
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.PartialUpdateReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.UpdateReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.view.EntryPacketServerEntryAdapter;
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+public class ReplicationBatchEncoderTest {
+
+    private final ITypeDesc typeDesc = (ITypeDesc) new SpaceTypeDescriptorBuilder("Order")
+            .addFixedProperty("id", String.class)
+            .addFixedProperty("quantity", Integer.class)
+            .addFixedProperty("comment", String.class)
+            .addFixedProperty("amount", Double.class)
+            .idProperty("id", false)
+            .create();
+
+    @Test
+    public void testDeltaCarriesChangedProperties() {
+        UpdateReplicationPacketData update = createUpdate("1", new Object[]{"1", 5, "comment", 1.5}, new Object[]{"1", 6, "comment", 1.5});
+        PartialUpdateReplicationPacketData delta = PartialUpdateReplicationPacketData.createDelta(update);
+        Assert.assertNotNull(delta);
+        Assert.assertArrayEquals(new Object[]{null, 6, null, null}, delta.getEntryPacket().getFieldValues());
+        Assert.assertEquals(2, delta.getEntryPacket().getVersion());
+        Assert.assertArrayEquals(new Object[]{"1", 6, "comment", 1.5}, update.getEntryPacket().getFieldValues());
+
+        // A property which was changed to null cannot be told apart from an unchanged one
+        Assert.assertNull(PartialUpdateReplicationPacketData.createDelta(
+                createUpdate("2", new Object[]{"2", 5, "comment", 1.5}, new Object[]{"2", 6, null, 1.5})));
+        // Nothing to save when all properties were changed
+        Assert.assertNull(PartialUpdateReplicationPacketData.createDelta(
+                createUpdate("3", new Object[]{"3", 5, "comment", 1.5}, new Object[]{"4", 6, "other", 2.5})));
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        UpdateReplicationPacketData deltaUpdate = createUpdate("1", new Object[]{"1", 5, "comment", 1.5}, new Object[]{"1", 6, "comment", 1.5});
+        UpdateReplicationPacketData fullUpdate = createUpdate("2", new Object[]{"2", 5, "comment", 1.5}, new Object[]{"2", 6, null, 1.5});
+        List<IReplicationOrderedPacket> batch = Arrays.<IReplicationOrderedPacket>asList(
+                new GlobalOrderOperationPacket(10, deltaUpdate),
+                new GlobalOrderOperationPacket(11, fullUpdate));
+
+        ReplicationBatchEncoder encoder = new ReplicationBatchEncoder();
+        byte[] encodedBatch = encoder.encode(batch, true, new Deflater());
+        List<IReplicationOrderedPacket> decodedBatch = ReplicationBatchEncoder.decode(encodedBatch);
+
+        Assert.assertEquals(2, decodedBatch.size());
+        Assert.assertEquals(10, decodedBatch.get(0).getKey());
+        Assert.assertTrue(decodedBatch.get(0).getData() instanceof PartialUpdateReplicationPacketData);
+        PartialUpdateReplicationPacketData decodedDelta = (PartialUpdateReplicationPacketData) decodedBatch.get(0).getData();
+        Assert.assertEquals("1", decodedDelta.getUid());
+        Assert.assertArrayEquals(new Object[]{null, 6, null, null}, decodedDelta.getEntryPacket().getFieldValues());
+        Assert.assertEquals(11, decodedBatch.get(1).getKey());
+        Assert.assertEquals(UpdateReplicationPacketData.class, decodedBatch.get(1).getData().getClass());
+        Assert.assertSame(deltaUpdate, batch.get(0).getData());
+
+        Assert.assertEquals(1, encoder.getEncodedBatches());
+        Assert.assertEquals(1, encoder.getDeltaUpdates());
+        Assert.assertEquals(encodedBatch.length, encoder.getEncodedBytes());
+        Assert.assertTrue(encoder.getRawBytes() > 0);
+    }
+
+    private UpdateReplicationPacketData createUpdate(String uid, Object[] previousValues, Object[] values) {
+        EntryPacket previous = new EntryPacket(typeDesc, typeDesc.getObjectType(), previousValues, null, uid, 1, Long.MAX_VALUE, false);
+        EntryPacket current = new EntryPacket(typeDesc, typeDesc.getObjectType(), values, null, uid, 2, Long.MAX_VALUE, false);
+        return new UpdateReplicationPacketData(current, false, false, new EntryPacketServerEntryAdapter(previous), (short) 0, Long.MAX_VALUE, null);
+    }
+}
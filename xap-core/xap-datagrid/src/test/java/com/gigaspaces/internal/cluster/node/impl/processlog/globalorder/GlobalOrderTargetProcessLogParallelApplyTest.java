@@ -0,0 +1,197 @@
+package com.gigaspaces.internal.cluster.node.impl.processlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.IReplicationInContext;
+import com.gigaspaces.internal.cluster.node.handlers.IReplicationInFacade;
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.filters.IReplicationInFilterCallback;
+import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationGroupHistory;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.DataConsumeOkResult;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeFix;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeResult;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketDataConsumer;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationParticipantsMetadata;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogExceptionHandler;
+import com.gigaspaces.internal.server.space.metadata.SpaceTypeManager;
+import com.j_spaces.core.cluster.IReplicationFilterEntry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GlobalOrderTargetProcessLogParallelApplyTest {
+
+    private static final int UIDS = 7;
+
+    @Test
+    public void testParallelApplyKeepsEntryOrder() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer(-1);
+        GlobalOrderTargetProcessLog processLog = createProcessLog(consumer);
+        try {
+            GlobalOrderProcessResult result = processLog.processBatch("source", createPackets(0, 200), null);
+            Assert.assertTrue(result.isProcessed());
+            Assert.assertEquals(199, processLog.getLastProcessedKey());
+            Assert.assertTrue("expected more than one applying thread", consumer.threads.size() > 1);
+            for (int i = 0; i < UIDS; i++) {
+                List<Long> keys = consumer.getKeys("uid" + i);
+                Assert.assertFalse(keys.isEmpty());
+                List<Long> sorted = new ArrayList<Long>(keys);
+                Collections.sort(sorted);
+                Assert.assertEquals(sorted, keys);
+            }
+        } finally {
+            processLog.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testErrorKeepsLastProcessedKeyBelowFailedPacket() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer(120);
+        GlobalOrderTargetProcessLog processLog = createProcessLog(consumer);
+        try {
+            GlobalOrderProcessResult result = processLog.processBatch("source", createPackets(0, 200), null);
+            Assert.assertFalse(result.isProcessed());
+            Assert.assertEquals(119, processLog.getLastProcessedKey());
+        } finally {
+            processLog.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testTypeIntroduceIsAppliedSequentially() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer(-1);
+        GlobalOrderTargetProcessLog processLog = createProcessLog(consumer);
+        try {
+            List<IReplicationOrderedPacket> packets = createPackets(0, 100);
+            packets.addAll(createPackets(101, 99));
+            packets.add(100, createPacket(100, "MyType", ReplicationSingleOperationType.DATA_TYPE_INTRODUCE));
+            GlobalOrderProcessResult result = processLog.processBatch("source", packets, null);
+            Assert.assertTrue(result.isProcessed());
+            Assert.assertEquals(199, processLog.getLastProcessedKey());
+            // The type is introduced after all the preceding writes and before any write of it
+            long introduceOrder = consumer.getOrder(100);
+            for (long key = 0; key < 200; key++) {
+                if (key < 100)
+                    Assert.assertTrue("packet " + key + " applied after type introduction", consumer.getOrder(key) < introduceOrder);
+                else if (key > 100)
+                    Assert.assertTrue("packet " + key + " applied before type introduction", consumer.getOrder(key) > introduceOrder);
+            }
+        } finally {
+            processLog.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static GlobalOrderTargetProcessLog createProcessLog(RecordingConsumer consumer) {
+        GlobalOrderProcessLogConfig config = new GlobalOrderProcessLogConfig();
+        config.setParallelApplyThreads(4);
+        config.setParallelApplyThreshold(10);
+        IReplicationProcessLogExceptionHandler exceptionHandler = new IReplicationProcessLogExceptionHandler() {
+            public IDataConsumeFix handleException(IDataConsumeResult errorResult, IReplicationOrderedPacket packet) throws Exception {
+                throw errorResult.toException();
+            }
+
+            public void close() {
+            }
+        };
+        IReplicationGroupHistory groupHistory = proxy(IReplicationGroupHistory.class, Collections.<String, Object>emptyMap());
+        IReplicationInFacade facade = proxy(IReplicationInFacade.class, Collections.<String, Object>emptyMap());
+        return new GlobalOrderTargetProcessLog(config, consumer, exceptionHandler, facade, "target", "group", "source", false, groupHistory);
+    }
+
+    private static List<IReplicationOrderedPacket> createPackets(long fromKey, int count) {
+        List<IReplicationOrderedPacket> packets = new ArrayList<IReplicationOrderedPacket>();
+        for (long key = fromKey; key < fromKey + count; key++)
+            packets.add(createPacket(key, "uid" + key % UIDS, ReplicationSingleOperationType.WRITE));
+        return packets;
+    }
+
+    private static IReplicationOrderedPacket createPacket(long key, String uid, ReplicationSingleOperationType operationType) {
+        Map<String, Object> entryData = new HashMap<String, Object>();
+        entryData.put("getUid", uid);
+        entryData.put("getOperationType", operationType);
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("isSingleEntryData", true);
+        data.put("getSingleEntryData", proxy(IReplicationPacketEntryData.class, entryData));
+        data.put("toString", String.valueOf(key));
+        return new GlobalOrderOperationPacket(key, proxy(IReplicationPacketData.class, data));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, final Map<String, Object> results) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            if (results.containsKey(method.getName()))
+                return results.get(method.getName());
+            if (method.getReturnType() == boolean.class)
+                return false;
+            if (method.getReturnType() == int.class)
+                return 0;
+            if (method.getReturnType() == long.class)
+                return 0L;
+            return null;
+        });
+    }
+
+    private static class RecordingConsumer implements IReplicationPacketDataConsumer<IReplicationPacketData<?>> {
+        private final long _failKey;
+        private final Map<String, List<Long>> keys = new ConcurrentHashMap<String, List<Long>>();
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        private final Map<Long, Long> order = new ConcurrentHashMap<Long, Long>();
+        private final AtomicLong consumed = new AtomicLong();
+
+        private RecordingConsumer(long failKey) {
+            _failKey = failKey;
+        }
+
+        public IDataConsumeResult consume(IReplicationInContext context, IReplicationPacketData<?> data, IReplicationInFacade replicationInFacade, IReplicationInFilterCallback filterInCallback) {
+            long key = Long.parseLong(data.toString());
+            if (key == _failKey)
+                throw new IllegalStateException("failed to consume " + key);
+            threads.add(Thread.currentThread());
+            order.put(key, consumed.incrementAndGet());
+            List<Long> uidKeys = keys.computeIfAbsent(data.getSingleEntryData().getUid(), uid -> Collections.synchronizedList(new ArrayList<Long>()));
+            uidKeys.add(key);
+            return DataConsumeOkResult.OK;
+        }
+
+        public List<Long> getKeys(String uid) {
+            return keys.get(uid);
+        }
+
+        public long getOrder(long key) {
+            return order.get(key);
+        }
+
+        public IReplicationPacketData<?> applyFix(IReplicationInContext context, IReplicationPacketData<?> data, IDataConsumeFix fix) {
+            return data;
+        }
+
+        public Iterable<IReplicationFilterEntry> toFilterEntries(IReplicationInContext context, IReplicationPacketData<?> data) {
+            return null;
+        }
+
+        public IReplicationParticipantsMetadata extractParticipantsMetadata(IReplicationPacketData<?> data) {
+            return null;
+        }
+
+        public IReplicationPacketData<?> merge(IReplicationPacketData<?>[] allParticipantsData, IReplicationParticipantsMetadata participantsMetadata) {
+            return null;
+        }
+
+        public SpaceTypeManager getTypeManager() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.gigaspaces.internal.query;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.query.aggregators.AverageAggregator;
+import com.gigaspaces.query.aggregators.CountAggregator;
+import com.gigaspaces.query.aggregators.GroupByAggregator;
+import com.gigaspaces.query.aggregators.GroupByResult;
+import com.gigaspaces.query.aggregators.GroupByValue;
+import com.gigaspaces.query.aggregators.MaxValueAggregator;
+import com.gigaspaces.query.aggregators.MinValueAggregator;
+import com.gigaspaces.query.aggregators.SpaceEntriesAggregator;
+import com.gigaspaces.query.aggregators.SumAggregator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EntryHolderAggregatorContextTest {
+
+    private static final int SIZE = 3000;
+
+    private final ITypeDesc typeDesc = (ITypeDesc) new SpaceTypeDescriptorBuilder("Order")
+            .addFixedProperty("id", Long.class)
+            .addFixedProperty("category", Integer.class)
+            .addFixedProperty("quantity", Integer.class)
+            .addFixedProperty("price", Double.class)
+            .idProperty("id", false)
+            .create();
+    private final IEntryData[] entries = createEntries();
+
+    private IEntryData[] createEntries() {
+        Random random = new Random(5);
+        IEntryData[] entries = new IEntryData[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            entries[i] = mock(IEntryData.class);
+            when(entries[i].getSpaceTypeDescriptor()).thenReturn(typeDesc);
+            when(entries[i].getPathValue("category")).thenReturn(random.nextInt(10));
+            when(entries[i].getPathValue("quantity")).thenReturn(random.nextInt(5) == 0 ? null : random.nextInt(1000));
+            when(entries[i].getPathValue("price")).thenReturn(random.nextDouble());
+        }
+        return entries;
+    }
+
+    private static List<SpaceEntriesAggregator> createAggregators() {
+        return Arrays.<SpaceEntriesAggregator>asList(
+                new CountAggregator(),
+                new SumAggregator().setPath("quantity"),
+                new AverageAggregator().setPath("quantity"),
+                new MinValueAggregator().setPath("price"),
+                new MaxValueAggregator().setPath("price"),
+                new GroupByAggregator().groupBy("category").selectCount().selectSum("quantity").selectMaxValue("price"));
+    }
+
+    @Test
+    public void mergedPartialContextsMatchSingleContext() {
+        EntryHolderAggregatorContext expected = new EntryHolderAggregatorContext(createAggregators(), null, 0);
+        scan(expected, 0, SIZE);
+        expected.flush();
+
+        EntryHolderAggregatorContext actual = new EntryHolderAggregatorContext(createAggregators(), null, 0);
+        Assert.assertTrue(actual.isSplittable());
+        int[] bounds = {0, 1, 1000, 1000, 2999, SIZE};
+        for (int i = 1; i < bounds.length; i++) {
+            EntryHolderAggregatorContext partial = actual.createPartialContext();
+            scan(partial, bounds[i - 1], bounds[i]);
+            actual.merge(partial);
+        }
+        actual.flush();
+
+        Assert.assertEquals(finalResults(expected), finalResults(actual));
+    }
+
+    @Test
+    public void customAggregatorsAreNotSplittable() {
+        List<SpaceEntriesAggregator> aggregators = Arrays.<SpaceEntriesAggregator>asList(new CountAggregator(), new SumAggregator() {
+        });
+        Assert.assertFalse(new EntryHolderAggregatorContext(aggregators, null, 0).isSplittable());
+    }
+
+    private void scan(EntryHolderAggregatorContext context, int from, int to) {
+        for (int i = from; i < to; i++)
+            context.scan(null, entries[i], "uid" + i, false);
+    }
+
+    private static List<String> finalResults(EntryHolderAggregatorContext context) {
+        List<String> results = new ArrayList<String>();
+        for (SpaceEntriesAggregator aggregator : context.getAggregators()) {
+            Object result = aggregator.getFinalResult();
+            if (result instanceof GroupByResult) {
+                Map<String, String> groups = new TreeMap<String, String>();
+                for (GroupByValue value : (GroupByResult) result)
+                    groups.put(value.getKey().toString(), value.toString());
+                result = groups;
+            }
+            results.add(String.valueOf(result));
+        }
+        return results;
+    }
+}
@@ -147,7 +147,7 @@ public class SpaceValueGettersTests {
                 indexes, identifierPropertyName, idAutoGenerate, defaultPropertyName, routingPropertyName, null, null,
                 isSystemType, fifoMode, replicable, supportsOptimisticLocking, StorageType.OBJECT, entryType,
                 objectClass, ExternalEntry.class, SpaceDocument.class, null, DotNetStorageType.NULL,
-                false, null, null, null, false, null, false);
+                false, null, null, null, false, null, false, false);
     }
 
     public static class Name {
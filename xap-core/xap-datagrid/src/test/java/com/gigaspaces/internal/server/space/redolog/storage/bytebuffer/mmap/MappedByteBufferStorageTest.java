@@ -0,0 +1,124 @@
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedByteBufferStorageTest {
+
+    @Test
+    public void testReadWriteAcrossRegions() throws Exception {
+        MappedByteBufferStorageFactory factory = new MappedByteBufferStorageFactory("mmap-test", 10, 1);
+        IByteBufferStorage storage = factory.createStorage();
+        try {
+            IByteBufferStorageCursor cursor = storage.getCursor();
+            byte[] bytes = new byte[25];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = (byte) i;
+            cursor.writeByte((byte) 7);
+            cursor.writeInt(0x01020304);
+            cursor.writeLong(0x0102030405060708L);
+            cursor.writeBytes(bytes, 0, bytes.length);
+            cursor.writeInt(-1);
+            long end = cursor.getPosition();
+            Assert.assertEquals(1 + 4 + 8 + 25 + 4, end);
+
+            cursor.setPosition(0);
+            Assert.assertEquals(7, cursor.readByte());
+            Assert.assertEquals(0x01020304, cursor.readInt());
+            Assert.assertEquals(0x0102030405060708L, cursor.readLong());
+            byte[] result = new byte[bytes.length];
+            cursor.readBytes(result, 0, result.length);
+            Assert.assertArrayEquals(bytes, result);
+            Assert.assertEquals(-1, cursor.readInt());
+            Assert.assertEquals(end, cursor.getPosition());
+        } finally {
+            storage.close();
+            factory.close();
+        }
+    }
+
+    @Test
+    public void testRecycleFiles() throws Exception {
+        MappedByteBufferStorageFactory factory = new MappedByteBufferStorageFactory("mmap-test", 16, 1);
+        IByteBufferStorage first = factory.createStorage();
+        IByteBufferStorage second = factory.createStorage();
+        String firstName = first.getName();
+        first.getCursor().writeLong(42);
+        first.close();
+        second.close();
+        Assert.assertEquals(1, factory.getRecycledFilesCount());
+        Assert.assertFalse(new File(second.getName()).exists());
+
+        IByteBufferStorage third = factory.createStorage();
+        Assert.assertEquals(firstName, third.getName());
+        Assert.assertEquals(0, factory.getRecycledFilesCount());
+        third.close();
+
+        factory.close();
+        Assert.assertEquals(0, factory.getRecycledFilesCount());
+        Assert.assertFalse(new File(firstName).exists());
+    }
+
+    @Test
+    public void testDeleteUnmapsRegions() throws Exception {
+        File tempFile = File.createTempFile("mmap-test", "tmp");
+        MappedFile file = new MappedFile(tempFile, 16);
+        file.getRegion(2).putLong(0, 42);
+        Assert.assertEquals(3, file.getMappedRegionsCount());
+
+        file.delete();
+        Assert.assertEquals(0, file.getMappedRegionsCount());
+        Assert.assertFalse(tempFile.exists());
+        try {
+            file.getRegion(0);
+            Assert.fail("a deleted file should not be mapped again");
+        } catch (MappedByteBufferStorageException e) {
+        }
+    }
+
+    @Test
+    public void testFactoryCloseUnmapsRecycledFiles() throws Exception {
+        MappedByteBufferStorageFactory factory = new MappedByteBufferStorageFactory("mmap-test", 16, 1);
+        MappedByteBufferStorage storage = (MappedByteBufferStorage) factory.createStorage();
+        storage.getCursor().writeLong(42);
+        String name = storage.getName();
+        storage.close();
+        Assert.assertEquals(1, factory.getRecycledFilesCount());
+        Assert.assertTrue(new File(name).exists());
+
+        factory.close();
+        Assert.assertFalse(new File(name).exists());
+        try {
+            storage.getCursor();
+            Assert.fail("a closed storage should not be used");
+        } catch (MappedByteBufferStorageException e) {
+        }
+    }
+
+    @Test
+    public void testInvokeCleaner() throws Exception {
+        File tempFile = File.createTempFile("mmap-test", "tmp");
+        try {
+            RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+            try {
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 64);
+                Assert.assertTrue(UnsafeHolder.invokeCleaner(buffer));
+            } finally {
+                raf.close();
+            }
+            Assert.assertFalse(UnsafeHolder.invokeCleaner(ByteBuffer.allocate(64)));
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gigaspaces.internal.utils.collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class ChunkedRingBufferTest {
+
+    @Test
+    public void testCompareToLinkedList() {
+        ChunkedRingBuffer<Integer> buffer = new ChunkedRingBuffer<Integer>(2);
+        LinkedList<Integer> expected = new LinkedList<Integer>();
+        Random random = new Random(7);
+        int next = 0;
+        for (int round = 0; round < 2000; round++) {
+            int adds = random.nextInt(10);
+            for (int i = 0; i < adds; i++) {
+                buffer.addLast(next);
+                expected.addLast(next++);
+            }
+            int removes = Math.min(random.nextInt(10), expected.size());
+            for (int i = 0; i < removes; i++)
+                Assert.assertEquals(expected.removeFirst(), buffer.removeFirst());
+            Assert.assertEquals(expected, buffer);
+            if (!expected.isEmpty()) {
+                Assert.assertEquals(expected.getFirst(), buffer.getFirst());
+                Assert.assertEquals(expected.getLast(), buffer.getLast());
+                int index = random.nextInt(expected.size());
+                Assert.assertEquals(expected.get(index), buffer.get(index));
+            }
+        }
+    }
+
+    @Test
+    public void testListIteratorSet() {
+        ChunkedRingBuffer<Integer> buffer = new ChunkedRingBuffer<Integer>(1);
+        for (int i = 0; i < 10; i++)
+            buffer.addLast(i);
+        buffer.removeFirst();
+        ListIterator<Integer> iterator = buffer.listIterator(3);
+        while (iterator.hasNext())
+            iterator.set(-iterator.next());
+        Assert.assertEquals(Integer.valueOf(3), buffer.get(2));
+        Assert.assertEquals(Integer.valueOf(-4), buffer.get(3));
+        Assert.assertEquals(Integer.valueOf(-9), buffer.getLast());
+    }
+
+    @Test
+    public void testClear() {
+        ChunkedRingBuffer<Integer> buffer = new ChunkedRingBuffer<Integer>(1);
+        for (int i = 0; i < 5; i++)
+            buffer.addLast(i);
+        buffer.clear();
+        Assert.assertTrue(buffer.isEmpty());
+        try {
+            buffer.removeFirst();
+            Assert.fail("expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+        }
+        buffer.addLast(42);
+        Assert.assertEquals(Integer.valueOf(42), buffer.getFirst());
+    }
+}
@@ -0,0 +1,220 @@
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLongKeyBTreeMapTest {
+
+    @Test
+    public void basicOperations() {
+        ConcurrentLongKeyBTreeMap<String> map = new ConcurrentLongKeyBTreeMap<String>(ConcurrentLongKeyHashMap.KeyType.LONG);
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.putIfAbsent(1L, "a"));
+        Assert.assertEquals("a", map.putIfAbsent(1L, "b"));
+        Assert.assertEquals("a", map.get(1L));
+        Assert.assertFalse(map.replace(1L, "x", "c"));
+        Assert.assertTrue(map.replace(1L, "a", "c"));
+        Assert.assertFalse(map.remove(1L, "a"));
+        Assert.assertTrue(map.remove(1L, "c"));
+        Assert.assertTrue(map.isEmpty());
+
+        // an Integer key never equals a Long key, but navigates by its value
+        map.put(1L, "a");
+        Assert.assertNull(map.get((Object) 1));
+        Assert.assertNull(map.remove((Object) 1));
+        Assert.assertEquals(1L, map.ceilingKey(0));
+        try {
+            map.put(2, "b");
+            Assert.fail("Integer key should not be mapped by a Long keyed map");
+        } catch (ClassCastException e) {
+        }
+        try {
+            map.ceilingKey("1");
+            Assert.fail("String key should not be compared with Long keys");
+        } catch (ClassCastException e) {
+        }
+    }
+
+    @Test
+    public void matchesTreeMap() {
+        ConcurrentLongKeyBTreeMap<Integer> map = new ConcurrentLongKeyBTreeMap<Integer>(ConcurrentLongKeyHashMap.KeyType.INTEGER);
+        TreeMap<Object, Integer> expected = new TreeMap<Object, Integer>();
+        Random random = new Random(17);
+        for (int i = 0; i < 200000; i++) {
+            int key = random.nextInt(20000) - 10000;
+            if (random.nextInt(3) == 0)
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            else
+                Assert.assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        assertSameEntries(expected, map);
+        assertSameEntries(expected.descendingMap(), map.descendingMap());
+        assertSameEntries(expected.subMap(-500, false, 700, true), map.subMap(-500, false, 700, true));
+        assertSameEntries(expected.descendingMap().subMap(700, true, -500, false), map.descendingMap().subMap(700, true, -500, false));
+        assertSameEntries(expected.tailMap(9000, true), map.tailMap(9000, true));
+        assertSameEntries(expected.descendingMap().headMap(-9000, false), map.descendingMap().headMap(-9000, false));
+
+        for (int key = -10010; key < 10010; key += 7) {
+            Assert.assertEquals(expected.ceilingKey(key), map.ceilingKey(key));
+            Assert.assertEquals(expected.higherKey(key), map.higherKey(key));
+            Assert.assertEquals(expected.floorKey(key), map.floorKey(key));
+            Assert.assertEquals(expected.lowerKey(key), map.lowerKey(key));
+        }
+        Assert.assertEquals(expected.firstKey(), map.firstKey());
+        Assert.assertEquals(expected.lastKey(), map.descendingMap().firstKey());
+
+        // drain most of the tree, leaves are merged and removed on the way
+        for (Iterator<Integer> iter = map.values().iterator(); iter.hasNext(); ) {
+            iter.next();
+            if (random.nextInt(10) != 0)
+                iter.remove();
+        }
+        expected.keySet().retainAll(map.keySet());
+        Assert.assertEquals(expected.size(), map.size());
+        assertSameEntries(expected, map);
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.firstEntry());
+    }
+
+    @Test
+    public void appendOnlyKeepsLeavesFull() {
+        ConcurrentLongKeyBTreeMap<Long> map = new ConcurrentLongKeyBTreeMap<Long>(ConcurrentLongKeyHashMap.KeyType.LONG);
+        final long size = 100000;
+        for (long i = 0; i < size; i++)
+            map.put(i, i);
+        long expected = size - 1000;
+        for (Long value : map.tailMap(size - 1000).values())
+            Assert.assertEquals(Long.valueOf(expected++), value);
+        Assert.assertEquals(size, expected);
+        // oldest entries expire first
+        for (long i = 0; i < size / 2; i++)
+            Assert.assertEquals(Long.valueOf(i), map.remove(i));
+        Assert.assertEquals(size / 2, map.size());
+        Assert.assertEquals(Long.valueOf(size / 2), map.firstKey());
+    }
+
+    @Test
+    public void scansDuringConcurrentUpdates() throws Exception {
+        final ConcurrentLongKeyBTreeMap<Long> map = new ConcurrentLongKeyBTreeMap<Long>(ConcurrentLongKeyHashMap.KeyType.LONG);
+        // even keys are stable, odd keys are added and removed concurrently
+        for (long i = 0; i < 20000; i += 2)
+            map.put(i, i);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 2; t++) {
+            final int seed = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++) {
+                        long key = random.nextInt(10000) * 2 + 1;
+                        if (random.nextBoolean())
+                            map.putIfAbsent(key, key);
+                        else
+                            map.remove(key);
+                    }
+                }
+            }));
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    for (int round = 0; round < 20; round++) {
+                        long expected = 0;
+                        long prev = -1;
+                        for (Map.Entry<Object, Long> entry : map.entrySet()) {
+                            long key = (Long) entry.getKey();
+                            if (key <= prev || !entry.getValue().equals(key))
+                                errors.incrementAndGet();
+                            prev = key;
+                            if ((key & 1) == 0) {
+                                if (key != expected)
+                                    errors.incrementAndGet();
+                                expected += 2;
+                            }
+                        }
+                        if (expected != 20000)
+                            errors.incrementAndGet();
+                        for (long i = 0; i < 20000; i += 2)
+                            if (map.get(i) == null)
+                                errors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        Assert.assertEquals(0, errors.get());
+    }
+
+    @Test
+    public void concurrentWritersOfDisjointRanges() throws Exception {
+        final ConcurrentLongKeyBTreeMap<Long> map = new ConcurrentLongKeyBTreeMap<Long>(ConcurrentLongKeyHashMap.KeyType.LONG);
+        final int writers = 4;
+        final int keysPerWriter = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < writers; t++) {
+            final long base = (long) t * keysPerWriter;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    // grow, shrink to every third key and grow back, splitting and merging leaves
+                    for (long i = 0; i < keysPerWriter; i++)
+                        map.put(base + i, base + i);
+                    for (long i = 0; i < keysPerWriter; i++)
+                        if (i % 3 != 0)
+                            map.remove(base + i);
+                    for (long i = 0; i < keysPerWriter; i += 2)
+                        map.putIfAbsent(base + i, base + i);
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        TreeMap<Object, Long> expected = new TreeMap<Object, Long>();
+        for (long i = 0; i < (long) writers * keysPerWriter; i++)
+            if ((i % keysPerWriter) % 3 == 0 || (i % keysPerWriter) % 2 == 0)
+                expected.put(i, i);
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(new ArrayList<Object>(expected.keySet()), new ArrayList<Object>(map.keySet()));
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    private static void assertSameEntries(NavigableMap<Object, Integer> expected, NavigableMap<Object, Integer> actual) {
+        Assert.assertEquals(new ArrayList<Object>(expected.keySet()), new ArrayList<Object>(actual.keySet()));
+        Assert.assertEquals(new ArrayList<Integer>(expected.values()), new ArrayList<Integer>(actual.values()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLongKeyHashMapTest {
+
+    @Test
+    public void keyTypeResolution() {
+        Assert.assertEquals(ConcurrentLongKeyHashMap.KeyType.LONG, ConcurrentLongKeyHashMap.getKeyType(long.class));
+        Assert.assertEquals(ConcurrentLongKeyHashMap.KeyType.LONG, ConcurrentLongKeyHashMap.getKeyType(Long.class));
+        Assert.assertEquals(ConcurrentLongKeyHashMap.KeyType.INTEGER, ConcurrentLongKeyHashMap.getKeyType(Integer.class));
+        Assert.assertEquals(ConcurrentLongKeyHashMap.KeyType.SHORT, ConcurrentLongKeyHashMap.getKeyType(short.class));
+        Assert.assertNull(ConcurrentLongKeyHashMap.getKeyType(String.class));
+        Assert.assertNull(ConcurrentLongKeyHashMap.getKeyType(Double.class));
+        Assert.assertNull(ConcurrentLongKeyHashMap.getKeyType(null));
+    }
+
+    @Test
+    public void basicOperations() {
+        ConcurrentLongKeyHashMap<String> map = new ConcurrentLongKeyHashMap<String>(ConcurrentLongKeyHashMap.KeyType.LONG, 4);
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.putIfAbsent(1L, "a"));
+        Assert.assertEquals("a", map.putIfAbsent(1L, "b"));
+        Assert.assertEquals("a", map.get(1L));
+        Assert.assertEquals("a", map.get((Object) 1L));
+        Assert.assertEquals(1, map.size());
+
+        Assert.assertFalse(map.replace(1L, "x", "c"));
+        Assert.assertTrue(map.replace(1L, "a", "c"));
+        Assert.assertEquals("c", map.get(1L));
+
+        Assert.assertFalse(map.remove(1L, "a"));
+        Assert.assertTrue(map.remove(1L, "c"));
+        Assert.assertNull(map.get(1L));
+        Assert.assertTrue(map.isEmpty());
+
+        //removed slot is revived by the same key
+        Assert.assertNull(map.put(1L, "d"));
+        Assert.assertEquals("d", map.put(1L, "e"));
+        Assert.assertEquals("e", map.remove(1L));
+        Assert.assertNull(map.remove(1L));
+    }
+
+    @Test
+    public void foreignKeysKeepBoxedEquality() {
+        ConcurrentLongKeyHashMap<String> map = new ConcurrentLongKeyHashMap<String>(ConcurrentLongKeyHashMap.KeyType.LONG, 4);
+        map.put(5L, "long");
+        //an Integer key is not equal to a Long key, same as in ConcurrentHashMap
+        Assert.assertNull(map.get((Object) 5));
+        Assert.assertNull(map.putIfAbsent(5, "int"));
+        Assert.assertEquals("int", map.get((Object) 5));
+        Assert.assertEquals("long", map.get(5L));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(2, map.entrySet().size());
+        Assert.assertTrue(map.remove(5, "int"));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void growAndIterate() {
+        ConcurrentLongKeyHashMap<Integer> map = new ConcurrentLongKeyHashMap<Integer>(ConcurrentLongKeyHashMap.KeyType.INTEGER, 2);
+        final int size = 100000;
+        for (int i = 0; i < size; i++)
+            Assert.assertNull(map.put(i - size / 2, i));
+        for (int i = 0; i < size; i += 2)
+            Assert.assertEquals(Integer.valueOf(i), map.remove(i - size / 2));
+        Assert.assertEquals(size / 2, map.size());
+
+        Map<Object, Integer> copy = new HashMap<Object, Integer>(map);
+        Assert.assertEquals(size / 2, copy.size());
+        for (int i = 1; i < size; i += 2) {
+            Assert.assertEquals(Integer.valueOf(i), copy.get(i - size / 2));
+            Assert.assertEquals(Integer.valueOf(i), map.get(i - size / 2));
+        }
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void concurrentUpdatesAndReads() throws Exception {
+        final ConcurrentLongKeyHashMap<Long> map = new ConcurrentLongKeyHashMap<Long>(ConcurrentLongKeyHashMap.KeyType.LONG, 16);
+        final int threads = 4;
+        final int keysPerThread = 50000;
+        //stable keys must always be visible to readers while other keys are added and removed
+        for (long i = 0; i < 1000; i++)
+            map.put(-i - 1, i);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] workers = new Thread[threads * 2];
+        for (int t = 0; t < threads; t++) {
+            final long base = (long) t * keysPerThread;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    for (long k = base; k < base + keysPerThread; k++) {
+                        if (map.putIfAbsent(k, k) != null)
+                            errors.incrementAndGet();
+                        if ((k & 1) == 0 && !map.remove(k, k))
+                            errors.incrementAndGet();
+                    }
+                }
+            });
+            workers[threads + t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    for (int round = 0; round < 20; round++)
+                        for (long i = 0; i < 1000; i++)
+                            if (!Long.valueOf(i).equals(map.get(-i - 1)))
+                                errors.incrementAndGet();
+                }
+            });
+        }
+        for (Thread worker : workers)
+            worker.start();
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+
+        Assert.assertEquals(0, errors.get());
+        Assert.assertEquals(1000 + threads * keysPerThread / 2, map.size());
+        for (long k = 0; k < threads * keysPerThread; k++)
+            Assert.assertEquals((k & 1) == 0 ? null : Long.valueOf(k), map.get(k));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class OffHeapLongKeyHashMapTest {
+
+    private final OffHeapLongKeyHashMap<String> map = new OffHeapLongKeyHashMap<String>(ConcurrentLongKeyHashMap.KeyType.LONG, 4);
+
+    @After
+    public void close() {
+        map.close();
+    }
+
+    @Test
+    public void basicOperations() {
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertTrue(map.getOffHeapBytes() > 0);
+        Assert.assertNull(map.putIfAbsent(7L, "a"));
+        Assert.assertEquals("a", map.putIfAbsent(7L, "b"));
+        Assert.assertEquals("a", map.get(7L));
+        Assert.assertTrue(map.replace(7L, "a", "c"));
+        Assert.assertFalse(map.remove(7L, "a"));
+        Assert.assertTrue(map.remove(7L, "c"));
+        Assert.assertNull(map.get(7L));
+        Assert.assertEquals(0, map.size());
+
+        //Integer key is not equal to Long key
+        Assert.assertNull(map.put(7, "int"));
+        Assert.assertNull(map.get(7L));
+        Assert.assertEquals("int", map.get((Object) 7));
+    }
+
+    @Test
+    public void growRemoveAndIterate() {
+        final int size = 50000;
+        for (long i = 0; i < size; i++)
+            Assert.assertNull(map.put(i * 31, String.valueOf(i)));
+        //remove every third key to exercise backward shift deletion
+        for (long i = 0; i < size; i += 3)
+            Assert.assertEquals(String.valueOf(i), map.remove(i * 31));
+        for (long i = 0; i < size; i++)
+            Assert.assertEquals(i % 3 == 0 ? null : String.valueOf(i), map.get(i * 31));
+
+        Map<Object, String> copy = new HashMap<Object, String>(map);
+        Assert.assertEquals(map.size(), copy.size());
+        Assert.assertEquals("1", copy.get(31L));
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(31L));
+    }
+
+    @Test
+    public void optimisticReadsDuringGrowth() throws Exception {
+        final int size = 100000;
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    for (long i = 0; i < 1000; i++) {
+                        String value = map.get(i);
+                        if (value != null && !value.equals(String.valueOf(i)))
+                            failure.set("key " + i + " mapped to " + value);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (long i = 0; i < size; i++)
+            map.put(i, String.valueOf(i));
+        done.set(true);
+        reader.join();
+        Assert.assertNull(failure.get());
+        for (long i = 0; i < size; i += 97)
+            Assert.assertEquals(String.valueOf(i), map.get(i));
+    }
+
+    @Test
+    public void closedMapIsEmptyAndRejectsUpdates() {
+        map.put(1L, "a");
+        long bytes = map.getOffHeapBytes();
+        map.close();
+        //released only once the map is unreachable
+        Assert.assertEquals(bytes, map.getOffHeapBytes());
+        Assert.assertNull(map.get(1L));
+        try {
+            map.put(2L, "b");
+            Assert.fail("put on closed map should fail");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void closeWhileReading() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final OffHeapLongKeyHashMap<String> target = new OffHeapLongKeyHashMap<String>(ConcurrentLongKeyHashMap.KeyType.LONG, 4);
+            for (long i = 0; i < 10000; i++)
+                target.put(i, String.valueOf(i));
+            final AtomicBoolean done = new AtomicBoolean();
+            final AtomicReference<String> failure = new AtomicReference<String>();
+            final CountDownLatch started = new CountDownLatch(4);
+            Thread[] readers = new Thread[4];
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        started.countDown();
+                        while (!done.get()) {
+                            for (long i = 0; i < 10000; i++) {
+                                String value = target.get(i);
+                                if (value != null && !value.equals(String.valueOf(i)))
+                                    failure.set("key " + i + " mapped to " + value);
+                            }
+                        }
+                    }
+                });
+                readers[r].start();
+            }
+            started.await();
+            target.close();
+            for (long i = 0; i < 10000; i += 101)
+                Assert.assertNull(target.get(i));
+            done.set(true);
+            for (Thread reader : readers)
+                reader.join();
+            Assert.assertNull(failure.get());
+        }
+        //closed maps are no longer referenced, let the releaser free them while new maps are used
+        System.gc();
+        for (long i = 0; i < 1000; i++)
+            map.put(i, String.valueOf(i));
+        Assert.assertEquals("7", map.get(7L));
+    }
+}
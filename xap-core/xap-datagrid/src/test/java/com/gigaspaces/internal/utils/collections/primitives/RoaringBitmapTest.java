@@ -0,0 +1,73 @@
+package com.gigaspaces.internal.utils.collections.primitives;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class RoaringBitmapTest {
+
+    @Test
+    public void basicOperations() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        Assert.assertTrue(bitmap.isEmpty());
+        Assert.assertTrue(bitmap.add(5));
+        Assert.assertFalse(bitmap.add(5));
+        Assert.assertTrue(bitmap.add(1 << 20));
+        Assert.assertTrue(bitmap.contains(5));
+        Assert.assertFalse(bitmap.contains(6));
+        Assert.assertEquals(2, bitmap.getCardinality());
+        Assert.assertArrayEquals(new int[]{5, 1 << 20}, bitmap.toArray());
+        Assert.assertFalse(bitmap.remove(6));
+        Assert.assertTrue(bitmap.remove(5));
+        Assert.assertTrue(bitmap.remove(1 << 20));
+        Assert.assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void matchesBitSet() {
+        Random random = new Random(7);
+        //sparse and dense containers, converted back and forth
+        for (int density : new int[]{16, 2000, 20000, 65536}) {
+            RoaringBitmap x = new RoaringBitmap();
+            RoaringBitmap y = new RoaringBitmap();
+            BitSet expectedX = new BitSet();
+            BitSet expectedY = new BitSet();
+            for (int i = 0; i < 3 * density; i++) {
+                int value = random.nextInt(3 << 16);
+                if (random.nextInt(65536) < density) {
+                    Assert.assertEquals(!expectedX.get(value), x.add(value));
+                    expectedX.set(value);
+                }
+                value = random.nextInt(3 << 16);
+                Assert.assertEquals(!expectedY.get(value), y.add(value));
+                expectedY.set(value);
+            }
+            for (int i = 0; i < density; i++) {
+                int value = random.nextInt(3 << 16);
+                Assert.assertEquals(expectedY.get(value), y.remove(value));
+                expectedY.clear(value);
+            }
+            assertEquals(expectedX, x);
+            assertEquals(expectedY, y);
+
+            BitSet expectedAnd = (BitSet) expectedX.clone();
+            expectedAnd.and(expectedY);
+            assertEquals(expectedAnd, RoaringBitmap.and(x, y));
+            BitSet expectedOr = (BitSet) expectedX.clone();
+            expectedOr.or(expectedY);
+            assertEquals(expectedOr, RoaringBitmap.or(x, y));
+            //operands are not modified
+            assertEquals(expectedX, x);
+            assertEquals(expectedY, y);
+        }
+    }
+
+    private static void assertEquals(BitSet expected, RoaringBitmap actual) {
+        Assert.assertEquals(expected.cardinality(), actual.getCardinality());
+        Assert.assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1))
+            Assert.assertTrue(actual.contains(value));
+    }
+}
@@ -0,0 +1,57 @@
+package com.gigaspaces.lrmi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class DirectByteBufferPoolTest {
+
+    @Test
+    public void buffersAreReusedBySizeClass() {
+        DirectByteBufferPool pool = new DirectByteBufferPool(64 * 1024, 1024 * 1024, false);
+        ByteBuffer buffer = pool.acquire(5000);
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(8 * 1024, buffer.capacity());
+        Assert.assertEquals(5000, buffer.limit());
+        Assert.assertEquals(1, pool.getLeasedBuffers());
+        pool.release(buffer);
+        Assert.assertEquals(0, pool.getLeasedBuffers());
+        Assert.assertEquals(8 * 1024, pool.getPooledBytes());
+
+        Assert.assertSame(buffer, pool.acquire(8 * 1024));
+        Assert.assertEquals(1, pool.getHitsCounter().sum());
+        Assert.assertEquals(1, pool.getMissesCounter().sum());
+        Assert.assertEquals(4 * 1024, pool.acquire(1).capacity());
+        Assert.assertEquals(64 * 1024, pool.acquire(64 * 1024).capacity());
+        try {
+            pool.acquire(64 * 1024 + 1);
+            Assert.fail("Expected the size to exceed the maximal buffer size");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void pooledBytesAreBounded() {
+        DirectByteBufferPool pool = new DirectByteBufferPool(64 * 1024, 100 * 1024, false);
+        ByteBuffer first = pool.acquire(64 * 1024);
+        ByteBuffer second = pool.acquire(64 * 1024);
+        pool.release(first);
+        pool.release(second);
+        Assert.assertEquals(64 * 1024, pool.getPooledBytes());
+        Assert.assertSame(first, pool.acquire(64 * 1024));
+        Assert.assertNotSame(second, pool.acquire(64 * 1024));
+    }
+
+    @Test
+    public void unknownBuffersAreNotPooledWithLeakDetection() {
+        DirectByteBufferPool pool = new DirectByteBufferPool(64 * 1024, 1024 * 1024, true);
+        ByteBuffer buffer = pool.acquire(100);
+        pool.release(buffer);
+        //double release
+        pool.release(buffer);
+        pool.release(ByteBuffer.allocateDirect(4 * 1024));
+        Assert.assertEquals(0, pool.getLeasedBuffers());
+        Assert.assertEquals(4 * 1024, pool.getPooledBytes());
+    }
+}
@@ -0,0 +1,166 @@
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.config.lrmi.nio.NIOConfiguration;
+import com.gigaspaces.lrmi.GenericExporter;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.LRMIRuntime;
+import com.gigaspaces.start.SystemInfo;
+import com.j_spaces.kernel.SystemProperties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invokes a service exported in this JVM over a single multiplexed connection.
+ */
+public class MultiplexedContextTest {
+
+    private static final int CALLERS = 32;
+
+    public interface IEchoService extends Remote {
+        int echo(int caller, int call) throws RemoteException;
+
+        int await(int caller) throws RemoteException, InterruptedException;
+    }
+
+    public static class EchoService implements IEchoService {
+        final Set<InetSocketAddress> clients = ConcurrentHashMap.newKeySet();
+        final Semaphore awaiting = new Semaphore(0);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public int echo(int caller, int call) {
+            clients.add(LRMIInvocationContext.getCurrentContext().getClientEndPointAddress());
+            //replies are sent in a different order than the requests
+            if (ThreadLocalRandom.current().nextInt(4) == 0)
+                Thread.yield();
+            return caller * 100000 + call;
+        }
+
+        @Override
+        public int await(int caller) throws InterruptedException {
+            awaiting.release();
+            release.await(60, TimeUnit.SECONDS);
+            return caller;
+        }
+    }
+
+    private GenericExporter exporter;
+    private EchoService service;
+    private IEchoService stub;
+    private ExecutorService callers;
+
+    @Before
+    public void export() throws Exception {
+        System.setProperty(SystemProperties.LRMI_MULTIPLEXED, "true");
+        System.setProperty(SystemProperties.LRMI_MULTIPLEXED_CHANNELS, "1");
+        exporter = new GenericExporter(NIOConfiguration.create());
+        service = new EchoService();
+        stub = remoteStub((IEchoService) exporter.export(service));
+        callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void unexport() {
+        System.clearProperty(SystemProperties.LRMI_MULTIPLEXED);
+        System.clearProperty(SystemProperties.LRMI_MULTIPLEXED_CHANNELS);
+        service.release.countDown();
+        callers.shutdownNow();
+        exporter.unexport(true);
+    }
+
+    /**
+     * @return a copy of the stub which is not collocated with the service, so it invokes it over
+     * the network
+     */
+    private static IEchoService remoteStub(IEchoService stub) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(stub);
+        oos.close();
+        return (IEchoService) new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+    }
+
+    @Test
+    public void concurrentCallersGetTheirReplies() throws Exception {
+        final int calls = 500;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < CALLERS; i++) {
+            final int caller = i;
+            results.add(callers.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    for (int call = 0; call < calls; call++)
+                        Assert.assertEquals(caller * 100000 + call, stub.echo(caller, call));
+                    return calls;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> result : results)
+            Assert.assertEquals(calls, result.get(60, TimeUnit.SECONDS).intValue());
+        // all the invocations shared one connection
+        Assert.assertEquals(service.clients.toString(), 1, service.clients.size());
+    }
+
+    @Test
+    public void pendingCallsFailWhenChannelIsClosed() throws Exception {
+        Assert.assertEquals(1, stub.echo(0, 1));
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < CALLERS; i++) {
+            final int caller = i;
+            results.add(callers.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return stub.await(caller);
+                }
+            }));
+        }
+        // all the requests were read by the server, their replies are pending
+        Assert.assertTrue(service.awaiting.tryAcquire(CALLERS, 30, TimeUnit.SECONDS));
+
+        final int pid = (int) SystemInfo.singleton().os().processId();
+        // closes the connections of the stubs to this process
+        LRMIRuntime.getRuntime().simulatedDisconnectionByPID(pid);
+        try {
+            for (Future<Integer> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                    Assert.fail("invocation pending on a closed channel completed");
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause().toString(), e.getCause() instanceof RemoteException);
+                }
+            }
+        } finally {
+            LRMIRuntime.getRuntime().simulatedReconnectionByPID(pid);
+        }
+
+        // a new connection is established for the next invocation
+        service.release.countDown();
+        Assert.assertEquals(7, stub.echo(0, 7));
+    }
+}
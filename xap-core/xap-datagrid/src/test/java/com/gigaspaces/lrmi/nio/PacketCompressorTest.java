@@ -0,0 +1,122 @@
+package com.gigaspaces.lrmi.nio;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Inflater;
+
+public class PacketCompressorTest {
+
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel acceptedChannel;
+
+    @Before
+    public void connect() throws Exception {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        clientChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        acceptedChannel = serverChannel.accept();
+    }
+
+    @After
+    public void close() throws Exception {
+        clientChannel.close();
+        acceptedChannel.close();
+        serverChannel.close();
+    }
+
+    @Test
+    public void compressedPacketsAreRead() throws Exception {
+        Writer writer = new Writer(clientChannel, null);
+        writer.setCompression(new PacketCompressor(1024, 0.9));
+        Reader reader = new Reader(acceptedChannel, 3);
+        reader.setCompression();
+
+        byte[] random = new byte[16 * 1024];
+        new Random(3).nextBytes(random);
+        // the large zeros are inflated into a growing buffer
+        Object[] results = {"small", new byte[64 * 1024], new byte[4 * 1024 * 1024], random, "after-large", new String(new char[4096]).replace('\0', 'x')};
+        for (Object result : results)
+            writer.writeReply(new ReplyPacket<Object>(result, null));
+
+        for (Object expected : results) {
+            Object actual = reader.readReply().getResult();
+            if (expected instanceof byte[])
+                Assert.assertTrue(Arrays.equals((byte[]) expected, (byte[]) actual));
+            else
+                Assert.assertEquals(expected, actual);
+        }
+        // the zeros and the repeated string are sent compressed, the random bytes as is
+        Assert.assertTrue(writer.getGeneratedTraffic() < 20 * 1024);
+    }
+
+    @Test
+    public void poorlyCompressedPacketsBackOff() throws Exception {
+        PacketCompressor compressor = new PacketCompressor(1024, 0.9);
+        byte[] random = new byte[4 + 8192];
+        new Random(5).nextBytes(random);
+        ByteBuffer incompressible = ByteBuffer.wrap(random);
+        ByteBuffer compressible = ByteBuffer.wrap(new byte[4 + 8192]);
+
+        long poorlyCompressed = PacketCompressor.getPoorlyCompressedPacketsCounter().sum();
+        for (int i = 0; i < PacketCompressor.POOR_RESULTS_BEFORE_BACKOFF; i++)
+            Assert.assertSame(incompressible, compressor.compress(incompressible));
+        Assert.assertEquals(poorlyCompressed + PacketCompressor.POOR_RESULTS_BEFORE_BACKOFF, PacketCompressor.getPoorlyCompressedPacketsCounter().sum());
+        // compression is skipped for a while, even for compressible packets
+        Assert.assertSame(compressible, compressor.compress(compressible));
+        Assert.assertEquals(poorlyCompressed + PacketCompressor.POOR_RESULTS_BEFORE_BACKOFF, PacketCompressor.getPoorlyCompressedPacketsCounter().sum());
+
+        ByteBuffer compressed = null;
+        for (int i = 0; i < 100 && compressed == null; i++) {
+            ByteBuffer result = compressor.compress(compressible);
+            if (result != compressible)
+                compressed = result;
+        }
+        Assert.assertNotNull(compressed);
+        Assert.assertEquals(compressed.limit() - 4, compressed.getInt(0));
+        byte[] payload = Arrays.copyOfRange(compressed.array(), 4, compressed.limit());
+        Assert.assertTrue(PacketCompressor.isCompressed(payload, payload.length));
+        Assert.assertArrayEquals(new byte[8192], PacketCompressor.decompress(new Inflater(), payload, payload.length, 8192));
+    }
+
+    @Test
+    public void oversizedPacketsAreRejected() throws Exception {
+        ByteBuffer compressed = new PacketCompressor(1024, 0.9).compress(ByteBuffer.wrap(new byte[4 + 8192]));
+        byte[] payload = Arrays.copyOfRange(compressed.array(), 4, compressed.limit());
+        try {
+            PacketCompressor.decompress(new Inflater(), payload, payload.length, 8191);
+            Assert.fail("expected IOException");
+        } catch (IOException expected) {
+        }
+        // a corrupted length is rejected once the deflated bytes run out, without allocating it
+        ByteBuffer.wrap(payload).putInt(1, Integer.MAX_VALUE);
+        try {
+            PacketCompressor.decompress(new Inflater(), payload, payload.length, Integer.MAX_VALUE);
+            Assert.fail("expected IOException");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void notNegotiatedPacketsAreNotInflated() throws Exception {
+        Writer writer = new Writer(clientChannel, null);
+        writer.setCompression(new PacketCompressor(1024, 0.9));
+        Reader reader = new Reader(acceptedChannel, 3);
+        writer.writeReply(new ReplyPacket<Object>(new byte[8192], null));
+        try {
+            reader.readReply();
+            Assert.fail("expected the compressed packet to be unmarshalled as is");
+        } catch (Exception expected) {
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.lrmi.LRMIUtilities;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+
+public class UnixDomainSocketsTest {
+
+    private File socketFile;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel acceptedChannel;
+
+    @Before
+    public void connect() throws Exception {
+        Assume.assumeTrue(UnixDomainSockets.isSupported());
+        socketFile = new File(System.getProperty("java.io.tmpdir"), "lrmi-uds-test-" + System.nanoTime() + ".sock");
+        serverChannel = UnixDomainSockets.bind(socketFile, 10);
+        clientChannel = UnixDomainSockets.connect(socketFile);
+        acceptedChannel = serverChannel.accept();
+    }
+
+    @After
+    public void close() throws Exception {
+        if (serverChannel == null)
+            return;
+        clientChannel.close();
+        acceptedChannel.close();
+        serverChannel.close();
+        socketFile.delete();
+    }
+
+    @Test
+    public void packetsAreReadOverUnixDomainSocket() throws Exception {
+        Assert.assertTrue(UnixDomainSockets.isUnixDomain(clientChannel));
+        Assert.assertTrue(UnixDomainSockets.isUnixDomain(acceptedChannel));
+        // tcp only options are skipped
+        LRMIUtilities.initNewSocketProperties(acceptedChannel);
+        Assert.assertEquals(0, LRMIUtilities.getAndSetSocketTimeout(acceptedChannel, 1000));
+
+        Writer writer = new Writer(clientChannel, null);
+        Reader reader = new Reader(acceptedChannel, 3);
+        Object[] results = {"small", new byte[64 * 1024], "after-large"};
+        for (Object result : results)
+            writer.writeReply(new ReplyPacket<Object>(result, null));
+        Assert.assertEquals("small", reader.readReply().getResult());
+        Assert.assertEquals(64 * 1024, ((byte[]) reader.readReply().getResult()).length);
+        Assert.assertEquals("after-large", reader.readReply().getResult());
+
+        Assert.assertNotNull(NIOUtils.getRemoteSocketAddress(clientChannel));
+        clientChannel.close();
+        Assert.assertTrue(UnixDomainSockets.isUnixDomain(clientChannel));
+        Assert.assertNull(NIOUtils.getRemoteSocketAddress(clientChannel));
+    }
+
+    @Test
+    public void staleSocketFileIsReplaced() throws Exception {
+        try {
+            UnixDomainSockets.bind(socketFile, 10);
+            Assert.fail("bound a socket file which is accepted on");
+        } catch (IOException expected) {
+        }
+        serverChannel.close();
+        // the file of a closed server is left behind
+        Assert.assertTrue(socketFile.exists());
+        serverChannel = UnixDomainSockets.bind(socketFile, 10);
+        UnixDomainSockets.connect(socketFile).close();
+    }
+
+    @Test
+    public void wildcardServerIsFound() throws Exception {
+        int port = 20000 + (int) (System.nanoTime() % 10000);
+        File wildcardFile = UnixDomainSockets.getSocketFile(InetAddress.getByName("0.0.0.0"), port);
+        Assert.assertEquals(wildcardFile, UnixDomainSockets.getSocketFile(null, port));
+        Assert.assertNull(UnixDomainSockets.findSocketFile("127.0.0.1", port));
+        ServerSocketChannel wildcardServer = UnixDomainSockets.bind(wildcardFile, 10);
+        try {
+            Assert.assertEquals(wildcardFile, UnixDomainSockets.findSocketFile("127.0.0.1", port));
+        } finally {
+            wildcardServer.close();
+            wildcardFile.delete();
+        }
+    }
+
+    @Test
+    public void defaultDirectoryIsPrivate() throws Exception {
+        File dir = UnixDomainSockets.getSocketFile(null, 1).getParentFile();
+        Assert.assertEquals(System.getProperty("user.name"), Files.getOwner(dir.toPath()).getName());
+        try {
+            Assert.assertTrue(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)
+                    .containsAll(Files.getPosixFilePermissions(dir.toPath())));
+        } catch (UnsupportedOperationException e) {
+            // not a posix file system
+        }
+    }
+}
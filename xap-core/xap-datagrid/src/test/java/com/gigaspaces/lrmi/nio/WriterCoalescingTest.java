@@ -0,0 +1,69 @@
+package com.gigaspaces.lrmi.nio;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+public class WriterCoalescingTest {
+
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel acceptedChannel;
+
+    @Before
+    public void connect() throws Exception {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        clientChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        acceptedChannel = serverChannel.accept();
+        clientChannel.configureBlocking(false);
+    }
+
+    @After
+    public void close() throws Exception {
+        clientChannel.close();
+        acceptedChannel.close();
+        serverChannel.close();
+    }
+
+    @Test
+    public void deferrablePacketsAreWrittenTogether() throws Exception {
+        Writer writer = new Writer(clientChannel, null);
+        writer.setCoalescing(1 << 16);
+        long writes = Writer.getCoalescedWritesCounter().sum();
+        long packets = Writer.getCoalescedPacketsCounter().sum();
+
+        for (int i = 0; i < 3; i++)
+            writer.writeReply(new ReplyPacket<Object>("reply-" + i, null), true, deferrable());
+        Assert.assertEquals(writes, Writer.getCoalescedWritesCounter().sum());
+
+        //a packet which is not deferrable flushes the pending ones along with it
+        writer.writeReply(new ReplyPacket<Object>("reply-3", null), true, new Writer.Context(null));
+        Assert.assertEquals(writes + 1, Writer.getCoalescedWritesCounter().sum());
+        Assert.assertEquals(packets + 4, Writer.getCoalescedPacketsCounter().sum());
+
+        writer.writeReply(new ReplyPacket<Object>("reply-4", null), true, deferrable());
+        writer.onWriteEvent();
+        Assert.assertEquals(writes + 2, Writer.getCoalescedWritesCounter().sum());
+        Assert.assertEquals(packets + 5, Writer.getCoalescedPacketsCounter().sum());
+
+        DataInputStream in = new DataInputStream(acceptedChannel.socket().getInputStream());
+        for (int i = 0; i < 5; i++) {
+            int length = in.readInt();
+            Assert.assertTrue(length > 0);
+            in.readFully(new byte[length]);
+        }
+    }
+
+    private static Writer.Context deferrable() {
+        Writer.Context context = new Writer.Context(null);
+        context.setDeferrable(true);
+        return context;
+    }
+}
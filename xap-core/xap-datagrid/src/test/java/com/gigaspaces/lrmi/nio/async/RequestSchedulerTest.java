@@ -0,0 +1,113 @@
+package com.gigaspaces.lrmi.nio.async;
+
+import com.gigaspaces.exception.lrmi.RequestRejectedException;
+import com.gigaspaces.lrmi.OperationClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class RequestSchedulerTest {
+
+    private final List<Runnable> _pending = new ArrayList<Runnable>();
+    private final Executor _executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            _pending.add(command);
+        }
+    };
+    private final List<String> _log = new ArrayList<String>();
+
+    @Test
+    public void weightedRoundRobin() {
+        // bulk=1, default=2, replication=1
+        RequestScheduler scheduler = new RequestScheduler(_executor, 1, RequestScheduler.parseWeights("default=2"), 0, 0);
+        for (int i = 0; i < 4; i++) {
+            scheduler.execute(new LoggingRequest("bulk" + i), OperationClass.BULK, true);
+            scheduler.execute(new LoggingRequest("default" + i), OperationClass.DEFAULT, true);
+        }
+        Assert.assertEquals(1, scheduler.getRunning());
+        Assert.assertEquals(3, scheduler.getQueueSize(OperationClass.BULK));
+        Assert.assertEquals(4, scheduler.getQueueSize(OperationClass.DEFAULT));
+        runAll();
+        Assert.assertEquals("[bulk0, default0, bulk1, default1, default2, bulk2, default3, bulk3]", _log.toString());
+        Assert.assertEquals(0, scheduler.getRunning());
+        Assert.assertEquals(4, scheduler.getDispatchedCounter(OperationClass.BULK).sum());
+    }
+
+    @Test
+    public void concurrencyIsCapped() {
+        RequestScheduler scheduler = new RequestScheduler(_executor, 2, RequestScheduler.parseWeights(""), 0, 0);
+        for (int i = 0; i < 5; i++)
+            scheduler.execute(new LoggingRequest("r" + i), OperationClass.DEFAULT, true);
+        Assert.assertEquals(2, _pending.size());
+        Assert.assertEquals(3, scheduler.getQueueSize(OperationClass.DEFAULT));
+        _pending.remove(0).run();
+        Assert.assertEquals(2, _pending.size());
+        runAll();
+        Assert.assertEquals(5, _log.size());
+        Assert.assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    public void rejectsRequestsWhichWaitedTooLong() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(_executor, 1, RequestScheduler.parseWeights(""), 1, 0);
+        scheduler.execute(new LoggingRequest("first"), OperationClass.DEFAULT, true);
+        scheduler.execute(new LoggingRequest("bulk"), OperationClass.BULK, true);
+        scheduler.execute(new LoggingRequest("replication"), OperationClass.REPLICATION, true);
+        scheduler.execute(new LoggingRequest("not-rejectable"), OperationClass.DEFAULT, false);
+        Thread.sleep(20);
+        runAll();
+        Assert.assertEquals("[rejected first, not-rejectable, rejected bulk, replication]", _log.toString());
+        Assert.assertEquals(1, scheduler.getRejectedCounter(OperationClass.BULK).sum());
+        Assert.assertEquals(0, scheduler.getRejectedCounter(OperationClass.REPLICATION).sum());
+    }
+
+    @Test
+    public void rejectsRequestsWhenQueueIsFull() {
+        RequestScheduler scheduler = new RequestScheduler(_executor, 1, RequestScheduler.parseWeights(""), 0, 2);
+        scheduler.execute(new LoggingRequest("running"), OperationClass.BULK, true);
+        scheduler.execute(new LoggingRequest("bulk0"), OperationClass.BULK, true);
+        scheduler.execute(new LoggingRequest("bulk1"), OperationClass.BULK, true);
+        scheduler.execute(new LoggingRequest("bulk2"), OperationClass.BULK, true);
+        scheduler.execute(new LoggingRequest("not-rejectable"), OperationClass.BULK, false);
+        scheduler.execute(new LoggingRequest("default"), OperationClass.DEFAULT, true);
+        Assert.assertEquals(3, scheduler.getQueueSize(OperationClass.BULK));
+        Assert.assertEquals(1, scheduler.getRejectedCounter(OperationClass.BULK).sum());
+        runAll();
+        Assert.assertEquals("[running, rejected bulk2, default, bulk0, bulk1, not-rejectable]", _log.toString());
+        Assert.assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalWeight() {
+        RequestScheduler.parseWeights("bulk");
+    }
+
+    private void runAll() {
+        while (!_pending.isEmpty())
+            _pending.remove(0).run();
+    }
+
+    private class LoggingRequest implements RequestScheduler.Request {
+        private final String _name;
+
+        private LoggingRequest(String name) {
+            _name = name;
+        }
+
+        @Override
+        public void run() {
+            _log.add(_name);
+        }
+
+        @Override
+        public void reject(RemoteException reason) {
+            Assert.assertTrue(reason instanceof RequestRejectedException);
+            _log.add("rejected " + _name);
+        }
+    }
+}
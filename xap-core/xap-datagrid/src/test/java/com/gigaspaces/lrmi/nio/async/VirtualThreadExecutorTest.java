@@ -0,0 +1,108 @@
+package com.gigaspaces.lrmi.nio.async;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualThreadExecutorTest {
+
+    @Test
+    public void unsupportedJvm() {
+        Assume.assumeFalse(VirtualThreadExecutor.isSupported());
+        try {
+            new VirtualThreadExecutor(10, "test", null);
+            Assert.fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void concurrencyIsCapped() throws Exception {
+        Assume.assumeTrue(VirtualThreadExecutor.isSupported());
+        final int maxConcurrency = 10;
+        final int tasks = 1000;
+        final AtomicInteger overflow = new AtomicInteger();
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(maxConcurrency, "test", new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                // the submitting thread must not wait for a permit
+                overflow.incrementAndGet();
+                command.run();
+            }
+        });
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    int current = running.incrementAndGet();
+                    while (true) {
+                        int max = maxRunning.get();
+                        if (current <= max || maxRunning.compareAndSet(max, current))
+                            break;
+                    }
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(maxRunning.get() <= maxConcurrency);
+        Assert.assertEquals(tasks, executor.getCompletedTaskCount() + overflow.get());
+        Assert.assertEquals(overflow.get(), executor.getOverflowTaskCount());
+        Assert.assertEquals(0, executor.getActiveCount());
+
+        executor.shutdown();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            Assert.fail("expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    @Test
+    public void rejectsWithoutOverflowExecutor() throws Exception {
+        Assume.assumeTrue(VirtualThreadExecutor.isSupported());
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(1, "test", null);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            Assert.fail("expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        } finally {
+            release.countDown();
+        }
+        Assert.assertEquals(1, executor.getOverflowTaskCount());
+    }
+}
@@ -0,0 +1,63 @@
+package com.gigaspaces.lrmi.nio.selector.handler;
+
+import com.gigaspaces.internal.utils.concurrent.GSThread;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AbstractSelectorThreadTest {
+
+    @Test
+    public void readyKeysAreCounted() throws Exception {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        CountDownLatch accepted = new CountDownLatch(3);
+        long wakeups = AbstractSelectorThread.getWakeupsCounter().sum();
+        long readyKeys = AbstractSelectorThread.getReadyKeysCounter().sum();
+        AcceptingSelectorThread selectorThread = new AcceptingSelectorThread(serverChannel, accepted);
+        try {
+            for (int i = 0; i < 3; i++)
+                SocketChannel.open(serverChannel.socket().getLocalSocketAddress()).close();
+            Assert.assertTrue(accepted.await(10, TimeUnit.SECONDS));
+
+            Assert.assertTrue(selectorThread.getReadyKeys() >= 1);
+            Assert.assertTrue(AbstractSelectorThread.getWakeupsCounter().sum() > wakeups);
+            Assert.assertTrue(AbstractSelectorThread.getReadyKeysCounter().sum() - readyKeys >= selectorThread.getReadyKeys());
+        } finally {
+            selectorThread.requestShutdown();
+            serverChannel.close();
+        }
+    }
+
+    private static class AcceptingSelectorThread extends AbstractSelectorThread {
+        private final CountDownLatch accepted;
+
+        AcceptingSelectorThread(ServerSocketChannel serverChannel, CountDownLatch accepted) throws IOException {
+            super(true);
+            this.accepted = accepted;
+            serverChannel.configureBlocking(false);
+            serverChannel.register(getSelector(), SelectionKey.OP_ACCEPT);
+            GSThread.daemon(this, "test-selector").start();
+        }
+
+        @Override
+        protected void enableSelectionKeys() {
+        }
+
+        @Override
+        protected void handleConnection(SelectionKey key) throws IOException {
+            SocketChannel channel;
+            while ((channel = ((ServerSocketChannel) key.channel()).accept()) != null) {
+                channel.close();
+                accepted.countDown();
+            }
+        }
+    }
+}
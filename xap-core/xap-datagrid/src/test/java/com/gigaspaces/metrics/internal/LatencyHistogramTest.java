@@ -0,0 +1,47 @@
+package com.gigaspaces.metrics.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreWithinPrecision() {
+        int previousIndex = -1;
+        for (long value = 0; value < TimeUnit.HOURS.toMicros(1); value = value < 100 ? value + 1 : value + value / 7) {
+            int index = LatencyHistogram.indexOf(value);
+            Assert.assertTrue(index >= previousIndex);
+            previousIndex = index;
+            long highest = LatencyHistogram.highestValueOf(index);
+            Assert.assertTrue(value + " -> " + highest, highest >= value);
+            Assert.assertTrue(value + " -> " + highest, highest - value <= value / 32);
+            Assert.assertEquals(index, LatencyHistogram.indexOf(highest));
+        }
+    }
+
+    @Test
+    public void percentilesOfInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i);
+        histogram.record(TimeUnit.DAYS.toMicros(1));
+
+        LatencyHistogram.Snapshot snapshot = histogram.intervalSnapshot();
+        Assert.assertEquals(1001, snapshot.getCount());
+        assertApproximately(500, snapshot.getValueAtPercentile(50));
+        assertApproximately(990, snapshot.getValueAtPercentile(99));
+        assertApproximately(TimeUnit.HOURS.toMicros(1), snapshot.getMax());
+
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(7));
+        snapshot = histogram.intervalSnapshot();
+        Assert.assertEquals(1, snapshot.getCount());
+        assertApproximately(7000, snapshot.getValueAtPercentile(50));
+        Assert.assertEquals(0, histogram.intervalSnapshot().getCount());
+    }
+
+    private static void assertApproximately(long expected, long actual) {
+        Assert.assertTrue(expected + " ~ " + actual, actual >= expected && actual - expected <= expected / 32);
+    }
+}
@@ -0,0 +1,151 @@
+package com.gigaspaces.query.aggregators;
+
+import com.gigaspaces.internal.query.RawEntry;
+import com.gigaspaces.server.ServerEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class BatchAggregationTest {
+
+    private static final int SIZE = 5000;
+
+    private final List<Map<String, Object>> entries = createEntries();
+
+    private static List<Map<String, Object>> createEntries() {
+        Random random = new Random(11);
+        List<Map<String, Object>> entries = new ArrayList<Map<String, Object>>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            Map<String, Object> entry = new HashMap<String, Object>();
+            entry.put("category", random.nextInt(20));
+            entry.put("quantity", random.nextInt(10) == 0 ? null : random.nextInt());
+            entry.put("price", random.nextInt(10) == 0 ? null : random.nextDouble() * 1000);
+            entry.put("timestamp", random.nextLong());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<SpaceEntriesAggregator> createAggregators() {
+        return Arrays.<SpaceEntriesAggregator>asList(
+                new CountAggregator(),
+                new CountAggregator().setPath("quantity"),
+                new SumAggregator().setPath("quantity"),
+                new SumAggregator().setWidest(false).setPath("quantity"),
+                new SumAggregator().setPath("price"),
+                new AverageAggregator().setPath("quantity"),
+                new AverageAggregator().setPath("price"),
+                new MinValueAggregator().setPath("price"),
+                new MaxValueAggregator().setPath("timestamp"),
+                new MaxValueAggregator().setPath("quantity"),
+                new GroupByAggregator().groupBy("category").selectCount().selectSum("price").selectMinValue("quantity"),
+                // custom aggregator, aggregated one entry at a time
+                new SumAggregator() {
+                    @Override
+                    public void aggregate(SpaceEntriesAggregatorContext context) {
+                        Object value = context.getPathValue("quantity");
+                        if (value != null)
+                            aggregateIntermediateResult(new com.gigaspaces.internal.utils.math.MutableLong() {{
+                                add(1);
+                            }});
+                    }
+                });
+    }
+
+    @Test
+    public void batchMatchesPerEntryAggregation() {
+        List<Object> expected = aggregate(1);
+        for (int batchSize : new int[]{2, 7, 256, SIZE}) {
+            List<Object> actual = aggregate(batchSize);
+            Assert.assertEquals("batchSize=" + batchSize, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++)
+                Assert.assertEquals("batchSize=" + batchSize + ", aggregator=" + i, toString(expected.get(i)), toString(actual.get(i)));
+        }
+    }
+
+    @Test
+    public void batchAggregators() {
+        List<SpaceEntriesAggregator> aggregators = createAggregators();
+        Assert.assertTrue(AggregationInternalUtils.isBatchAggregator(aggregators.get(0)));
+        Assert.assertTrue(AggregationInternalUtils.isBatchAggregator(aggregators.get(10)));
+        Assert.assertFalse(AggregationInternalUtils.isBatchAggregator(aggregators.get(11)));
+        Assert.assertFalse(AggregationInternalUtils.isBatchAggregator(new SingleValueAggregator().setPath("price")));
+    }
+
+    private static String toString(Object result) {
+        if (!(result instanceof GroupByResult))
+            return String.valueOf(result);
+        Map<String, String> groups = new TreeMap<String, String>();
+        for (GroupByValue value : (GroupByResult) result)
+            groups.put(value.getKey().toString(), value.toString());
+        return groups.toString();
+    }
+
+    private List<Object> aggregate(int batchSize) {
+        List<SpaceEntriesAggregator> aggregators = createAggregators();
+        TestContext context = new TestContext(aggregators);
+        if (batchSize == 1) {
+            for (Map<String, Object> entry : entries) {
+                context.current = entry;
+                context.aggregate();
+            }
+        } else {
+            for (context.batchStart = 0; context.batchStart < SIZE; context.batchStart += batchSize)
+                context.aggregateBatch(Math.min(batchSize, SIZE - context.batchStart));
+        }
+        List<Object> results = new ArrayList<Object>();
+        for (SpaceEntriesAggregator aggregator : aggregators)
+            results.add(aggregator.getFinalResult());
+        return results;
+    }
+
+    private class TestContext extends SpaceEntriesAggregatorContext {
+        private Map<String, Object> current;
+        private int batchStart;
+
+        TestContext(List<SpaceEntriesAggregator> aggregators) {
+            super(aggregators);
+        }
+
+        @Override
+        protected Object getPathValueImpl(String path) {
+            return current.get(path);
+        }
+
+        @Override
+        protected void moveToBatchRow(int row) {
+            current = entries.get(batchStart + row);
+        }
+
+        @Override
+        public int getPartitionId() {
+            return 0;
+        }
+
+        @Override
+        public String getEntryUid() {
+            return null;
+        }
+
+        @Override
+        public RawEntry getRawEntry() {
+            return null;
+        }
+
+        @Override
+        public void applyProjectionTemplate(RawEntry entry) {
+        }
+
+        @Override
+        public ServerEntry getServerEntry() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.j_spaces.core.cache.columnar;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.query.aggregators.AverageAggregator;
+import com.gigaspaces.query.aggregators.CountAggregator;
+import com.gigaspaces.query.aggregators.MaxValueAggregator;
+import com.gigaspaces.query.aggregators.MinValueAggregator;
+import com.gigaspaces.query.aggregators.SpaceEntriesAggregator;
+import com.gigaspaces.query.aggregators.SumAggregator;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ColumnarAggregationTest {
+
+    private static final int SIZE = 10000;
+
+    private ITypeDesc typeDesc;
+    private ColumnarTypeStore store;
+    private IEntryCacheInfo[] entries;
+    private IEntryHolder[] holders;
+
+    @Before
+    public void setup() {
+        typeDesc = (ITypeDesc) new SpaceTypeDescriptorBuilder("Order")
+                .addFixedProperty("id", Long.class)
+                .addFixedProperty("quantity", Integer.class)
+                .addFixedProperty("amount", Double.class)
+                .addFixedProperty("comment", String.class)
+                .idProperty("id", false)
+                .columnarStorage(true)
+                .create();
+        store = new ColumnarTypeStore(typeDesc);
+        Assert.assertNotNull(store.getColumn("quantity"));
+        Assert.assertNotNull(store.getColumn("amount"));
+        Assert.assertNull(store.getColumn("comment"));
+
+        entries = new IEntryCacheInfo[SIZE];
+        holders = new IEntryHolder[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            holders[i] = mockEntry((long) i, i, i % 2 == 0 ? null : (double) (i % 100));
+            entries[i] = new ColumnarEntryCacheInfo(holders[i], 1);
+            store.insert(entries[i], holders[i]);
+        }
+    }
+
+    private IEntryHolder mockEntry(Long id, Integer quantity, Double amount) {
+        IEntryData entryData = mock(IEntryData.class);
+        when(entryData.getFixedPropertyValue(typeDesc.getFixedPropertyPosition("id"))).thenReturn(id);
+        when(entryData.getFixedPropertyValue(typeDesc.getFixedPropertyPosition("quantity"))).thenReturn(quantity);
+        when(entryData.getFixedPropertyValue(typeDesc.getFixedPropertyPosition("amount"))).thenReturn(amount);
+        when(entryData.getFixedPropertyValue(typeDesc.getFixedPropertyPosition("comment"))).thenReturn("comment");
+        IEntryHolder entryHolder = mock(IEntryHolder.class);
+        when(entryHolder.getEntryData()).thenReturn(entryData);
+        return entryHolder;
+    }
+
+    @Test
+    public void aggregatesAllRows() {
+        CountAggregator count = new CountAggregator();
+        CountAggregator countAmount = (CountAggregator) new CountAggregator().setPath("amount");
+        SumAggregator sumQuantity = (SumAggregator) new SumAggregator().setPath("quantity");
+        AverageAggregator avgAmount = (AverageAggregator) new AverageAggregator().setPath("amount");
+        MinValueAggregator minAmount = (MinValueAggregator) new MinValueAggregator().setPath("amount");
+        MaxValueAggregator maxQuantity = (MaxValueAggregator) new MaxValueAggregator().setPath("quantity");
+
+        ColumnarAggregation aggregation = ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(
+                count, countAmount, sumQuantity, avgAmount, minAmount, maxQuantity));
+        Assert.assertNotNull(aggregation);
+        Assert.assertEquals(SIZE, aggregation.execute(0));
+        aggregation.apply();
+
+        Assert.assertEquals(Long.valueOf(SIZE), count.getIntermediateResult());
+        Assert.assertEquals(Long.valueOf(SIZE / 2), countAmount.getIntermediateResult());
+        Assert.assertEquals((long) SIZE * (SIZE - 1) / 2, ((Number) sumQuantity.getFinalResult()).longValue());
+        //odd i % 100 is uniformly 1, 3, ..., 99
+        Assert.assertEquals(50.0, ((Number) avgAmount.getFinalResult()).doubleValue(), 0);
+        Assert.assertEquals(1.0, minAmount.getIntermediateResult());
+        Assert.assertEquals(SIZE - 1, maxQuantity.getIntermediateResult());
+    }
+
+    @Test
+    public void removedAndUpdatedRows() {
+        for (int i = 0; i < SIZE; i += 3)
+            store.remove(entries[i]);
+        store.update(entries[1], mockEntry(1L, 1000000, 1.0).getEntryData());
+        Assert.assertEquals(SIZE - (SIZE + 2) / 3, store.size());
+        //removed rows are reused
+        store.insert(entries[0], mockEntry(0L, -5, null));
+
+        long expectedSum = -5;
+        for (int i = 1; i < SIZE; i++)
+            if (i % 3 != 0)
+                expectedSum += i == 1 ? 1000000 : i;
+        SumAggregator sum = (SumAggregator) new SumAggregator().setPath("quantity");
+        MinValueAggregator min = (MinValueAggregator) new MinValueAggregator().setPath("quantity");
+        ColumnarAggregation aggregation = ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(sum, min));
+        Assert.assertEquals(store.size(), aggregation.execute(0));
+        aggregation.apply();
+        Assert.assertEquals(expectedSum, ((Number) sum.getFinalResult()).longValue());
+        Assert.assertEquals(-5, min.getIntermediateResult());
+    }
+
+    @Test
+    public void abandonsScanForLockedOrExpiredEntries() {
+        when(holders[SIZE / 2].isEntryUnderWriteLockXtn()).thenReturn(true);
+        SumAggregator sum = (SumAggregator) new SumAggregator().setPath("quantity");
+        ColumnarAggregation aggregation = ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(sum));
+        Assert.assertEquals(-1, aggregation.execute(0));
+
+        when(holders[SIZE / 2].isEntryUnderWriteLockXtn()).thenReturn(false);
+        when(holders[7].isExpired(100)).thenReturn(true);
+        Assert.assertEquals(-1, aggregation.execute(100));
+        Assert.assertEquals(SIZE, aggregation.execute(0));
+    }
+
+    @Test
+    public void concurrentWriters() throws Exception {
+        final int writers = 4;
+        final int perWriter = 5000;
+        Thread[] threads = new Thread[writers];
+        for (int t = 0; t < writers; t++) {
+            final int writer = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    IEntryCacheInfo[] written = new IEntryCacheInfo[perWriter];
+                    for (int i = 0; i < perWriter; i++) {
+                        IEntryHolder holder = mockEntry((long) (SIZE + writer * perWriter + i), 1, null);
+                        written[i] = new ColumnarEntryCacheInfo(holder, 1);
+                        store.insert(written[i], holder);
+                    }
+                    for (int i = 0; i < perWriter; i += 2)
+                        store.remove(written[i]);
+                }
+            });
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+
+        int expectedSize = SIZE + writers * perWriter / 2;
+        Assert.assertEquals(expectedSize, store.size());
+        SumAggregator sum = (SumAggregator) new SumAggregator().setPath("quantity");
+        ColumnarAggregation aggregation = ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(sum));
+        Assert.assertEquals(expectedSize, aggregation.execute(0));
+        aggregation.apply();
+        Assert.assertEquals((long) SIZE * (SIZE - 1) / 2 + writers * perWriter / 2, ((Number) sum.getFinalResult()).longValue());
+    }
+
+    @Test
+    public void entriesWithoutRowDisableScans() {
+        IEntryHolder holder = mockEntry((long) SIZE, 1, null);
+        store.insert(mock(IEntryCacheInfo.class), holder);
+        ColumnarAggregation aggregation = ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(new CountAggregator()));
+        Assert.assertEquals(-1, aggregation.execute(0));
+    }
+
+    @Test
+    public void unsupportedAggregators() {
+        Assert.assertNull(ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(
+                new SumAggregator().setPath("comment"))));
+        Assert.assertNull(ColumnarAggregation.create(store, Arrays.<SpaceEntriesAggregator>asList(
+                new SumAggregator().setPath("quantity"), new MaxValueAggregator().setPath("missing"))));
+    }
+}
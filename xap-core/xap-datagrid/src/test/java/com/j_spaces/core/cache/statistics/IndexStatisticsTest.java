@@ -0,0 +1,90 @@
+package com.j_spaces.core.cache.statistics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexStatisticsTest {
+
+    @Test
+    public void distinctValues() {
+        for (int distinct : new int[]{10, 1000, 100000}) {
+            HyperLogLog hll = new HyperLogLog();
+            for (int i = 0; i < 300000; i++)
+                hll.offer((long) (i % distinct));
+            Assert.assertEquals(distinct, hll.estimate(), distinct * 0.05);
+        }
+    }
+
+    @Test
+    public void rangeEstimates() {
+        IndexStatistics statistics = new IndexStatistics();
+        Assert.assertEquals(-1, statistics.estimateRange(0L, true, 10L, true));
+        final int size = 200000;
+        for (long i = 0; i < size; i++)
+            statistics.onInsert(i);
+
+        Assert.assertEquals(size, statistics.getNumValues());
+        Assert.assertEquals(size, statistics.estimateRange(null, true, null, true));
+        Assert.assertEquals(size / 2, statistics.estimateRange(null, true, (long) size / 2, false), size * 0.05);
+        Assert.assertEquals(size / 10, statistics.estimateRange(10000L, true, 30000L, false), size * 0.05);
+        Assert.assertEquals(1, statistics.estimateRange(5L, true, 5L, true));
+        Assert.assertTrue(statistics.estimateRange(-10L, true, -1L, true) < size / 1000);
+        //values of another type can not be estimated
+        Assert.assertEquals(-1, statistics.estimateRange("a", true, "b", true));
+    }
+
+    @Test
+    public void sampleFollowsLiveValues() {
+        IndexStatistics statistics = new IndexStatistics();
+        final int live = 10000;
+        //a sliding window of increasing values, e.g. timestamps of recent entries
+        for (long i = 0; i < 20 * live; i++) {
+            statistics.onInsert(i);
+            if (i >= live)
+                statistics.onRemove(i - live);
+        }
+        Assert.assertEquals(live, statistics.getNumValues());
+        long recent = statistics.estimateRange(19L * live, true, null, true);
+        Assert.assertTrue("estimate was " + recent, recent > live / 2);
+    }
+
+    @Test
+    public void removedValuesLeaveSample() {
+        IndexStatistics statistics = new IndexStatistics();
+        final int size = 100000;
+        for (long i = 0; i < size; i++)
+            statistics.onInsert(i);
+        //remove the lower half, in random order relative to the sample
+        for (long i = 0; i < size / 2; i++)
+            statistics.onRemove(i);
+        Assert.assertEquals(size / 2, statistics.getNumValues());
+        Assert.assertTrue(statistics.estimateRange(null, true, (long) size / 2, false) < size / 20);
+        Assert.assertEquals(size / 2, statistics.estimateRange((long) size / 2, true, null, true), size * 0.05);
+    }
+
+    @Test
+    public void concurrentUpdates() throws Exception {
+        final IndexStatistics statistics = new IndexStatistics();
+        final int threads = 4;
+        final int perThread = 50000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long base = (long) t * perThread;
+            writers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (long i = base; i < base + perThread; i++)
+                        statistics.onInsert(i);
+                    for (long i = base; i < base + perThread; i += 2)
+                        statistics.onRemove(i);
+                }
+            });
+        }
+        for (Thread writer : writers)
+            writer.start();
+        for (Thread writer : writers)
+            writer.join();
+        Assert.assertEquals(threads * perThread / 2, statistics.getNumValues());
+        Assert.assertEquals(threads * perThread / 2, statistics.estimateRange(null, true, null, true));
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.test.core.space;
+
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceIndex;
+import com.gigaspaces.datasource.DataIterator;
+import com.gigaspaces.datasource.DataIteratorAdapter;
+import com.gigaspaces.datasource.SpaceDataSource;
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.space.SpaceUidFactory;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.TypeData;
+import com.j_spaces.core.client.SQLQuery;
+import com.j_spaces.kernel.SystemProperties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.AllInCachePolicy;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+import org.openspaces.core.transaction.manager.DistributedJiniTxManagerConfigurer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks the indexes of entries inserted to cache as a batch, by the initial load and by a
+ * writeMultiple under a transaction, against entries inserted one by one.
+ */
+public class BatchedIndexingTest {
+
+    private static final int CUSTOMERS = 7;
+
+    private EmbeddedSpaceConfigurer spaceConfigurer;
+    private DistributedJiniTxManagerConfigurer txManagerConfigurer;
+    private GigaSpace gigaSpace;
+    private PlatformTransactionManager transactionManager;
+
+    private void createSpace(String name, SpaceDataSource spaceDataSource) throws Exception {
+        spaceConfigurer = new EmbeddedSpaceConfigurer(name);
+        if (spaceDataSource != null)
+            spaceConfigurer.spaceDataSource(spaceDataSource).cachePolicy(new AllInCachePolicy());
+        txManagerConfigurer = new DistributedJiniTxManagerConfigurer();
+        transactionManager = txManagerConfigurer.transactionManager();
+        gigaSpace = new GigaSpaceConfigurer(spaceConfigurer).transactionManager(transactionManager).gigaSpace();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(SystemProperties.CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE);
+        if (txManagerConfigurer != null)
+            txManagerConfigurer.destroy();
+        if (spaceConfigurer != null)
+            spaceConfigurer.close();
+    }
+
+    @Test
+    public void initialLoadBatches() throws Exception {
+        System.setProperty(SystemProperties.CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE, "100");
+        final List<Object> loaded = new ArrayList<Object>();
+        for (int i = 0; i < 1050; i++)
+            loaded.add(new Order(i, i % CUSTOMERS, (long) i, new Key(i % 10)));
+        //a duplicate uid inside a batch is ignored
+        loaded.add(150, new Order(120, 0, 0L, new Key(0)));
+        createSpace("batchedIndexingInitialLoad", new SpaceDataSource() {
+            @Override
+            public DataIterator<Object> initialDataLoad() {
+                return new DataIteratorAdapter<Object>(loaded.iterator());
+            }
+        });
+
+        Assert.assertEquals(1050, gigaSpace.count(new Order()));
+        assertIndexed(0, 1050);
+
+        gigaSpace.write(new Order(5000, 1, 5000L, new Key(1)));
+        assertSameBackRefs(5000, 0, 1049);
+
+        //removal goes through the back refs of the batched entries
+        for (int i = 0; i < 1050; i += 2)
+            gigaSpace.takeById(Order.class, i);
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 1; i < 1050; i += 2)
+            expected.add(i);
+        expected.add(5000);
+        Assert.assertEquals(expected, ids(gigaSpace.readMultiple(new SQLQuery<Order>(Order.class, "amount >= ?", 0L))));
+        Assert.assertEquals(0, gigaSpace.count(new SQLQuery<Order>(Order.class, "key = ?", new Key(0))));
+    }
+
+    @Test
+    public void transactionalWriteMultiple() throws Exception {
+        createSpace("batchedIndexingWriteMultiple", null);
+        gigaSpace.write(new Order(-1, 1, -1L, new Key(1)));
+
+        TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        gigaSpace.writeMultiple(orders(0, 1000));
+        gigaSpace.writeMultiple(orders(1000, 1500));
+        //the transaction sees its own entries through the indexes
+        Assert.assertEquals(1500, gigaSpace.count(new SQLQuery<Order>(Order.class, "amount >= ?", 0L)));
+        transactionManager.commit(status);
+
+        assertIndexed(0, 1500);
+        assertSameBackRefs(-1, 0, 1499);
+
+        status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        gigaSpace.clear(new SQLQuery<Order>(Order.class, "customer = ?", 3));
+        transactionManager.commit(status);
+        int cleared = 0;
+        for (int i = 0; i < 1500; i++)
+            if (i % CUSTOMERS == 3)
+                cleared++;
+        Assert.assertEquals(0, gigaSpace.count(new SQLQuery<Order>(Order.class, "customer = ?", 3)));
+        Assert.assertEquals(1501 - cleared, gigaSpace.count(new SQLQuery<Order>(Order.class, "amount >= ?", -1L)));
+    }
+
+    @Test
+    public void failedWriteMultipleBatch() throws Exception {
+        createSpace("batchedIndexingFailedBatch", null);
+        gigaSpace.writeMultiple(orders(0, 100));
+
+        Order[] batch = orders(100, 200);
+        //key is the last index of the type, the other indexes already hold the batch when it fails
+        batch[50].setKey(new Key(Key.FAIL));
+        TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            gigaSpace.writeMultiple(batch);
+            Assert.fail("indexing the batch should fail");
+        } catch (Exception e) {
+            //expected
+        } finally {
+            transactionManager.rollback(status);
+        }
+
+        Assert.assertEquals(100, gigaSpace.count(new Order()));
+        Assert.assertEquals(100, gigaSpace.count(new SQLQuery<Order>(Order.class, "amount >= ?", 0L)));
+        Assert.assertEquals(0, gigaSpace.count(new SQLQuery<Order>(Order.class, "amount >= ? AND amount < ?", 100L, 200L)));
+        Assert.assertEquals(100 / CUSTOMERS + 1, gigaSpace.count(new SQLQuery<Order>(Order.class, "customer = ?", 0)));
+        Assert.assertEquals(10, gigaSpace.count(new SQLQuery<Order>(Order.class, "key = ?", new Key(0))));
+
+        //nothing of the failed batch is left behind, the same entries can be written again
+        status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        gigaSpace.writeMultiple(orders(100, 200));
+        transactionManager.commit(status);
+        assertIndexed(0, 200);
+        assertSameBackRefs(0, 100, 199);
+    }
+
+    private static Order[] orders(int from, int to) {
+        Order[] orders = new Order[to - from];
+        for (int i = from; i < to; i++)
+            orders[i - from] = new Order(i, i % CUSTOMERS, (long) i, new Key(i % 10));
+        return orders;
+    }
+
+    /**
+     * Checks each index of the type returns exactly the orders from..to-1.
+     */
+    private void assertIndexed(int from, int to) {
+        for (int customer = 0; customer < CUSTOMERS; customer++) {
+            Set<Integer> expected = new HashSet<Integer>();
+            for (int i = from; i < to; i++)
+                if (i % CUSTOMERS == customer)
+                    expected.add(i);
+            Assert.assertEquals(expected, ids(gigaSpace.readMultiple(new SQLQuery<Order>(Order.class, "customer = ? AND amount >= ?", customer, (long) from))));
+        }
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = from + 10; i < to - 10; i++)
+            expected.add(i);
+        Assert.assertEquals(expected, ids(gigaSpace.readMultiple(new SQLQuery<Order>(Order.class, "amount >= ? AND amount < ?", (long) from + 10, (long) to - 10))));
+        Assert.assertEquals((to - from) / 10, gigaSpace.count(new SQLQuery<Order>(Order.class, "key = ? AND amount >= ?", new Key(from % 10), (long) from)));
+        for (int i = from; i < to; i += 97)
+            Assert.assertEquals(Integer.valueOf(i), gigaSpace.readById(Order.class, i).getId());
+    }
+
+    /**
+     * Checks the entries between from and to have the same refs as an entry inserted by itself.
+     */
+    private void assertSameBackRefs(int single, int from, int to) {
+        SpaceEngine engine = gigaSpace.getSpace().getDirectProxy().getSpaceImplIfEmbedded().getEngine();
+        IServerTypeDesc serverTypeDesc = engine.getTypeManager().getServerTypeDesc(Order.class.getName());
+        TypeData typeData = engine.getCacheManager().getTypeData(serverTypeDesc);
+        IEntryCacheInfo expected = engine.getCacheManager().getPEntryByUid(SpaceUidFactory.createUidFromTypeAndId(serverTypeDesc.getTypeDesc(), single));
+        Assert.assertNotNull(expected.getMainListBackRef());
+        for (int i = from; i <= to; i++) {
+            IEntryCacheInfo pEntry = engine.getCacheManager().getPEntryByUid(SpaceUidFactory.createUidFromTypeAndId(serverTypeDesc.getTypeDesc(), i));
+            Assert.assertNotNull(pEntry.getMainListBackRef());
+            Assert.assertTrue(typeData.getEntries().contains(pEntry));
+            Assert.assertEquals(expected.getBackRefs().size(), pEntry.getBackRefs().size());
+            Assert.assertEquals(expected.getLatestIndexCreationNumber(), pEntry.getLatestIndexCreationNumber());
+        }
+    }
+
+    private static Set<Integer> ids(Order[] orders) {
+        Set<Integer> ids = new HashSet<Integer>();
+        for (Order order : orders)
+            Assert.assertTrue("duplicate " + order.getId(), ids.add(order.getId()));
+        return ids;
+    }
+
+    public static class Order {
+        private Integer id;
+        private Integer customer;
+        private Long amount;
+        private Key key;
+
+        public Order() {
+        }
+
+        public Order(Integer id, Integer customer, Long amount, Key key) {
+            this.id = id;
+            this.customer = customer;
+            this.amount = amount;
+            this.key = key;
+        }
+
+        @SpaceId(autoGenerate = false)
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        @SpaceIndex(type = SpaceIndexType.EQUAL)
+        public Integer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Integer customer) {
+            this.customer = customer;
+        }
+
+        @SpaceIndex(type = SpaceIndexType.EQUAL_AND_ORDERED)
+        public Long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Long amount) {
+            this.amount = amount;
+        }
+
+        @SpaceIndex(type = SpaceIndexType.EQUAL)
+        public Key getKey() {
+            return key;
+        }
+
+        public void setKey(Key key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Index value which can not be indexed when it is {@link #FAIL}.
+     */
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+        static final int FAIL = -1;
+
+        private int value;
+
+        public Key() {
+        }
+
+        public Key(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            if (value == FAIL)
+                throw new IllegalStateException("key can not be indexed");
+            return value;
+        }
+    }
+}
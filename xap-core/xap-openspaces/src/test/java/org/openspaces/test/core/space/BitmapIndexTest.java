@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.test.core.space;
+
+import com.gigaspaces.client.ChangeSet;
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares the results of queries on a type whose AND/OR conditions are resolved by bitmap indexes
+ * with the results of the same queries on an identical type with regular equality indexes.
+ */
+public class BitmapIndexTest {
+
+    private static final String BITMAP_TYPE = "BitmapItem";
+    private static final String INDEXED_TYPE = "IndexedItem";
+    private static final int ENTRIES = 20000;
+    private static final String[] SHAPES = {"circle", "square", "triangle", "hexagon"};
+
+    private static EmbeddedSpaceConfigurer configurer;
+    private static GigaSpace gigaSpace;
+
+    @BeforeClass
+    public static void createSpace() {
+        configurer = new EmbeddedSpaceConfigurer("bitmapIndex");
+        gigaSpace = new GigaSpaceConfigurer(configurer).gigaSpace();
+        gigaSpace.getTypeManager().registerTypeDescriptor(typeBuilder(BITMAP_TYPE)
+                .addBitmapPropertyIndex("color")
+                .addBitmapPropertyIndex("size")
+                .addBitmapPropertyIndex("shape")
+                .create());
+        gigaSpace.getTypeManager().registerTypeDescriptor(typeBuilder(INDEXED_TYPE)
+                .addPropertyIndex("color", SpaceIndexType.EQUAL)
+                .addPropertyIndex("size", SpaceIndexType.EQUAL)
+                .addPropertyIndex("shape", SpaceIndexType.EQUAL)
+                .create());
+
+        SpaceDocument[] bitmapItems = new SpaceDocument[1000];
+        SpaceDocument[] indexedItems = new SpaceDocument[bitmapItems.length];
+        for (int i = 0; i < ENTRIES; i++) {
+            String shape = i % 11 == 0 ? null : SHAPES[i % SHAPES.length];
+            bitmapItems[i % bitmapItems.length] = item(BITMAP_TYPE, i, i % 8, i % 5, shape);
+            indexedItems[i % indexedItems.length] = item(INDEXED_TYPE, i, i % 8, i % 5, shape);
+            if (i % bitmapItems.length == bitmapItems.length - 1) {
+                gigaSpace.writeMultiple(bitmapItems);
+                gigaSpace.writeMultiple(indexedItems);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void closeSpace() {
+        if (configurer != null)
+            configurer.close();
+    }
+
+    private static SpaceTypeDescriptorBuilder typeBuilder(String typeName) {
+        return new SpaceTypeDescriptorBuilder(typeName)
+                .idProperty("id", false)
+                .addFixedProperty("color", Integer.class)
+                .addFixedProperty("size", Integer.class)
+                .addFixedProperty("shape", String.class)
+                .addFixedProperty("amount", Long.class);
+    }
+
+    private static SpaceDocument item(String typeName, int id, int color, int size, String shape) {
+        return new SpaceDocument(typeName)
+                .setProperty("id", id)
+                .setProperty("color", color)
+                .setProperty("size", size)
+                .setProperty("shape", shape)
+                .setProperty("amount", (long) (id % 1000));
+    }
+
+    @Test
+    public void and() {
+        assertSameResults("color = ? AND size = ?", 3, 2);
+        assertSameResults("color = ? AND size = ? AND shape = ?", 5, 0, "square");
+        assertSameResults("color IN (?, ?, ?) AND shape = ?", 1, 2, 6, "circle");
+        // a condition which is not indexed is matched against the entries of the bitmap
+        assertSameResults("color = ? AND size = ? AND amount > ?", 4, 4, 500L);
+        // no match at all
+        assertSameResults("color = ? AND size = ?", 99, 2);
+        assertSameResults("color = ? AND size = ?", 0, 1);
+        Assert.assertTrue("bitmap indexes were not used", usesBitmap("color = ? AND size = ?", 3, 2));
+    }
+
+    @Test
+    public void or() {
+        assertSameResults("color = ? OR size = ?", 3, 2);
+        assertSameResults("color = ? OR size = ? OR shape = ?", 7, 1, "hexagon");
+        assertSameResults("color IN (?, ?) OR shape = ?", 0, 4, "triangle");
+        assertSameResults("color = ? OR size = ?", 99, 98);
+        assertSameResults("(color = ? AND size = ?) OR (shape = ? AND size = ?)", 2, 3, "square", 0);
+        Assert.assertTrue("bitmap indexes were not used", usesBitmap("color = ? OR size = ?", 3, 2));
+    }
+
+    @Test
+    public void afterUpdatesAndRemoves() {
+        // full updates of the indexed properties
+        for (int i = 0; i < ENTRIES; i += 7) {
+            gigaSpace.write(item(BITMAP_TYPE, i, 9, i % 3, "updated"));
+            gigaSpace.write(item(INDEXED_TYPE, i, 9, i % 3, "updated"));
+        }
+        // partial updates of a single indexed property
+        for (int i = 2; i < ENTRIES; i += 13) {
+            ChangeSet changeSet = new ChangeSet().set("size", 7);
+            gigaSpace.change(new IdQuery<SpaceDocument>(BITMAP_TYPE, i), changeSet);
+            gigaSpace.change(new IdQuery<SpaceDocument>(INDEXED_TYPE, i), changeSet);
+        }
+        for (int i = 1; i < ENTRIES; i += 17) {
+            gigaSpace.takeById(new IdQuery<SpaceDocument>(BITMAP_TYPE, i));
+            gigaSpace.takeById(new IdQuery<SpaceDocument>(INDEXED_TYPE, i));
+        }
+        // removes of the entries matched by the bitmap
+        Assert.assertEquals(ids(gigaSpace.takeMultiple(new SQLQuery<SpaceDocument>(INDEXED_TYPE, "color = ? AND size = ?", 6, 4))),
+                ids(gigaSpace.takeMultiple(new SQLQuery<SpaceDocument>(BITMAP_TYPE, "color = ? AND size = ?", 6, 4))));
+
+        assertSameResults("color = ? AND size = ?", 9, 1);
+        assertSameResults("color = ? AND size = ?", 6, 4);
+        assertSameResults("size = ? AND shape = ?", 7, "updated");
+        assertSameResults("color = ? OR size = ?", 9, 7);
+        assertSameResults("color IN (?, ?) AND size IN (?, ?)", 1, 9, 0, 7);
+        assertSameResults("color = ? OR shape = ?", 5, "updated");
+    }
+
+    private static void assertSameResults(String where, Object... parameters) {
+        Set<Integer> expected = ids(gigaSpace.readMultiple(new SQLQuery<SpaceDocument>(INDEXED_TYPE, where, parameters)));
+        Set<Integer> actual = ids(gigaSpace.readMultiple(new SQLQuery<SpaceDocument>(BITMAP_TYPE, where, parameters)));
+        Assert.assertEquals(where, expected, actual);
+    }
+
+    private static boolean usesBitmap(String where, Object... parameters) {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BITMAP_TYPE, where, parameters).withExplainPlan();
+        gigaSpace.readMultiple(query);
+        return query.getExplainPlan().toString().contains("BITMAP");
+    }
+
+    private static Set<Integer> ids(SpaceDocument[] items) {
+        Set<Integer> ids = new HashSet<Integer>();
+        for (SpaceDocument item : items)
+            Assert.assertTrue("duplicate " + item.getProperty("id"), ids.add(item.<Integer>getProperty("id")));
+        return ids;
+    }
+}
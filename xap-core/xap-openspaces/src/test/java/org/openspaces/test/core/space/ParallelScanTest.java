@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.test.core.space;
+
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceIndex;
+import com.gigaspaces.query.aggregators.AggregationResult;
+import com.gigaspaces.query.aggregators.AggregationSet;
+import com.j_spaces.core.Constants;
+import com.j_spaces.core.client.SQLQuery;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares read multiple and aggregate results of a space which scans large candidate lists in
+ * parallel with the results of a space which scans them on the operation thread.
+ */
+public class ParallelScanTest {
+
+    private static final int ENTRIES = 60000;
+    private static final int MIN_ENTRIES = 1000;
+
+    private static EmbeddedSpaceConfigurer parallelConfigurer;
+    private static EmbeddedSpaceConfigurer sequentialConfigurer;
+    private static GigaSpace parallel;
+    private static GigaSpace sequential;
+
+    @BeforeClass
+    public static void createSpaces() {
+        parallelConfigurer = new EmbeddedSpaceConfigurer("parallelScan")
+                .addProperty(Constants.SPACE_CONFIG_PREFIX + Constants.Engine.ENGINE_QUERY_PARALLEL_SCAN_THREADS, "4")
+                .addProperty(Constants.SPACE_CONFIG_PREFIX + Constants.Engine.ENGINE_QUERY_PARALLEL_SCAN_MIN_ENTRIES, String.valueOf(MIN_ENTRIES));
+        sequentialConfigurer = new EmbeddedSpaceConfigurer("sequentialScan");
+        parallel = new GigaSpaceConfigurer(parallelConfigurer).gigaSpace();
+        sequential = new GigaSpaceConfigurer(sequentialConfigurer).gigaSpace();
+
+        Item[] items = new Item[1000];
+        for (int i = 0; i < ENTRIES; i++) {
+            items[i % items.length] = new Item(i, i % 10, i % 7 == 0 ? null : (long) (i % 1234), "item" + (i % 100));
+            if (i % items.length == items.length - 1) {
+                parallel.writeMultiple(items);
+                sequential.writeMultiple(items);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void closeSpaces() {
+        if (parallelConfigurer != null)
+            parallelConfigurer.close();
+        if (sequentialConfigurer != null)
+            sequentialConfigurer.close();
+    }
+
+    @Test
+    public void readMultiple() {
+        assertSameResults(new SQLQuery<Item>(Item.class, "amount > ?", 600L));
+        assertSameResults(new SQLQuery<Item>(Item.class, "name = ? OR amount < ?", "item7", 10L));
+        assertSameResults(new SQLQuery<Item>(Item.class, "category = ? AND amount IS NULL", 3));
+        // no match at all
+        assertSameResults(new SQLQuery<Item>(Item.class, "amount > ?", 5000L));
+        Assert.assertTrue("no parallel scan thread was started", parallelScanThreadsStarted());
+    }
+
+    @Test
+    public void readMultipleWithMaxEntries() {
+        SQLQuery<Item> query = new SQLQuery<Item>(Item.class, "amount >= ?", 100L);
+        for (int maxEntries : new int[]{MIN_ENTRIES, 5000, 20000}) {
+            Item[] items = parallel.readMultiple(query, maxEntries);
+            Assert.assertEquals(maxEntries, items.length);
+            Set<Integer> ids = new HashSet<Integer>();
+            for (Item item : items) {
+                Assert.assertTrue(item.getAmount() >= 100L);
+                Assert.assertTrue("duplicate " + item.getId(), ids.add(item.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void aggregate() {
+        assertSameAggregation(new SQLQuery<Item>(Item.class, "amount > ?", 100L));
+        assertSameAggregation(new SQLQuery<Item>(Item.class, "name = ? OR amount IS NULL", "item3"));
+        assertSameAggregation(new SQLQuery<Item>(Item.class, "category = ?", 4));
+    }
+
+    @Test
+    public void afterUpdatesAndTakes() {
+        for (int i = 0; i < ENTRIES; i += 37) {
+            Item item = new Item(i, 11, (long) (i % 5000), "updated");
+            parallel.write(item);
+            sequential.write(item);
+        }
+        for (int i = 1; i < ENTRIES; i += 53) {
+            parallel.takeById(Item.class, i);
+            sequential.takeById(Item.class, i);
+        }
+        assertSameResults(new SQLQuery<Item>(Item.class, "amount > ?", 1000L));
+        assertSameResults(new SQLQuery<Item>(Item.class, "name = ?", "updated"));
+        assertSameAggregation(new SQLQuery<Item>(Item.class, "amount >= ?", 0L));
+    }
+
+    private static void assertSameResults(SQLQuery<Item> query) {
+        Set<Integer> expected = ids(sequential.readMultiple(query));
+        Assert.assertEquals(query.toString(), expected, ids(parallel.readMultiple(query)));
+    }
+
+    private static void assertSameAggregation(SQLQuery<Item> query) {
+        AggregationResult expected = sequential.aggregate(query, aggregationSet());
+        AggregationResult actual = parallel.aggregate(query, aggregationSet());
+        Assert.assertEquals(query.toString(), expected, actual);
+    }
+
+    private static AggregationSet aggregationSet() {
+        return new AggregationSet().count().count("amount").sum("amount").average("amount").minValue("amount").maxValue("id");
+    }
+
+    private static Set<Integer> ids(Item[] items) {
+        Set<Integer> ids = new HashSet<Integer>();
+        for (Item item : items)
+            Assert.assertTrue("duplicate " + item.getId(), ids.add(item.getId()));
+        return ids;
+    }
+
+    private static boolean parallelScanThreadsStarted() {
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            if (thread.getName().startsWith("parallelScan-parallel-scan-"))
+                return true;
+        return false;
+    }
+
+    public static class Item {
+        private Integer id;
+        private Integer category;
+        private Long amount;
+        private String name;
+
+        public Item() {
+        }
+
+        public Item(Integer id, Integer category, Long amount, String name) {
+            this.id = id;
+            this.category = category;
+            this.amount = amount;
+            this.name = name;
+        }
+
+        @SpaceId(autoGenerate = false)
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        @SpaceIndex
+        public Integer getCategory() {
+            return category;
+        }
+
+        public void setCategory(Integer category) {
+            this.category = category;
+        }
+
+        public Long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Long amount) {
+            this.amount = amount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.benchmarks.index;
+
+import com.gigaspaces.internal.backport.java.util.concurrent.FastConcurrentSkipListMap;
+import com.gigaspaces.internal.utils.collections.primitives.ConcurrentLongKeyBTreeMap;
+import com.gigaspaces.internal.utils.collections.primitives.ConcurrentLongKeyHashMap;
+import com.gigaspaces.metadata.index.OrderedIndexStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the data structures backing ordered indexes ({@link OrderedIndexStore}) on the
+ * operations performed by <tt>ExtendedIndexHandler</tt>: inserting and removing index values and
+ * scanning a range of them.
+ *
+ * <p>The maps are filled with the even keys of <tt>[0, 2*size)</tt>, inserts use odd keys and
+ * removes use existing keys, both in random order. Inserts and removes change the map, so they are
+ * measured in batches over a map which is rebuilt for every iteration.
+ *
+ * <pre>
+ * java -jar benchmarks.jar OrderedIndexStoreBenchmark -p size=1000000 -t 4
+ * </pre>
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class OrderedIndexStoreBenchmark {
+
+    private static final int BATCH_SIZE = 100000;
+
+    @Param({"SKIP_LIST", "BTREE"})
+    public OrderedIndexStore store;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"100"})
+    public int scanLength;
+
+    private ConcurrentNavigableMap<Object, Object> _map;
+    private long[] _insertKeys;
+    private long[] _removeKeys;
+    private final AtomicInteger _cursor = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setupKeys() {
+        Random random = new Random(size);
+        _insertKeys = shuffledKeys(random, 1);
+        _removeKeys = shuffledKeys(random, 0);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupMap() {
+        _map = store == OrderedIndexStore.BTREE
+                ? new ConcurrentLongKeyBTreeMap<Object>(ConcurrentLongKeyHashMap.KeyType.LONG)
+                : new FastConcurrentSkipListMap<Object, Object>();
+        for (long key = 0; key < 2L * size; key += 2)
+            _map.put(key, Boolean.TRUE);
+        _cursor.set(0);
+    }
+
+    private long[] shuffledKeys(Random random, long offset) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++)
+            keys[i] = 2L * i + offset;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    private long nextKey(long[] keys) {
+        return keys[_cursor.getAndIncrement() % keys.length];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(batchSize = BATCH_SIZE)
+    @Measurement(batchSize = BATCH_SIZE)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object insert() {
+        return _map.putIfAbsent(nextKey(_insertKeys), Boolean.TRUE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(batchSize = BATCH_SIZE)
+    @Measurement(batchSize = BATCH_SIZE)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean remove() {
+        return _map.remove(nextKey(_removeKeys), Boolean.TRUE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int rangeScan(Blackhole blackhole) {
+        return scan(_map, blackhole);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int descendingRangeScan(Blackhole blackhole) {
+        return scan(_map.descendingMap(), blackhole);
+    }
+
+    private int scan(ConcurrentNavigableMap<Object, Object> map, Blackhole blackhole) {
+        long start = 2L * ThreadLocalRandom.current().nextInt(size);
+        int count = 0;
+        for (Iterator<Object> iter = map.tailMap(start, true).values().iterator(); iter.hasNext() && count < scanLength; count++)
+            blackhole.consume(iter.next());
+        return count;
+    }
+}
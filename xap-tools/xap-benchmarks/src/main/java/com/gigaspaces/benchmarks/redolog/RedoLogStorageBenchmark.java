@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.benchmarks.redolog;
+
+import com.gigaspaces.internal.cluster.node.impl.backlog.BacklogWeightPolicyFactory;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.server.space.redolog.DBSwapRedoLogFileConfig;
+import com.gigaspaces.internal.server.space.redolog.storage.IRedoLogFileStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.SqliteRedoLogFileStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.StorageReadOnlyIterator;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferRedoLogFileConfig;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferRedoLogFileStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IPacketStreamSerializer;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap.MappedByteBufferStorageFactory;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorageFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the swap storages of the redo log on appending packets to the tail of the storage,
+ * deleting them from its head once they are confirmed and reading them back as a lagging target
+ * does: the random access file and memory mapped byte buffer storages and the sqlite storage.
+ *
+ * <p>The storages hold <tt>window</tt> packets, appending a batch deletes the same number of the
+ * oldest packets.
+ *
+ * <pre>
+ * java -jar benchmarks.jar RedoLogStorageBenchmark -p packetSize=1024
+ * </pre>
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RedoLogStorageBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    public enum StorageType {RAF, MEMORY_MAPPED, SQLITE}
+
+    @Param({"RAF", "MEMORY_MAPPED", "SQLITE"})
+    public StorageType storageType;
+
+    @Param({"128", "1024"})
+    public int packetSize;
+
+    @Param({"100000"})
+    public int window;
+
+    private IRedoLogFileStorage<BenchmarkPacket> _storage;
+    private List<BenchmarkPacket> _batch;
+    private long _nextKey;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        _storage = createStorage();
+        _nextKey = 0;
+        _batch = new ArrayList<BenchmarkPacket>(BATCH_SIZE);
+        while (_nextKey < window)
+            _storage.appendBatch(nextBatch());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        _storage.close();
+    }
+
+    private IRedoLogFileStorage<BenchmarkPacket> createStorage() {
+        switch (storageType) {
+            case RAF:
+            case MEMORY_MAPPED: {
+                ByteBufferRedoLogFileConfig<BenchmarkPacket> config = new ByteBufferRedoLogFileConfig<BenchmarkPacket>();
+                config.setPacketStreamSerializer(new BenchmarkPacketSerializer());
+                String fileName = "redolog-benchmark";
+                return new ByteBufferRedoLogFileStorage<BenchmarkPacket>(storageType == StorageType.RAF
+                        ? new RAFByteBufferStorageFactory(fileName)
+                        : new MappedByteBufferStorageFactory(fileName, config.getMaxSizePerSegment()),
+                        config, BacklogWeightPolicyFactory.create("fixed"));
+            }
+            case SQLITE: {
+                DBSwapRedoLogFileConfig<BenchmarkPacket> config = new DBSwapRedoLogFileConfig<BenchmarkPacket>("benchmark", "redolog-benchmark", 0);
+                config.setPacketStreamSerializer(new BenchmarkPacketSerializer());
+                return new SqliteRedoLogFileStorage<BenchmarkPacket>(config);
+            }
+            default:
+                throw new IllegalStateException("Unsupported storage type " + storageType);
+        }
+    }
+
+    private List<BenchmarkPacket> nextBatch() {
+        _batch.clear();
+        for (int i = 0; i < BATCH_SIZE; i++)
+            _batch.add(new BenchmarkPacket(_nextKey++, packetSize));
+        return _batch;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void append() throws Exception {
+        _storage.appendBatch(nextBatch());
+        _storage.deleteOldestPackets(BATCH_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void read(Blackhole blackhole) throws Exception {
+        long fromIndex = ThreadLocalRandom.current().nextLong(_storage.size() - BATCH_SIZE);
+        StorageReadOnlyIterator<BenchmarkPacket> iterator = _storage.readOnlyIterator(fromIndex);
+        try {
+            for (int i = 0; i < BATCH_SIZE && iterator.hasNext(); i++)
+                blackhole.consume(iterator.next());
+        } finally {
+            iterator.close();
+        }
+    }
+
+    /**
+     * A packet with an opaque payload, the storages only use its key and weight.
+     */
+    public static class BenchmarkPacket implements IReplicationOrderedPacket {
+        private static final long serialVersionUID = 1L;
+
+        private long _key;
+        private byte[] _payload;
+
+        public BenchmarkPacket() {
+        }
+
+        public BenchmarkPacket(long key, int size) {
+            this._key = key;
+            this._payload = new byte[size];
+        }
+
+        @Override
+        public IReplicationPacketData<?> getData() {
+            return null;
+        }
+
+        @Override
+        public long getKey() {
+            return _key;
+        }
+
+        @Override
+        public long getEndKey() {
+            return _key;
+        }
+
+        @Override
+        public boolean isDataPacket() {
+            return true;
+        }
+
+        @Override
+        public boolean isDiscardedPacket() {
+            return false;
+        }
+
+        @Override
+        public BenchmarkPacket clone() {
+            BenchmarkPacket clone = new BenchmarkPacket();
+            clone._key = _key;
+            clone._payload = _payload;
+            return clone;
+        }
+
+        @Override
+        public IReplicationOrderedPacket cloneWithNewData(IReplicationPacketData<?> newData) {
+            return clone();
+        }
+
+        @Override
+        public int getWeight() {
+            return 1;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            writeToSwap(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            readFromSwap(in);
+        }
+
+        @Override
+        public void writeToSwap(ObjectOutput out) throws IOException {
+            out.writeLong(_key);
+            out.writeInt(_payload.length);
+            out.write(_payload);
+        }
+
+        @Override
+        public void readFromSwap(ObjectInput in) throws IOException, ClassNotFoundException {
+            _key = in.readLong();
+            _payload = new byte[in.readInt()];
+            in.readFully(_payload);
+        }
+    }
+
+    private static class BenchmarkPacketSerializer implements IPacketStreamSerializer<BenchmarkPacket> {
+        @Override
+        public void writePacketToStream(ObjectOutput output, BenchmarkPacket packet) throws IOException {
+            packet.writeToSwap(output);
+        }
+
+        @Override
+        public BenchmarkPacket readPacketFromStream(ObjectInput input) throws IOException, ClassNotFoundException {
+            BenchmarkPacket packet = new BenchmarkPacket();
+            packet.readFromSwap(input);
+            return packet;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.benchmarks.space;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.aggregators.AggregationSet;
+import com.gigaspaces.query.aggregators.GroupByAggregator;
+import com.j_spaces.core.client.SQLQuery;
+import com.j_spaces.kernel.SystemProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures aggregations over the documents of a category (matched by the equality index) and over
+ * all documents. Aggregations over all documents can be compared with the columnar store of the type
+ * by adding <tt>-p columnarStorage=true,false</tt>. Matched entries are aggregated in batches of
+ * <tt>aggregationBatchSize</tt> entries (1 aggregates them one by one), scans over all documents can
+ * be split between threads by adding <tt>-p parallelScanThreads=0,8</tt>.
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AggregationBenchmark {
+
+    @Param({"1", "256"})
+    public int aggregationBatchSize;
+
+    @Setup(Level.Trial)
+    public void setBatchSize() {
+        System.setProperty(SystemProperties.ENGINE_AGGREGATION_BATCH_SIZE, String.valueOf(aggregationBatchSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void clearProperty() {
+        System.clearProperty(SystemProperties.ENGINE_AGGREGATION_BATCH_SIZE);
+    }
+
+    @Benchmark
+    public Object sumByCategory(EmbeddedSpaceState space) {
+        return space.getGigaSpace().aggregate(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, "category = ?", space.randomCategory()),
+                new AggregationSet().sum("amount").count());
+    }
+
+    @Benchmark
+    public Object minMaxAverageAll(EmbeddedSpaceState space) {
+        return space.getGigaSpace().aggregate(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, ""),
+                new AggregationSet().minValue("amount").maxValue("amount").average("amount"));
+    }
+
+    @Benchmark
+    public Object groupByCategory(EmbeddedSpaceState space) {
+        return space.getGigaSpace().aggregate(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, ""),
+                new AggregationSet().groupBy(new GroupByAggregator().groupBy("category").selectSum("amount").selectCount()));
+    }
+}
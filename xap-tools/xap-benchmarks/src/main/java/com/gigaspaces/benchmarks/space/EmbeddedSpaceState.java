@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.benchmarks.space;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.metadata.index.OrderedIndexStore;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+import com.j_spaces.core.Constants;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An embedded space shared by the threads of a benchmark, preloaded with <tt>size</tt> documents of
+ * the {@value #TYPE_NAME} type.
+ *
+ * <p>Document <tt>i</tt> has id <tt>i</tt>, <tt>category = i % categories</tt> (equality index),
+ * <tt>timestamp = i</tt> (ordered index, backed by <tt>orderedStore</tt>), an <tt>amount</tt> and a
+ * <tt>payload</tt> string of <tt>payloadSize</tt> characters. The numeric properties are also kept
+ * in columns when <tt>columnarStorage</tt> is set. Large scans are split between
+ * <tt>parallelScanThreads</tt> threads of the space (0 scans on the operation thread).
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+public class EmbeddedSpaceState {
+
+    public static final String TYPE_NAME = "BenchmarkEntry";
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"1000"})
+    public int categories;
+
+    @Param({"100"})
+    public int payloadSize;
+
+    @Param({"SKIP_LIST"})
+    public OrderedIndexStore orderedStore;
+
+    @Param({"false"})
+    public boolean columnarStorage;
+
+    @Param({"0"})
+    public int parallelScanThreads;
+
+    private EmbeddedSpaceConfigurer _spaceConfigurer;
+    private GigaSpace _gigaSpace;
+    private String _payload;
+
+    @Setup(Level.Trial)
+    public void startSpace() {
+        _spaceConfigurer = new EmbeddedSpaceConfigurer(newSpaceName())
+                .addSpaceType(createTypeDescriptor(orderedStore, columnarStorage))
+                .addProperty(Constants.SPACE_CONFIG_PREFIX + Constants.Engine.ENGINE_QUERY_PARALLEL_SCAN_THREADS, String.valueOf(parallelScanThreads));
+        _gigaSpace = new GigaSpaceConfigurer(_spaceConfigurer).gigaSpace();
+        _payload = createPayload(payloadSize);
+
+        SpaceDocument[] batch = new SpaceDocument[LOAD_BATCH_SIZE];
+        for (int i = 0; i < size; i += LOAD_BATCH_SIZE) {
+            int count = Math.min(LOAD_BATCH_SIZE, size - i);
+            SpaceDocument[] entries = count == LOAD_BATCH_SIZE ? batch : new SpaceDocument[count];
+            for (int j = 0; j < count; j++)
+                entries[j] = newEntry(i + j);
+            _gigaSpace.writeMultiple(entries);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopSpace() {
+        if (_spaceConfigurer != null)
+            _spaceConfigurer.close();
+    }
+
+    public GigaSpace getGigaSpace() {
+        return _gigaSpace;
+    }
+
+    public SpaceDocument newEntry(long id) {
+        return createEntry(id, categories, _payload);
+    }
+
+    static String newSpaceName() {
+        return "benchmark-" + Long.toHexString(System.nanoTime());
+    }
+
+    static SpaceTypeDescriptor createTypeDescriptor(OrderedIndexStore orderedStore, boolean columnarStorage) {
+        return new SpaceTypeDescriptorBuilder(TYPE_NAME)
+                .addFixedProperty("id", Long.class)
+                .addFixedProperty("category", Integer.class)
+                .addFixedProperty("timestamp", Long.class)
+                .addFixedProperty("amount", Double.class)
+                .addFixedProperty("payload", String.class)
+                .idProperty("id", false)
+                .addPropertyIndex("category", SpaceIndexType.EQUAL)
+                .addPropertyIndex("timestamp", SpaceIndexType.ORDERED, false, orderedStore)
+                .columnarStorage(columnarStorage)
+                .create();
+    }
+
+    static String createPayload(int payloadSize) {
+        StringBuilder payload = new StringBuilder(payloadSize);
+        for (int i = 0; i < payloadSize; i++)
+            payload.append((char) ('a' + i % 26));
+        return payload.toString();
+    }
+
+    static SpaceDocument createEntry(long id, int categories, String payload) {
+        return new SpaceDocument(TYPE_NAME)
+                .setProperty("id", id)
+                .setProperty("category", (int) (id % categories))
+                .setProperty("timestamp", id)
+                .setProperty("amount", (double) (id % 100))
+                .setProperty("payload", payload);
+    }
+
+    /**
+     * @return the id of a random preloaded document
+     */
+    public long randomId() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+
+    public int randomCategory() {
+        return ThreadLocalRandom.current().nextInt(categories);
+    }
+}
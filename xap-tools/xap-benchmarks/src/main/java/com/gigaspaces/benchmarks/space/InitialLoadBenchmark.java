@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.benchmarks.space;
+
+import com.gigaspaces.datasource.DataIterator;
+import com.gigaspaces.datasource.SpaceDataSource;
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.index.OrderedIndexStore;
+import com.j_spaces.kernel.SystemProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.AllInCachePolicy;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures starting a space which loads <tt>size</tt> documents from a space data source, inserting
+ * them to cache in batches of <tt>initialLoadBatchSize</tt> entries (1 inserts and indexes them one
+ * by one).
+ *
+ * <pre>
+ * java -jar benchmarks.jar InitialLoadBenchmark -p size=1000000 -p initialLoadBatchSize=1,10000
+ * </pre>
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class InitialLoadBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"1000"})
+    public int categories;
+
+    @Param({"100"})
+    public int payloadSize;
+
+    @Param({"SKIP_LIST"})
+    public OrderedIndexStore orderedStore;
+
+    @Param({"1", "10000"})
+    public int initialLoadBatchSize;
+
+    private SpaceDocument[] _documents;
+    private EmbeddedSpaceConfigurer _spaceConfigurer;
+
+    @Setup(Level.Trial)
+    public void createDocuments() {
+        System.setProperty(SystemProperties.CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE, String.valueOf(initialLoadBatchSize));
+        String payload = EmbeddedSpaceState.createPayload(payloadSize);
+        _documents = new SpaceDocument[size];
+        for (int i = 0; i < size; i++)
+            _documents[i] = EmbeddedSpaceState.createEntry(i, categories, payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void clearProperty() {
+        System.clearProperty(SystemProperties.CACHE_MANAGER_INITIAL_LOAD_BATCH_SIZE);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopSpace() {
+        if (_spaceConfigurer != null)
+            _spaceConfigurer.close();
+        _spaceConfigurer = null;
+    }
+
+    @Benchmark
+    public GigaSpace initialLoad() {
+        _spaceConfigurer = new EmbeddedSpaceConfigurer(EmbeddedSpaceState.newSpaceName())
+                .addSpaceType(EmbeddedSpaceState.createTypeDescriptor(orderedStore, false))
+                .cachePolicy(new AllInCachePolicy())
+                .spaceDataSource(new DocumentsDataSource(_documents));
+        return new GigaSpaceConfigurer(_spaceConfigurer).gigaSpace();
+    }
+
+    private static class DocumentsDataSource extends SpaceDataSource {
+        private final SpaceDocument[] _documents;
+
+        private DocumentsDataSource(SpaceDocument[] documents) {
+            _documents = documents;
+        }
+
+        @Override
+        public DataIterator<Object> initialDataLoad() {
+            return new DataIterator<Object>() {
+                private int _next;
+
+                @Override
+                public boolean hasNext() {
+                    return _next < _documents.length;
+                }
+
+                @Override
+                public Object next() {
+                    return _documents[_next++];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.benchmarks.space;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reads by id, single and multiple reads matched by the equality index, and range reads
+ * matched by the ordered index. Run with <tt>-p orderedStore=SKIP_LIST,BTREE</tt> to compare the
+ * ordered index stores.
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReadBenchmark {
+
+    @Param({"100"})
+    public int rangeSize;
+
+    @Benchmark
+    public Object readById(EmbeddedSpaceState space) {
+        return space.getGigaSpace().readById(new IdQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, space.randomId()));
+    }
+
+    @Benchmark
+    public Object readByIndexedTemplate(EmbeddedSpaceState space) {
+        return space.getGigaSpace().read(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, "category = ?", space.randomCategory()));
+    }
+
+    @Benchmark
+    public Object[] readMultiple(EmbeddedSpaceState space) {
+        return space.getGigaSpace().readMultiple(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, "category = ?", space.randomCategory()));
+    }
+
+    @Benchmark
+    public Object[] rangeRead(EmbeddedSpaceState space) {
+        long from = ThreadLocalRandom.current().nextInt(Math.max(1, space.size - rangeSize));
+        return space.getGigaSpace().readMultiple(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME,
+                "timestamp >= ? AND timestamp < ?", from, from + rangeSize));
+    }
+}
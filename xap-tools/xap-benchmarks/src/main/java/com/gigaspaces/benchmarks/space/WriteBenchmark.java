@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.benchmarks.space;
+
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.document.SpaceDocument;
+import com.j_spaces.core.client.SQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures writing new documents, one by one and in batches of {@value #BATCH_SIZE}, and updating
+ * existing ones. Documents written by an iteration are cleared when it ends, so the space size stays
+ * close to <tt>size</tt>.
+ *
+ * @since 16.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WriteBenchmark {
+
+    public static final int BATCH_SIZE = 10000;
+
+    private final AtomicLong _nextId = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void resetIds(EmbeddedSpaceState space) {
+        _nextId.set(space.size);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearWritten(EmbeddedSpaceState space) {
+        space.getGigaSpace().clear(new SQLQuery<SpaceDocument>(EmbeddedSpaceState.TYPE_NAME, "id >= ?", (long) space.size));
+    }
+
+    @Benchmark
+    public Object write(EmbeddedSpaceState space) {
+        return space.getGigaSpace().write(space.newEntry(_nextId.getAndIncrement()), WriteModifiers.WRITE_ONLY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object writeMultiple(EmbeddedSpaceState space) {
+        SpaceDocument[] entries = new SpaceDocument[BATCH_SIZE];
+        long firstId = _nextId.getAndAdd(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            entries[i] = space.newEntry(firstId + i);
+        return space.getGigaSpace().writeMultiple(entries, WriteModifiers.WRITE_ONLY);
+    }
+
+    @Benchmark
+    public Object update(EmbeddedSpaceState space) {
+        return space.getGigaSpace().write(space.newEntry(space.randomId()), WriteModifiers.UPDATE_ONLY);
+    }
+}